@@ -18,6 +18,7 @@ import org.springframework.util.Assert;
 import won.bot.framework.bot.Bot;
 import won.bot.framework.bot.BotLifecyclePhase;
 import won.bot.framework.bot.context.BotContextWrapper;
+import won.bot.framework.bot.context.KnownUriListener;
 import won.bot.framework.component.atomproducer.AtomProducer;
 import won.bot.framework.component.nodeurisource.NodeURISource;
 import won.matcher.component.MatcherNodeURISource;
@@ -27,6 +28,7 @@ import won.protocol.message.sender.WonMessageSender;
 import won.protocol.service.WonNodeInformationService;
 import won.protocol.util.linkeddata.LinkedDataSource;
 
+import java.io.Flushable;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 
@@ -79,6 +81,22 @@ public abstract class BaseBot implements Bot {
         return this.botContextWrapper.getBotContext().isNodeKnown(wonNodeURI);
     }
 
+    /**
+     * Registers a listener that is notified whenever this bot remembers or forgets
+     * an atom or node URI.
+     */
+    public void addKnownUriListener(KnownUriListener listener) {
+        if (this.botContextWrapper != null) {
+            this.botContextWrapper.addKnownUriListener(listener);
+        }
+    }
+
+    public void removeKnownUriListener(KnownUriListener listener) {
+        if (this.botContextWrapper != null) {
+            this.botContextWrapper.removeKnownUriListener(listener);
+        }
+    }
+
     /**
      * Override this method to add additional initialization routines.
      */
@@ -107,6 +125,10 @@ public abstract class BaseBot implements Bot {
         if (!this.lifecyclePhase.isActive())
             return;
         this.lifecyclePhase = BotLifecyclePhase.SHUTTING_DOWN;
+        // write changes a caching bot context may still hold back
+        if (botContextWrapper.getBotContext() instanceof Flushable) {
+            ((Flushable) botContextWrapper.getBotContext()).flush();
+        }
         this.lifecyclePhase = BotLifecyclePhase.DOWN;
     }
 
@@ -2,12 +2,14 @@ package won.bot.framework.bot.context;
 
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class BotContextWrapper {
     private final String botName;
     private final String atomCreateListName;
     private final String atomUriAssociation;
     private BotContext botContext;
+    private final List<KnownUriListener> knownUriListeners = new CopyOnWriteArrayList<>();
 
     public BotContextWrapper(BotContext botContext, String botName) {
         this.botContext = botContext;
@@ -41,4 +43,37 @@ public class BotContextWrapper {
     public List<URI> getAtomCreateList() {
         return getBotContext().getNamedAtomUriList(atomCreateListName);
     }
+
+    public void addKnownUriListener(KnownUriListener listener) {
+        knownUriListeners.add(listener);
+    }
+
+    public void removeKnownUriListener(KnownUriListener listener) {
+        knownUriListeners.remove(listener);
+    }
+
+    /**
+     * Adds the atom uri to the named atom uri list and notifies the listeners.
+     */
+    public void rememberAtomUri(URI uri, String name) {
+        getBotContext().appendToNamedAtomUriList(uri, name);
+        knownUriListeners.forEach(l -> l.onAtomUriRemembered(uri));
+    }
+
+    /**
+     * Removes the atom uri from the named atom uri list and notifies the
+     * listeners.
+     */
+    public void forgetAtomUri(URI uri, String name) {
+        getBotContext().removeAtomUriFromNamedAtomUriList(uri, name);
+        knownUriListeners.forEach(l -> l.onAtomUriForgotten(uri));
+    }
+
+    /**
+     * Stores the node uri and notifies the listeners.
+     */
+    public void rememberNodeUri(URI uri) {
+        getBotContext().rememberNodeUri(uri);
+        knownUriListeners.forEach(l -> l.onNodeUriRemembered(uri));
+    }
 }
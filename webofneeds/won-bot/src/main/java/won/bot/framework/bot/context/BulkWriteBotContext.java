@@ -0,0 +1,31 @@
+package won.bot.framework.bot.context;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Bot context that can store several values with one operation. Used by
+ * {@link CachingBotContext} to write accumulated changes to the backing store.
+ */
+public interface BulkWriteBotContext extends BotContext {
+    /**
+     * Add all atom uris to a named atom uri list. Uris that are already in the
+     * list are not added again, so the operation can be repeated.
+     *
+     * @param uris
+     * @param name
+     */
+    void appendAllToNamedAtomUriList(Collection<URI> uris, String name);
+
+    /**
+     * Put all key/value pairs in the collection, replacing existing values for the
+     * keys. If the operation fails, values that have been written must not be
+     * lost, so the operation can be repeated.
+     *
+     * @param collectionName
+     * @param values
+     */
+    void saveAllToObjectMap(String collectionName, Map<String, Serializable> values);
+}
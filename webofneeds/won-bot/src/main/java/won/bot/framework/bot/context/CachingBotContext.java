@@ -0,0 +1,672 @@
+package won.bot.framework.bot.context;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.Flushable;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind caching decorator for a bot context. Collections are loaded
+ * from the backing store when they are first read and kept in memory, so that
+ * membership checks and lookups are answered from hash based indexes. Changes
+ * are applied to the cache immediately and written to the backing store later,
+ * when {@link #flush()} is called: periodically (if a task scheduler is set),
+ * when too many changes are pending, before the backing store has to be read
+ * and when the bot shuts down. Repeated writes to the same key are coalesced,
+ * and if the backing store is a {@link BulkWriteBotContext}, new atom uris and
+ * object map entries are written with bulk operations.
+ * <p>
+ * A flush takes the pending changes under the lock of the context and writes
+ * them to the backing store after releasing it, so the cache can be used while
+ * the changes are written. Only reads that have to go to the backing store wait
+ * for a running flush.
+ * <p>
+ * Named atom uri lists are cached as sets, i.e. an uri is contained at most
+ * once in each list.
+ * <p>
+ * The number of requests answered from the cache and the number of round trips
+ * to the backing store are counted (see {@link #getCacheHits()} and
+ * {@link #getStoreRoundTrips()}).
+ */
+public class CachingBotContext implements BotContext, Flushable {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int DEFAULT_MAX_PENDING_WRITES = 1000;
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 5000;
+    private final BotContext store;
+    private final AtomicLong cacheHits = new AtomicLong(0);
+    private final AtomicLong storeRoundTrips = new AtomicLong(0);
+    private int maxPendingWrites = DEFAULT_MAX_PENDING_WRITES;
+    private long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+    private TaskScheduler taskScheduler;
+    private ScheduledFuture<?> scheduledFlush;
+    // cached state
+    private Set<URI> allAtomUris = null; // union of all named atom uri lists, null if not loaded yet
+    private final Set<URI> uncertainAtomUris = new HashSet<>(); // removed from a list, maybe still in another
+    private final Map<String, Set<URI>> atomUriLists = new HashMap<>();
+    private final Set<URI> nodeUris = new HashSet<>();
+    private final Map<String, Map<String, Object>> objectMaps = new HashMap<>();
+    private final Map<String, Map<String, List<Object>>> listMaps = new HashMap<>();
+    // pending writes
+    private int pendingWriteCount = 0;
+    private PendingWrites pendingWrites = new PendingWrites();
+    // writes taken by a flush, guarded by the flush lock. The flush lock is only
+    // acquired while holding the lock of the context, so writes are flushed in the
+    // order they were made
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final PendingWrites flushingWrites = new PendingWrites();
+    private volatile int flushingWriteCount = 0;
+
+    public CachingBotContext(BotContext store) {
+        Objects.requireNonNull(store);
+        this.store = store;
+    }
+
+    /**
+     * Starts flushing periodically if a task scheduler is set.
+     */
+    public synchronized void start() {
+        if (taskScheduler != null && scheduledFlush == null) {
+            scheduledFlush = taskScheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis);
+        }
+    }
+
+    /**
+     * Stops flushing periodically and writes all pending changes.
+     */
+    public void stop() {
+        synchronized (this) {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+        }
+        flush();
+    }
+
+    // ===============================
+    // application specific methods
+    // ===============================
+    @Override
+    public synchronized Set<URI> retrieveAllAtomUris() {
+        return new HashSet<>(getAllAtomUris());
+    }
+
+    @Override
+    public synchronized boolean isAtomKnown(URI atomURI) {
+        if (uncertainAtomUris.contains(atomURI)) {
+            flush();
+            storeRoundTrips.incrementAndGet();
+            boolean known = store.isAtomKnown(atomURI);
+            uncertainAtomUris.remove(atomURI);
+            if (known && allAtomUris != null) {
+                allAtomUris.add(atomURI);
+            }
+            return known;
+        }
+        boolean loaded = allAtomUris != null;
+        boolean known = getAllAtomUris().contains(atomURI);
+        if (loaded) {
+            cacheHits.incrementAndGet();
+        }
+        return known;
+    }
+
+    @Override
+    public void removeAtomUriFromNamedAtomUriList(URI uri, String name) {
+        synchronized (this) {
+            Set<URI> list = atomUriLists.get(name);
+            if (list != null) {
+                list.remove(uri);
+            }
+            if (allAtomUris != null && allAtomUris.contains(uri)
+                            && atomUriLists.values().stream().noneMatch(l -> l.contains(uri))) {
+                // we can't tell if the uri is still in a list we have not loaded
+                allAtomUris.remove(uri);
+                uncertainAtomUris.add(uri);
+            }
+            addPendingWrite(pendingWrites.atomUriWrites.computeIfAbsent(name, k -> new LinkedHashMap<>()).put(uri,
+                            false));
+        }
+        flushIfTooManyPendingWrites();
+    }
+
+    @Override
+    public void appendToNamedAtomUriList(URI uri, String name) {
+        synchronized (this) {
+            Set<URI> list = atomUriLists.get(name);
+            if (list != null) {
+                list.add(uri);
+            }
+            if (allAtomUris != null) {
+                allAtomUris.add(uri);
+            }
+            uncertainAtomUris.remove(uri);
+            addPendingWrite(pendingWrites.atomUriWrites.computeIfAbsent(name, k -> new LinkedHashMap<>()).put(uri,
+                            true));
+        }
+        flushIfTooManyPendingWrites();
+    }
+
+    @Override
+    public synchronized boolean isInNamedAtomUriList(URI uri, String name) {
+        return getAtomUriList(name).contains(uri);
+    }
+
+    @Override
+    public synchronized List<URI> getNamedAtomUriList(String name) {
+        return new LinkedList<>(getAtomUriList(name));
+    }
+
+    @Override
+    public synchronized Object getSingleValue(String name) {
+        flush();
+        storeRoundTrips.incrementAndGet();
+        return store.getSingleValue(name);
+    }
+
+    @Override
+    public synchronized void setSingleValue(String name, Serializable value) {
+        flush();
+        storeRoundTrips.incrementAndGet();
+        store.setSingleValue(name, value);
+        // some stores keep single values in the object map of the same name
+        objectMaps.remove(name);
+    }
+
+    @Override
+    public synchronized boolean isNodeKnown(URI wonNodeURI) {
+        Boolean pending = pendingWrites.nodeUriWrites.get(wonNodeURI);
+        if (nodeUris.contains(wonNodeURI) || pending != null) {
+            cacheHits.incrementAndGet();
+            return nodeUris.contains(wonNodeURI);
+        }
+        flush();
+        storeRoundTrips.incrementAndGet();
+        boolean known = store.isNodeKnown(wonNodeURI);
+        if (known) {
+            nodeUris.add(wonNodeURI);
+        }
+        return known;
+    }
+
+    @Override
+    public void rememberNodeUri(URI uri) {
+        synchronized (this) {
+            nodeUris.add(uri);
+            addPendingWrite(pendingWrites.nodeUriWrites.put(uri, true));
+        }
+        flushIfTooManyPendingWrites();
+    }
+
+    @Override
+    public void removeNodeUri(URI uri) {
+        synchronized (this) {
+            nodeUris.remove(uri);
+            addPendingWrite(pendingWrites.nodeUriWrites.put(uri, false));
+        }
+        flushIfTooManyPendingWrites();
+    }
+
+    // ===============================
+    // generic methods
+    // ===============================
+    @Override
+    public synchronized void dropCollection(String collectionName) {
+        flush();
+        storeRoundTrips.incrementAndGet();
+        store.dropCollection(collectionName);
+        objectMaps.remove(collectionName);
+        listMaps.remove(collectionName);
+        if (atomUriLists.remove(collectionName) != null || allAtomUris != null) {
+            // named atom uri lists may be stored as collections
+            allAtomUris = null;
+            uncertainAtomUris.clear();
+        }
+    }
+
+    @Override
+    public void saveToObjectMap(String collectionName, String key, Serializable value) {
+        synchronized (this) {
+            Map<String, Object> objectMap = objectMaps.get(collectionName);
+            if (objectMap != null) {
+                objectMap.put(key, value);
+            }
+            addPendingWrite(pendingWrites.objectMapWrites.computeIfAbsent(collectionName, k -> new LinkedHashMap<>())
+                            .put(key, Optional.of(value)));
+        }
+        flushIfTooManyPendingWrites();
+    }
+
+    @Override
+    public synchronized Object loadFromObjectMap(String collectionName, String key) {
+        return getObjectMap(collectionName).get(key);
+    }
+
+    @Override
+    public synchronized Map<String, Object> loadObjectMap(String collectionName) {
+        return new HashMap<>(getObjectMap(collectionName));
+    }
+
+    @Override
+    public void removeFromObjectMap(String collectionName, String key) {
+        synchronized (this) {
+            Map<String, Object> objectMap = objectMaps.get(collectionName);
+            if (objectMap != null) {
+                objectMap.remove(key);
+            }
+            addPendingWrite(pendingWrites.objectMapWrites.computeIfAbsent(collectionName, k -> new LinkedHashMap<>())
+                            .put(key, Optional.empty()));
+        }
+        flushIfTooManyPendingWrites();
+    }
+
+    @Override
+    public void addToListMap(String collectionName, String key, Serializable... values) {
+        synchronized (this) {
+            Map<String, List<Object>> listMap = listMaps.get(collectionName);
+            if (listMap != null) {
+                listMap.computeIfAbsent(key, k -> new LinkedList<>()).addAll(Arrays.asList(values));
+            }
+            Deque<ListMapWrite> listMapWrites = pendingWrites.listMapWrites;
+            if (!listMapWrites.isEmpty() && listMapWrites.getLast().isAddTo(collectionName, key)) {
+                // merge with the previous write as it adds to the same list
+                listMapWrites.getLast().values.addAll(Arrays.asList(values));
+            } else {
+                listMapWrites.add(new ListMapWrite(ListMapWrite.Kind.ADD, collectionName, key, values));
+            }
+            addPendingWrite(null);
+        }
+        flushIfTooManyPendingWrites();
+    }
+
+    @Override
+    public void removeFromListMap(String collectionName, String key, Serializable... values) {
+        synchronized (this) {
+            Map<String, List<Object>> listMap = listMaps.get(collectionName);
+            if (listMap != null && listMap.containsKey(key)) {
+                listMap.get(key).removeAll(Arrays.asList(values));
+            }
+            pendingWrites.listMapWrites
+                            .add(new ListMapWrite(ListMapWrite.Kind.REMOVE_VALUES, collectionName, key, values));
+            addPendingWrite(null);
+        }
+        flushIfTooManyPendingWrites();
+    }
+
+    @Override
+    public void removeLeavesFromListMap(String collectionName, Serializable... values) {
+        synchronized (this) {
+            Map<String, List<Object>> listMap = listMaps.get(collectionName);
+            if (listMap != null) {
+                listMap.values().forEach(l -> l.removeAll(Arrays.asList(values)));
+            }
+            pendingWrites.listMapWrites
+                            .add(new ListMapWrite(ListMapWrite.Kind.REMOVE_LEAVES, collectionName, null, values));
+            addPendingWrite(null);
+        }
+        flushIfTooManyPendingWrites();
+    }
+
+    @Override
+    public synchronized List<Object> loadFromListMap(String collectionName, String key) {
+        List<Object> list = getListMap(collectionName).get(key);
+        return list == null ? new LinkedList<>() : new LinkedList<>(list);
+    }
+
+    @Override
+    public synchronized Map<String, List<Object>> loadListMap(String collectionName) {
+        Map<String, List<Object>> copy = new HashMap<>();
+        getListMap(collectionName).forEach((k, v) -> copy.put(k, new LinkedList<>(v)));
+        return copy;
+    }
+
+    @Override
+    public void removeFromListMap(String collectionName, String key) {
+        synchronized (this) {
+            Map<String, List<Object>> listMap = listMaps.get(collectionName);
+            if (listMap != null) {
+                listMap.remove(key);
+            }
+            pendingWrites.listMapWrites.add(new ListMapWrite(ListMapWrite.Kind.REMOVE_KEY, collectionName, key));
+            addPendingWrite(null);
+        }
+        flushIfTooManyPendingWrites();
+    }
+
+    // ===============================
+    // write-behind
+    // ===============================
+    /**
+     * Writes all pending changes to the backing store. The changes are taken while
+     * holding the lock of the context and written after releasing it, unless the
+     * caller holds the lock. Each change is removed as soon as it has been
+     * written, so if the backing store fails, the next flush only retries the
+     * changes that have not been written yet, before the ones made since.
+     */
+    @Override
+    public void flush() {
+        synchronized (this) {
+            flushLock.lock();
+            if (pendingWriteCount > 0) {
+                flushingWrites.addAll(pendingWrites);
+                pendingWrites = new PendingWrites();
+                pendingWriteCount = 0;
+            }
+            flushingWriteCount = flushingWrites.count();
+        }
+        try {
+            if (flushingWriteCount == 0) {
+                return;
+            }
+            logger.debug("flushing {} pending bot context writes", flushingWriteCount);
+            flushAtomUriWrites(flushingWrites.atomUriWrites);
+            flushNodeUriWrites(flushingWrites.nodeUriWrites);
+            flushObjectMapWrites(flushingWrites.objectMapWrites);
+            flushListMapWrites(flushingWrites.listMapWrites);
+        } finally {
+            flushingWriteCount = flushingWrites.count();
+            flushLock.unlock();
+        }
+    }
+
+    private void flushAtomUriWrites(Map<String, Map<URI, Boolean>> atomUriWrites) {
+        BulkWriteBotContext bulkStore = store instanceof BulkWriteBotContext ? (BulkWriteBotContext) store : null;
+        Iterator<Map.Entry<String, Map<URI, Boolean>>> lists = atomUriWrites.entrySet().iterator();
+        while (lists.hasNext()) {
+            Map.Entry<String, Map<URI, Boolean>> listWrites = lists.next();
+            String name = listWrites.getKey();
+            List<URI> added = new ArrayList<>();
+            Iterator<Map.Entry<URI, Boolean>> writes = listWrites.getValue().entrySet().iterator();
+            while (writes.hasNext()) {
+                Map.Entry<URI, Boolean> write = writes.next();
+                if (write.getValue()) {
+                    added.add(write.getKey());
+                } else {
+                    storeRoundTrips.incrementAndGet();
+                    store.removeAtomUriFromNamedAtomUriList(write.getKey(), name);
+                    writes.remove();
+                }
+            }
+            if (bulkStore != null && !added.isEmpty()) {
+                storeRoundTrips.incrementAndGet();
+                bulkStore.appendAllToNamedAtomUriList(added, name);
+            } else {
+                for (URI uri : added) {
+                    storeRoundTrips.incrementAndGet();
+                    store.appendToNamedAtomUriList(uri, name);
+                    listWrites.getValue().remove(uri);
+                }
+            }
+            lists.remove();
+        }
+    }
+
+    private void flushNodeUriWrites(Map<URI, Boolean> nodeUriWrites) {
+        Iterator<Map.Entry<URI, Boolean>> writes = nodeUriWrites.entrySet().iterator();
+        while (writes.hasNext()) {
+            Map.Entry<URI, Boolean> write = writes.next();
+            storeRoundTrips.incrementAndGet();
+            if (write.getValue()) {
+                store.rememberNodeUri(write.getKey());
+            } else {
+                store.removeNodeUri(write.getKey());
+            }
+            writes.remove();
+        }
+    }
+
+    private void flushObjectMapWrites(Map<String, Map<String, Optional<Serializable>>> objectMapWrites) {
+        BulkWriteBotContext bulkStore = store instanceof BulkWriteBotContext ? (BulkWriteBotContext) store : null;
+        Iterator<Map.Entry<String, Map<String, Optional<Serializable>>>> maps = objectMapWrites.entrySet().iterator();
+        while (maps.hasNext()) {
+            Map.Entry<String, Map<String, Optional<Serializable>>> mapWrites = maps.next();
+            String collectionName = mapWrites.getKey();
+            Map<String, Serializable> saved = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, Optional<Serializable>>> writes = mapWrites.getValue().entrySet().iterator();
+            while (writes.hasNext()) {
+                Map.Entry<String, Optional<Serializable>> write = writes.next();
+                if (write.getValue().isPresent()) {
+                    saved.put(write.getKey(), write.getValue().get());
+                } else {
+                    storeRoundTrips.incrementAndGet();
+                    store.removeFromObjectMap(collectionName, write.getKey());
+                    writes.remove();
+                }
+            }
+            if (bulkStore != null && !saved.isEmpty()) {
+                storeRoundTrips.incrementAndGet();
+                bulkStore.saveAllToObjectMap(collectionName, saved);
+            } else {
+                for (Map.Entry<String, Serializable> save : saved.entrySet()) {
+                    storeRoundTrips.incrementAndGet();
+                    store.saveToObjectMap(collectionName, save.getKey(), save.getValue());
+                    mapWrites.getValue().remove(save.getKey());
+                }
+            }
+            maps.remove();
+        }
+    }
+
+    private void flushListMapWrites(Deque<ListMapWrite> listMapWrites) {
+        // list map writes are not idempotent (adds), so they are removed one by one
+        // and in order
+        while (!listMapWrites.isEmpty()) {
+            storeRoundTrips.incrementAndGet();
+            listMapWrites.getFirst().applyTo(store);
+            listMapWrites.removeFirst();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("could not flush bot context", e);
+        }
+    }
+
+    /**
+     * Counts a write. The argument is the value replaced in the pending writes (as
+     * returned by Map.put), if it is not null, the write was coalesced with an
+     * earlier one.
+     */
+    private void addPendingWrite(Object replaced) {
+        if (replaced == null) {
+            pendingWriteCount++;
+        }
+    }
+
+    /**
+     * Flushes if too many changes are pending. Called after releasing the lock of
+     * the context, so the changes are written without holding it.
+     */
+    private void flushIfTooManyPendingWrites() {
+        boolean tooManyPendingWrites;
+        synchronized (this) {
+            tooManyPendingWrites = pendingWriteCount >= maxPendingWrites;
+        }
+        if (tooManyPendingWrites) {
+            flush();
+        }
+    }
+
+    // ===============================
+    // cache loading
+    // ===============================
+    private Set<URI> getAllAtomUris() {
+        if (allAtomUris == null || !uncertainAtomUris.isEmpty()) {
+            flush();
+            storeRoundTrips.incrementAndGet();
+            allAtomUris = new HashSet<>(store.retrieveAllAtomUris());
+            uncertainAtomUris.clear();
+        }
+        return allAtomUris;
+    }
+
+    private Set<URI> getAtomUriList(String name) {
+        Set<URI> list = atomUriLists.get(name);
+        if (list != null) {
+            cacheHits.incrementAndGet();
+            return list;
+        }
+        flush();
+        storeRoundTrips.incrementAndGet();
+        list = new LinkedHashSet<>(store.getNamedAtomUriList(name));
+        atomUriLists.put(name, list);
+        return list;
+    }
+
+    private Map<String, Object> getObjectMap(String collectionName) {
+        Map<String, Object> objectMap = objectMaps.get(collectionName);
+        if (objectMap != null) {
+            cacheHits.incrementAndGet();
+            return objectMap;
+        }
+        flush();
+        storeRoundTrips.incrementAndGet();
+        objectMap = new HashMap<>(store.loadObjectMap(collectionName));
+        objectMaps.put(collectionName, objectMap);
+        return objectMap;
+    }
+
+    private Map<String, List<Object>> getListMap(String collectionName) {
+        Map<String, List<Object>> listMap = listMaps.get(collectionName);
+        if (listMap != null) {
+            cacheHits.incrementAndGet();
+            return listMap;
+        }
+        flush();
+        storeRoundTrips.incrementAndGet();
+        listMap = new HashMap<>();
+        for (Map.Entry<String, List<Object>> entry : store.loadListMap(collectionName).entrySet()) {
+            listMap.put(entry.getKey(), new LinkedList<>(entry.getValue()));
+        }
+        listMaps.put(collectionName, listMap);
+        return listMap;
+    }
+
+    // ===============================
+    // monitoring and configuration
+    // ===============================
+    /**
+     * Number of requests answered from the cache.
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Number of calls made to the backing store (reads and writes).
+     */
+    public long getStoreRoundTrips() {
+        return storeRoundTrips.get();
+    }
+
+    /**
+     * Number of changes that have not been written to the backing store yet,
+     * including the changes of a running or failed flush.
+     */
+    public synchronized int getPendingWriteCount() {
+        return pendingWriteCount + flushingWriteCount;
+    }
+
+    /**
+     * Number of pending writes that causes a flush.
+     */
+    public void setMaxPendingWrites(int maxPendingWrites) {
+        this.maxPendingWrites = maxPendingWrites;
+    }
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public void setTaskScheduler(TaskScheduler taskScheduler) {
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Changes that have not been written to the backing store yet. Repeated writes
+     * to the same key are coalesced.
+     */
+    private static class PendingWrites {
+        private final Map<String, Map<URI, Boolean>> atomUriWrites = new LinkedHashMap<>(); // true: add
+        private final Map<URI, Boolean> nodeUriWrites = new LinkedHashMap<>(); // true: add
+        private final Map<String, Map<String, Optional<Serializable>>> objectMapWrites = new LinkedHashMap<>();
+        private final Deque<ListMapWrite> listMapWrites = new ArrayDeque<>();
+
+        /**
+         * Adds the writes made after these writes.
+         */
+        void addAll(PendingWrites later) {
+            later.atomUriWrites.forEach((name, writes) -> atomUriWrites
+                            .computeIfAbsent(name, k -> new LinkedHashMap<>()).putAll(writes));
+            nodeUriWrites.putAll(later.nodeUriWrites);
+            later.objectMapWrites.forEach((collectionName, writes) -> objectMapWrites
+                            .computeIfAbsent(collectionName, k -> new LinkedHashMap<>()).putAll(writes));
+            listMapWrites.addAll(later.listMapWrites);
+        }
+
+        int count() {
+            int count = nodeUriWrites.size() + listMapWrites.size();
+            for (Map<URI, Boolean> writes : atomUriWrites.values()) {
+                count += writes.size();
+            }
+            for (Map<String, Optional<Serializable>> writes : objectMapWrites.values()) {
+                count += writes.size();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * A pending change of a list map.
+     */
+    private static class ListMapWrite {
+        enum Kind {
+            ADD, REMOVE_VALUES, REMOVE_LEAVES, REMOVE_KEY
+        }
+
+        private final Kind kind;
+        private final String collectionName;
+        private final String key;
+        private final List<Serializable> values;
+
+        ListMapWrite(Kind kind, String collectionName, String key, Serializable... values) {
+            this.kind = kind;
+            this.collectionName = collectionName;
+            this.key = key;
+            this.values = new ArrayList<>(Arrays.asList(values));
+        }
+
+        boolean isAddTo(String collectionName, String key) {
+            return kind == Kind.ADD && this.collectionName.equals(collectionName) && this.key.equals(key);
+        }
+
+        void applyTo(BotContext store) {
+            Serializable[] valueArray = values.toArray(new Serializable[values.size()]);
+            switch (kind) {
+                case ADD:
+                    store.addToListMap(collectionName, key, valueArray);
+                    break;
+                case REMOVE_VALUES:
+                    store.removeFromListMap(collectionName, key, valueArray);
+                    break;
+                case REMOVE_LEAVES:
+                    store.removeLeavesFromListMap(collectionName, valueArray);
+                    break;
+                case REMOVE_KEY:
+                    store.removeFromListMap(collectionName, key);
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package won.bot.framework.bot.context;
+
+import java.net.URI;
+
+/**
+ * Notified when a bot starts or stops knowing an atom or node URI, e.g. because
+ * it created or adopted an atom. Used to keep routing information (which bot is
+ * responsible for which atom) up to date without asking every bot.
+ */
+public interface KnownUriListener {
+    void onAtomUriRemembered(URI atomUri);
+
+    void onAtomUriForgotten(URI atomUri);
+
+    void onNodeUriRemembered(URI nodeUri);
+}
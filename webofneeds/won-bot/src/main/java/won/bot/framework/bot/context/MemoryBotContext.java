@@ -9,7 +9,7 @@ import java.util.stream.Collectors;
  * In memory context implementation using nested maps. This is the default
  * implementation of the bot context.
  */
-public class MemoryBotContext implements BotContext {
+public class MemoryBotContext implements BulkWriteBotContext {
     private Map<String, Map<String, Object>> contextObjectMap = new HashMap<>();
     private Map<String, Map<String, List<Object>>> contextListMap = new HashMap<>();
     private Map<String, Object> contextMap = new HashMap<>();
@@ -29,7 +29,9 @@ public class MemoryBotContext implements BotContext {
     @Override
     public synchronized void removeAtomUriFromNamedAtomUriList(URI uri, String name) {
         List<URI> uris = namedAtomUriLists.get(name);
-        uris.remove(uri);
+        if (uris != null) {
+            uris.remove(uri);
+        }
     }
 
     @Override
@@ -42,6 +44,16 @@ public class MemoryBotContext implements BotContext {
         this.namedAtomUriLists.put(name, uris);
     }
 
+    @Override
+    public synchronized void appendAllToNamedAtomUriList(Collection<URI> uris, String name) {
+        List<URI> list = this.namedAtomUriLists.computeIfAbsent(name, k -> new ArrayList<>());
+        for (URI uri : uris) {
+            if (!list.contains(uri)) {
+                list.add(uri);
+            }
+        }
+    }
+
     @Override
     public synchronized boolean isInNamedAtomUriList(URI uri, String name) {
         List<URI> uris = getNamedAtomUriList(name);
@@ -102,6 +114,11 @@ public class MemoryBotContext implements BotContext {
         getObjectMap(collectionName).put(key, value);
     }
 
+    @Override
+    public synchronized void saveAllToObjectMap(String collectionName, Map<String, Serializable> values) {
+        getObjectMap(collectionName).putAll(values);
+    }
+
     @Override
     public synchronized final Object loadFromObjectMap(String collectionName, String key) {
         return getObjectMap(collectionName).get(key);
@@ -1,6 +1,9 @@
 package won.bot.framework.bot.context;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -16,7 +19,7 @@ import java.util.stream.Collectors;
  * <p>
  * Created by hfriedrich on 27.10.2016.
  */
-public class MongoBotContext implements BotContext {
+public class MongoBotContext implements BulkWriteBotContext {
     protected static final String ATOM_URI_COLLECTION = "atom_uris";
     protected static final String NODE_URI_COLLECTION = "node_uris";
     @Autowired
@@ -73,6 +76,14 @@ public class MongoBotContext implements BotContext {
         template.insert(obj, name);
     }
 
+    @Override
+    public void appendAllToNamedAtomUriList(final Collection<URI> uris, final String name) {
+        // upsert, so that appending uris that are already in the list (e.g. when a
+        // failed flush is retried) does not fail with duplicate keys
+        upsertAll(name, uris.stream().distinct().map(uri -> new MongoContextObject(uri.toString(), uri))
+                        .collect(Collectors.toList()));
+    }
+
     @Override
     public List<URI> getNamedAtomUriList(final String name) {
         return template.findAll(URI.class, name);
@@ -134,6 +145,33 @@ public class MongoBotContext implements BotContext {
         template.save(mco, collectionName);
     }
 
+    @Override
+    public void saveAllToObjectMap(String collectionName, Map<String, Serializable> values) {
+        checkValidCollectionName(collectionName);
+        // same effect as saving each object, but with one round trip
+        upsertAll(collectionName, values.entrySet().stream()
+                        .map(e -> new MongoContextObject(e.getKey(), e.getValue())).collect(Collectors.toList()));
+    }
+
+    /**
+     * Inserts or replaces the objects by id in a single unordered bulk operation.
+     * Each object is written atomically, so if the operation fails, every object
+     * is either written completely or unchanged, and the operation can be
+     * repeated.
+     */
+    private void upsertAll(String collectionName, List<MongoContextObject> objs) {
+        if (objs.isEmpty()) {
+            return;
+        }
+        BulkOperations ops = template.bulkOps(BulkOperations.BulkMode.UNORDERED, collectionName);
+        for (MongoContextObject obj : objs) {
+            DBObject dbObject = new BasicDBObject();
+            template.getConverter().write(obj, dbObject);
+            ops.upsert(new Query(Criteria.where("_id").is(obj.getId())), Update.fromDBObject(dbObject, "_id"));
+        }
+        ops.execute();
+    }
+
     @Override
     public final Object loadFromObjectMap(String collectionName, String key) {
         checkValidCollectionName(collectionName);
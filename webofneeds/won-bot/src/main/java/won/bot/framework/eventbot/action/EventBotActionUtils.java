@@ -34,7 +34,7 @@ public class EventBotActionUtils {
 
     public static void rememberInList(EventListenerContext ctx, URI uri, String uriListName) {
         if (uriListName != null && uriListName.trim().length() > 0) {
-            ctx.getBotContext().appendToNamedAtomUriList(uri, uriListName);
+            ctx.getBotContextWrapper().rememberAtomUri(uri, uriListName);
             logger.debug("remembering atom in NamedAtomList {} ", uri);
         } else {
             throw new IllegalArgumentException("'uriListName' must not not be null or empty");
@@ -42,12 +42,12 @@ public class EventBotActionUtils {
     }
 
     public static void rememberInNodeListIfNamePresent(EventListenerContext ctx, URI uri) {
-        ctx.getBotContext().rememberNodeUri(uri);
+        ctx.getBotContextWrapper().rememberNodeUri(uri);
     }
 
     public static void removeFromList(EventListenerContext ctx, URI uri, String uriListName) {
         if (uriListName != null && uriListName.trim().length() > 0) {
-            ctx.getBotContext().removeAtomUriFromNamedAtomUriList(uri, uriListName);
+            ctx.getBotContextWrapper().forgetAtomUri(uri, uriListName);
             logger.debug("removing atom from NamedAtomList {} ", uri);
         } else {
             throw new IllegalArgumentException("'uriListName' must not not be null or empty");
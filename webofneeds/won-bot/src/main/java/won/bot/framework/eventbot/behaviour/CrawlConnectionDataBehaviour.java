@@ -23,7 +23,6 @@ import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.shared.PrefixMapping;
 import org.apache.jena.shared.impl.PrefixMappingImpl;
 import org.apache.jena.sparql.path.Path;
-import org.apache.jena.sparql.path.PathParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,6 +44,7 @@ import won.bot.framework.eventbot.filter.impl.SameEventFilter;
 import won.bot.framework.eventbot.listener.EventListener;
 import won.bot.framework.eventbot.listener.impl.ActionOnEventListener;
 import won.bot.framework.eventbot.listener.impl.ActionOnFirstEventListener;
+import won.protocol.util.PropertyPaths;
 import won.protocol.util.RdfUtils;
 import won.protocol.util.linkeddata.CachingLinkedDataSource;
 import won.protocol.util.linkeddata.LinkedDataSource;
@@ -93,16 +93,16 @@ public class CrawlConnectionDataBehaviour extends BotBehaviour {
         pmap.withDefaultMappings(PrefixMapping.Standard);
         pmap.setNsPrefix("won", WON.getURI());
         pmap.setNsPrefix("msg", WONMSG.getURI());
-        propertyPaths.add(PathParser.parse("won:messageContainer", pmap));
-        propertyPaths.add(PathParser.parse("won:messageContainer/rdfs:member", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:messageContainer", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:messageContainer/rdfs:member", pmap));
         CrawlCommandEvent crawlAtomCommandEvent = new CrawlCommandEvent(command.getAtomURI(), command.getAtomURI(),
                         propertyPaths, 10000, 5);
         propertyPaths = new ArrayList<>();
-        propertyPaths.add(PathParser.parse("won:messageContainer", pmap));
-        propertyPaths.add(PathParser.parse("won:messageContainer/rdfs:member", pmap));
-        propertyPaths.add(PathParser.parse("won:messageContainer/rdfs:member/msg:correspondingRemoteMessage", pmap));
-        propertyPaths.add(PathParser.parse("won:targetAtom", pmap));
-        propertyPaths.add(PathParser.parse("won:targetConnection", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:messageContainer", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:messageContainer/rdfs:member", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:messageContainer/rdfs:member/msg:correspondingRemoteMessage", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetAtom", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetConnection", pmap));
         CrawlCommandEvent crawlConnectionCommandEvent = new CrawlCommandEvent(command.getAtomURI(),
                         command.getConnectionURI(), propertyPaths, 10000, 5);
         Dataset crawledData = DatasetFactory.createGeneral();
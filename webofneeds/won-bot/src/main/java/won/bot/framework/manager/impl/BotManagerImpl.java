@@ -4,20 +4,44 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import won.bot.exception.NoBotResponsibleException;
 import won.bot.framework.bot.Bot;
+import won.bot.framework.bot.base.BaseBot;
+import won.bot.framework.bot.context.KnownUriListener;
 import won.bot.framework.manager.BotManager;
 
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * BotManager, simple in-memory implementation.
+ * BotManager, simple in-memory implementation. Keeps a concurrent index of
+ * which bot is responsible for which atom. Bots derived from {@link BaseBot}
+ * add their atoms to the index as soon as they remember them (e.g. when
+ * creating or adopting an atom); for other atoms the bots are asked once and
+ * the answer is cached. URIs no bot knows are remembered for a limited time in
+ * a bounded negative cache, so repeated messages for unknown atoms do not make
+ * us ask all bots each time.
  */
 public class BotManagerImpl implements BotManager {
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int DEFAULT_NEGATIVE_CACHE_SIZE = 10000;
+    private static final long DEFAULT_NEGATIVE_CACHE_TTL_MILLIS = 60 * 1000;
     private List<Bot> bots = new LinkedList<>(); // presumably a list of all bots managed on this server
-    private Map<URI, Bot> botByAtomUri = new HashMap<>(); // map of all bot atoms uris and responsible bots
-    private Map<URI, List<Bot>> botListByNodeUri = new HashMap<>(); // map of all bots registered on that node
+    private Map<URI, Bot> botByAtomUri = new ConcurrentHashMap<>(); // map of all bot atoms uris and responsible bots
+    // map of all bots registered on that node
+    private Map<URI, CopyOnWriteArrayList<Bot>> botListByNodeUri = new ConcurrentHashMap<>();
+    private Map<Bot, KnownUriListener> knownUriListenerByBot = new HashMap<>();
+    private int negativeCacheSize = DEFAULT_NEGATIVE_CACHE_SIZE;
+    private long negativeCacheTtlMillis = DEFAULT_NEGATIVE_CACHE_TTL_MILLIS;
+    // atom uris no bot knows, with the time they expire from the cache. Access
+    // ordered, so the least recently used entries are evicted first
+    private final LinkedHashMap<URI, Long> unknownAtomUris = new LinkedHashMap<URI, Long>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<URI, Long> eldest) {
+            return size() > negativeCacheSize;
+        }
+    };
     private Object monitor = new Object(); // ???
 
     @Override
@@ -26,28 +50,22 @@ public class BotManagerImpl implements BotManager {
         {
             Bot bot = botByAtomUri.get(atomUri);
             if (bot != null) {
-                if (!bot.getLifecyclePhase().isActive()) {
-                    throw new NoBotResponsibleException("bot responsible for atom " + atomUri
-                                    + " is not active (lifecycle phase is: " + bot.getLifecyclePhase() + ")");
-                }
-                return bot;
+                return checkActive(bot, atomUri);
             }
         }
+        if (isKnownToBeUnknown(atomUri)) {
+            throw new NoBotResponsibleException("No bot registered for uri " + atomUri);
+        }
         // check each bot, return first that knows the atomUri
-        logger.trace("bots size:{} ", bots.size());
-        for (Bot mybot : bots) {
-            // logger.debug("bot knows atom: {}", mybot.knowsAtomURI(atomUri));
+        List<Bot> candidates = getBotsSnapshot();
+        logger.trace("bots size:{} ", candidates.size());
+        for (Bot mybot : candidates) {
             if (mybot.knowsAtomURI(atomUri)) {
-                synchronized (getMonitor()) {
-                    this.botByAtomUri.put(atomUri, mybot);
-                }
-                if (!mybot.getLifecyclePhase().isActive()) {
-                    throw new NoBotResponsibleException("bot responsible for atom " + atomUri
-                                    + " is not active (lifecycle phase is: " + mybot.getLifecyclePhase() + ")");
-                }
-                return mybot;
+                this.botByAtomUri.put(atomUri, mybot);
+                return checkActive(mybot, atomUri);
             }
         }
+        rememberUnknown(atomUri);
         throw new NoBotResponsibleException("No bot registered for uri " + atomUri);
     }
 
@@ -58,12 +76,10 @@ public class BotManagerImpl implements BotManager {
             if (botList != null && botList.size() > 0)
                 return botList;
         }
-        List<Bot> botList = new ArrayList<>();
-        for (Bot mybot : bots) {
+        CopyOnWriteArrayList<Bot> botList = new CopyOnWriteArrayList<>();
+        for (Bot mybot : getBotsSnapshot()) {
             if (mybot.knowsNodeURI(wonNodeUri)) {
-                synchronized (getMonitor()) {
-                    botList.add(mybot);
-                }
+                botList.add(mybot);
             }
         }
         this.botListByNodeUri.put(wonNodeUri, botList);
@@ -77,15 +93,26 @@ public class BotManagerImpl implements BotManager {
                 return;
             initializeBotIfNecessary(bot);
             this.bots.add(bot);
+            registerKnownUriListener(bot);
+            // the new bot may know atoms we did not find so far
+            clearUnknown();
         }
     }
 
     @Override
     public void setBots(Collection<Bot> bots) {
         synchronized (getMonitor()) {
+            for (Bot bot : this.bots) {
+                unregisterKnownUriListener(bot);
+            }
             this.bots.clear();
             this.bots.addAll(bots);
             this.botByAtomUri.clear();
+            this.botListByNodeUri.clear();
+            clearUnknown();
+            for (Bot bot : this.bots) {
+                registerKnownUriListener(bot);
+            }
         }
     }
 
@@ -104,6 +131,21 @@ public class BotManagerImpl implements BotManager {
         return true;
     }
 
+    /**
+     * Maximum number of atom URIs remembered as not known by any bot.
+     */
+    public void setNegativeCacheSize(int negativeCacheSize) {
+        this.negativeCacheSize = negativeCacheSize;
+    }
+
+    /**
+     * Time (in milliseconds) for which an atom URI is remembered as not known by
+     * any bot.
+     */
+    public void setNegativeCacheTtlMillis(long negativeCacheTtlMillis) {
+        this.negativeCacheTtlMillis = negativeCacheTtlMillis;
+    }
+
     protected void initializeBotIfNecessary(Bot bot) {
         if (bot.getLifecyclePhase().isDown()) {
             try {
@@ -122,4 +164,89 @@ public class BotManagerImpl implements BotManager {
     protected List<Bot> getBots() {
         return bots;
     }
+
+    private List<Bot> getBotsSnapshot() {
+        synchronized (getMonitor()) {
+            return new ArrayList<>(bots);
+        }
+    }
+
+    private Bot checkActive(Bot bot, URI atomUri) throws NoBotResponsibleException {
+        if (!bot.getLifecyclePhase().isActive()) {
+            throw new NoBotResponsibleException("bot responsible for atom " + atomUri
+                            + " is not active (lifecycle phase is: " + bot.getLifecyclePhase() + ")");
+        }
+        return bot;
+    }
+
+    private void registerKnownUriListener(final Bot bot) {
+        if (!(bot instanceof BaseBot)) {
+            return;
+        }
+        KnownUriListener listener = new KnownUriListener() {
+            @Override
+            public void onAtomUriRemembered(URI atomUri) {
+                botByAtomUri.put(atomUri, bot);
+                forgetUnknown(atomUri);
+            }
+
+            @Override
+            public void onAtomUriForgotten(URI atomUri) {
+                // the bot may still know the atom from another list, ask it next time
+                botByAtomUri.remove(atomUri, bot);
+            }
+
+            @Override
+            public void onNodeUriRemembered(URI nodeUri) {
+                CopyOnWriteArrayList<Bot> botList = botListByNodeUri.get(nodeUri);
+                if (botList != null) {
+                    botList.addIfAbsent(bot);
+                }
+            }
+        };
+        ((BaseBot) bot).addKnownUriListener(listener);
+        knownUriListenerByBot.put(bot, listener);
+    }
+
+    private void unregisterKnownUriListener(Bot bot) {
+        KnownUriListener listener = knownUriListenerByBot.remove(bot);
+        if (listener != null) {
+            ((BaseBot) bot).removeKnownUriListener(listener);
+        }
+    }
+
+    private boolean isKnownToBeUnknown(URI atomUri) {
+        synchronized (unknownAtomUris) {
+            Long expiry = unknownAtomUris.get(atomUri);
+            if (expiry == null) {
+                return false;
+            }
+            if (expiry < System.currentTimeMillis()) {
+                unknownAtomUris.remove(atomUri);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void rememberUnknown(URI atomUri) {
+        if (negativeCacheSize <= 0) {
+            return;
+        }
+        synchronized (unknownAtomUris) {
+            unknownAtomUris.put(atomUri, System.currentTimeMillis() + negativeCacheTtlMillis);
+        }
+    }
+
+    private void forgetUnknown(URI atomUri) {
+        synchronized (unknownAtomUris) {
+            unknownAtomUris.remove(atomUri);
+        }
+    }
+
+    private void clearUnknown() {
+        synchronized (unknownAtomUris) {
+            unknownAtomUris.clear();
+        }
+    }
 }
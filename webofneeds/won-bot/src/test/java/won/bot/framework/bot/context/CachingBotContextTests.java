@@ -0,0 +1,254 @@
+package won.bot.framework.bot.context;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for the write-behind caching bot context, using a memory bot context as
+ * backing store.
+ */
+public class CachingBotContextTests {
+    private static final URI URI1 = URI.create("http://test.uri/number#1");
+    private static final URI URI2 = URI.create("http://test.uri/number#2");
+    private static final URI URI3 = URI.create("http://test.uri/number#3");
+    private MemoryBotContext store;
+    private CachingBotContext botContext;
+
+    @Before
+    public void setup() {
+        store = new MemoryBotContext();
+        botContext = new CachingBotContext(store);
+    }
+
+    @Test
+    public void testWritesAreDeferredUntilFlush() {
+        botContext.appendToNamedAtomUriList(URI1, "uri1");
+        botContext.saveToObjectMap("map", "key", "value");
+        botContext.addToListMap("listMap", "key", "value1");
+        botContext.addToListMap("listMap", "key", "value2");
+        Assert.assertEquals(0, botContext.getStoreRoundTrips());
+        Assert.assertFalse(store.isAtomKnown(URI1));
+        Assert.assertNull(store.loadFromObjectMap("map", "key"));
+        botContext.flush();
+        Assert.assertEquals(0, botContext.getPendingWriteCount());
+        Assert.assertTrue(store.isAtomKnown(URI1));
+        Assert.assertEquals("value", store.loadFromObjectMap("map", "key"));
+        Assert.assertEquals(2, store.loadFromListMap("listMap", "key").size());
+        // atom uris and object map entries are written in bulk, the list map adds
+        // are merged
+        Assert.assertEquals(3, botContext.getStoreRoundTrips());
+    }
+
+    @Test
+    public void testRepeatedWritesAreCoalesced() {
+        for (int i = 0; i < 10; i++) {
+            botContext.saveToObjectMap("map", "key", i);
+        }
+        botContext.appendToNamedAtomUriList(URI1, "uri1");
+        botContext.removeAtomUriFromNamedAtomUriList(URI1, "uri1");
+        Assert.assertEquals(2, botContext.getPendingWriteCount());
+        botContext.flush();
+        Assert.assertEquals(9, store.loadFromObjectMap("map", "key"));
+        Assert.assertFalse(store.isAtomKnown(URI1));
+    }
+
+    @Test
+    public void testReadsAreServedFromCache() {
+        store.appendToNamedAtomUriList(URI1, "uri1");
+        store.appendToNamedAtomUriList(URI2, "uri2");
+        Assert.assertTrue(botContext.isAtomKnown(URI1));
+        Assert.assertEquals(1, botContext.getStoreRoundTrips());
+        Assert.assertTrue(botContext.isAtomKnown(URI2));
+        Assert.assertFalse(botContext.isAtomKnown(URI3));
+        Assert.assertTrue(botContext.isInNamedAtomUriList(URI1, "uri1"));
+        Assert.assertFalse(botContext.isInNamedAtomUriList(URI2, "uri1"));
+        Assert.assertEquals(2, botContext.getStoreRoundTrips());
+        Assert.assertEquals(3, botContext.getCacheHits());
+        botContext.appendToNamedAtomUriList(URI3, "uri1");
+        Assert.assertTrue(botContext.isAtomKnown(URI3));
+        List<URI> uris = botContext.getNamedAtomUriList("uri1");
+        Assert.assertEquals(2, uris.size());
+        Assert.assertEquals(URI3, uris.get(1));
+        Assert.assertEquals(2, botContext.getStoreRoundTrips());
+    }
+
+    @Test
+    public void testRemovedAtomUriStillKnownFromOtherList() {
+        store.appendToNamedAtomUriList(URI1, "uri1");
+        store.appendToNamedAtomUriList(URI1, "uri2");
+        Assert.assertTrue(botContext.isAtomKnown(URI1));
+        botContext.removeAtomUriFromNamedAtomUriList(URI1, "uri1");
+        Assert.assertTrue(botContext.isAtomKnown(URI1));
+        Assert.assertFalse(store.isInNamedAtomUriList(URI1, "uri1"));
+        botContext.removeAtomUriFromNamedAtomUriList(URI1, "uri2");
+        Assert.assertFalse(botContext.isAtomKnown(URI1));
+    }
+
+    @Test
+    public void testObjectAndListMaps() {
+        store.saveToObjectMap("map", "key1", "value1");
+        botContext.saveToObjectMap("map", "key2", "value2");
+        Assert.assertEquals(2, botContext.loadObjectMap("map").size());
+        Assert.assertEquals("value1", botContext.loadFromObjectMap("map", "key1"));
+        botContext.removeFromObjectMap("map", "key1");
+        Assert.assertNull(botContext.loadFromObjectMap("map", "key1"));
+        botContext.addToListMap("listMap", "key", "value1", "value2");
+        botContext.removeFromListMap("listMap", "key", "value1");
+        Assert.assertEquals(1, botContext.loadFromListMap("listMap", "key").size());
+        botContext.removeLeavesFromListMap("listMap", "value2");
+        Assert.assertEquals(0, botContext.loadFromListMap("listMap", "key").size());
+        botContext.flush();
+        Assert.assertNull(store.loadFromObjectMap("map", "key1"));
+        Assert.assertEquals("value2", store.loadFromObjectMap("map", "key2"));
+        Assert.assertEquals(0, store.loadFromListMap("listMap", "key").size());
+    }
+
+    @Test
+    public void testNodeUris() {
+        store.rememberNodeUri(URI1);
+        Assert.assertTrue(botContext.isNodeKnown(URI1));
+        Assert.assertTrue(botContext.isNodeKnown(URI1));
+        Assert.assertEquals(1, botContext.getStoreRoundTrips());
+        botContext.rememberNodeUri(URI2);
+        Assert.assertTrue(botContext.isNodeKnown(URI2));
+        botContext.removeNodeUri(URI1);
+        Assert.assertFalse(botContext.isNodeKnown(URI1));
+        botContext.flush();
+        Assert.assertFalse(store.isNodeKnown(URI1));
+        Assert.assertTrue(store.isNodeKnown(URI2));
+    }
+
+    @Test
+    public void testAutoFlush() {
+        botContext.setMaxPendingWrites(2);
+        botContext.saveToObjectMap("map", "key1", "value1");
+        Assert.assertNull(store.loadFromObjectMap("map", "key1"));
+        botContext.saveToObjectMap("map", "key2", "value2");
+        Assert.assertEquals("value1", store.loadFromObjectMap("map", "key1"));
+        Assert.assertEquals(0, botContext.getPendingWriteCount());
+    }
+
+    @Test
+    public void testFailedFlushOnlyRetriesUnwrittenChanges() {
+        FailingBotContext failingStore = new FailingBotContext();
+        botContext = new CachingBotContext(failingStore);
+        botContext.appendToNamedAtomUriList(URI1, "uri1");
+        botContext.addToListMap("listMap", "key1", "value1");
+        botContext.addToListMap("listMap", "key2", "value2");
+        botContext.addToListMap("listMap", "key3", "value3");
+        // the second list map add fails
+        failingStore.listMapAddsBeforeFailure = 1;
+        try {
+            botContext.flush();
+            Assert.fail("flush should have failed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals(2, botContext.getPendingWriteCount());
+        Assert.assertEquals(1, failingStore.getNamedAtomUriList("uri1").size());
+        Assert.assertEquals(1, failingStore.loadFromListMap("listMap", "key1").size());
+        Assert.assertEquals(0, failingStore.loadFromListMap("listMap", "key2").size());
+        botContext.flush();
+        Assert.assertEquals(0, botContext.getPendingWriteCount());
+        Assert.assertEquals(1, failingStore.getNamedAtomUriList("uri1").size());
+        Assert.assertEquals(1, failingStore.loadFromListMap("listMap", "key1").size());
+        Assert.assertEquals(1, failingStore.loadFromListMap("listMap", "key2").size());
+        Assert.assertEquals(1, failingStore.loadFromListMap("listMap", "key3").size());
+    }
+
+    @Test
+    public void testFailedBulkAppendCanBeRetried() {
+        FailingBotContext failingStore = new FailingBotContext();
+        botContext = new CachingBotContext(failingStore);
+        failingStore.appendToNamedAtomUriList(URI1, "uri1");
+        botContext.appendToNamedAtomUriList(URI1, "uri1");
+        botContext.appendToNamedAtomUriList(URI2, "uri1");
+        // the uris are written, but the store reports an error
+        failingStore.failAfterBulkAppend = true;
+        try {
+            botContext.flush();
+            Assert.fail("flush should have failed");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals(2, botContext.getPendingWriteCount());
+        botContext.flush();
+        Assert.assertEquals(0, botContext.getPendingWriteCount());
+        Assert.assertEquals(2, failingStore.getNamedAtomUriList("uri1").size());
+    }
+
+    @Test
+    public void testCacheIsUsableWhileFlushing() throws Exception {
+        BlockingBotContext blockingStore = new BlockingBotContext();
+        botContext = new CachingBotContext(blockingStore);
+        botContext.rememberNodeUri(URI1);
+        botContext.saveToObjectMap("map", "key", "value");
+        Thread flusher = new Thread(botContext::flush);
+        flusher.start();
+        Assert.assertTrue(blockingStore.writing.await(10, TimeUnit.SECONDS));
+        // the flush is writing to the store, the cache is still usable
+        Assert.assertTrue(botContext.isNodeKnown(URI1));
+        botContext.saveToObjectMap("map", "key", "value2");
+        blockingStore.proceed.countDown();
+        flusher.join(10000);
+        Assert.assertFalse(flusher.isAlive());
+        Assert.assertEquals("value", blockingStore.loadFromObjectMap("map", "key"));
+        Assert.assertEquals(1, botContext.getPendingWriteCount());
+        botContext.flush();
+        Assert.assertEquals("value2", blockingStore.loadFromObjectMap("map", "key"));
+    }
+
+    /**
+     * Memory bot context that blocks when object map entries are written, until
+     * the test lets it proceed.
+     */
+    private static class BlockingBotContext extends MemoryBotContext {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch proceed = new CountDownLatch(1);
+
+        @Override
+        public void saveAllToObjectMap(String collectionName, Map<String, Serializable> values) {
+            writing.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.saveAllToObjectMap(collectionName, values);
+        }
+    }
+
+    /**
+     * Memory bot context that fails on request.
+     */
+    private static class FailingBotContext extends MemoryBotContext {
+        private int listMapAddsBeforeFailure = -1;
+        private boolean failAfterBulkAppend = false;
+
+        @Override
+        public synchronized void addToListMap(String collectionName, String key, Serializable... values) {
+            if (listMapAddsBeforeFailure-- == 0) {
+                throw new IllegalStateException("list map add failed");
+            }
+            super.addToListMap(collectionName, key, values);
+        }
+
+        @Override
+        public synchronized void appendAllToNamedAtomUriList(Collection<URI> uris, String name) {
+            super.appendAllToNamedAtomUriList(uris, name);
+            if (failAfterBulkAppend) {
+                failAfterBulkAppend = false;
+                throw new IllegalStateException("bulk append failed");
+            }
+        }
+    }
+}
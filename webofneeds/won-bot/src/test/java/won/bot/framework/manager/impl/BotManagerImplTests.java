@@ -0,0 +1,187 @@
+package won.bot.framework.manager.impl;
+
+import org.apache.jena.query.Dataset;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import won.bot.exception.NoBotResponsibleException;
+import won.bot.framework.bot.Bot;
+import won.bot.framework.bot.base.BaseBot;
+import won.bot.framework.bot.context.BotContextWrapper;
+import won.bot.framework.bot.context.MemoryBotContext;
+import won.protocol.message.WonMessage;
+import won.protocol.model.Connection;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the atom index and the negative cache of the bot manager.
+ */
+public class BotManagerImplTests {
+    private static final URI ATOM1 = URI.create("http://test.uri/atom#1");
+    private static final URI ATOM2 = URI.create("http://test.uri/atom#2");
+    private static final URI NODE1 = URI.create("http://test.uri/node#1");
+    private BotManagerImpl botManager;
+    private TestBot bot1;
+    private TestBot bot2;
+
+    @Before
+    public void setup() throws Exception {
+        botManager = new BotManagerImpl();
+        bot1 = new TestBot("bot1");
+        bot1.initialize();
+        bot2 = new TestBot("bot2");
+        bot2.initialize();
+    }
+
+    @Test
+    public void testUnknownAtomIsCached() {
+        botManager.addBot(bot1);
+        assertNoBotResponsible(ATOM1);
+        Assert.assertEquals(1, bot1.atomLookups.get());
+        assertNoBotResponsible(ATOM1);
+        Assert.assertEquals(1, bot1.atomLookups.get());
+        // other uris are still looked up
+        assertNoBotResponsible(ATOM2);
+        Assert.assertEquals(2, bot1.atomLookups.get());
+    }
+
+    @Test
+    public void testUnknownAtomExpires() {
+        botManager.setNegativeCacheTtlMillis(-1);
+        botManager.addBot(bot1);
+        assertNoBotResponsible(ATOM1);
+        assertNoBotResponsible(ATOM1);
+        Assert.assertEquals(2, bot1.atomLookups.get());
+    }
+
+    @Test
+    public void testRememberedAtomIsNoLongerUnknown() throws Exception {
+        botManager.addBot(bot1);
+        assertNoBotResponsible(ATOM1);
+        bot1.getBotContextWrapper().rememberAtomUri(ATOM1, "atoms");
+        Assert.assertSame(bot1, botManager.getBotResponsibleForAtomUri(ATOM1));
+        // answered from the index
+        Assert.assertEquals(1, bot1.atomLookups.get());
+    }
+
+    @Test
+    public void testForgottenAtomIsRemovedFromIndex() throws Exception {
+        botManager.addBot(bot1);
+        bot1.getBotContextWrapper().rememberAtomUri(ATOM1, "atoms");
+        Assert.assertSame(bot1, botManager.getBotResponsibleForAtomUri(ATOM1));
+        bot1.getBotContextWrapper().forgetAtomUri(ATOM1, "atoms");
+        assertNoBotResponsible(ATOM1);
+        Assert.assertEquals(1, bot1.atomLookups.get());
+    }
+
+    @Test
+    public void testAddedBotIsAskedForUnknownAtoms() throws Exception {
+        botManager.addBot(bot1);
+        assertNoBotResponsible(ATOM1);
+        // the new bot knows the atom, but has not remembered it through the wrapper
+        bot2.getBotContextWrapper().getBotContext().appendToNamedAtomUriList(ATOM1, "atoms");
+        botManager.addBot(bot2);
+        Assert.assertSame(bot2, botManager.getBotResponsibleForAtomUri(ATOM1));
+        Assert.assertEquals(1, bot2.atomLookups.get());
+        Assert.assertSame(bot2, botManager.getBotResponsibleForAtomUri(ATOM1));
+        Assert.assertEquals(1, bot2.atomLookups.get());
+    }
+
+    @Test
+    public void testRemovedBotIsRemovedFromIndex() throws Exception {
+        botManager.setBots(Arrays.asList(bot1, bot2));
+        bot1.getBotContextWrapper().rememberAtomUri(ATOM1, "atoms");
+        Assert.assertSame(bot1, botManager.getBotResponsibleForAtomUri(ATOM1));
+        botManager.setBots(Collections.singletonList(bot2));
+        assertNoBotResponsible(ATOM1);
+        // the removed bot's atoms are not indexed any more
+        bot1.getBotContextWrapper().rememberAtomUri(ATOM2, "atoms");
+        assertNoBotResponsible(ATOM2);
+        Assert.assertEquals(0, bot1.atomLookups.get());
+        bot2.getBotContextWrapper().rememberAtomUri(ATOM2, "atoms");
+        Assert.assertSame(bot2, botManager.getBotResponsibleForAtomUri(ATOM2));
+    }
+
+    @Test
+    public void testRememberedNodeIsAddedToNodeIndex() {
+        botManager.setBots(Arrays.asList(bot1, bot2));
+        bot1.getBotContextWrapper().rememberNodeUri(NODE1);
+        List<Bot> bots = botManager.getBotsForNodeURI(NODE1);
+        Assert.assertEquals(Collections.singletonList(bot1), bots);
+        bot2.getBotContextWrapper().rememberNodeUri(NODE1);
+        Assert.assertEquals(Arrays.asList(bot1, bot2), botManager.getBotsForNodeURI(NODE1));
+    }
+
+    private void assertNoBotResponsible(URI atomUri) {
+        try {
+            botManager.getBotResponsibleForAtomUri(atomUri);
+            Assert.fail("no bot should be responsible for " + atomUri);
+        } catch (NoBotResponsibleException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Bot with a memory bot context that counts how often it is asked for atoms.
+     */
+    private static class TestBot extends BaseBot {
+        private final AtomicInteger atomLookups = new AtomicInteger(0);
+
+        TestBot(String name) {
+            setBotContextWrapper(new BotContextWrapper(new MemoryBotContext(), name));
+        }
+
+        @Override
+        public boolean knowsAtomURI(URI atomURI) {
+            atomLookups.incrementAndGet();
+            return super.knowsAtomURI(atomURI);
+        }
+
+        @Override
+        public BotContextWrapper getBotContextWrapper() {
+            return super.getBotContextWrapper();
+        }
+
+        @Override
+        public void onNewAtomCreated(URI atomUri, URI wonNodeUri, Dataset atomModel) {
+        }
+
+        @Override
+        public void act() {
+        }
+
+        @Override
+        public void onConnectFromOtherAtom(Connection con, WonMessage wonMessage) {
+        }
+
+        @Override
+        public void onCloseFromOtherAtom(Connection con, WonMessage wonMessage) {
+        }
+
+        @Override
+        public void onAtomHintFromMatcher(WonMessage wonMessage) {
+        }
+
+        @Override
+        public void onSocketHintFromMatcher(WonMessage wonMessage) {
+        }
+
+        @Override
+        public void onMessageFromOtherAtom(Connection con, WonMessage wonMessage) {
+        }
+
+        @Override
+        public void onFailureResponse(URI failedMessageUri, WonMessage wonMessage, Optional<Connection> con) {
+        }
+
+        @Override
+        public void onSuccessResponse(URI successfulMessageUri, WonMessage wonMessage, Optional<Connection> con) {
+        }
+    }
+}
@@ -93,6 +93,8 @@ public class WonMessage implements Serializable {
     private Map<URI, WonMessage> messages;
     private Optional<WonMessage> response = null;
     private Optional<WonMessage> remoteResponse = null;
+    // serializations of the complete dataset, dropped when a property is added
+    private transient Map<Object, byte[]> encodings = null;
 
     // private Resource msgBnode;
     // private Signature signature;
@@ -151,6 +153,20 @@ public class WonMessage implements Serializable {
         return msg;
     }
 
+    /**
+     * Create one WonMessage object for each message contained in the dataset. In
+     * contrast to {@link #of(Dataset)}, the messages need not form a delivery
+     * chain, which allows for transporting a batch of unrelated messages (e.g.
+     * hints) in one dataset.
+     * 
+     * @param dataset
+     * @return
+     */
+    public static List<WonMessage> ofEach(Dataset dataset) {
+        Objects.requireNonNull(dataset);
+        return new ArrayList<>(extractMessageMap(dataset).values());
+    }
+
     public static WonMessage of(Collection<WonMessage> messages) {
         return of(messages.toArray(new WonMessage[messages.size()]));
     }
@@ -261,6 +277,25 @@ public class WonMessage implements Serializable {
         return RdfUtils.cloneDataset(this.completeDataset);
     }
 
+    /**
+     * Returns the serialization of the complete dataset cached under the specified
+     * key, serializing the dataset with the specified encoder only the first time.
+     * The encoder gets the message's own dataset, which it must not modify. The
+     * cached serializations are dropped when a property is added to the message
+     * with one of the <code>addMessageProperty</code> methods; other changes to
+     * the dataset are not detected.
+     *
+     * @param key identifies the serialization, e.g. the serialization format
+     * @param encoder serializes the dataset
+     * @return the cached serialization, which must not be modified
+     */
+    synchronized byte[] getEncoding(Object key, Function<Dataset, byte[]> encoder) {
+        if (encodings == null) {
+            encodings = new HashMap<>(2);
+        }
+        return encodings.computeIfAbsent(key, k -> encoder.apply(this.completeDataset));
+    }
+
     /**
      * Return the message 'in focus'. Which one that is depends on the state of the
      * delivery chain in the dataset that this WonMessage object was created from.
@@ -475,6 +510,7 @@ public class WonMessage implements Serializable {
                             new Object[] { property, value, getMessageURI(), getEnvelopeURI() });
         }
         getEnvelopeGraph().getResource(getMessageURI().toString()).addProperty(property, value);
+        encodings = null;
     }
 
     public synchronized void addMessagePropertiesRDFNode(Property property, Collection<RDFNode> values) {
@@ -487,6 +523,7 @@ public class WonMessage implements Serializable {
         }
         Resource msg = getEnvelopeGraph().getResource(getMessageURI().toString());
         values.forEach(v -> msg.addProperty(property, v));
+        encodings = null;
     }
 
     /**
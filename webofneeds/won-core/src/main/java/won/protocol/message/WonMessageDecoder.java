@@ -2,6 +2,8 @@ package won.protocol.message;
 
 import java.io.StringReader;
 import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.DatasetFactory;
@@ -31,6 +33,25 @@ public class WonMessageDecoder {
         return decodeFromDataset(dataset);
     }
 
+    /**
+     * Decodes a serialized dataset that may contain multiple, unrelated messages,
+     * as produced by {@link WonMessageEncoder#encodeEach(java.util.Collection, Lang)}.
+     * 
+     * @param lang
+     * @param message
+     * @return one WonMessage per message found in the dataset
+     */
+    public static List<WonMessage> decodeEach(Lang lang, String message) {
+        if (message == null || message.equals("")) {
+            logger.warn("cannot decode empty or null string to messages");
+            return Collections.emptyList();
+        }
+        Dataset dataset = DatasetFactory.createGeneral();
+        StringReader sr = new StringReader(message);
+        RDFDataMgr.read(dataset, sr, null, lang);
+        return WonMessage.ofEach(dataset);
+    }
+
     public static WonMessage decodeFromDataset(Dataset message) {
         return WonMessage.of(message);
     }
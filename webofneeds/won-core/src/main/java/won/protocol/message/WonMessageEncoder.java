@@ -1,17 +1,81 @@
 package won.protocol.message;
 
-import java.io.StringWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.PrefixMap;
+import org.apache.jena.riot.system.PrefixMapFactory;
+import org.apache.jena.riot.writer.JsonLDWriter;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.sparql.util.Context;
+
+import com.github.jsonldjava.utils.JsonUtils;
+
+import won.protocol.util.DefaultPrefixUtils;
+import won.protocol.util.PooledByteArrayOutputStream;
+import won.protocol.util.RdfUtils;
 
 /**
  * User: ypanchenko Date: 04.08.2014
  */
 public class WonMessageEncoder {
+    /**
+     * Format used for sending messages to clients as JSON-LD: compact, without
+     * pretty printing.
+     */
+    public static final RDFFormat JSONLD_FORMAT = RDFFormat.JSONLD_COMPACT_FLAT;
+    private static final PrefixMap jsonLdPrefixes;
+    private static final Context jsonLdWriterContext;
+    static {
+        PrefixMapping prefixes = DefaultPrefixUtils.getDefaultPrefixes();
+        jsonLdPrefixes = PrefixMapFactory.create(prefixes);
+        // use a JSON-LD context made of the default prefixes, so the writer does
+        // not have to compute one from all triples of each message
+        Map<String, Object> jsonLdContext = new LinkedHashMap<>(prefixes.getNsPrefixMap());
+        jsonLdWriterContext = new Context();
+        try {
+            jsonLdWriterContext.set(JsonLDWriter.JSONLD_CONTEXT, JsonUtils.toString(jsonLdContext));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public static String encodeAsJsonLd(WonMessage message) {
-        return encode(message, Lang.JSONLD);
+        if (message == null)
+            return "";
+        return new String(encodeAsJsonLdBytes(message), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes the complete dataset of the message as JSON-LD (see
+     * {@link #JSONLD_FORMAT}). The message is serialized only once, later calls
+     * return the bytes cached in the message.
+     *
+     * @param message the message
+     * @return the UTF-8 encoded JSON-LD, which must not be modified
+     */
+    public static byte[] encodeAsJsonLdBytes(WonMessage message) {
+        return message.getEncoding(JSONLD_FORMAT, WonMessageEncoder::writeJsonLd);
+    }
+
+    private static byte[] writeJsonLd(Dataset dataset) {
+        PooledByteArrayOutputStream out = PooledByteArrayOutputStream.acquire();
+        try {
+            RDFDataMgr.createDatasetWriter(JSONLD_FORMAT).write(out, dataset.asDatasetGraph(), jsonLdPrefixes, null,
+                            jsonLdWriterContext);
+            return out.toByteArray();
+        } finally {
+            out.release();
+        }
     }
 
     /**
@@ -26,9 +90,24 @@ public class WonMessageEncoder {
     public static String encode(WonMessage message, Lang lang) {
         if (message == null)
             return "";
-        StringWriter sw = new StringWriter();
-        RDFDataMgr.write(sw, message.getCompleteDataset(), lang);
-        return sw.toString();
+        return RdfUtils.writeDatasetToString(message.getCompleteDataset(), lang);
+    }
+
+    /**
+     * Encodes multiple, unrelated WonMessage objects as one serialized RDF dataset
+     * in the given language. Use {@link WonMessageDecoder#decodeEach(Lang, String)}
+     * for decoding the result.
+     *
+     * @param messages the messages to serialize
+     * @param lang defines the serialization language
+     * @return <code>String</code> containing the serialized RDF
+     */
+    public static String encodeEach(Collection<WonMessage> messages, Lang lang) {
+        Dataset dataset = DatasetFactory.createGeneral();
+        for (WonMessage message : messages) {
+            RdfUtils.addDatasetToDataset(dataset, message.getCompleteDataset());
+        }
+        return RdfUtils.writeDatasetToString(dataset, lang);
     }
 
     public static Dataset encodeAsDataset(WonMessage wonMessage) {
@@ -0,0 +1,194 @@
+package won.protocol.message.processor.camel;
+
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Expression;
+import org.apache.camel.Processor;
+import org.javasimon.SimonManager;
+import org.javasimon.Split;
+
+/**
+ * Distributes exchanges over a fixed number of 'lanes', each of which is a
+ * seda queue consumed by a single thread. Exchanges with the same
+ * partition key (e.g. the sender atom URI) always end up in the same lane and
+ * are therefore processed in the order they were dispatched, while exchanges
+ * with different keys are processed in parallel. Lanes may be bounded, in
+ * which case dispatching to a full lane blocks the dispatching thread until
+ * there is room in the lane.
+ * <p>
+ * For each lane, the number of waiting exchanges is recorded in the Simon
+ * counter <code>[name].lane[i].depth</code> and the time an exchange waits in
+ * the lane in the Simon stopwatch <code>[name].lane[i].wait</code>.
+ * <p>
+ * Usage: put the lane into the headers with {@link #beforeDispatch(Object, Map)}
+ * (or use {@link #dispatchingProcessor(Expression)} in a route) and send the
+ * exchange to the endpoint found in the header
+ * <code>WonCamelConstants.LANE_ENDPOINT_HEADER</code>. Consume each of the
+ * {@link #getLaneEndpointUri(int)} endpoints with a route that starts with
+ * {@link #laneEntryProcessor()}. If the exchange cannot be sent to the lane,
+ * call {@link #dispatchFailed(Map)} (or use {@link #dispatchFailedProcessor()}
+ * in the route's exception handler) so the lane depth stays correct.
+ */
+public class PartitionedLaneDispatcher {
+    private final String name;
+    private final int laneCount;
+    private final int laneCapacity;
+
+    /**
+     * @param name name of the dispatcher, used for the lane endpoints and the
+     * monitoring names. Must be a valid Simon name (no colons).
+     * @param laneCount number of lanes (= number of threads processing exchanges)
+     * @param laneCapacity maximum number of exchanges waiting in each lane, 0 for
+     * unbounded lanes
+     */
+    public PartitionedLaneDispatcher(String name, int laneCount, int laneCapacity) {
+        Objects.requireNonNull(name);
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be at least 1");
+        }
+        if (laneCapacity < 0) {
+            throw new IllegalArgumentException("laneCapacity must not be negative");
+        }
+        this.name = name;
+        this.laneCount = laneCount;
+        this.laneCapacity = laneCapacity;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLaneCount() {
+        return laneCount;
+    }
+
+    public int getLaneCapacity() {
+        return laneCapacity;
+    }
+
+    /**
+     * Returns the lane for the specified partition key. A <code>null</code> key
+     * always maps to lane 0.
+     */
+    public int getLane(Object partitionKey) {
+        if (partitionKey == null) {
+            return 0;
+        }
+        return Math.floorMod(partitionKey.hashCode(), laneCount);
+    }
+
+    /**
+     * Returns the URI of the seda endpoint representing the lane. The same URI is
+     * used for producing and consuming.
+     */
+    public String getLaneEndpointUri(int lane) {
+        checkLane(lane);
+        if (laneCapacity == 0) {
+            return "seda:" + name + "-lane" + lane + "?concurrentConsumers=1";
+        }
+        return "seda:" + name + "-lane" + lane + "?size=" + laneCapacity
+                        + "&concurrentConsumers=1&blockWhenFull=true";
+    }
+
+    /**
+     * Returns the current number of exchanges waiting in the lane.
+     */
+    public long getLaneDepth(int lane) {
+        checkLane(lane);
+        return SimonManager.getCounter(getDepthCounterName(lane)).getCounter();
+    }
+
+    /**
+     * Determines the lane for the partition key, puts the lane and its endpoint
+     * into the headers and starts measuring the waiting time.
+     * 
+     * @return the lane endpoint to send the exchange to
+     */
+    public String beforeDispatch(Object partitionKey, Map<String, Object> headers) {
+        int lane = getLane(partitionKey);
+        String endpointUri = getLaneEndpointUri(lane);
+        headers.put(WonCamelConstants.LANE_HEADER, lane);
+        headers.put(WonCamelConstants.LANE_ENDPOINT_HEADER, endpointUri);
+        headers.put(WonCamelConstants.LANE_WAIT_SPLIT_HEADER,
+                        SimonManager.getStopwatch(getWaitStopwatchName(lane)).start());
+        SimonManager.getCounter(getDepthCounterName(lane)).increase();
+        return endpointUri;
+    }
+
+    /**
+     * Processor that evaluates the partition key expression on the exchange and
+     * prepares the exchange for dispatching via
+     * {@link #beforeDispatch(Object, Map)}.
+     */
+    public Processor dispatchingProcessor(final Expression partitionKey) {
+        return new Processor() {
+            @Override
+            public void process(Exchange exchange) throws Exception {
+                beforeDispatch(partitionKey.evaluate(exchange, Object.class), exchange.getIn().getHeaders());
+            }
+        };
+    }
+
+    /**
+     * Undoes {@link #beforeDispatch(Object, Map)} for an exchange that could not be
+     * sent to its lane: decreases the lane depth, stops measuring the waiting time
+     * and removes the lane headers. Does nothing if the headers contain no lane.
+     */
+    public void dispatchFailed(Map<String, Object> headers) {
+        leaveLane(headers);
+    }
+
+    /**
+     * Processor that calls {@link #dispatchFailed(Map)}, to be used in the
+     * exception handler of the dispatching route.
+     */
+    public Processor dispatchFailedProcessor() {
+        return new Processor() {
+            @Override
+            public void process(Exchange exchange) throws Exception {
+                dispatchFailed(exchange.getIn().getHeaders());
+            }
+        };
+    }
+
+    /**
+     * Processor to be used as the first step of each lane route. Stops measuring
+     * the waiting time and removes the lane headers.
+     */
+    public Processor laneEntryProcessor() {
+        return new Processor() {
+            @Override
+            public void process(Exchange exchange) throws Exception {
+                leaveLane(exchange.getIn().getHeaders());
+            }
+        };
+    }
+
+    private void leaveLane(Map<String, Object> headers) {
+        Object lane = headers.remove(WonCamelConstants.LANE_HEADER);
+        Object split = headers.remove(WonCamelConstants.LANE_WAIT_SPLIT_HEADER);
+        headers.remove(WonCamelConstants.LANE_ENDPOINT_HEADER);
+        if (split instanceof Split) {
+            ((Split) split).stop();
+        }
+        if (lane instanceof Integer) {
+            SimonManager.getCounter(getDepthCounterName((Integer) lane)).decrease();
+        }
+    }
+
+    private String getDepthCounterName(int lane) {
+        return name + ".lane" + lane + ".depth";
+    }
+
+    private String getWaitStopwatchName(int lane) {
+        return name + ".lane" + lane + ".wait";
+    }
+
+    private void checkLane(int lane) {
+        if (lane < 0 || lane >= laneCount) {
+            throw new IllegalArgumentException("no such lane: " + lane);
+        }
+    }
+}
@@ -38,5 +38,9 @@ public class WonCamelConstants {
     public static final String SUPPRESS_MESSAGE_REACTION_HADER = "won.suppressMessageReaction";
     public static final String IGNORE_HINT_HEADER = "won.ignoreHint";
     public static final String PARENT_URI_HEADER = "won.ParentUri";
+    public static final String MESSAGE_CONTAINER_HEADER = "won.messageContainer";
     public static final String REMOTE_BROKER_ENDPOINT_HEADER = "won.remoteBrokerEndpoint";
+    public static final String LANE_HEADER = "won.lane";
+    public static final String LANE_ENDPOINT_HEADER = "won.laneEndpoint";
+    public static final String LANE_WAIT_SPLIT_HEADER = "won.laneWaitSplit";
 }
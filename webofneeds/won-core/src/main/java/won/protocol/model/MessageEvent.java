@@ -31,7 +31,8 @@ import won.protocol.model.parentaware.ParentAware;
                 @Index(name = "IDX_ME_PARENT_URI", columnList = "parentURI"),
                 @Index(name = "IDX_ME_PARENT_URI_MESSAGE_TYPE", columnList = "parentURI, messageType"),
                 @Index(name = "IDX_ME_PARENT_URI_REFERENCED_BY_OTHER_MESSAGE", columnList = "parentURI, referencedByOtherMessage"),
-                @Index(name = "IDX_ME_RECIPIENT_ATOM_URI", columnList = "messageURI, recipientAtomURI")
+                @Index(name = "IDX_ME_RECIPIENT_ATOM_URI", columnList = "messageURI, recipientAtomURI"),
+                @Index(name = "IDX_ME_PARENT_URI_CREATION_DATE_ID", columnList = "parentURI, creationDate, id")
 }, uniqueConstraints = {
                 @UniqueConstraint(name = "IDX_ME_UNIQUE_MESSAGE_URI_PER_PARENT", columnNames = { "messageURI",
                                 "parentURI" }),
@@ -258,6 +259,14 @@ public class MessageEvent implements ParentAware<MessageContainer> {
         this.responseMessageURI = responseMessageURI;
     }
 
+    public URI getRespondingToURI() {
+        return respondingToURI;
+    }
+
+    public URI getResponseContainerURI() {
+        return responseContainerURI;
+    }
+
     public DatasetHolder getDatasetHolder() {
         return datasetHolder;
     }
@@ -0,0 +1,57 @@
+package won.protocol.model;
+
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Position of a message event in the (creationDate, id) ordering of the
+ * messages in a message container. Used for keyset paging: the next page
+ * consists of the messages strictly before or after the cursor, which the
+ * database can find using the index on (parentURI, creationDate, id) without
+ * looking at the messages skipped so far.
+ */
+public class MessageEventCursor {
+    private final Date creationDate;
+    private final Long id;
+
+    public MessageEventCursor(Date creationDate, Long id) {
+        Objects.requireNonNull(creationDate);
+        Objects.requireNonNull(id);
+        this.creationDate = creationDate;
+        this.id = id;
+    }
+
+    public static MessageEventCursor of(MessageEvent event) {
+        return new MessageEventCursor(event.getCreationDate(), event.getId());
+    }
+
+    public Date getCreationDate() {
+        return creationDate;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MessageEventCursor that = (MessageEventCursor) o;
+        return creationDate.getTime() == that.creationDate.getTime() && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(creationDate.getTime(), id);
+    }
+
+    @Override
+    public String toString() {
+        return "MessageEventCursor{creationDate=" + creationDate + ", id=" + id + "}";
+    }
+}
@@ -11,6 +11,8 @@
 package won.protocol.repository;
 
 import java.net.URI;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import javax.persistence.LockModeType;
@@ -29,6 +31,12 @@ public interface DatasetHolderRepository extends CrudRepository<DatasetHolder, U
     @Query("select id from DatasetHolder d where d.uri = :uri")
     Optional<Long> findIdByUri(@Param("uri") URI uri);
 
+    /**
+     * Returns [uri, id] pairs for all dataset holders with the specified URIs.
+     */
+    @Query("select d.uri, d.id from DatasetHolder d where d.uri in :uris")
+    List<Object[]> findUrisAndIdsByUriIn(@Param("uris") Collection<URI> uris);
+
     Optional<DatasetHolder> findOneByUriAndVersionNot(URI uri, Integer version);
 
     Optional<DatasetHolder> findOneByUri(URI uri);
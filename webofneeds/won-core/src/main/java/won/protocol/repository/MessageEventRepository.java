@@ -16,6 +16,7 @@ import org.springframework.data.repository.query.Param;
 
 import won.protocol.message.WonMessageType;
 import won.protocol.model.MessageEvent;
+import won.protocol.model.MessageEventCursor;
 import won.protocol.model.unread.UnreadMessageInfoForConnection;
 
 public interface MessageEventRepository extends WonRepository<MessageEvent> {
@@ -26,6 +27,8 @@ public interface MessageEventRepository extends WonRepository<MessageEvent> {
     Optional<MessageEvent> findOneByParentURIAndRespondingToURIAndResponseContainerURI(URI parentURI, URI responseToURI,
                     URI responseParentURI);
 
+    List<MessageEvent> findByParentURIAndRespondingToURIIn(URI parentURI, Collection<URI> responseToURIs);
+
     // read is permitted iff any of these conditions apply:
     // * the WebId is the sender atom
     // * the WebId is the recipient atom
@@ -168,10 +171,6 @@ public interface MessageEventRepository extends WonRepository<MessageEvent> {
     Slice<MessageEvent> findByParentURIBeforeFetchDatasetEagerly(@Param("parent") URI parentURI,
                     @Param("referenceDate") Date referenceDate, Pageable pageable);
 
-    @Query("select msg from MessageEvent msg left join fetch msg.datasetHolder where msg.parentURI = :parent and msg.creationDate < (select msg2.creationDate from MessageEvent msg2 where msg2.messageURI = :referenceMessageUri )")
-    Slice<MessageEvent> findByParentURIBeforeFetchDatasetEagerly(@Param("parent") URI parentURI,
-                    @Param("referenceMessageUri") URI referenceMessageUri, Pageable pageable);
-
     @Query("select messageURI from MessageEvent msg where msg.parentURI = :parent and msg.creationDate < :referenceDate and msg.messageType = :messageType")
     Slice<URI> getMessageURIsByParentURIBefore(@Param("parent") URI parentURI,
                     @Param("referenceDate") Date referenceDate, @Param("messageType") WonMessageType messageType,
@@ -187,11 +186,6 @@ public interface MessageEventRepository extends WonRepository<MessageEvent> {
                     @Param("referenceDate") Date referenceDate, @Param("messageType") WonMessageType messageType,
                     Pageable pageable);
 
-    @Query("select msg from MessageEvent msg left join fetch msg.datasetHolder where msg.parentURI = :parent and msg.messageType = :messageType and msg.creationDate < (select msg2.creationDate from MessageEvent msg2 where msg2.messageURI = :referenceMessageUri )")
-    Slice<MessageEvent> findByParentURIAndTypeBeforeFetchDatasetEagerly(@Param("parent") URI parentURI,
-                    @Param("referenceMessageUri") URI referenceMessageURI,
-                    @Param("messageType") WonMessageType messageType, Pageable pageable);
-
     @Query("select messageURI from MessageEvent msg where msg.parentURI = :parent and msg.creationDate > :referenceDate")
     Slice<URI> getMessageURIsByParentURIAfter(@Param("parent") URI parentURI,
                     @Param("referenceDate") Date referenceDate, Pageable pageable);
@@ -221,6 +215,67 @@ public interface MessageEventRepository extends WonRepository<MessageEvent> {
                     @Param("referenceDate") Date referenceDate, @Param("messageType") WonMessageType messageType,
                     Pageable pageable);
 
+    // keyset paging: the following queries select the messages strictly before
+    // or after a cursor in the (creationDate, id) ordering. The pageable must sort
+    // by creationDate and id (descending for 'before', ascending for 'after') and
+    // request page 0, so that the database only reads one page from the index on
+    // (parentURI, creationDate, id), no matter how far into the container we are.
+    @Query("select new won.protocol.model.MessageEventCursor(msg.creationDate, msg.id) from MessageEvent msg "
+                    + "where msg.messageURI = :messageUri and msg.parentURI = :parent")
+    Optional<MessageEventCursor> findCursorByMessageURIAndParentURI(@Param("messageUri") URI messageURI,
+                    @Param("parent") URI parentURI);
+
+    @Query("select msg from MessageEvent msg left join fetch msg.datasetHolder where msg.parentURI = :parent "
+                    + "and (msg.creationDate < :cursorDate or (msg.creationDate = :cursorDate and msg.id < :cursorId))")
+    Slice<MessageEvent> findByParentURIBeforeCursorFetchDatasetEagerly(@Param("parent") URI parentURI,
+                    @Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select msg from MessageEvent msg left join fetch msg.datasetHolder where msg.parentURI = :parent "
+                    + "and msg.messageType = :messageType "
+                    + "and (msg.creationDate < :cursorDate or (msg.creationDate = :cursorDate and msg.id < :cursorId))")
+    Slice<MessageEvent> findByParentURIAndTypeBeforeCursorFetchDatasetEagerly(@Param("parent") URI parentURI,
+                    @Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId,
+                    @Param("messageType") WonMessageType messageType, Pageable pageable);
+
+    @Query("select msg.messageURI from MessageEvent msg where msg.parentURI = :parent "
+                    + "and (msg.creationDate < :cursorDate or (msg.creationDate = :cursorDate and msg.id < :cursorId))")
+    Slice<URI> getMessageURIsByParentURIBeforeCursor(@Param("parent") URI parentURI,
+                    @Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select msg.messageURI from MessageEvent msg where msg.parentURI = :parent "
+                    + "and msg.messageType = :messageType "
+                    + "and (msg.creationDate < :cursorDate or (msg.creationDate = :cursorDate and msg.id < :cursorId))")
+    Slice<URI> getMessageURIsByParentURIAndTypeBeforeCursor(@Param("parent") URI parentURI,
+                    @Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId,
+                    @Param("messageType") WonMessageType messageType, Pageable pageable);
+
+    @Query("select msg from MessageEvent msg where msg.parentURI = :parent "
+                    + "and (msg.creationDate > :cursorDate or (msg.creationDate = :cursorDate and msg.id > :cursorId))")
+    Slice<MessageEvent> findByParentURIAfterCursor(@Param("parent") URI parentURI,
+                    @Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select msg from MessageEvent msg where msg.parentURI = :parent "
+                    + "and msg.messageType = :messageType "
+                    + "and (msg.creationDate > :cursorDate or (msg.creationDate = :cursorDate and msg.id > :cursorId))")
+    Slice<MessageEvent> findByParentURIAndTypeAfterCursor(@Param("parent") URI parentURI,
+                    @Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId,
+                    @Param("messageType") WonMessageType messageType, Pageable pageable);
+
+    @Query("select msg.messageURI from MessageEvent msg where msg.parentURI = :parent "
+                    + "and (msg.creationDate > :cursorDate or (msg.creationDate = :cursorDate and msg.id > :cursorId))")
+    Slice<URI> getMessageURIsByParentURIAfterCursor(@Param("parent") URI parentURI,
+                    @Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId, Pageable pageable);
+
+    @Query("select msg.messageURI from MessageEvent msg where msg.parentURI = :parent "
+                    + "and msg.messageType = :messageType "
+                    + "and (msg.creationDate > :cursorDate or (msg.creationDate = :cursorDate and msg.id > :cursorId))")
+    Slice<URI> getMessageURIsByParentURIAndTypeAfterCursor(@Param("parent") URI parentURI,
+                    @Param("cursorDate") Date cursorDate, @Param("cursorId") Long cursorId,
+                    @Param("messageType") WonMessageType messageType, Pageable pageable);
+
+    @Query("select msg.messageURI from MessageEvent msg where msg.parentURI = :parent")
+    Slice<URI> getMessageURIsByParentURI(@Param("parent") URI parentURI, Pageable pageable);
+
     @Query("select max(msg.creationDate) from MessageEvent msg where msg.creationDate <= :referenceDate and "
                     + "parentURI = :parent")
     Date findMaxActivityDateOfParentAtTime(@Param("parent") URI parentURI, @Param("referenceDate") Date referenceDate);
@@ -8,7 +8,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -33,16 +32,13 @@ import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.NodeIterator;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
-import org.apache.jena.rdf.model.ResIterator;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.rdf.model.impl.ResourceImpl;
 import org.apache.jena.rdf.model.impl.StatementImpl;
 import org.apache.jena.sparql.path.Path;
-import org.apache.jena.sparql.path.PathParser;
 import org.apache.jena.vocabulary.DCTerms;
-import org.apache.jena.vocabulary.RDF;
 
 import won.protocol.exception.IllegalAtomContentException;
 import won.protocol.exception.IncorrectPropertyCountException;
@@ -65,6 +61,8 @@ public class AtomModelWrapper {
     protected Dataset atomDataset;
     private String sysInfoGraphName;
     private String atomModelGraphName;
+    // structure of the dataset, built on first use and dropped on changes
+    private volatile AtomView view;
 
     /**
      * Create a new atom model (incluing sysinfo)
@@ -128,6 +126,7 @@ public class AtomModelWrapper {
                 this.sysInfoGraphName = "dummy#sysinfo";
                 atomDataset.addNamedModel(this.sysInfoGraphName, sysInfoModel);
             }
+            invalidateView();
         }
     }
 
@@ -149,6 +148,7 @@ public class AtomModelWrapper {
         if (atomModel != null) {
             this.atomModelGraphName = "dummy#atom";
             atomDataset.addNamedModel(this.atomModelGraphName, atomModel);
+            invalidateView();
             atomUri = getAtomContentNode().getURI();
         }
         if (atomUri != null) {
@@ -166,6 +166,7 @@ public class AtomModelWrapper {
                 this.atomModelGraphName = "dummy#atom";
                 atomDataset.addNamedModel(this.atomModelGraphName, atomModel);
             }
+            invalidateView();
         }
     }
 
@@ -182,57 +183,46 @@ public class AtomModelWrapper {
         if (ds == null || ds.isEmpty())
             return false;
         AtomModelWrapper wrapper = new AtomModelWrapper(ds, false);
-        return wrapper.getAtomContentNode() != null && wrapper.getAtomNode(AtomGraphType.SYSINFO) != null;
+        return wrapper.getView().isAtom();
     }
 
-    public Model getAtomModel() {
-        Iterator<String> modelNameIter = atomDataset.listNames();
-        if (this.atomModelGraphName != null && atomDataset.getNamedModel(this.atomModelGraphName) != null) {
-            return atomDataset.getNamedModel(this.atomModelGraphName);
-        }
-        Model defaultModel = atomDataset.getDefaultModel();
-        if (defaultModel.listSubjectsWithProperty(RDF.type, WON.Atom).hasNext()
-                        && !defaultModel.listSubjectsWithProperty(WON.atomState).hasNext()) {
-            return defaultModel;
-        }
-        while (modelNameIter.hasNext()) {
-            String tempModelName = modelNameIter.next();
-            Model model = atomDataset.getNamedModel(tempModelName);
-            if (tempModelName.equals("dummy#sysinfo")) {
-                continue;
+    /**
+     * Returns the view of the atom structure, which is built in one pass over the
+     * dataset on first use and kept until the dataset is changed through this
+     * wrapper.
+     *
+     * @return the view of the atom structure
+     */
+    public AtomView getView() {
+        AtomView currentView = this.view;
+        if (currentView == null) {
+            currentView = AtomView.build(atomDataset, atomModelGraphName, sysInfoGraphName);
+            if (currentView.getAtomModelGraphName() != null) {
+                this.atomModelGraphName = currentView.getAtomModelGraphName();
             }
-            if (model.listSubjectsWithProperty(RDF.type, WON.Atom).hasNext()
-                            && !model.listSubjectsWithProperty(WON.atomState).hasNext()) {
-                this.atomModelGraphName = tempModelName;
-                return model;
+            if (currentView.getSysInfoGraphName() != null) {
+                this.sysInfoGraphName = currentView.getSysInfoGraphName();
             }
+            this.view = currentView;
         }
-        return null;
+        return currentView;
+    }
+
+    /**
+     * Drops the view of the atom structure. Methods of this class that change the
+     * dataset call this, it has to be called after changing the dataset in other
+     * ways.
+     */
+    public void invalidateView() {
+        this.view = null;
+    }
+
+    public Model getAtomModel() {
+        return getView().getAtomModel();
     }
 
     public Model getSysInfoModel() {
-        Iterator<String> modelNameIter = atomDataset.listNames();
-        if (this.sysInfoGraphName != null && atomDataset.getNamedModel(this.sysInfoGraphName) != null) {
-            return atomDataset.getNamedModel(this.sysInfoGraphName);
-        }
-        Model defaultModel = atomDataset.getDefaultModel();
-        if (defaultModel.listSubjectsWithProperty(RDF.type, WON.Atom).hasNext()
-                        && defaultModel.listSubjectsWithProperty(WON.atomState).hasNext()) {
-            return defaultModel;
-        }
-        while (modelNameIter.hasNext()) {
-            String tempModelName = modelNameIter.next();
-            if (tempModelName.equals("dummy#atom")) {
-                continue;
-            }
-            Model model = atomDataset.getNamedModel(tempModelName);
-            if (model.listSubjectsWithProperty(RDF.type, WON.Atom).hasNext()
-                            && model.listSubjectsWithProperty(WON.atomState).hasNext()) {
-                this.sysInfoGraphName = tempModelName;
-                return model;
-            }
-        }
-        return null;
+        return getView().getSysInfoModel();
     }
 
     public boolean hasDerivedModel() {
@@ -282,9 +272,9 @@ public class AtomModelWrapper {
 
     public Dataset copyDatasetWithoutSysinfo() {
         Dataset ds = copyDataset();
-        getSysInfoModel(); // side effect: find graph name of sysinfo graph
-        if (this.sysInfoGraphName != null) {
-            ds.removeNamedModel(this.sysInfoGraphName);
+        String graphName = getView().getSysInfoGraphName();
+        if (graphName != null) {
+            ds.removeNamedModel(graphName);
         }
         return ds;
     }
@@ -296,27 +286,10 @@ public class AtomModelWrapper {
      * @return atom or sysinfo atom node
      */
     protected Resource getAtomNode(AtomGraphType graph) {
-        if (graph.equals(AtomGraphType.ATOM) && getAtomModel() != null) {
-            ResIterator iter = getAtomModel().listSubjectsWithProperty(RDF.type, WON.Atom);
-            Resource ret = null;
-            if (iter.hasNext()) {
-                ret = iter.next();
-            }
-            if (iter.hasNext()) {
-                throw new IllegalAtomContentException("More than one atom resource found");
-            }
-            return ret;
-        } else if (graph.equals(AtomGraphType.SYSINFO) && getSysInfoModel() != null) {
-            ResIterator iter = getSysInfoModel().listSubjectsWithProperty(RDF.type, WON.Atom);
-            Resource ret = null;
-            if (iter.hasNext()) {
-                return iter.next();
-            }
-            if (iter.hasNext()) {
-                throw new IllegalAtomContentException(
-                                "More than one atom resource found. Remove a triple '[atom] rdf:type won:Atom'!");
-            }
-            return ret;
+        if (graph.equals(AtomGraphType.ATOM)) {
+            return getView().getAtomContentNode();
+        } else if (graph.equals(AtomGraphType.SYSINFO)) {
+            return getView().getSysInfoAtomNode();
         }
         return null;
     }
@@ -340,11 +313,11 @@ public class AtomModelWrapper {
 
     public void addFlag(Resource flag) {
         getAtomContentNode().addProperty(WONMATCH.flag, flag);
+        invalidateView();
     }
 
     public boolean flag(Resource flag) {
-        Resource atomRes = getAtomContentNode();
-        return atomRes != null && atomRes.hasProperty(WONMATCH.flag, flag);
+        return getView().hasFlag(flag);
     }
 
     public Calendar getDoNotMatchBefore() {
@@ -393,6 +366,7 @@ public class AtomModelWrapper {
      */
     public void renameResourceWithPrefix(String prefix, String replacement) {
         RdfUtils.renameResourceWithPrefix(this.atomDataset, prefix, replacement);
+        invalidateView();
         this.atomModelGraphName = preplacePrefix(this.atomModelGraphName, prefix, replacement);
         this.sysInfoGraphName = preplacePrefix(this.sysInfoGraphName, prefix, replacement);
     }
@@ -421,6 +395,7 @@ public class AtomModelWrapper {
 
     public void addMatchingContext(String context) {
         getAtomContentNode().addProperty(WONMATCH.matchingContext, context);
+        invalidateView();
     }
 
     public boolean matchingContext(String context) {
@@ -429,6 +404,7 @@ public class AtomModelWrapper {
 
     public void addQuery(String query) {
         getAtomContentNode().addProperty(WONMATCH.sparqlQuery, query);
+        invalidateView();
     }
 
     public Optional<String> getQuery() {
@@ -439,16 +415,11 @@ public class AtomModelWrapper {
     }
 
     public boolean sparqlQuery() {
-        return getAtomContentNode().hasProperty(WONMATCH.sparqlQuery);
+        return getView().hasSparqlQuery();
     }
 
     public Collection<String> getMatchingContexts() {
-        Collection<String> matchingContexts = new LinkedList<>();
-        NodeIterator iter = getAtomModel().listObjectsOfProperty(getAtomContentNode(), WONMATCH.matchingContext);
-        while (iter.hasNext()) {
-            matchingContexts.add(iter.next().asLiteral().getString());
-        }
-        return matchingContexts;
+        return new LinkedList<>(getView().getMatchingContexts());
     }
 
     /**
@@ -471,6 +442,7 @@ public class AtomModelWrapper {
         Resource socketType = getAtomModel().createResource(socketTypeUri);
         getAtomContentNode().addProperty(WON.socket, socket);
         socket.addProperty(WON.socketDefinition, socketType);
+        invalidateView();
     }
 
     public void setDefaultSocket(String socketUri) {
@@ -492,12 +464,7 @@ public class AtomModelWrapper {
     }
 
     public Collection<String> getSocketUris() {
-        Collection<String> socketUris = new LinkedList<>();
-        NodeIterator iter = getAtomModel().listObjectsOfProperty(getAtomContentNode(), WON.socket);
-        while (iter.hasNext()) {
-            socketUris.add(iter.next().asResource().getURI());
-        }
-        return socketUris;
+        return new LinkedList<>(getView().getSocketUris());
     }
 
     public Map<URI, URI> getSocketTypeUriMap() {
@@ -592,6 +559,7 @@ public class AtomModelWrapper {
         Resource atom = getAtomNode(AtomGraphType.SYSINFO);
         atom.removeAll(WON.atomState);
         atom.addProperty(WON.atomState, stateRes);
+        invalidateView();
     }
 
     public AtomState getAtomState() {
@@ -667,6 +635,7 @@ public class AtomModelWrapper {
     public Resource createSeeksNode(String uri) {
         Resource contentNode = (uri != null) ? getAtomModel().createResource(uri) : getAtomModel().createResource();
         addSeeksPropertyToAtomNode(contentNode);
+        invalidateView();
         return contentNode;
     }
 
@@ -707,24 +676,7 @@ public class AtomModelWrapper {
      * @return content nodes
      */
     public Collection<Resource> getSeeksNodes() {
-        Collection<Resource> contentNodes = new LinkedList<>();
-        String queryClause = "{ ?atomNode a won:Atom. ?atomNode match:seeks ?contentNode. FILTER NOT EXISTS { ?atomNode match:seeks/match:seeks ?contentNode. } }";
-        String queryString = "prefix won: <https://w3id.org/won/core#> \n"
-                        + "prefix match: <https://w3id.org/won/matching#> \n"
-                        + "prefix con: <https://w3id.org/won/content#> \n"
-                        + "SELECT DISTINCT ?contentNode WHERE { \n"
-                        + queryClause + "\n }";
-        Query query = QueryFactory.create(queryString);
-        try (QueryExecution qexec = QueryExecutionFactory.create(query, getAtomModel())) {
-            ResultSet rs = qexec.execSelect();
-            while (rs.hasNext()) {
-                QuerySolution qs = rs.next();
-                if (qs.contains("contentNode")) {
-                    contentNodes.add(qs.get("contentNode").asResource());
-                }
-            }
-            return contentNodes;
-        }
+        return new LinkedList<>(getView().getSeeksNodes());
     }
 
     /**
@@ -787,6 +739,7 @@ public class AtomModelWrapper {
         Resource node = getAtomContentNode();
         node.removeAll(p);
         node.addLiteral(p, value);
+        invalidateView();
     }
 
     public void setSeeksPropertyStringValue(Property p, String value) {
@@ -795,6 +748,7 @@ public class AtomModelWrapper {
             node.removeAll(p);
             node.addLiteral(p, value);
         }
+        invalidateView();
     }
 
     /**
@@ -806,6 +760,7 @@ public class AtomModelWrapper {
     public void addPropertyStringValue(Property p, String value) {
         Resource node = getAtomContentNode();
         node.addLiteral(p, value);
+        invalidateView();
     }
 
     public void addSeeksPropertyStringValue(Property p, String value) {
@@ -813,6 +768,7 @@ public class AtomModelWrapper {
         for (Resource node : nodes) {
             node.addLiteral(p, value);
         }
+        invalidateView();
     }
 
     public String getContentPropertyStringValue(Resource contentNode, Property p) {
@@ -1017,7 +973,7 @@ public class AtomModelWrapper {
     }
 
     private Node getContentPropertyObject(String propertyPath) {
-        Path path = PathParser.parse(propertyPath, DefaultPrefixUtils.getDefaultPrefixes());
+        Path path = PropertyPaths.parse(propertyPath, DefaultPrefixUtils.getDefaultPrefixes());
         Resource resource = getAtomContentNode();
         Node node = resource.asNode();
         return RdfUtils.getNodeForPropertyPath(getAtomModel(), node, path);
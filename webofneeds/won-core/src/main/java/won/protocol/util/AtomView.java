@@ -0,0 +1,317 @@
+package won.protocol.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.rdf.model.ResIterator;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.vocabulary.RDF;
+
+import won.protocol.exception.IllegalAtomContentException;
+import won.protocol.model.Coordinate;
+import won.protocol.vocabulary.SCHEMA;
+import won.protocol.vocabulary.WON;
+import won.protocol.vocabulary.WONMATCH;
+
+/**
+ * Immutable view of the structure of an atom dataset: the atom and sysinfo
+ * graphs, the atom node and the flags, sockets, matching contexts, seeks nodes
+ * and locations of the atom. It is built by {@link AtomModelWrapper} in one
+ * pass over the dataset the first time the structure is needed and is dropped
+ * when the wrapper changes the dataset. Changes that are not made through the
+ * wrapper (e.g. to the dataset returned by
+ * {@link AtomModelWrapper#getDataset()}) are not detected, call
+ * {@link AtomModelWrapper#invalidateView()} after such changes.
+ */
+public final class AtomView {
+    private static final String SCHEMA_NS = "http://schema.org/";
+    private final Model atomModel;
+    private final String atomModelGraphName;
+    private final Model sysInfoModel;
+    private final String sysInfoGraphName;
+    private final Resource atomContentNode;
+    private final boolean multipleAtomContentNodes;
+    private final Resource sysInfoAtomNode;
+    private final Set<Node> flags;
+    private final Collection<String> matchingContexts;
+    private final Collection<String> socketUris;
+    private final boolean sparqlQuery;
+    private final Collection<Resource> seeksNodes;
+    private final Map<Resource, Coordinate> locations;
+    private final Map<Resource, Coordinate> jobLocations;
+
+    private AtomView(Model atomModel, String atomModelGraphName, Model sysInfoModel, String sysInfoGraphName) {
+        this.atomModel = atomModel;
+        this.atomModelGraphName = atomModelGraphName;
+        this.sysInfoModel = sysInfoModel;
+        this.sysInfoGraphName = sysInfoGraphName;
+        this.sysInfoAtomNode = sysInfoModel != null ? findFirstAtomNode(sysInfoModel.listSubjectsWithProperty(RDF.type,
+                        WON.Atom)) : null;
+        Resource atomNode = null;
+        boolean multipleAtomNodes = false;
+        if (atomModel != null) {
+            ResIterator iter = atomModel.listSubjectsWithProperty(RDF.type, WON.Atom);
+            atomNode = findFirstAtomNode(iter);
+            multipleAtomNodes = iter.hasNext();
+        }
+        this.atomContentNode = atomNode;
+        this.multipleAtomContentNodes = multipleAtomNodes;
+        Set<Node> flags = new HashSet<>();
+        List<String> matchingContexts = new LinkedList<>();
+        List<String> socketUris = new LinkedList<>();
+        Set<Resource> seeks = new LinkedHashSet<>();
+        boolean sparqlQuery = false;
+        if (atomNode != null) {
+            // all the atom level structure in one pass over the statements of the atom
+            StmtIterator it = atomModel.listStatements(atomNode, null, (RDFNode) null);
+            while (it.hasNext()) {
+                Statement stmt = it.next();
+                Property predicate = stmt.getPredicate();
+                RDFNode object = stmt.getObject();
+                if (WONMATCH.flag.equals(predicate)) {
+                    flags.add(object.asNode());
+                } else if (WONMATCH.matchingContext.equals(predicate) && object.isLiteral()) {
+                    matchingContexts.add(object.asLiteral().getString());
+                } else if (WON.socket.equals(predicate) && object.isResource()) {
+                    socketUris.add(object.asResource().getURI());
+                } else if (WONMATCH.seeks.equals(predicate) && object.isResource()) {
+                    seeks.add(object.asResource());
+                } else if (WONMATCH.sparqlQuery.equals(predicate)) {
+                    sparqlQuery = true;
+                }
+            }
+            // seeks nodes of seeks nodes are not seeks nodes of the atom
+            Set<Resource> seeksSeeks = new HashSet<>();
+            for (Resource seeksNode : seeks) {
+                atomModel.listObjectsOfProperty(seeksNode, WONMATCH.seeks).forEachRemaining(node -> {
+                    if (node.isResource()) {
+                        seeksSeeks.add(node.asResource());
+                    }
+                });
+            }
+            seeks.removeAll(seeksSeeks);
+        }
+        this.flags = Collections.unmodifiableSet(flags);
+        this.matchingContexts = Collections.unmodifiableList(matchingContexts);
+        this.socketUris = Collections.unmodifiableList(socketUris);
+        this.sparqlQuery = sparqlQuery;
+        this.seeksNodes = Collections.unmodifiableList(new LinkedList<>(seeks));
+        Map<Resource, Coordinate> locations = new HashMap<>();
+        Map<Resource, Coordinate> jobLocations = new HashMap<>();
+        if (atomNode != null) {
+            resolveLocations(atomNode, locations, jobLocations);
+            for (Resource seeksNode : seeks) {
+                resolveLocations(seeksNode, locations, jobLocations);
+            }
+        }
+        this.locations = Collections.unmodifiableMap(locations);
+        this.jobLocations = Collections.unmodifiableMap(jobLocations);
+    }
+
+    /**
+     * Builds the view of an atom dataset.
+     *
+     * @param dataset the atom dataset
+     * @param atomModelGraphName name of the atom graph if known, otherwise null
+     * @param sysInfoGraphName name of the sysinfo graph if known, otherwise null
+     * @return the view
+     */
+    static AtomView build(Dataset dataset, String atomModelGraphName, String sysInfoGraphName) {
+        Model atomModel = atomModelGraphName != null ? dataset.getNamedModel(atomModelGraphName) : null;
+        Model sysInfoModel = sysInfoGraphName != null ? dataset.getNamedModel(sysInfoGraphName) : null;
+        if (atomModel == null || sysInfoModel == null) {
+            Model defaultModel = dataset.getDefaultModel();
+            if (defaultModel.listSubjectsWithProperty(RDF.type, WON.Atom).hasNext()) {
+                if (!defaultModel.listSubjectsWithProperty(WON.atomState).hasNext()) {
+                    atomModel = atomModel == null ? defaultModel : atomModel;
+                } else {
+                    sysInfoModel = sysInfoModel == null ? defaultModel : sysInfoModel;
+                }
+            }
+        }
+        Iterator<String> modelNameIter = dataset.listNames();
+        while ((atomModel == null || sysInfoModel == null) && modelNameIter.hasNext()) {
+            String modelName = modelNameIter.next();
+            Model model = dataset.getNamedModel(modelName);
+            if (!model.listSubjectsWithProperty(RDF.type, WON.Atom).hasNext()) {
+                continue;
+            }
+            if (!model.listSubjectsWithProperty(WON.atomState).hasNext()) {
+                if (atomModel == null && !modelName.equals("dummy#sysinfo")) {
+                    atomModel = model;
+                    atomModelGraphName = modelName;
+                }
+            } else if (sysInfoModel == null && !modelName.equals("dummy#atom")) {
+                sysInfoModel = model;
+                sysInfoGraphName = modelName;
+            }
+        }
+        return new AtomView(atomModel, atomModelGraphName, sysInfoModel, sysInfoGraphName);
+    }
+
+    private static Resource findFirstAtomNode(ResIterator iter) {
+        return iter.hasNext() ? iter.next() : null;
+    }
+
+    private void resolveLocations(Resource contentNode, Map<Resource, Coordinate> locations,
+                    Map<Resource, Coordinate> jobLocations) {
+        resolveLocation(contentNode, SCHEMA.LOCATION, locations);
+        resolveLocation(contentNode, SCHEMA.JOBLOCATION, jobLocations);
+    }
+
+    private void resolveLocation(Resource contentNode, Property locationProperty,
+                    Map<Resource, Coordinate> locations) {
+        // only found locations are cached: missing ones are looked up again, as they
+        // may be added to the dataset later, and malformed ones fail when they are
+        // accessed
+        try {
+            Coordinate coordinate = readCoordinate(atomModel, contentNode, locationProperty);
+            if (coordinate != null) {
+                locations.put(contentNode, coordinate);
+            }
+        } catch (RuntimeException e) {
+            // not cached
+        }
+    }
+
+    /**
+     * Tries to retrieve the coordinates of the location stored in the contentNode
+     * within the given locationProperty
+     *
+     * @return Coordinate if found otherwise null
+     */
+    static Coordinate readCoordinate(Model atomModel, Resource contentNode, Property locationProperty) {
+        Property geoProperty = atomModel.createProperty(SCHEMA_NS, "geo");
+        Property longitudeProperty = atomModel.createProperty(SCHEMA_NS, "longitude");
+        Property latitudeProperty = atomModel.createProperty(SCHEMA_NS, "latitude");
+        RDFNode locationNode = RdfUtils.findOnePropertyFromResource(atomModel, contentNode, locationProperty);
+        RDFNode geoNode = (locationNode != null && locationNode.isResource())
+                        ? RdfUtils.findOnePropertyFromResource(atomModel, locationNode.asResource(), geoProperty)
+                        : null;
+        RDFNode lat = (geoNode != null && geoNode.isResource())
+                        ? RdfUtils.findOnePropertyFromResource(atomModel, geoNode.asResource(), latitudeProperty)
+                        : null;
+        RDFNode lon = (geoNode != null && geoNode.isResource())
+                        ? RdfUtils.findOnePropertyFromResource(atomModel, geoNode.asResource(), longitudeProperty)
+                        : null;
+        if (lat == null || lon == null) {
+            return null;
+        }
+        Float latitude = Float.valueOf(lat.asLiteral().getString());
+        Float longitude = Float.valueOf(lon.asLiteral().getString());
+        return new Coordinate(latitude, longitude);
+    }
+
+    public Model getAtomModel() {
+        return atomModel;
+    }
+
+    /**
+     * @return the name of the atom graph, null if it is the default graph or if
+     * there is no atom graph
+     */
+    public String getAtomModelGraphName() {
+        return atomModelGraphName;
+    }
+
+    public Model getSysInfoModel() {
+        return sysInfoModel;
+    }
+
+    /**
+     * @return the name of the sysinfo graph, null if it is the default graph or
+     * if there is no sysinfo graph
+     */
+    public String getSysInfoGraphName() {
+        return sysInfoGraphName;
+    }
+
+    /**
+     * @return the atom node of the atom graph or null if there is none
+     * @throws IllegalAtomContentException if there is more than one atom node
+     */
+    public Resource getAtomContentNode() {
+        if (multipleAtomContentNodes) {
+            throw new IllegalAtomContentException("More than one atom resource found");
+        }
+        return atomContentNode;
+    }
+
+    /**
+     * @return the atom node of the sysinfo graph or null if there is none
+     */
+    public Resource getSysInfoAtomNode() {
+        return sysInfoAtomNode;
+    }
+
+    /**
+     * Indicates if the dataset looks like atom data, i.e. it has an atom and a
+     * sysinfo graph.
+     */
+    public boolean isAtom() {
+        return getAtomContentNode() != null && sysInfoAtomNode != null;
+    }
+
+    public boolean hasFlag(Resource flag) {
+        return getAtomContentNode() != null && flags.contains(flag.asNode());
+    }
+
+    public Collection<String> getMatchingContexts() {
+        return matchingContexts;
+    }
+
+    public Collection<String> getSocketUris() {
+        return socketUris;
+    }
+
+    public boolean hasSparqlQuery() {
+        return getAtomContentNode() != null && sparqlQuery;
+    }
+
+    /**
+     * @return the seeks nodes of the atom, without the seeks nodes of seeks nodes
+     */
+    public Collection<Resource> getSeeksNodes() {
+        return seeksNodes;
+    }
+
+    /**
+     * @return true if the content node (atom or seeks node) had a valid location
+     * when the view was built
+     */
+    public boolean hasLocation(Resource contentNode, Property locationProperty) {
+        return getLocations(locationProperty).containsKey(contentNode);
+    }
+
+    /**
+     * @return the location coordinate of the content node (atom or seeks node),
+     * null if it had no valid location when the view was built
+     */
+    public Coordinate getLocation(Resource contentNode, Property locationProperty) {
+        return getLocations(locationProperty).get(contentNode);
+    }
+
+    private Map<Resource, Coordinate> getLocations(Property locationProperty) {
+        if (SCHEMA.LOCATION.equals(locationProperty)) {
+            return locations;
+        } else if (SCHEMA.JOBLOCATION.equals(locationProperty)) {
+            return jobLocations;
+        }
+        return Collections.emptyMap();
+    }
+}
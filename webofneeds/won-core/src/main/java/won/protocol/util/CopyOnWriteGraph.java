@@ -0,0 +1,161 @@
+package won.protocol.util;
+
+import org.apache.jena.graph.Factory;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphEvents;
+import org.apache.jena.graph.GraphUtil;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.impl.GraphBase;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.util.iterator.NiceIterator;
+
+/**
+ * Graph that shares its triples with the graphs it was copied from or to until
+ * it is changed. The shared base graph is never changed. The first change to
+ * the graph copies the base into a graph of its own, so taking a snapshot of a
+ * graph does not copy any triples and only graphs that are changed afterwards
+ * pay for copying.
+ * <p>
+ * Use {@link #copyOf(Graph)} to copy a graph. Graphs that are copy-on-write
+ * graphs already are not copied, a snapshot is taken instead.
+ */
+public class CopyOnWriteGraph extends GraphBase {
+    // never changed, may be shared with other copy-on-write graphs
+    private volatile Graph base;
+    // the triples of this graph after the first change, null before
+    private volatile Graph own;
+
+    private CopyOnWriteGraph(Graph base) {
+        this.base = base;
+    }
+
+    /**
+     * Returns a copy of the graph, including its prefixes. If the graph is a
+     * copy-on-write graph, no triples are copied.
+     */
+    public static CopyOnWriteGraph copyOf(Graph graph) {
+        if (graph instanceof CopyOnWriteGraph) {
+            return ((CopyOnWriteGraph) graph).snapshot();
+        }
+        Graph base = Factory.createGraphMem();
+        GraphUtil.addInto(base, graph);
+        CopyOnWriteGraph copy = new CopyOnWriteGraph(base);
+        copy.getPrefixMapping().setNsPrefixes(graph.getPrefixMapping());
+        return copy;
+    }
+
+    /**
+     * Returns a copy of this graph, that shares the triples with this graph until
+     * one of them is changed.
+     */
+    public synchronized CopyOnWriteGraph snapshot() {
+        if (own != null) {
+            // the triples of this graph become the shared base of both graphs
+            base = own;
+            own = null;
+        }
+        CopyOnWriteGraph snapshot = new CopyOnWriteGraph(base);
+        snapshot.getPrefixMapping().setNsPrefixes(getPrefixMapping());
+        return snapshot;
+    }
+
+    /**
+     * Indicates if the triples of this graph are still shared.
+     */
+    public boolean isShared() {
+        return own == null;
+    }
+
+    private Graph current() {
+        Graph current = own;
+        return current != null ? current : base;
+    }
+
+    private Graph ownForWriting() {
+        if (own == null) {
+            Graph copy = Factory.createGraphMem();
+            GraphUtil.addInto(copy, base);
+            own = copy;
+        }
+        return own;
+    }
+
+    @Override
+    public synchronized void performAdd(Triple t) {
+        ownForWriting().add(t);
+    }
+
+    @Override
+    public synchronized void performDelete(Triple t) {
+        if (own == null && !base.contains(t)) {
+            return;
+        }
+        ownForWriting().delete(t);
+    }
+
+    @Override
+    public synchronized void clear() {
+        own = Factory.createGraphMem();
+        getEventManager().notifyEvent(this, GraphEvents.removeAll);
+    }
+
+    @Override
+    protected ExtendedIterator<Triple> graphBaseFind(Triple triplePattern) {
+        Graph source = current();
+        return new CopyOnWriteIterator(source, source.find(triplePattern));
+    }
+
+    @Override
+    protected boolean graphBaseContains(Triple t) {
+        return current().contains(t);
+    }
+
+    @Override
+    protected int graphBaseSize() {
+        return current().size();
+    }
+
+    /**
+     * Removes triples through the graph, so that triples of the shared base are
+     * copied before they are removed.
+     */
+    private class CopyOnWriteIterator extends NiceIterator<Triple> {
+        private final Graph source;
+        private final ExtendedIterator<Triple> iterator;
+        private Triple current;
+
+        CopyOnWriteIterator(Graph source, ExtendedIterator<Triple> iterator) {
+            this.source = source;
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Triple next() {
+            current = iterator.next();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            synchronized (CopyOnWriteGraph.this) {
+                if (source == own) {
+                    iterator.remove();
+                    getEventManager().notifyDeleteTriple(CopyOnWriteGraph.this, current);
+                } else {
+                    // the iterator reads the shared base, which is not changed
+                    delete(current);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            iterator.close();
+        }
+    }
+}
@@ -248,25 +248,10 @@ public class DefaultAtomModelWrapper extends AtomModelWrapper {
      * @return Coordinate if found otherwise null
      */
     private Coordinate getLocationCoordinate(Resource contentNode, Property locationProperty) {
-        Model atomModel = getAtomModel();
-        Property geoProperty = atomModel.createProperty("http://schema.org/", "geo");
-        Property longitudeProperty = atomModel.createProperty("http://schema.org/", "longitude");
-        Property latitudeProperty = atomModel.createProperty("http://schema.org/", "latitude");
-        RDFNode locationNode = RdfUtils.findOnePropertyFromResource(atomModel, contentNode, locationProperty);
-        RDFNode geoNode = (locationNode != null && locationNode.isResource())
-                        ? RdfUtils.findOnePropertyFromResource(atomModel, locationNode.asResource(), geoProperty)
-                        : null;
-        RDFNode lat = (geoNode != null && geoNode.isResource())
-                        ? RdfUtils.findOnePropertyFromResource(atomModel, geoNode.asResource(), latitudeProperty)
-                        : null;
-        RDFNode lon = (geoNode != null && geoNode.isResource())
-                        ? RdfUtils.findOnePropertyFromResource(atomModel, geoNode.asResource(), longitudeProperty)
-                        : null;
-        if (lat == null || lon == null) {
-            return null;
+        AtomView view = getView();
+        if (view.hasLocation(contentNode, locationProperty)) {
+            return view.getLocation(contentNode, locationProperty);
         }
-        Float latitude = Float.valueOf(lat.asLiteral().getString());
-        Float longitude = Float.valueOf(lon.asLiteral().getString());
-        return new Coordinate(latitude, longitude);
+        return AtomView.readCoordinate(getAtomModel(), contentNode, locationProperty);
     }
 }
@@ -0,0 +1,78 @@
+package won.protocol.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output buffer that is reused by the thread that acquired it, to serialize RDF
+ * without allocating a new buffer (and growing it) for every message. The
+ * buffer must be released after use and the bytes must not be accessed after
+ * the release. Buffers that grew larger than {@link #MAX_RETAINED_SIZE} are not
+ * kept.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * PooledByteArrayOutputStream out = PooledByteArrayOutputStream.acquire();
+ * try {
+ *     RDFDataMgr.write(out, dataset, lang);
+ *     return out.toUtf8String();
+ * } finally {
+ *     out.release();
+ * }
+ * </pre>
+ */
+public class PooledByteArrayOutputStream extends ByteArrayOutputStream {
+    static final int INITIAL_SIZE = 16 * 1024;
+    static final int MAX_RETAINED_SIZE = 1024 * 1024;
+    private static final ThreadLocal<PooledByteArrayOutputStream> pool = ThreadLocal
+                    .withInitial(() -> new PooledByteArrayOutputStream(true));
+    private final boolean pooled;
+    private boolean inUse = false;
+
+    private PooledByteArrayOutputStream(boolean pooled) {
+        super(INITIAL_SIZE);
+        this.pooled = pooled;
+    }
+
+    /**
+     * Returns the empty buffer of the current thread. If it is in use already
+     * (e.g. serialization within serialization), a new buffer is returned.
+     */
+    public static PooledByteArrayOutputStream acquire() {
+        PooledByteArrayOutputStream out = pool.get();
+        if (out.inUse) {
+            out = new PooledByteArrayOutputStream(false);
+        }
+        out.inUse = true;
+        out.reset();
+        return out;
+    }
+
+    /**
+     * Returns the buffer to the pool.
+     */
+    public void release() {
+        inUse = false;
+        if (pooled && buf.length > MAX_RETAINED_SIZE) {
+            buf = new byte[INITIAL_SIZE];
+        }
+        reset();
+    }
+
+    /**
+     * Returns a view of the bytes written so far, which is valid until the buffer
+     * is released.
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, count);
+    }
+
+    /**
+     * Decodes the bytes written so far as UTF-8, without copying them first.
+     */
+    public String toUtf8String() {
+        return new String(buf, 0, count, StandardCharsets.UTF_8);
+    }
+}
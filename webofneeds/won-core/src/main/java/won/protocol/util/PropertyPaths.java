@@ -0,0 +1,235 @@
+package won.protocol.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.sparql.path.P_Alt;
+import org.apache.jena.sparql.path.P_Link;
+import org.apache.jena.sparql.path.P_ReverseLink;
+import org.apache.jena.sparql.path.P_Seq;
+import org.apache.jena.sparql.path.Path;
+import org.apache.jena.sparql.path.PathParser;
+import org.apache.jena.sparql.path.eval.PathEval;
+import org.apache.jena.sparql.util.Context;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+/**
+ * Parses and evaluates property paths, caching the parsed paths and the queries
+ * generated for them.
+ * <p>
+ * Paths that only consist of links, reverse links, sequences and alternatives
+ * (e.g. <code>won:connections/rdfs:member/^won:sourceAtom</code>) are evaluated
+ * directly on the graph, yielding the same nodes as {@link PathEval}. All other
+ * paths are evaluated by {@link PathEval}.
+ */
+public class PropertyPaths {
+    private static final int MAX_CACHE_SIZE = 1000;
+    private static final Map<PathKey, Path> parsedPaths = new ConcurrentHashMap<>();
+    private static final Map<String, Query> pathQueries = new ConcurrentHashMap<>();
+    private static final AtomicLong parseHits = new AtomicLong(0);
+    private static final AtomicLong parseMisses = new AtomicLong(0);
+    private static final AtomicLong queryHits = new AtomicLong(0);
+    private static final AtomicLong queryMisses = new AtomicLong(0);
+    private static final AtomicLong directEvaluations = new AtomicLong(0);
+    private static final AtomicLong pathEvalEvaluations = new AtomicLong(0);
+    private static final AtomicLong evaluationNanos = new AtomicLong(0);
+
+    /**
+     * Parses the path, or returns the path parsed earlier for the same string and
+     * prefixes.
+     *
+     * @param path the property path, e.g. <code>won:connections/rdfs:member</code>
+     * @param prefixes the prefixes used in the path
+     * @return the parsed path
+     */
+    public static Path parse(String path, PrefixMapping prefixes) {
+        PathKey key = new PathKey(path, prefixes.getNsPrefixMap());
+        Path parsed = parsedPaths.get(key);
+        if (parsed != null) {
+            parseHits.incrementAndGet();
+            return parsed;
+        }
+        parseMisses.incrementAndGet();
+        parsed = PathParser.parse(path, prefixes);
+        if (parsedPaths.size() >= MAX_CACHE_SIZE) {
+            parsedPaths.clear();
+        }
+        parsedPaths.put(key, parsed);
+        return parsed;
+    }
+
+    /**
+     * Returns the query <code>select ?obj where { GRAPH &lt;urn:x-arq:UnionGraph&gt;
+     * { ?resource [path] ?obj } }</code>, generated only once for each path. The
+     * query must not be modified.
+     */
+    static Query getPathQuery(Path path) {
+        String pathString = path.toString();
+        Query query = pathQueries.get(pathString);
+        if (query != null) {
+            queryHits.incrementAndGet();
+            return query;
+        }
+        queryMisses.incrementAndGet();
+        query = QueryFactory
+                        .create("select ?obj where { GRAPH <urn:x-arq:UnionGraph> { ?resource " + pathString
+                                        + " ?obj } }");
+        // set up the query before it is shared between executions
+        query.setResultVars();
+        if (pathQueries.size() >= MAX_CACHE_SIZE) {
+            pathQueries.clear();
+        }
+        pathQueries.put(pathString, query);
+        return query;
+    }
+
+    /**
+     * Evaluates the path on the graph, starting at the specified node.
+     *
+     * @param graph the graph
+     * @param start the start node
+     * @param path the property path
+     * @return the nodes reached
+     */
+    public static Iterator<Node> eval(Graph graph, Node start, Path path) {
+        long startTime = System.nanoTime();
+        try {
+            if (isSimple(path)) {
+                directEvaluations.incrementAndGet();
+                List<Node> result = new ArrayList<>();
+                eval(graph, start, path, result);
+                return result.iterator();
+            }
+            pathEvalEvaluations.incrementAndGet();
+            return PathEval.eval(graph, start, path, Context.emptyContext);
+        } finally {
+            evaluationNanos.addAndGet(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Indicates if the path only consists of links, reverse links, sequences and
+     * alternatives, so it can be evaluated without {@link PathEval}.
+     */
+    static boolean isSimple(Path path) {
+        if (path instanceof P_Link || path instanceof P_ReverseLink) {
+            return true;
+        }
+        if (path instanceof P_Seq) {
+            return isSimple(((P_Seq) path).getLeft()) && isSimple(((P_Seq) path).getRight());
+        }
+        if (path instanceof P_Alt) {
+            return isSimple(((P_Alt) path).getLeft()) && isSimple(((P_Alt) path).getRight());
+        }
+        return false;
+    }
+
+    private static void eval(Graph graph, Node node, Path path, List<Node> result) {
+        if (path instanceof P_Link) {
+            ExtendedIterator<Triple> it = graph.find(node, ((P_Link) path).getNode(), Node.ANY);
+            try {
+                while (it.hasNext()) {
+                    result.add(it.next().getObject());
+                }
+            } finally {
+                it.close();
+            }
+        } else if (path instanceof P_ReverseLink) {
+            ExtendedIterator<Triple> it = graph.find(Node.ANY, ((P_ReverseLink) path).getNode(), node);
+            try {
+                while (it.hasNext()) {
+                    result.add(it.next().getSubject());
+                }
+            } finally {
+                it.close();
+            }
+        } else if (path instanceof P_Seq) {
+            List<Node> intermediate = new ArrayList<>();
+            eval(graph, node, ((P_Seq) path).getLeft(), intermediate);
+            for (Node intermediateNode : intermediate) {
+                eval(graph, intermediateNode, ((P_Seq) path).getRight(), result);
+            }
+        } else if (path instanceof P_Alt) {
+            eval(graph, node, ((P_Alt) path).getLeft(), result);
+            eval(graph, node, ((P_Alt) path).getRight(), result);
+        } else {
+            throw new IllegalArgumentException("Cannot evaluate path directly: " + path);
+        }
+    }
+
+    public static long getParseHits() {
+        return parseHits.get();
+    }
+
+    public static long getParseMisses() {
+        return parseMisses.get();
+    }
+
+    public static long getQueryHits() {
+        return queryHits.get();
+    }
+
+    public static long getQueryMisses() {
+        return queryMisses.get();
+    }
+
+    public static long getDirectEvaluations() {
+        return directEvaluations.get();
+    }
+
+    public static long getPathEvalEvaluations() {
+        return pathEvalEvaluations.get();
+    }
+
+    /**
+     * Returns the total time spent in {@link #eval(Graph, Node, Path)}. For paths
+     * evaluated by {@link PathEval}, this does not include the time spent
+     * iterating over the result.
+     */
+    public static long getEvaluationNanos() {
+        return evaluationNanos.get();
+    }
+
+    public static String getStatistics() {
+        return String.format(
+                        "parsed paths: %d hits, %d misses; path queries: %d hits, %d misses; evaluations: %d direct, %d by PathEval, %d ms",
+                        getParseHits(), getParseMisses(), getQueryHits(), getQueryMisses(), getDirectEvaluations(),
+                        getPathEvalEvaluations(), getEvaluationNanos() / 1000000);
+    }
+
+    private static class PathKey {
+        private final String path;
+        private final Map<String, String> prefixes;
+
+        PathKey(String path, Map<String, String> prefixes) {
+            this.path = path;
+            this.prefixes = prefixes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof PathKey))
+                return false;
+            PathKey other = (PathKey) o;
+            return path.equals(other.path) && prefixes.equals(other.prefixes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, prefixes);
+        }
+    }
+}
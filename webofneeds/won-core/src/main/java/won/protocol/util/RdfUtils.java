@@ -5,10 +5,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
-import java.io.StringWriter;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -40,7 +39,6 @@ import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
-import org.apache.jena.query.QueryFactory;
 import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.QuerySolutionMap;
 import org.apache.jena.query.ReadWrite;
@@ -63,8 +61,6 @@ import org.apache.jena.shared.Lock;
 import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.Quad;
 import org.apache.jena.sparql.path.Path;
-import org.apache.jena.sparql.path.eval.PathEval;
-import org.apache.jena.sparql.util.Context;
 import org.apache.jena.tdb.TDB;
 import org.apache.jena.util.FileUtils;
 import org.apache.jena.util.ResourceUtils;
@@ -94,9 +90,13 @@ public class RdfUtils {
     public static String toString(Model model) {
         String ret = "";
         if (model != null) {
-            StringWriter sw = new StringWriter();
-            model.write(sw, "TTL");
-            ret = sw.toString();
+            PooledByteArrayOutputStream out = PooledByteArrayOutputStream.acquire();
+            try {
+                model.write(out, "TTL");
+                ret = out.toUtf8String();
+            } finally {
+                out.release();
+            }
         }
         return ret;
     }
@@ -112,25 +112,73 @@ public class RdfUtils {
      * @return <code>String</code> containing TriG serialized RDF from the dataset
      */
     public static String toString(Dataset dataset) {
-        String result = "";
-        if (dataset != null) {
-            StringWriter sw = new StringWriter();
-            RDFDataMgr.write(sw, dataset, RDFFormat.TRIG.getLang());
-            result = sw.toString();
-        }
-        return result;
+        return toString(dataset, RDFFormat.TRIG);
     }
 
     public static String toString(Dataset dataset, RDFFormat format) {
         String result = "";
         if (dataset != null) {
-            StringWriter sw = new StringWriter();
-            RDFDataMgr.write(sw, dataset, format);
-            result = sw.toString();
+            PooledByteArrayOutputStream out = PooledByteArrayOutputStream.acquire();
+            try {
+                RDFDataMgr.write(out, dataset, format);
+                result = out.toUtf8String();
+            } finally {
+                out.release();
+            }
         }
         return result;
     }
 
+    /**
+     * Serializes the dataset in the specified language without going through a
+     * String.
+     *
+     * @param dataset the dataset to serialize
+     * @param lang the serialization language
+     * @return the serialized dataset (UTF-8 for text formats)
+     */
+    public static byte[] toBytes(Dataset dataset, Lang lang) {
+        PooledByteArrayOutputStream out = PooledByteArrayOutputStream.acquire();
+        try {
+            RDFDataMgr.write(out, dataset, lang);
+            return out.toByteArray();
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * Parses a dataset from a slice of a byte array, without copying it.
+     *
+     * @param bytes the array that contains the serialized dataset
+     * @param offset start of the serialized dataset in the array
+     * @param length length of the serialized dataset
+     * @param lang the serialization language
+     * @return the dataset
+     */
+    public static Dataset toDataset(byte[] bytes, int offset, int length, Lang lang) {
+        Dataset dataset = DatasetFactory.createGeneral();
+        RDFDataMgr.read(dataset, new ByteArrayInputStream(bytes, offset, length), lang);
+        return dataset;
+    }
+
+    /**
+     * Parses a dataset from the remaining bytes of the buffer. The buffer's
+     * position is not changed.
+     *
+     * @param buffer the buffer that contains the serialized dataset
+     * @param lang the serialization language
+     * @return the dataset
+     */
+    public static Dataset toDataset(ByteBuffer buffer, Lang lang) {
+        if (buffer.hasArray()) {
+            return toDataset(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), lang);
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return toDataset(bytes, 0, bytes.length, lang);
+    }
+
     /**
      * Converts a <code>String</code> containing TriG formatted RDF into a Jena
      * Dataset
@@ -144,7 +192,10 @@ public class RdfUtils {
 
     public static Dataset toDataset(String content, RDFFormat rdfFormat) {
         if (content != null) {
-            return toDataset(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), rdfFormat);
+            // read the characters directly instead of encoding them to bytes first
+            Dataset dataset = DatasetFactory.createGeneral();
+            RDFDataMgr.read(dataset, new StringReader(content), null, rdfFormat.getLang());
+            return dataset;
         } else
             return DatasetFactory.createGeneral();
     }
@@ -162,19 +213,17 @@ public class RdfUtils {
 
     /**
      * Clones the specified model (its statements and ns prefixes) and returns the
-     * clone.
+     * clone. The clone is a {@link CopyOnWriteGraph}: cloning a clone does not copy
+     * any statements, they are only copied when one of the clones is changed.
      * 
      * @param original
      * @return
      */
     public static Model cloneModel(Model original) {
-        Model clonedModel = ModelFactory.createDefaultModel();
+        Model clonedModel;
         original.enterCriticalSection(Lock.READ);
         try {
-            StmtIterator it = original.listStatements();
-            while (it.hasNext()) {
-                clonedModel.add(it.nextStatement());
-            }
+            clonedModel = ModelFactory.createModelForGraph(CopyOnWriteGraph.copyOf(original.getGraph()));
             clonedModel.setNsPrefixes(original.getNsPrefixMap());
         } finally {
             original.leaveCriticalSection();
@@ -695,9 +744,13 @@ public class RdfUtils {
     }
 
     public static String writeModelToString(final Model model, final Lang lang) {
-        StringWriter out = new StringWriter();
-        RDFDataMgr.write(out, model, lang);
-        return out.toString();
+        PooledByteArrayOutputStream out = PooledByteArrayOutputStream.acquire();
+        try {
+            RDFDataMgr.write(out, model, lang);
+            return out.toUtf8String();
+        } finally {
+            out.release();
+        }
     }
 
     /**
@@ -971,9 +1024,7 @@ public class RdfUtils {
      */
     public static Iterator<RDFNode> getNodesForPropertyPathByQuery(final Dataset dataset, final URI resourceURI,
                     Path propertyPath) {
-        String queryString = "select ?obj where { GRAPH <urn:x-arq:UnionGraph> { ?resource " + propertyPath.toString()
-                        + " ?obj } }";
-        Query query = QueryFactory.create(queryString);
+        Query query = PropertyPaths.getPathQuery(propertyPath);
         QuerySolutionMap initialBinding = new QuerySolutionMap();
         initialBinding.add("?resource", dataset.getDefaultModel().createResource(resourceURI.toString()));
         try (QueryExecution qExec = QueryExecutionFactory.create(query, dataset, initialBinding)) {
@@ -1141,21 +1192,15 @@ public class RdfUtils {
      * @return
      */
     public static Node getNodeForPropertyPath(final Model model, URI resourceURI, Path propertyPath) {
-        // Iterator<Node> result = PathEval.eval(model.getGraph(),
-        // model.getResource(resourceURI.toString()).asNode(),
-        // propertyPath);
-        Iterator<Node> result = PathEval.eval(model.getGraph(), model.getResource(resourceURI.toString()).asNode(),
-                        propertyPath, Context.emptyContext);
+        Iterator<Node> result = PropertyPaths.eval(model.getGraph(),
+                        model.getResource(resourceURI.toString()).asNode(), propertyPath);
         if (!result.hasNext())
             return null;
         return result.next();
     }
 
     public static Node getNodeForPropertyPath(final Model model, Node node, Path propertyPath) {
-        // Iterator<Node> result = PathEval.eval(model.getGraph(),
-        // model.getResource(resourceURI.toString()).asNode(),
-        // propertyPath);
-        Iterator<Node> result = PathEval.eval(model.getGraph(), node, propertyPath, Context.emptyContext);
+        Iterator<Node> result = PropertyPaths.eval(model.getGraph(), node, propertyPath);
         if (!result.hasNext())
             return null;
         return result.next();
@@ -1184,8 +1229,8 @@ public class RdfUtils {
      * @return
      */
     public static Iterator<Node> getNodesForPropertyPath(final Model model, URI resourceURI, Path propertyPath) {
-        return PathEval.eval(model.getGraph(), model.getResource(resourceURI.toString()).asNode(),
-                        propertyPath, Context.emptyContext);
+        return PropertyPaths.eval(model.getGraph(), model.getResource(resourceURI.toString()).asNode(),
+                        propertyPath);
     }
 
     /**
@@ -1204,8 +1249,8 @@ public class RdfUtils {
 
     public static <T> Stream<T> getObjectStreamForPropertyPath(final Model model, URI resourceURI, Path propertyPath,
                     Function<Node, T> mapper) {
-        Iterator<Node> result = PathEval.eval(model.getGraph(), model.getResource(resourceURI.toString()).asNode(),
-                        propertyPath, Context.emptyContext);
+        Iterator<Node> result = PropertyPaths.eval(model.getGraph(),
+                        model.getResource(resourceURI.toString()).asNode(), propertyPath);
         return StreamSupport.stream(Spliterators.spliteratorUnknownSize(result, Spliterator.ORDERED), false)
                         .map(mapper);
     }
@@ -1979,9 +2024,13 @@ public class RdfUtils {
     }
 
     public static String writeDatasetToString(final Dataset dataset, final Lang lang) {
-        StringWriter sw = new StringWriter();
-        RDFDataMgr.write(sw, dataset, lang);
-        return sw.toString();
+        PooledByteArrayOutputStream out = PooledByteArrayOutputStream.acquire();
+        try {
+            RDFDataMgr.write(out, dataset, lang);
+            return out.toUtf8String();
+        } finally {
+            out.release();
+        }
     }
 
     public static Dataset readDatasetFromString(final String data, final Lang lang) {
@@ -2098,7 +2147,10 @@ public class RdfUtils {
      * @param isModelValidTest test function should return true if the model is
      * valid (previous condensation step was ok) and false otherwise
      * @return the condensed model
+     * @deprecated clones the model for every statement that is tested, use
+     * {@link #condenseModelByDeltaDebugging(Model, Function)}
      */
+    @Deprecated
     public static Model condenseModelByIterativeTesting(Model model, Function<Model, Boolean> isModelValidTest) {
         Model condensedModel = RdfUtils.cloneModel(model);
         boolean done = false;
@@ -2117,6 +2169,56 @@ public class RdfUtils {
         return condensedModel;
     }
 
+    /**
+     * Condense a model to a minimum of statements by removing chunks of statements
+     * and testing if the condensed model is still valid ("ddmin" delta debugging
+     * algorithm). If no chunk can be removed, the chunks are halved, until single
+     * statements are tested. As for
+     * {@link #condenseModelByIterativeTesting(Model, Function)}, no single
+     * statement can be removed from the result without making it invalid, but
+     * large parts of the model that are not needed are removed with few tests. The
+     * model is not copied for every test, removed statements that make the model
+     * invalid are added again.
+     *
+     * @param model input model to be condensed, is not changed
+     * @param isModelValidTest test function should return true if the model is
+     * valid (previous condensation step was ok) and false otherwise, must not
+     * change the model
+     * @return the condensed model
+     */
+    public static Model condenseModelByDeltaDebugging(Model model, Function<Model, Boolean> isModelValidTest) {
+        Model condensedModel = RdfUtils.cloneModel(model);
+        List<Statement> statements = condensedModel.listStatements().toList();
+        int chunkCount = 2;
+        while (!statements.isEmpty()) {
+            int chunkSize = (statements.size() + chunkCount - 1) / chunkCount;
+            boolean removedChunk = false;
+            for (int start = 0; start < statements.size(); start += chunkSize) {
+                List<Statement> chunk = statements.subList(start, Math.min(start + chunkSize, statements.size()));
+                condensedModel.remove(chunk);
+                if (isModelValidTest.apply(condensedModel)) {
+                    List<Statement> remaining = new ArrayList<>(statements.size() - chunk.size());
+                    remaining.addAll(statements.subList(0, start));
+                    remaining.addAll(statements.subList(start + chunk.size(), statements.size()));
+                    statements = remaining;
+                    chunkCount = Math.max(chunkCount - 1, 2);
+                    removedChunk = true;
+                    break;
+                }
+                // undo the removal
+                condensedModel.add(chunk);
+            }
+            if (!removedChunk) {
+                if (chunkSize == 1) {
+                    // no single statement can be removed anymore
+                    break;
+                }
+                chunkCount = Math.min(chunkCount * 2, statements.size());
+            }
+        }
+        return condensedModel;
+    }
+
     public interface GraphNameCheck {
         boolean isGraphUriOk(String graphUri);
     }
@@ -54,7 +54,6 @@ import org.apache.jena.sparql.algebra.op.OpUnion;
 import org.apache.jena.sparql.core.BasicPattern;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.path.Path;
-import org.apache.jena.sparql.path.PathParser;
 import org.apache.jena.tdb.TDB;
 import org.apache.jena.vocabulary.RDF;
 import org.hibernate.cfg.NotYetImplementedException;
@@ -708,8 +707,8 @@ public class WonRdfUtils {
         }
 
         public static WonMessage copyByDatasetSerialization(final WonMessage toWrap) {
-            return WonMessage.of(RdfUtils.readDatasetFromString(
-                            RdfUtils.writeDatasetToString(toWrap.getCompleteDataset(), Lang.TRIG), Lang.TRIG));
+            byte[] serialized = RdfUtils.toBytes(toWrap.getCompleteDataset(), Lang.TRIG);
+            return WonMessage.of(RdfUtils.toDataset(serialized, 0, serialized.length, Lang.TRIG));
         }
     }
 
@@ -1176,7 +1175,7 @@ public class WonRdfUtils {
         }
 
         public static URI getConnectionState(Dataset connectionDataset, URI connectionUri) {
-            Path statePath = PathParser.parse("won:connectionState", DefaultPrefixUtils.getDefaultPrefixes());
+            Path statePath = PropertyPaths.parse("won:connectionState", DefaultPrefixUtils.getDefaultPrefixes());
             return RdfUtils.getURIPropertyForPropertyPath(connectionDataset, connectionUri, statePath);
         }
 
@@ -1315,7 +1314,7 @@ public class WonRdfUtils {
             pmap.withDefaultMappings(PrefixMapping.Standard);
             pmap.setNsPrefix("won", WON.getURI());
             pmap.setNsPrefix("msg", WONMSG.getURI());
-            Path path = PathParser.parse("won:connectionContainer/rdfs:member/won:targetAtom", pmap);
+            Path path = PropertyPaths.parse("won:connectionContainer/rdfs:member/won:targetAtom", pmap);
             return RdfUtils.getURIsForPropertyPath(dataset, atomURI, path);
         }
 
@@ -1324,7 +1323,7 @@ public class WonRdfUtils {
             pmap.withDefaultMappings(PrefixMapping.Standard);
             pmap.setNsPrefix("won", WON.getURI());
             pmap.setNsPrefix("msg", WONMSG.getURI());
-            Path path = PathParser.parse("rdfs:member", pmap);
+            Path path = PropertyPaths.parse("rdfs:member", pmap);
             return RdfUtils.getURIsForPropertyPath(dataset, connectionContainerURI, path);
         }
 
@@ -1333,7 +1332,7 @@ public class WonRdfUtils {
             pmap.withDefaultMappings(PrefixMapping.Standard);
             pmap.setNsPrefix("won", WON.getURI());
             pmap.setNsPrefix("msg", WONMSG.getURI());
-            Path path = PathParser.parse("won:connections", pmap);
+            Path path = PropertyPaths.parse("won:connections", pmap);
             Iterator<URI> it = RdfUtils.getURIsForPropertyPath(dataset, atomURI, path);
             return it.hasNext() ? Optional.of(it.next()) : Optional.empty();
         }
@@ -40,7 +40,6 @@ import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.shared.PrefixMapping;
 import org.apache.jena.shared.impl.PrefixMappingImpl;
 import org.apache.jena.sparql.path.Path;
-import org.apache.jena.sparql.path.PathParser;
 import org.apache.jena.vocabulary.RDFS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +58,7 @@ import won.protocol.model.SocketDefinitionImpl;
 import won.protocol.rest.DatasetResponseWithStatusCodeAndHeaders;
 import won.protocol.rest.LinkedDataFetchingException;
 import won.protocol.service.WonNodeInfo;
+import won.protocol.util.PropertyPaths;
 import won.protocol.util.RdfUtils;
 import won.protocol.util.RdfUtils.Pair;
 import won.protocol.util.WonRdfUtils;
@@ -81,7 +81,7 @@ public class WonLinkedDataUtils {
     public static URI getConnectionStateforConnectionURI(URI connectionURI, LinkedDataSource linkedDataSource) {
         assert linkedDataSource != null : "linkedDataSource must not be null";
         Dataset dataset = getDataForResource(connectionURI, linkedDataSource);
-        Path propertyPath = PathParser.parse("<" + WON.connectionState + ">", PrefixMapping.Standard);
+        Path propertyPath = PropertyPaths.parse("<" + WON.connectionState + ">", PrefixMapping.Standard);
         return RdfUtils.getURIPropertyForPropertyPath(dataset, connectionURI, propertyPath);
     }
 
@@ -153,28 +153,28 @@ public class WonLinkedDataUtils {
     public static URI getAtomURIforConnectionURI(URI connectionURI, LinkedDataSource linkedDataSource) {
         assert linkedDataSource != null : "linkedDataSource must not be null";
         Dataset dataset = getDataForResource(connectionURI, linkedDataSource);
-        Path propertyPath = PathParser.parse("<" + WON.sourceAtom + ">", PrefixMapping.Standard);
+        Path propertyPath = PropertyPaths.parse("<" + WON.sourceAtom + ">", PrefixMapping.Standard);
         return RdfUtils.getURIPropertyForPropertyPath(dataset, connectionURI, propertyPath);
     }
 
     public static URI getTargetConnectionURIforConnectionURI(URI connectionURI, LinkedDataSource linkedDataSource) {
         assert linkedDataSource != null : "linkedDataSource must not be null";
         Dataset dataset = getDataForResource(connectionURI, linkedDataSource);
-        Path propertyPath = PathParser.parse("<" + WON.targetConnection + ">", PrefixMapping.Standard);
+        Path propertyPath = PropertyPaths.parse("<" + WON.targetConnection + ">", PrefixMapping.Standard);
         return RdfUtils.getURIPropertyForPropertyPath(dataset, connectionURI, propertyPath);
     }
 
     public static URI getTargetAtomURIforConnectionURI(URI connectionURI, LinkedDataSource linkedDataSource) {
         assert linkedDataSource != null : "linkedDataSource must not be null";
         Dataset dataset = getDataForResource(connectionURI, linkedDataSource);
-        Path propertyPath = PathParser.parse("<" + WON.targetAtom + ">", PrefixMapping.Standard);
+        Path propertyPath = PropertyPaths.parse("<" + WON.targetAtom + ">", PrefixMapping.Standard);
         return RdfUtils.getURIPropertyForPropertyPath(dataset, connectionURI, propertyPath);
     }
 
     public static URI getMessageContainerURIforConnectionURI(URI connectionURI, LinkedDataSource linkedDataSource) {
         assert linkedDataSource != null : "linkedDataSource must not be null";
         Dataset dataset = getDataForResource(connectionURI, linkedDataSource);
-        Path propertyPath = PathParser.parse("<" + WON.messageContainer + ">", PrefixMapping.Standard);
+        Path propertyPath = PropertyPaths.parse("<" + WON.messageContainer + ">", PrefixMapping.Standard);
         return RdfUtils.getURIPropertyForPropertyPath(dataset, connectionURI, propertyPath);
     }
 
@@ -193,7 +193,7 @@ public class WonLinkedDataUtils {
     public static URI getMessageContainerURIforAtomURI(URI atomURI, LinkedDataSource linkedDataSource) {
         assert linkedDataSource != null : "linkedDataSource must not be null";
         Dataset dataset = getDataForResource(atomURI, linkedDataSource);
-        Path propertyPath = PathParser.parse("<" + WON.messageContainer + ">", PrefixMapping.Standard);
+        Path propertyPath = PropertyPaths.parse("<" + WON.messageContainer + ">", PrefixMapping.Standard);
         return RdfUtils.getURIPropertyForPropertyPath(dataset, atomURI, propertyPath);
     }
 
@@ -380,20 +380,20 @@ public class WonLinkedDataUtils {
         pmap.withDefaultMappings(PrefixMapping.Standard);
         pmap.setNsPrefix("won", WON.getURI());
         pmap.setNsPrefix("msg", WONMSG.getURI());
-        propertyPaths.add(PathParser.parse("won:connections", pmap));
-        propertyPaths.add(PathParser.parse("won:connections/rdfs:member", pmap));
-        propertyPaths.add(PathParser.parse("won:connections/rdfs:member/won:messageContainer", pmap));
-        propertyPaths.add(PathParser.parse("won:connections/rdfs:member/won:messageContainer/rdfs:member", pmap));
-        propertyPaths.add(PathParser.parse(
+        propertyPaths.add(PropertyPaths.parse("won:connections", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:connections/rdfs:member", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:connections/rdfs:member/won:messageContainer", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:connections/rdfs:member/won:messageContainer/rdfs:member", pmap));
+        propertyPaths.add(PropertyPaths.parse(
                         "won:connections/rdfs:member/won:messageContainer/rdfs:member/msg:correspondingRemoteMessage",
                         pmap));
-        propertyPaths.add(PathParser.parse(
+        propertyPaths.add(PropertyPaths.parse(
                         "won:connections/rdfs:member/won:messageContainer/rdfs:member/msg:previousMessage", pmap));
-        propertyPaths.add(PathParser.parse("won:connections/rdfs:member/won:sourceAtom", pmap));
-        propertyPaths.add(PathParser.parse("won:connections/rdfs:member/won:sourceAtom/won:messageContainer", pmap));
-        propertyPaths.add(PathParser
+        propertyPaths.add(PropertyPaths.parse("won:connections/rdfs:member/won:sourceAtom", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:connections/rdfs:member/won:sourceAtom/won:messageContainer", pmap));
+        propertyPaths.add(PropertyPaths
                         .parse("won:connections/rdfs:member/won:sourceAtom/won:messageContainer/rdfs:member", pmap));
-        propertyPaths.add(PathParser.parse(
+        propertyPaths.add(PropertyPaths.parse(
                         "won:connections/rdfs:member/won:sourceAtom/won:messageContainer/rdfs:member/msg:previousMessage",
                         pmap));
         return linkedDataSource.getDataForResourceWithPropertyPath(atomURI, atomURI, propertyPaths, maxRequests, depth);
@@ -408,27 +408,27 @@ public class WonLinkedDataUtils {
         pmap.withDefaultMappings(PrefixMapping.Standard);
         pmap.setNsPrefix("won", WON.getURI());
         pmap.setNsPrefix("msg", WONMSG.getURI());
-        propertyPaths.add(PathParser.parse("won:messageContainer", pmap));
-        propertyPaths.add(PathParser.parse("won:messageContainer/rdfs:member", pmap));
-        propertyPaths.add(PathParser.parse("won:messageContainer/rdfs:member/msg:correspondingRemoteMessage", pmap));
-        propertyPaths.add(PathParser.parse("won:messageContainer/rdfs:member/msg:previousMessage", pmap));
-        propertyPaths.add(PathParser.parse("won:sourceAtom", pmap));
-        propertyPaths.add(PathParser.parse("won:sourceAtom/won:messageContainer", pmap));
-        propertyPaths.add(PathParser.parse("won:sourceAtom/won:messageContainer/rdfs:member", pmap));
-        propertyPaths.add(
-                        PathParser.parse("won:sourceAtom/won:messageContainer/rdfs:member/msg:previousMessage", pmap));
-        propertyPaths.add(PathParser.parse("won:targetAtom", pmap));
-        propertyPaths.add(PathParser.parse("won:targetAtom/won:messageContainer", pmap));
-        propertyPaths.add(PathParser.parse("won:targetAtom/won:messageContainer/rdfs:member", pmap));
-        propertyPaths.add(
-                        PathParser.parse("won:targetAtom/won:messageContainer/rdfs:member/msg:previousMessage", pmap));
-        propertyPaths.add(PathParser.parse("won:targetConnection", pmap));
-        propertyPaths.add(PathParser.parse("won:targetConnection/won:messageContainer", pmap));
-        propertyPaths.add(PathParser.parse("won:targetConnection/won:messageContainer/rdfs:member", pmap));
-        propertyPaths.add(PathParser.parse(
-                        "won:targetConnection/won:messageContainer/rdfs:member/msg:correspondingRemoteMessage", pmap));
-        propertyPaths.add(PathParser.parse("won:targetConnection/won:messageContainer/rdfs:member/msg:previousMessage",
+        propertyPaths.add(PropertyPaths.parse("won:messageContainer", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:messageContainer/rdfs:member", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:messageContainer/rdfs:member/msg:correspondingRemoteMessage", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:messageContainer/rdfs:member/msg:previousMessage", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:sourceAtom", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:sourceAtom/won:messageContainer", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:sourceAtom/won:messageContainer/rdfs:member", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:sourceAtom/won:messageContainer/rdfs:member/msg:previousMessage",
+                        pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetAtom", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetAtom/won:messageContainer", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetAtom/won:messageContainer/rdfs:member", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetAtom/won:messageContainer/rdfs:member/msg:previousMessage",
                         pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetConnection", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetConnection/won:messageContainer", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetConnection/won:messageContainer/rdfs:member", pmap));
+        propertyPaths.add(PropertyPaths.parse(
+                        "won:targetConnection/won:messageContainer/rdfs:member/msg:correspondingRemoteMessage", pmap));
+        propertyPaths.add(PropertyPaths.parse(
+                        "won:targetConnection/won:messageContainer/rdfs:member/msg:previousMessage", pmap));
         URI requesterWebId = WonLinkedDataUtils.getAtomURIforConnectionURI(connectionURI, linkedDataSource);
         return linkedDataSource.getDataForResourceWithPropertyPath(connectionURI, requesterWebId, propertyPaths,
                         maxRequests, depth);
@@ -445,10 +445,10 @@ public class WonLinkedDataUtils {
         pmap.setNsPrefix("won", WON.getURI());
         pmap.setNsPrefix("msg", WONMSG.getURI());
         pmap.setNsPrefix("rdfs", RDFS.getURI());
-        propertyPaths.add(PathParser.parse("^rdfs:member / ^won:messageContainer / ^won:wonNode", pmap));
-        propertyPaths.add(PathParser.parse("^won:messageContainer / ^won:wonNode", pmap));
-        propertyPaths.add(PathParser.parse("^won:wonNode", pmap));
-        propertyPaths.add(PathParser.parse("rdfs:member / ^won:wonNode", pmap));
+        propertyPaths.add(PropertyPaths.parse("^rdfs:member / ^won:messageContainer / ^won:wonNode", pmap));
+        propertyPaths.add(PropertyPaths.parse("^won:messageContainer / ^won:wonNode", pmap));
+        propertyPaths.add(PropertyPaths.parse("^won:wonNode", pmap));
+        propertyPaths.add(PropertyPaths.parse("rdfs:member / ^won:wonNode", pmap));
         Dataset ds = linkedDataSource.getDataForResourceWithPropertyPath(someURI, requesterWebID, propertyPaths,
                         maxRequests, depth);
         WonNodeInfo info = WonRdfUtils.WonNodeUtils.getWonNodeInfo(ds);
@@ -468,11 +468,11 @@ public class WonLinkedDataUtils {
         pmap.withDefaultMappings(PrefixMapping.Standard);
         pmap.setNsPrefix("won", WON.getURI());
         pmap.setNsPrefix("msg", WONMSG.getURI());
-        propertyPaths.add(PathParser.parse("won:messageContainer", pmap));
-        propertyPaths.add(PathParser.parse("won:messageContainer/rdfs:member", pmap));
-        propertyPaths.add(PathParser.parse("won:targetConnection", pmap));
-        propertyPaths.add(PathParser.parse("won:targetConnection/won:messageContainer", pmap));
-        propertyPaths.add(PathParser.parse("won:targetConnection/won:messageContainer/rdfs:member", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:messageContainer", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:messageContainer/rdfs:member", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetConnection", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetConnection/won:messageContainer", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:targetConnection/won:messageContainer/rdfs:member", pmap));
         URI requesterWebId = WonLinkedDataUtils.getAtomURIforConnectionURI(connectionURI, linkedDataSource);
         return linkedDataSource.getDataForResourceWithPropertyPath(connectionURI, requesterWebId, propertyPaths,
                         maxRequests, depth);
@@ -739,8 +739,8 @@ public class WonLinkedDataUtils {
         pmap.withDefaultMappings(PrefixMapping.Standard);
         pmap.setNsPrefix("won", WON.getURI());
         pmap.setNsPrefix("msg", WONMSG.getURI());
-        propertyPaths.add(PathParser.parse("won:connections", pmap));
-        propertyPaths.add(PathParser.parse("won:connections/rdfs:member", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:connections", pmap));
+        propertyPaths.add(PropertyPaths.parse("won:connections/rdfs:member", pmap));
         return linkedDataSource.getDataForResourceWithPropertyPath(atomURI, atomURI, propertyPaths, maxRequests, depth);
     }
 
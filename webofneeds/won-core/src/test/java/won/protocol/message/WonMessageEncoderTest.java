@@ -0,0 +1,83 @@
+package won.protocol.message;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import won.protocol.util.RdfUtils;
+
+public class WonMessageEncoderTest {
+    private static final String RESOURCE_FILE = "/wonmessage/extract_content/create_message.trig";
+
+    @Test
+    public void testJsonLdRoundTrip() throws IOException {
+        WonMessage message = WonMessage.of(Utils.createTestDataset(RESOURCE_FILE));
+        byte[] encoded = WonMessageEncoder.encodeAsJsonLdBytes(message);
+        Dataset decoded = RdfUtils.toDataset(encoded, 0, encoded.length, Lang.JSONLD);
+        Assert.assertTrue(RdfUtils.isIsomorphicWith(message.getCompleteDataset(), decoded));
+        Assert.assertEquals(new String(encoded, StandardCharsets.UTF_8), WonMessageEncoder.encodeAsJsonLd(message));
+    }
+
+    @Test
+    public void testJsonLdIsCachedUntilMessageChanges() throws IOException {
+        WonMessage message = WonMessage.of(Utils.createTestDataset(RESOURCE_FILE));
+        byte[] encoded = WonMessageEncoder.encodeAsJsonLdBytes(message);
+        Assert.assertSame(encoded, WonMessageEncoder.encodeAsJsonLdBytes(message));
+        message.addMessageProperty(RDFS.comment, message.getMessageURI());
+        byte[] changed = WonMessageEncoder.encodeAsJsonLdBytes(message);
+        Assert.assertNotSame(encoded, changed);
+        Assert.assertTrue(RdfUtils.isIsomorphicWith(message.getCompleteDataset(),
+                        RdfUtils.toDataset(changed, 0, changed.length, Lang.JSONLD)));
+    }
+
+    /**
+     * Compares the bytes allocated for delivering one message to several
+     * websocket sessions: serializing the message for each delivery as before, and
+     * serializing it once with the cached encoding.
+     */
+    @Test
+    @Ignore
+    public void compareAllocationPerMessage() throws IOException {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                        .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Dataset dataset = Utils.createTestDataset(RESOURCE_FILE);
+        int rounds = 10000;
+        int sessions = 3;
+        for (int i = 0; i < rounds; i++) {
+            WonMessageEncoder.encode(WonMessage.of(dataset), Lang.JSONLD);
+            WonMessageEncoder.encodeAsJsonLdBytes(WonMessage.of(dataset));
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            WonMessage message = WonMessage.of(dataset);
+            for (int j = 0; j < sessions; j++) {
+                WonMessageEncoder.encode(message, Lang.JSONLD);
+            }
+        }
+        long uncachedTime = System.nanoTime() - start;
+        long uncachedBytes = threadBean.getThreadAllocatedBytes(threadId) - allocated;
+        allocated = threadBean.getThreadAllocatedBytes(threadId);
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            WonMessage message = WonMessage.of(dataset);
+            for (int j = 0; j < sessions; j++) {
+                WonMessageEncoder.encodeAsJsonLdBytes(message);
+            }
+        }
+        long cachedTime = System.nanoTime() - start;
+        long cachedBytes = threadBean.getThreadAllocatedBytes(threadId) - allocated;
+        System.out.println(String.format(
+                        "pretty JSON-LD per delivery: %d bytes/message, %d ms; compact JSON-LD once: %d bytes/message, %d ms (%d rounds, %d sessions)",
+                        uncachedBytes / rounds, uncachedTime / 1000000, cachedBytes / rounds, cachedTime / 1000000,
+                        rounds, sessions));
+    }
+}
@@ -0,0 +1,82 @@
+package won.protocol.message.processor.camel;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PartitionedLaneDispatcherTest {
+    @Test
+    public void testSameKeySameLane() {
+        PartitionedLaneDispatcher lanes = new PartitionedLaneDispatcher("testSameKeySameLane", 8, 100);
+        URI atomUri = URI.create("https://localhost:8443/won/resource/atom/1234");
+        int lane = lanes.getLane(atomUri);
+        Assert.assertTrue(lane >= 0 && lane < 8);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(lane, lanes.getLane(URI.create(atomUri.toString())));
+        }
+        Assert.assertEquals(0, lanes.getLane(null));
+    }
+
+    @Test
+    public void testLaneEndpointUris() {
+        PartitionedLaneDispatcher bounded = new PartitionedLaneDispatcher("bounded", 2, 100);
+        Assert.assertEquals("seda:bounded-lane1?size=100&concurrentConsumers=1&blockWhenFull=true",
+                        bounded.getLaneEndpointUri(1));
+        PartitionedLaneDispatcher unbounded = new PartitionedLaneDispatcher("unbounded", 2, 0);
+        Assert.assertEquals("seda:unbounded-lane0?concurrentConsumers=1", unbounded.getLaneEndpointUri(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoSuchLane() {
+        new PartitionedLaneDispatcher("testNoSuchLane", 2, 0).getLaneEndpointUri(2);
+    }
+
+    @Test
+    public void testLaneDepth() throws Exception {
+        PartitionedLaneDispatcher lanes = new PartitionedLaneDispatcher("testLaneDepth", 1, 0);
+        Map<String, Object> headers1 = new HashMap<>();
+        Map<String, Object> headers2 = new HashMap<>();
+        Assert.assertEquals(lanes.getLaneEndpointUri(0), lanes.beforeDispatch("key1", headers1));
+        lanes.beforeDispatch("key2", headers2);
+        Assert.assertEquals(2, lanes.getLaneDepth(0));
+        CamelContext camelContext = new DefaultCamelContext();
+        Exchange exchange = new DefaultExchange(camelContext);
+        exchange.getIn().setHeaders(headers1);
+        lanes.laneEntryProcessor().process(exchange);
+        Assert.assertEquals(1, lanes.getLaneDepth(0));
+        Assert.assertNull(exchange.getIn().getHeader(WonCamelConstants.LANE_HEADER));
+        Assert.assertNull(exchange.getIn().getHeader(WonCamelConstants.LANE_WAIT_SPLIT_HEADER));
+    }
+
+    @Test
+    public void testDispatchFailed() throws Exception {
+        PartitionedLaneDispatcher lanes = new PartitionedLaneDispatcher("testDispatchFailed", 4, 0);
+        URI atomUri = URI.create("https://localhost:8443/won/resource/atom/1234");
+        int lane = lanes.getLane(atomUri);
+        Map<String, Object> headers = new HashMap<>();
+        Assert.assertEquals(lanes.getLaneEndpointUri(lane), lanes.beforeDispatch(atomUri, headers));
+        Assert.assertEquals(lane, headers.get(WonCamelConstants.LANE_HEADER));
+        Assert.assertEquals(lanes.getLaneEndpointUri(lane), headers.get(WonCamelConstants.LANE_ENDPOINT_HEADER));
+        Assert.assertEquals(1, lanes.getLaneDepth(lane));
+        // the send failed: the exchange never reaches the lane
+        lanes.dispatchFailed(headers);
+        Assert.assertEquals(0, lanes.getLaneDepth(lane));
+        Assert.assertTrue(headers.isEmpty());
+        // no lane in the headers (e.g. failure before dispatching): nothing to undo
+        lanes.dispatchFailed(headers);
+        Assert.assertEquals(0, lanes.getLaneDepth(lane));
+        CamelContext camelContext = new DefaultCamelContext();
+        Exchange exchange = new DefaultExchange(camelContext);
+        lanes.beforeDispatch(atomUri, exchange.getIn().getHeaders());
+        Assert.assertEquals(1, lanes.getLaneDepth(lane));
+        lanes.dispatchFailedProcessor().process(exchange);
+        Assert.assertEquals(0, lanes.getLaneDepth(lane));
+    }
+}
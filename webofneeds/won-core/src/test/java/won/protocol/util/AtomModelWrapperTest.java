@@ -18,6 +18,7 @@ import org.junit.Test;
 import won.protocol.message.Utils;
 import won.protocol.model.AtomGraphType;
 import won.protocol.model.AtomState;
+import won.protocol.vocabulary.SCHEMA;
 import won.protocol.vocabulary.WONCON;
 import won.protocol.vocabulary.WONMATCH;
 
@@ -164,6 +165,56 @@ public class AtomModelWrapperTest {
         Assert.assertEquals(2, atomModelWrapper.getSeeksPropertyStringValues(WONCON.tag, null).size());
     }
 
+    @Test
+    public void viewIsUpdatedOnChanges() throws IOException {
+        Dataset ds = Utils.createTestDataset("/atommodel/atom1.trig");
+        AtomModelWrapper atomModelWrapper = new AtomModelWrapper(ds, false);
+        AtomView view = atomModelWrapper.getView();
+        Assert.assertSame(view, atomModelWrapper.getView());
+        Assert.assertEquals(ATOM_URI, view.getAtomContentNode().getURI());
+        Assert.assertEquals(ATOM_URI, view.getSysInfoAtomNode().getURI());
+        Assert.assertTrue(view.isAtom());
+        Assert.assertTrue(view.hasFlag(WONMATCH.UsedForTesting));
+        Assert.assertFalse(view.hasFlag(WONMATCH.WhatsAround));
+        Assert.assertEquals(1, view.getSeeksNodes().size());
+        Assert.assertEquals(1, view.getSocketUris().size());
+        // changes through the wrapper are visible
+        atomModelWrapper.addFlag(WONMATCH.WhatsAround);
+        atomModelWrapper.addMatchingContext("context");
+        atomModelWrapper.createSeeksNode("https://seeks_uri1");
+        Assert.assertNotSame(view, atomModelWrapper.getView());
+        Assert.assertTrue(atomModelWrapper.flag(WONMATCH.WhatsAround));
+        Assert.assertTrue(atomModelWrapper.getMatchingContexts().contains("context"));
+        Assert.assertEquals(2, atomModelWrapper.getSeeksNodes().size());
+        // the previous view is not changed
+        Assert.assertFalse(view.hasFlag(WONMATCH.WhatsAround));
+        Assert.assertTrue(view.getMatchingContexts().isEmpty());
+        // changes to the dataset need an explicit invalidation
+        atomModelWrapper.getAtomContentNode().addProperty(WONMATCH.flag, WONMATCH.WhatsNew);
+        Assert.assertFalse(atomModelWrapper.flag(WONMATCH.WhatsNew));
+        atomModelWrapper.invalidateView();
+        Assert.assertTrue(atomModelWrapper.flag(WONMATCH.WhatsNew));
+    }
+
+    @Test
+    public void viewHasLocations() throws IOException {
+        Dataset ds = Utils.createTestDataset("/atommodel/atom1.trig");
+        DefaultAtomModelWrapper atomModelWrapper = new DefaultAtomModelWrapper(ds);
+        AtomView view = atomModelWrapper.getView();
+        Resource atomNode = view.getAtomContentNode();
+        Assert.assertTrue(view.hasLocation(atomNode, SCHEMA.LOCATION));
+        Assert.assertEquals(16.358398f, view.getLocation(atomNode, SCHEMA.LOCATION).getLongitude(), 0.0f);
+        Assert.assertEquals(view.getLocation(atomNode, SCHEMA.LOCATION), atomModelWrapper.getLocationCoordinate());
+        // a missing location is not cached
+        Assert.assertFalse(view.hasLocation(atomNode, SCHEMA.JOBLOCATION));
+        Assert.assertNull(atomModelWrapper.getJobLocationCoordinate());
+        Model atomModel = atomModelWrapper.getAtomModel();
+        Resource geo = atomModel.createResource().addProperty(SCHEMA.LATITUDE, "48.2").addProperty(SCHEMA.LONGITUDE,
+                        "16.3");
+        atomNode.addProperty(SCHEMA.JOBLOCATION, atomModel.createResource().addProperty(SCHEMA.GEO, geo));
+        Assert.assertEquals(16.3f, atomModelWrapper.getJobLocationCoordinate().getLongitude(), 0.0f);
+    }
+
     @Test
     public void normalizeModel_Tree() throws IOException {
         // compare model that is not changed by normalization
@@ -0,0 +1,68 @@
+package won.protocol.util;
+
+import java.io.IOException;
+
+import org.apache.commons.lang3.time.StopWatch;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import won.protocol.message.Utils;
+
+/**
+ * Compares cloning atom and message datasets by copying all statements (as
+ * RdfUtils.cloneDataset did before) with cloning them copy-on-write.
+ */
+public class CloneDatasetSpeedTest {
+    private static final int ROUNDS = 10000;
+
+    @Test
+    @Ignore
+    public void compareCopyAndCopyOnWrite() throws IOException {
+        for (String resource : new String[] { "/atommodel/atom1.trig", "/speedtest/dataset.trig",
+                        "/wonmessage/forward/forwarded-msg-1.trig" }) {
+            Dataset dataset = Utils.createTestDataset(resource);
+            Dataset clone = RdfUtils.cloneDataset(dataset);
+            for (int i = 0; i < ROUNDS; i++) {
+                copyDataset(dataset);
+                RdfUtils.cloneDataset(clone);
+            }
+            StopWatch watch = new StopWatch();
+            watch.start();
+            for (int i = 0; i < ROUNDS; i++) {
+                copyDataset(dataset);
+            }
+            watch.stop();
+            long copyTime = watch.getTime();
+            watch = new StopWatch();
+            watch.start();
+            for (int i = 0; i < ROUNDS; i++) {
+                // e.g. WonMessage.getCompleteDataset() on a message
+                RdfUtils.cloneDataset(clone);
+            }
+            watch.stop();
+            long cloneTime = watch.getTime();
+            watch = new StopWatch();
+            watch.start();
+            for (int i = 0; i < ROUNDS; i++) {
+                // clone and change one graph
+                Dataset changed = RdfUtils.cloneDataset(clone);
+                changed.getNamedModel(changed.listNames().next()).removeAll();
+            }
+            watch.stop();
+            System.out.println(String.format(
+                            "%s: copy %d ms, copy-on-write %d ms, copy-on-write and change %d ms (%d rounds)",
+                            resource, copyTime, cloneTime, watch.getTime(), ROUNDS));
+        }
+    }
+
+    private static Dataset copyDataset(Dataset dataset) {
+        Dataset copy = DatasetFactory.createGeneral();
+        copy.setDefaultModel(ModelFactory.createDefaultModel().add(dataset.getDefaultModel()));
+        dataset.listNames().forEachRemaining(name -> copy.addNamedModel(name,
+                        ModelFactory.createDefaultModel().add(dataset.getNamedModel(name))));
+        return copy;
+    }
+}
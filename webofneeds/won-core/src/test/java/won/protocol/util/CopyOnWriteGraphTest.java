@@ -0,0 +1,112 @@
+package won.protocol.util;
+
+import java.io.IOException;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.StmtIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import won.protocol.message.Utils;
+
+public class CopyOnWriteGraphTest {
+    private static final String NS = "http://example.org/test/";
+
+    @Test
+    public void testCloneIsIndependentOfOriginal() {
+        Model original = createModel(10);
+        Model clone = RdfUtils.cloneModel(original);
+        Assert.assertTrue(clone.isIsomorphicWith(original));
+        Assert.assertEquals("http://example.org/test/", clone.getNsPrefixURI("ex"));
+        original.add(resource(original, 100), property(original), "value100");
+        Assert.assertEquals(10, clone.size());
+        clone.removeAll(resource(clone, 0), null, null);
+        Assert.assertEquals(11, original.size());
+        Assert.assertEquals(9, clone.size());
+    }
+
+    @Test
+    public void testCloneOfCloneSharesTriplesUntilChanged() {
+        Model clone = RdfUtils.cloneModel(createModel(10));
+        Model cloneOfClone = RdfUtils.cloneModel(clone);
+        CopyOnWriteGraph graph = (CopyOnWriteGraph) clone.getGraph();
+        CopyOnWriteGraph graphOfClone = (CopyOnWriteGraph) cloneOfClone.getGraph();
+        Assert.assertTrue(graph.isShared());
+        Assert.assertTrue(graphOfClone.isShared());
+        cloneOfClone.add(resource(cloneOfClone, 10), property(cloneOfClone), "value10");
+        Assert.assertTrue(graph.isShared());
+        Assert.assertFalse(graphOfClone.isShared());
+        Assert.assertEquals(10, clone.size());
+        Assert.assertEquals(11, cloneOfClone.size());
+        // removing statements that are not there does not copy
+        clone.remove(resource(clone, 10), property(clone), clone.createLiteral("value10"));
+        Assert.assertTrue(graph.isShared());
+        // a snapshot of a changed graph shares the changes
+        Model snapshot = RdfUtils.cloneModel(cloneOfClone);
+        Assert.assertTrue(snapshot.isIsomorphicWith(cloneOfClone));
+        snapshot.removeAll();
+        Assert.assertTrue(snapshot.isEmpty());
+        Assert.assertEquals(11, cloneOfClone.size());
+    }
+
+    @Test
+    public void testRemoveThroughIterator() {
+        Model original = createModel(10);
+        Model clone = RdfUtils.cloneModel(original);
+        Model cloneOfClone = RdfUtils.cloneModel(clone);
+        // remove from the shared triples
+        StmtIterator it = cloneOfClone.listStatements();
+        while (it.hasNext()) {
+            if (it.next().getString().endsWith("1")) {
+                it.remove();
+            }
+        }
+        Assert.assertEquals(9, cloneOfClone.size());
+        Assert.assertEquals(10, clone.size());
+        // remove from the changed triples
+        it = cloneOfClone.listStatements();
+        while (it.hasNext()) {
+            if (it.next().getString().endsWith("2")) {
+                it.remove();
+            }
+        }
+        Assert.assertEquals(8, cloneOfClone.size());
+        Assert.assertEquals(10, clone.size());
+        Assert.assertEquals(10, original.size());
+    }
+
+    @Test
+    public void testCloneDataset() throws IOException {
+        Dataset dataset = Utils.createTestDataset("/atommodel/atom1.trig");
+        Dataset clone = RdfUtils.cloneDataset(dataset);
+        Dataset cloneOfClone = RdfUtils.cloneDataset(clone);
+        Assert.assertTrue(RdfUtils.isIsomorphicWith(dataset, clone));
+        Assert.assertTrue(RdfUtils.isIsomorphicWith(clone, cloneOfClone));
+        String name = cloneOfClone.listNames().next();
+        cloneOfClone.getNamedModel(name).removeAll();
+        Assert.assertTrue(cloneOfClone.getNamedModel(name).isEmpty());
+        Assert.assertFalse(clone.getNamedModel(name).isEmpty());
+        Assert.assertTrue(RdfUtils.isIsomorphicWith(dataset, clone));
+    }
+
+    private static Model createModel(int size) {
+        Model model = ModelFactory.createDefaultModel();
+        model.setNsPrefix("ex", NS);
+        for (int i = 0; i < size; i++) {
+            model.add(resource(model, i), property(model), "value" + i);
+        }
+        return model;
+    }
+
+    private static Resource resource(Model model, int i) {
+        return model.createResource(NS + "resource" + i);
+    }
+
+    private static Property property(Model model) {
+        return model.createProperty(NS, "property");
+    }
+}
@@ -0,0 +1,124 @@
+package won.protocol.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.shared.PrefixMapping;
+import org.apache.jena.sparql.path.Path;
+import org.apache.jena.sparql.path.PathParser;
+import org.apache.jena.sparql.path.eval.PathEval;
+import org.apache.jena.sparql.util.Context;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+public class PropertyPathsTest {
+    private static final String NS = "http://example.org/test/";
+    private static final String[] PATHS = new String[] { "ex:p", "^ex:p", "ex:p/ex:q", "ex:p/ex:p/ex:q",
+                    "ex:p|ex:q", "(ex:p|ex:q)/ex:q", "ex:p/^ex:p", "ex:p*", "ex:p+/ex:q", "ex:unknown/ex:p" };
+
+    @Test
+    public void testParseIsCached() {
+        PrefixMapping prefixes = createPrefixes();
+        Path path = PropertyPaths.parse("ex:p/ex:q", prefixes);
+        Assert.assertSame(path, PropertyPaths.parse("ex:p/ex:q", createPrefixes()));
+        Assert.assertEquals(PathParser.parse("ex:p/ex:q", prefixes), path);
+        // same string, different prefixes
+        PrefixMapping otherPrefixes = PrefixMapping.Factory.create().setNsPrefix("ex", "http://example.org/other/");
+        Path otherPath = PropertyPaths.parse("ex:p/ex:q", otherPrefixes);
+        Assert.assertNotEquals(path, otherPath);
+        Assert.assertSame(otherPath, PropertyPaths.parse("ex:p/ex:q", otherPrefixes));
+    }
+
+    @Test
+    public void testQueryIsCached() {
+        Path path = PropertyPaths.parse("ex:p/ex:q", createPrefixes());
+        Assert.assertSame(PropertyPaths.getPathQuery(path), PropertyPaths.getPathQuery(path));
+    }
+
+    @Test
+    public void testEvalYieldsSameNodesAsPathEval() {
+        Graph graph = createModel().getGraph();
+        for (String pathString : PATHS) {
+            Path path = PropertyPaths.parse(pathString, createPrefixes());
+            for (int i = 0; i < 5; i++) {
+                Node start = NodeFactory.createURI(NS + "r" + i);
+                Assert.assertEquals(pathString + " from r" + i,
+                                sorted(PathEval.eval(graph, start, path, Context.emptyContext)),
+                                sorted(PropertyPaths.eval(graph, start, path)));
+            }
+        }
+    }
+
+    @Test
+    public void testIsSimple() {
+        Assert.assertTrue(PropertyPaths.isSimple(PropertyPaths.parse("(ex:p|^ex:q)/ex:q", createPrefixes())));
+        Assert.assertFalse(PropertyPaths.isSimple(PropertyPaths.parse("ex:p/ex:q*", createPrefixes())));
+        Assert.assertFalse(PropertyPaths.isSimple(PropertyPaths.parse("!ex:p", createPrefixes())));
+    }
+
+    @Test
+    @Ignore
+    public void compareEvaluationSpeed() {
+        Graph graph = createModel().getGraph();
+        int rounds = 100000;
+        for (String pathString : PATHS) {
+            Path path = PathParser.parse(pathString, createPrefixes());
+            Node start = NodeFactory.createURI(NS + "r0");
+            long start1 = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                toList(PathEval.eval(graph, start, PathParser.parse(pathString, createPrefixes()),
+                                Context.emptyContext));
+            }
+            long pathEvalTime = System.nanoTime() - start1;
+            start1 = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                toList(PropertyPaths.eval(graph, start, PropertyPaths.parse(pathString, createPrefixes())));
+            }
+            long cachedTime = System.nanoTime() - start1;
+            System.out.println(String.format("%s: parse and PathEval %d ms, cached parse and eval %d ms (%d rounds)",
+                            path, pathEvalTime / 1000000, cachedTime / 1000000, rounds));
+        }
+        System.out.println(PropertyPaths.getStatistics());
+    }
+
+    private static PrefixMapping createPrefixes() {
+        return PrefixMapping.Factory.create().setNsPrefix("ex", NS);
+    }
+
+    private static Model createModel() {
+        Model model = ModelFactory.createDefaultModel();
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                if ((i + j) % 2 == 0) {
+                    model.add(model.createResource(NS + "r" + i), model.createProperty(NS, "p"),
+                                    model.createResource(NS + "r" + j));
+                }
+                if ((i * j) % 3 == 1) {
+                    model.add(model.createResource(NS + "r" + i), model.createProperty(NS, "q"),
+                                    model.createResource(NS + "r" + j));
+                }
+            }
+        }
+        return model;
+    }
+
+    private static List<Node> sorted(Iterator<Node> it) {
+        List<Node> nodes = toList(it);
+        nodes.sort(Comparator.comparing(Node::toString));
+        return nodes;
+    }
+
+    private static List<Node> toList(Iterator<Node> it) {
+        List<Node> nodes = new ArrayList<>();
+        it.forEachRemaining(nodes::add);
+        return nodes;
+    }
+}
@@ -0,0 +1,79 @@
+package won.protocol.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import won.protocol.message.Utils;
+
+/**
+ * Compares the bytes allocated per message when serializing and parsing
+ * datasets through Strings (as RdfUtils and AtomEvent did before) with
+ * serializing them to pooled byte buffers.
+ */
+public class RdfSerializationSpeedTest {
+    private static final int ROUNDS = 2000;
+
+    @Test
+    @Ignore
+    public void compareStringAndBytes() throws IOException {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                        .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (String resource : new String[] { "/atommodel/atom1.trig", "/speedtest/dataset.trig",
+                        "/wonmessage/forward/forwarded-msg-1.trig" }) {
+            Dataset dataset = Utils.createTestDataset(resource);
+            for (int i = 0; i < ROUNDS; i++) {
+                roundTripThroughString(dataset);
+                roundTripThroughBytes(dataset);
+            }
+            long allocated = threadBean.getThreadAllocatedBytes(threadId);
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < ROUNDS; i++) {
+                roundTripThroughString(dataset);
+            }
+            long stringTime = System.currentTimeMillis() - start;
+            long stringBytes = (threadBean.getThreadAllocatedBytes(threadId) - allocated) / ROUNDS;
+            allocated = threadBean.getThreadAllocatedBytes(threadId);
+            start = System.currentTimeMillis();
+            for (int i = 0; i < ROUNDS; i++) {
+                roundTripThroughBytes(dataset);
+            }
+            long bytesTime = System.currentTimeMillis() - start;
+            long bytesBytes = (threadBean.getThreadAllocatedBytes(threadId) - allocated) / ROUNDS;
+            allocated = threadBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < ROUNDS; i++) {
+                // e.g. WonMessageEncoder.encode()
+                RdfUtils.writeDatasetToString(dataset, Lang.TRIG);
+            }
+            long encodeBytes = (threadBean.getThreadAllocatedBytes(threadId) - allocated) / ROUNDS;
+            System.out.println(String.format(
+                            "%s: string round trip %d ms, %d bytes/msg; byte round trip %d ms, %d bytes/msg; "
+                                            + "encode to string %d bytes/msg (%d rounds)",
+                            resource, stringTime, stringBytes, bytesTime, bytesBytes, encodeBytes, ROUNDS));
+        }
+    }
+
+    private static Dataset roundTripThroughString(Dataset dataset) {
+        StringWriter writer = new StringWriter();
+        RDFDataMgr.write(writer, dataset, Lang.TRIG);
+        byte[] bytes = writer.toString().getBytes(StandardCharsets.UTF_8);
+        Dataset parsed = DatasetFactory.createGeneral();
+        RDFDataMgr.read(parsed, new ByteArrayInputStream(bytes), Lang.TRIG);
+        return parsed;
+    }
+
+    private static Dataset roundTripThroughBytes(Dataset dataset) {
+        byte[] bytes = RdfUtils.toBytes(dataset, Lang.TRIG);
+        return RdfUtils.toDataset(bytes, 0, bytes.length, Lang.TRIG);
+    }
+}
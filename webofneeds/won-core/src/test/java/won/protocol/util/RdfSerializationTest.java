@@ -0,0 +1,67 @@
+package won.protocol.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import won.protocol.message.Utils;
+
+public class RdfSerializationTest {
+    @Test
+    public void testBytesRoundTrip() throws IOException {
+        Dataset dataset = Utils.createTestDataset("/wonmessage/forward/forwarded-msg-1.trig");
+        for (Lang lang : new Lang[] { Lang.TRIG, Lang.NQUADS, Lang.JSONLD }) {
+            byte[] bytes = RdfUtils.toBytes(dataset, lang);
+            // parse from a slice of a larger array
+            byte[] padded = new byte[bytes.length + 20];
+            System.arraycopy(bytes, 0, padded, 10, bytes.length);
+            Assert.assertTrue(RdfUtils.isIsomorphicWith(dataset,
+                            RdfUtils.toDataset(padded, 10, bytes.length, lang)));
+            ByteBuffer buffer = ByteBuffer.wrap(padded, 10, bytes.length);
+            Assert.assertTrue(RdfUtils.isIsomorphicWith(dataset, RdfUtils.toDataset(buffer, lang)));
+            Assert.assertEquals(10, buffer.position());
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).flip();
+            Assert.assertTrue(RdfUtils.isIsomorphicWith(dataset, RdfUtils.toDataset(direct, lang)));
+        }
+    }
+
+    @Test
+    public void testStringRoundTrip() throws IOException {
+        Dataset dataset = Utils.createTestDataset("/atommodel/atom1.trig");
+        String trig = RdfUtils.toString(dataset);
+        Assert.assertTrue(RdfUtils.isIsomorphicWith(dataset, RdfUtils.toDataset(trig)));
+        String nquads = RdfUtils.toString(dataset, RDFFormat.NQUADS);
+        Assert.assertTrue(RdfUtils.isIsomorphicWith(dataset, RdfUtils.toDataset(nquads, RDFFormat.NQUADS)));
+        Assert.assertEquals(trig, RdfUtils.writeDatasetToString(dataset, Lang.TRIG));
+    }
+
+    @Test
+    public void testPooledBufferIsReused() {
+        PooledByteArrayOutputStream out = PooledByteArrayOutputStream.acquire();
+        // buffer in use, a nested acquire gets a new one
+        PooledByteArrayOutputStream nested = PooledByteArrayOutputStream.acquire();
+        Assert.assertNotSame(out, nested);
+        nested.write(1);
+        nested.release();
+        out.write(new byte[] { 'a', 'b' }, 0, 2);
+        Assert.assertEquals("ab", out.toUtf8String());
+        Assert.assertEquals(2, out.toByteBuffer().remaining());
+        out.release();
+        PooledByteArrayOutputStream again = PooledByteArrayOutputStream.acquire();
+        Assert.assertSame(out, again);
+        Assert.assertEquals(0, again.size());
+        // large buffers are not kept
+        again.write(new byte[PooledByteArrayOutputStream.MAX_RETAINED_SIZE + 1], 0,
+                        PooledByteArrayOutputStream.MAX_RETAINED_SIZE + 1);
+        again.release();
+        PooledByteArrayOutputStream shrunk = PooledByteArrayOutputStream.acquire();
+        Assert.assertEquals(PooledByteArrayOutputStream.INITIAL_SIZE, shrunk.toByteBuffer().capacity());
+        shrunk.release();
+    }
+}
@@ -0,0 +1,76 @@
+package won.protocol.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for condensing models by testing.
+ */
+public class RdfUtilsCondenseTest {
+    private static final String NS = "http://example.org/test/";
+
+    @Test
+    public void testCondenseKeepsOnlyRequiredStatements() {
+        Model model = createModel(200);
+        Function<Model, Boolean> test = m -> m.contains(resource(m, 3), property(m), "value3")
+                        && m.contains(resource(m, 150), property(m), "value150");
+        Model condensed = RdfUtils.condenseModelByDeltaDebugging(model, test);
+        Assert.assertEquals(2, condensed.size());
+        Assert.assertTrue(test.apply(condensed));
+        // input model is not changed
+        Assert.assertEquals(200, model.size());
+    }
+
+    @Test
+    public void testCondenseResultIsSameAsIterativeTesting() {
+        Model model = createModel(30);
+        Function<Model, Boolean> test = m -> m.contains(resource(m, 1), property(m), "value1")
+                        || m.contains(resource(m, 2), property(m), "value2");
+        Model condensed = RdfUtils.condenseModelByDeltaDebugging(model, test);
+        Assert.assertEquals(1, condensed.size());
+        Assert.assertTrue(test.apply(condensed));
+        Assert.assertEquals(1, RdfUtils.condenseModelByIterativeTesting(model, test).size());
+    }
+
+    @Test
+    public void testCondenseNeedsFewTests() {
+        Model model = createModel(1000);
+        AtomicInteger tests = new AtomicInteger(0);
+        Model condensed = RdfUtils.condenseModelByDeltaDebugging(model, m -> {
+            tests.incrementAndGet();
+            return m.contains(resource(m, 500), property(m), "value500");
+        });
+        Assert.assertEquals(1, condensed.size());
+        // iterative testing needs at least one test per statement
+        Assert.assertTrue("needed " + tests.get() + " tests", tests.get() < 100);
+    }
+
+    @Test
+    public void testCondenseEmptyModel() {
+        Model condensed = RdfUtils.condenseModelByDeltaDebugging(ModelFactory.createDefaultModel(), m -> true);
+        Assert.assertTrue(condensed.isEmpty());
+    }
+
+    private static Model createModel(int size) {
+        Model model = ModelFactory.createDefaultModel();
+        for (int i = 0; i < size; i++) {
+            model.add(resource(model, i), property(model), "value" + i);
+        }
+        return model;
+    }
+
+    private static Resource resource(Model model, int i) {
+        return model.createResource(NS + "resource" + i);
+    }
+
+    private static Property property(Model model) {
+        return model.createProperty(NS, "property");
+    }
+}
@@ -2,15 +2,15 @@ package won.matcher.service.common.event;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.jena.query.Dataset;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.LangBuilder;
-import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFFormat;
 
 import won.matcher.service.common.service.sparql.SparqlService;
+import won.protocol.util.RdfUtils;
 
 /**
  * This event is used in the matching service to indicate that a new atom has
@@ -20,7 +20,8 @@ import won.matcher.service.common.service.sparql.SparqlService;
 public class AtomEvent implements Serializable {
     private String uri;
     private String wonNodeUri;
-    private String serializedAtomResource;
+    // UTF-8 encoded, never changed after creation
+    private byte[] serializedAtomResource;
     private String serializationLangName;
     private String serializationLangContentType;
     private long crawlDate;
@@ -37,7 +38,7 @@ public class AtomEvent implements Serializable {
         this.wonNodeUri = wonNodeUri;
         this.eventType = eventType;
         this.crawlDate = crawlDate;
-        serializedAtomResource = resource;
+        serializedAtomResource = resource.getBytes(StandardCharsets.UTF_8);
         serializationLangName = format.getName();
         serializationLangContentType = format.getContentType().getContentType();
         this.cause = cause;
@@ -48,9 +49,7 @@ public class AtomEvent implements Serializable {
         this.wonNodeUri = wonNodeUri;
         this.eventType = eventType;
         this.crawlDate = crawlDate;
-        StringWriter sw = new StringWriter();
-        RDFDataMgr.write(sw, ds, RDFFormat.TRIG.getLang());
-        serializedAtomResource = sw.toString();
+        serializedAtomResource = RdfUtils.toBytes(ds, RDFFormat.TRIG.getLang());
         serializationLangName = RDFFormat.TRIG.getLang().getName();
         serializationLangContentType = RDFFormat.TRIG.getLang().getContentType().getContentType();
         this.cause = cause;
@@ -73,7 +72,7 @@ public class AtomEvent implements Serializable {
     }
 
     public String getSerializedAtomResource() {
-        return serializedAtomResource;
+        return new String(serializedAtomResource, StandardCharsets.UTF_8);
     }
 
     public Lang getSerializationFormat() {
@@ -91,8 +90,9 @@ public class AtomEvent implements Serializable {
 
     @Override
     public AtomEvent clone() {
-        AtomEvent e = new AtomEvent(uri, wonNodeUri, eventType, crawlDate, serializedAtomResource,
-                        getSerializationFormat(), cause);
+        AtomEvent e = new AtomEvent(uri, wonNodeUri, eventType, crawlDate, "", getSerializationFormat(), cause);
+        // the serialized resource is not changed, it can be shared
+        e.serializedAtomResource = serializedAtomResource;
         return e;
     }
 
@@ -3,7 +3,6 @@ package won.matcher.service.common.service.sparql;
 import org.apache.jena.query.*;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.riot.Lang;
-import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFFormat;
 import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.expr.nodevalue.NodeValueBoolean;
@@ -20,12 +19,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import won.protocol.util.RdfUtils;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.StringWriter;
 import java.lang.invoke.MethodHandles;
-import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 
 /**
@@ -39,10 +34,11 @@ public class SparqlService {
     // protected DatasetAccessor accessor;
 
     public static Dataset deserializeDataset(String serializedResource, Lang format) throws IOException {
-        InputStream is = new ByteArrayInputStream(serializedResource.getBytes(StandardCharsets.UTF_8));
-        Dataset ds = RdfUtils.toDataset(is, new RDFFormat(format));
-        is.close();
-        return ds;
+        return RdfUtils.toDataset(serializedResource, new RDFFormat(format));
+    }
+
+    public static Dataset deserializeDataset(byte[] serializedResource, Lang format) throws IOException {
+        return RdfUtils.toDataset(serializedResource, 0, serializedResource.length, format);
     }
 
     @Autowired
@@ -63,9 +59,8 @@ public class SparqlService {
      * @param model model that holds triples to set
      */
     public String createUpdateNamedGraphQuery(String graph, Model model) {
-        StringWriter sw = new StringWriter();
-        RDFDataMgr.write(sw, model, Lang.NTRIPLES);
-        String query = "\nCLEAR GRAPH ?g;\n" + "\nINSERT DATA { GRAPH ?g { " + sw + "}};\n";
+        String triples = RdfUtils.writeModelToString(model, Lang.NTRIPLES);
+        String query = "\nCLEAR GRAPH ?g;\n" + "\nINSERT DATA { GRAPH ?g { " + triples + "}};\n";
         ParameterizedSparqlString pps = new ParameterizedSparqlString();
         pps.setCommandText(query);
         pps.setIri("g", graph);
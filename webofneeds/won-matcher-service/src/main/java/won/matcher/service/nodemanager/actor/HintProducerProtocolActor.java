@@ -1,7 +1,9 @@
 package won.matcher.service.nodemanager.actor;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -21,6 +23,7 @@ import akka.event.LoggingAdapter;
 import akka.japi.Function;
 import scala.concurrent.duration.Duration;
 import won.matcher.service.common.event.AtomHintEvent;
+import won.matcher.service.common.event.BulkHintEvent;
 import won.matcher.service.common.event.HintEvent;
 import won.matcher.service.common.event.SocketHintEvent;
 import won.matcher.service.common.service.monitoring.MonitoringService;
@@ -63,17 +66,22 @@ public class HintProducerProtocolActor extends UntypedProducerActor {
     }
 
     /**
-     * transform hint events to camel messages that can be sent to the won node
+     * transform hint events to camel messages that can be sent to the won node. A
+     * {@link BulkHintEvent} is transformed into one camel message containing all
+     * of its hints, which the won node splits up again.
      *
-     * @param message supposed to be a {@link HintEvent}
+     * @param message supposed to be a {@link HintEvent} or a {@link BulkHintEvent}
      * @return
      */
     @Override
     public Object onTransformOutgoingMessage(Object message) {
+        if (message instanceof BulkHintEvent) {
+            return transformBulkHint((BulkHintEvent) message);
+        }
         HintEvent hint = (HintEvent) message;
         Map<String, Object> headers = new HashMap<>();
         headers.put("methodName", "hint");
-        Optional<WonMessage> wonMessage = createHintWonMessage(hint);
+        Optional<WonMessage> wonMessage = createHintWonMessage(hint, new HashMap<>());
         if (wonMessage.isPresent()) {
             WonMessage msg = null;
             try {
@@ -90,6 +98,39 @@ public class HintProducerProtocolActor extends UntypedProducerActor {
         return null;
     }
 
+    /**
+     * transform all hints of a bulk hint event into one camel message. Hints that
+     * cannot be converted are skipped.
+     *
+     * @param bulkHint
+     * @return the camel message or null if none of the hints could be converted
+     */
+    private Object transformBulkHint(BulkHintEvent bulkHint) {
+        // the recipient atom lookup for socket hints is only done once per socket
+        Map<String, Optional<URI>> atomOfSocketCache = new HashMap<>();
+        List<WonMessage> hintMessages = new ArrayList<>(bulkHint.getHintEvents().size());
+        for (HintEvent hint : bulkHint.getHintEvents()) {
+            try {
+                Optional<WonMessage> wonMessage = createHintWonMessage(hint, atomOfSocketCache);
+                if (wonMessage.isPresent()) {
+                    // sealing derives the URI of the hint from its content, each hint is a
+                    // message of its own on the node and needs its own URI
+                    hintMessages.add(WonMessageSignerVerifier.seal(wonMessage.get()));
+                    stopStopwatch(hint);
+                }
+            } catch (Exception e) {
+                log.warning("Error preparing hint message for hint {}: {}", hint, e);
+            }
+        }
+        if (hintMessages.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("methodName", "hints");
+        log.debug("Send {} hints in one camel message", hintMessages.size());
+        return new CamelMessage(WonMessageEncoder.encodeEach(hintMessages, Lang.TRIG), headers);
+    }
+
     private void stopStopwatch(HintEvent hint) {
         Optional<String> stopwatchTag = Optional.empty();
         if (hint instanceof AtomHintEvent) {
@@ -107,10 +148,12 @@ public class HintProducerProtocolActor extends UntypedProducerActor {
      * create a won message out of an hint event
      *
      * @param hint
+     * @param atomOfSocketCache atoms of sockets already looked up
      * @return
      * @throws WonMessageBuilderException
      */
-    private Optional<WonMessage> createHintWonMessage(HintEvent hint) throws WonMessageBuilderException {
+    private Optional<WonMessage> createHintWonMessage(HintEvent hint, Map<String, Optional<URI>> atomOfSocketCache)
+                    throws WonMessageBuilderException {
         if (hint instanceof AtomHintEvent) {
             AtomHintEvent ahe = (AtomHintEvent) hint;
             return Optional.of(WonMessageBuilder
@@ -122,8 +165,8 @@ public class HintProducerProtocolActor extends UntypedProducerActor {
                             .build());
         } else if (hint instanceof SocketHintEvent) {
             SocketHintEvent she = (SocketHintEvent) hint;
-            Optional<URI> recipientAtomURI = WonLinkedDataUtils.getAtomOfSocket(URI.create(she.getRecipientSocketUri()),
-                            linkedDataSource);
+            Optional<URI> recipientAtomURI = atomOfSocketCache.computeIfAbsent(she.getRecipientSocketUri(),
+                            socketUri -> WonLinkedDataUtils.getAtomOfSocket(URI.create(socketUri), linkedDataSource));
             if (recipientAtomURI.isPresent()) {
                 return Optional.of(WonMessageBuilder
                                 .socketHint()
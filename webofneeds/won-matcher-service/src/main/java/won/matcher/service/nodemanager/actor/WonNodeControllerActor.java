@@ -208,27 +208,64 @@ public class WonNodeControllerActor extends UntypedActor {
             processHint((HintEvent) message);
             return;
         } else if (message instanceof BulkHintEvent) {
-            BulkHintEvent bulkHintEvent = (BulkHintEvent) message;
-            for (HintEvent hint : bulkHintEvent.getHintEvents()) {
-                expandToSocketHintsIfAppropriate(hint)
-                                .forEach(h -> processHint(h));
-            }
+            processBulkHint((BulkHintEvent) message);
             return;
         }
         unhandled(message);
     }
 
     private void processHint(HintEvent hint) {
+        if (filterAndSaveHint(hint)) {
+            sendHint(hint);
+        }
+    }
+
+    /**
+     * Filters and saves all hints of the bulk hint event and sends the remaining
+     * ones to their won nodes. Hints for the same won node are sent together in
+     * bulk hint events of at most the configured maximum size, so that they travel
+     * to the won node in one message.
+     *
+     * @param bulkHintEvent
+     */
+    private void processBulkHint(BulkHintEvent bulkHintEvent) {
+        Map<String, BulkHintEvent> bulkHintsByWonNode = new HashMap<>();
+        for (HintEvent hint : bulkHintEvent.getHintEvents()) {
+            for (HintEvent expandedHint : expandToSocketHintsIfAppropriate(hint)) {
+                if (!filterAndSaveHint(expandedHint)) {
+                    continue;
+                }
+                String wonNodeUri = expandedHint.getRecipientWonNodeUri();
+                BulkHintEvent bulkHintForWonNode = bulkHintsByWonNode.computeIfAbsent(wonNodeUri,
+                                uri -> new BulkHintEvent());
+                bulkHintForWonNode.addHintEvent(expandedHint);
+                if (bulkHintForWonNode.getHintEvents().size() >= config.getMaxHintBulkSize()) {
+                    sendBulkHint(wonNodeUri, bulkHintForWonNode);
+                    bulkHintsByWonNode.remove(wonNodeUri);
+                }
+            }
+        }
+        bulkHintsByWonNode.forEach((wonNodeUri, bulkHint) -> sendBulkHint(wonNodeUri, bulkHint));
+    }
+
+    /**
+     * Saves the hint in the hint database.
+     *
+     * @param hint
+     * @return false if the hint is filtered out by the duplicate filter, true if it
+     * should be sent to the won node
+     */
+    private boolean filterAndSaveHint(HintEvent hint) {
         // hint duplicate filter
         if (hintDatabase.mightHintSaved(hint)) {
             log.debug("Hint " + hint + " is filtered out by duplicate filter!");
             hintDatabase.saveHint(hint);
-            return;
+            return false;
         }
         // save the hint and send it to the won node controller which sends it to the
         // responsible won node
         hintDatabase.saveHint(hint);
-        sendHint(hint);
+        return true;
     }
 
     /**
@@ -248,6 +285,23 @@ public class WonNodeControllerActor extends UntypedActor {
         fromWonNodeConnection.getHintProducer().tell(hint, getSelf());
     }
 
+    /**
+     * Send all hints of the bulk hint event out to the won node in one message
+     *
+     * @param wonNodeUri the won node all hints are addressed to
+     * @param bulkHint
+     */
+    private void sendBulkHint(String wonNodeUri, BulkHintEvent bulkHint) {
+        if (!crawlWonNodes.containsKey(wonNodeUri)) {
+            log.warning("cannot send {} hints to won node {}! Is registered with the won node controller?",
+                            bulkHint.getHintEvents().size(), wonNodeUri);
+            return;
+        }
+        WonNodeConnection wonNodeConnection = crawlWonNodes.get(wonNodeUri);
+        log.info("Send {} hints to won node {}", bulkHint.getHintEvents().size(), wonNodeUri);
+        wonNodeConnection.getHintProducer().tell(bulkHint, getSelf());
+    }
+
     /**
      * If the HintEvent is an AtomHintEvent, this method checks the respective atoms
      * for compatible sockets and generates one SocketHintEvent for each
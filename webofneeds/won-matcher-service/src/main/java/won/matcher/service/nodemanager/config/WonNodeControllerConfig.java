@@ -23,11 +23,17 @@ public class WonNodeControllerConfig {
     private List<String> skipWonNodes;
     @Value("${wonNodeController.wonNode.lifeCheckDuration}")
     private long lifeCheckDuration;
+    @Value("${wonNodeController.hints.maxBulkSize:100}")
+    private int maxHintBulkSize;
 
     public FiniteDuration getLifeCheckDuration() {
         return Duration.create(lifeCheckDuration, TimeUnit.MILLISECONDS);
     }
 
+    public int getMaxHintBulkSize() {
+        return maxHintBulkSize;
+    }
+
     public List<String> getSkipWonNodes() {
         return skipWonNodes;
     }
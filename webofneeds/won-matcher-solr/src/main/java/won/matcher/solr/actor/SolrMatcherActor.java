@@ -1,10 +1,11 @@
 package won.matcher.solr.actor;
 
 import java.io.IOException;
-import java.time.temporal.ChronoUnit;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.jena.query.Dataset;
 import org.apache.solr.client.solrj.SolrServerException;
@@ -29,19 +30,14 @@ import won.matcher.service.common.event.AtomEvent;
 import won.matcher.solr.config.SolrMatcherConfig;
 import won.matcher.solr.hints.HintBuilder;
 import won.matcher.solr.index.AtomIndexer;
+import won.matcher.solr.query.ConcurrentHintQueryExecutor;
+import won.matcher.solr.query.ConcurrentHintQueryExecutor.HintQueryResult;
 import won.matcher.solr.query.DefaultMatcherQueryExecuter;
+import won.matcher.solr.query.HintQueries;
+import won.matcher.solr.query.HintQuery;
 import won.matcher.solr.query.SolrMatcherQueryExecutor;
 import won.matcher.solr.query.TestMatcherQueryExecutor;
-import won.matcher.solr.query.factory.BooleanQueryFactory;
-import won.matcher.solr.query.factory.CreationDateQueryFactory;
-import won.matcher.solr.query.factory.DefaultAtomQueryFactory;
-import won.matcher.solr.query.factory.HasFlagQueryFactory;
-import won.matcher.solr.query.factory.MatchingContextQueryFactory;
-import won.matcher.solr.query.factory.AtomStateQueryFactory;
-import won.matcher.solr.query.factory.WhatsAroundQueryFactory;
-import won.matcher.solr.query.factory.WhatsNewQueryFactory;
 import won.protocol.util.AtomModelWrapper;
-import won.protocol.vocabulary.WON;
 import won.protocol.vocabulary.WONMATCH;
 
 /**
@@ -63,6 +59,8 @@ public class SolrMatcherActor extends UntypedActor {
     DefaultMatcherQueryExecuter defaultQueryExecuter;
     @Autowired
     TestMatcherQueryExecutor testQueryExecuter;
+    @Autowired
+    private ConcurrentHintQueryExecutor concurrentQueryExecutor;
 
     @Override
     public void onReceive(final Object o) throws Exception {
@@ -84,9 +82,7 @@ public class SolrMatcherActor extends UntypedActor {
                 eventTypeForLogging = "BulkAtomEvent";
                 log.info("received bulk atom event, processing {} atom events ...",
                                 ((BulkAtomEvent) o).getAtomEvents().size());
-                for (AtomEvent event : ((BulkAtomEvent) o).getAtomEvents()) {
-                    processActiveAtomEvent(event);
-                }
+                processBulkAtomEvent((BulkAtomEvent) o);
             } else {
                 eventTypeForLogging = "unhandled";
                 unhandled(o);
@@ -105,6 +101,60 @@ public class SolrMatcherActor extends UntypedActor {
 
     protected void processActiveAtomEvent(AtomEvent atomEvent) throws IOException, SolrServerException, JsonLdError {
         log.info("Start processing active atom event {}", atomEvent);
+        AtomQueries atomQueries = prepareQueries(atomEvent);
+        if (atomQueries == null) {
+            return;
+        }
+        atomQueries.execute();
+        atomQueries.publishHintsAndIndex();
+    }
+
+    /**
+     * Processes the atoms of the bulk event in groups of (at most)
+     * bulkPipelineDepth atoms: the queries of all atoms of a group are executed
+     * concurrently, then the hints are published and the atoms are indexed in the
+     * order of the bulk event.
+     */
+    protected void processBulkAtomEvent(BulkAtomEvent bulkAtomEvent) {
+        int pipelineDepth = Math.max(1, config.getBulkPipelineDepth());
+        List<AtomQueries> pipeline = new ArrayList<>(pipelineDepth);
+        Iterator<AtomEvent> atomEvents = bulkAtomEvent.getAtomEvents().iterator();
+        while (atomEvents.hasNext()) {
+            AtomEvent atomEvent = atomEvents.next();
+            try {
+                log.info("Start processing active atom event {}", atomEvent);
+                AtomQueries atomQueries = prepareQueries(atomEvent);
+                if (atomQueries != null) {
+                    atomQueries.execute();
+                    pipeline.add(atomQueries);
+                }
+            } catch (Exception e) {
+                logProcessingException(atomEvent, e);
+            }
+            if (pipeline.size() >= pipelineDepth || !atomEvents.hasNext()) {
+                for (AtomQueries atomQueries : pipeline) {
+                    try {
+                        atomQueries.publishHintsAndIndex();
+                    } catch (Exception e) {
+                        logProcessingException(atomQueries.atomEvent, e);
+                    }
+                }
+                pipeline.clear();
+            }
+        }
+    }
+
+    private void logProcessingException(AtomEvent atomEvent, Exception e) {
+        log.info(String.format("Caught exception when processing atom event %s of bulk atom event. More info on loglevel 'debug'",
+                        atomEvent.getUri()));
+        log.debug("caught exception", e);
+    }
+
+    /**
+     * Creates the queries for the atom, returns null if the atom is not to be
+     * matched by this matcher.
+     */
+    private AtomQueries prepareQueries(AtomEvent atomEvent) throws IOException, JsonLdError {
         // check if the atom has doNotMatch flag, then do not use it for querying or
         // indexing
         Dataset dataset = atomEvent.deserializeAtomDataset();
@@ -112,162 +162,75 @@ public class SolrMatcherActor extends UntypedActor {
         if (atomModelWrapper.flag(WONMATCH.NoHintForMe) && atomModelWrapper.flag(WONMATCH.NoHintForCounterpart)) {
             log.info("Discarding received atom due to flags match:NoHintForMe and match:NoHintForCounterpart: {}",
                             atomEvent);
-            return;
+            return null;
         }
         // check if atom has a sparql query attached
         if (atomModelWrapper.sparqlQuery()) {
             log.debug("Atom {} has a sparql query, omitting this atom in Solr matcher", atomModelWrapper.getAtomUri());
-            return;
+            return null;
         }
-        // check if atom is usedForTesting only
-        boolean usedForTesting = atomModelWrapper.flag(WONMATCH.UsedForTesting);
-        SolrMatcherQueryExecutor queryExecutor = (usedForTesting ? testQueryExecuter : defaultQueryExecuter);
-        // create another query depending if the current atom is "WhatsAround" or a
-        // default atom
-        String queryString = null;
-        if (atomModelWrapper.flag(WONMATCH.WhatsAround)) {
-            // WhatsAround doesnt match on terms only other atoms in close location are
-            // boosted
-            WhatsAroundQueryFactory qf = new WhatsAroundQueryFactory(dataset);
-            queryString = qf.createQuery();
-        } else if (atomModelWrapper.flag(WONMATCH.WhatsNew)) {
-            WhatsNewQueryFactory qf = new WhatsNewQueryFactory(dataset);
-            queryString = qf.createQuery();
-        } else {
-            // default query matches content terms (of fields title, description and tags)
-            // with different weights
-            // and gives an additional multiplicative boost for geographically closer atoms
-            DefaultAtomQueryFactory qf = new DefaultAtomQueryFactory(dataset);
-            queryString = qf.createQuery();
-        }
-        // add filters to the query: default filters are
-        // - atom status active
-        // - creation date overlap 1 month
-        // - OR-filtering for matching contexts if any were specified
-        // now create three slightly different queries for different lists of atoms:
-        // 1) atoms without NoHintForCounterpart => hints for current atom
-        // 2) atoms without NoHintForSelf, excluding WhatsAround atoms => hints for
-        // atoms in index that are not WhatsAround
-        // 3) atoms without NoHintForSelf that are only WhatsAround atoms => hints for
-        // atoms in index that are WhatsAround
-        // to achieve this use a different filters for these queries
-        // case 1) atoms without NoHintForCounterpart => hints for current atom
-        List<String> filterQueries = new LinkedList<>();
-        filterQueries.add(new AtomStateQueryFactory(dataset).createQuery());
-        filterQueries.add(new CreationDateQueryFactory(dataset, 1, ChronoUnit.MONTHS).createQuery());
-        filterQueries.add(new BooleanQueryFactory(BooleanQueryFactory.BooleanOperator.NOT,
-                        new HasFlagQueryFactory(HasFlagQueryFactory.FLAGS.NO_HINT_FOR_COUNTERPART)).createQuery());
-        if (atomModelWrapper.getMatchingContexts() != null && atomModelWrapper.getMatchingContexts().size() > 0) {
-            filterQueries.add(new MatchingContextQueryFactory(atomModelWrapper.getMatchingContexts()).createQuery());
-        }
-        if (!atomModelWrapper.flag(WONMATCH.NoHintForMe)) {
-            // execute the query
-            log.info("query Solr endpoint {} for atom {} and atom list 1 (without NoHintForCounterpart)",
-                            config.getSolrEndpointUri(usedForTesting), atomEvent.getUri());
-            SolrDocumentList docs = queryExecutor.executeAtomQuery(queryString, config.getMaxHints(), null,
-                            filterQueries.toArray(new String[filterQueries.size()]));
-            if (docs != null) {
-                // perform knee detection depending on current atom is WhatsAround/WhatsNew or
-                // not)
-                boolean kneeDetection = atomModelWrapper.flag(WONMATCH.WhatsNew)
-                                || atomModelWrapper.flag(WONMATCH.WhatsAround)
-                                                ? false
-                                                : true;
-                // generate hints for current atom (only generate hints for current atom,
-                // suppress hints for matched atoms,
-                BulkHintEvent events = hintBuilder.generateHintsFromSearchResult(docs, atomEvent, atomModelWrapper,
-                                false, true, kneeDetection);
-                log.info("Create {} hints for atom {} and atom list 1 (without NoHintForCounterpart)",
-                                events.getHintEvents().size(), atomEvent);
-                // publish hints to current atom
-                if (events.getHintEvents().size() != 0) {
-                    getSender().tell(events, getSelf());
-                }
-            } else {
-                log.warning("No results found for atom list 1 (without NoHintForCounterpart) query of atom ",
-                                atomEvent);
-            }
-        }
-        // case 2) atoms without NoHintForSelf, excluding WhatsAround atoms => hints for
-        // atoms in index that are not WhatsAround
-        filterQueries = new LinkedList<>();
-        filterQueries.add(new AtomStateQueryFactory(dataset).createQuery());
-        filterQueries.add(new CreationDateQueryFactory(dataset, 1, ChronoUnit.MONTHS).createQuery());
-        filterQueries.add(new BooleanQueryFactory(BooleanQueryFactory.BooleanOperator.NOT,
-                        new HasFlagQueryFactory(HasFlagQueryFactory.FLAGS.NO_HINT_FOR_ME)).createQuery());
-        filterQueries.add(new BooleanQueryFactory(BooleanQueryFactory.BooleanOperator.NOT,
-                        new HasFlagQueryFactory(HasFlagQueryFactory.FLAGS.WHATS_AROUND)).createQuery());
-        filterQueries.add(new BooleanQueryFactory(BooleanQueryFactory.BooleanOperator.NOT,
-                        new HasFlagQueryFactory(HasFlagQueryFactory.FLAGS.WHATS_NEW)).createQuery());
-        if (atomModelWrapper.getMatchingContexts() != null && atomModelWrapper.getMatchingContexts().size() > 0) {
-            filterQueries.add(new MatchingContextQueryFactory(atomModelWrapper.getMatchingContexts()).createQuery());
+        return new AtomQueries(atomEvent, dataset, atomModelWrapper);
+    }
+
+    /**
+     * The queries of an atom that is being processed.
+     */
+    private class AtomQueries {
+        private final AtomEvent atomEvent;
+        private final Dataset dataset;
+        private final AtomModelWrapper atomModelWrapper;
+        private final boolean usedForTesting;
+        private final List<HintQuery> queries;
+        private CompletableFuture<List<HintQueryResult>> results;
+
+        AtomQueries(AtomEvent atomEvent, Dataset dataset, AtomModelWrapper atomModelWrapper) {
+            this.atomEvent = atomEvent;
+            this.dataset = dataset;
+            this.atomModelWrapper = atomModelWrapper;
+            // check if atom is usedForTesting only
+            this.usedForTesting = atomModelWrapper.flag(WONMATCH.UsedForTesting);
+            this.queries = HintQueries.create(dataset, atomModelWrapper, config.getMaxHints(),
+                            config.getMaxHintsForCounterparts());
         }
-        if (!atomModelWrapper.flag(WONMATCH.NoHintForCounterpart)) {
-            // execute the query
-            log.info("query Solr endpoint {} for atom {} and atom list 2 (without NoHintForSelf, excluding WhatsAround atoms)",
-                            config.getSolrEndpointUri(usedForTesting), atomEvent.getUri());
-            SolrDocumentList docs = queryExecutor.executeAtomQuery(queryString, config.getMaxHintsForCounterparts(),
-                            null, filterQueries.toArray(new String[filterQueries.size()]));
-            if (docs != null) {
-                // generate hints for matched atoms (suppress hints for current atom, only
-                // generate hints for matched atoms, perform knee detection)
-                BulkHintEvent events = hintBuilder.generateHintsFromSearchResult(docs, atomEvent, atomModelWrapper,
-                                true, false, true);
-                log.info("Create {} hints for atom {} and atom list 2 (without NoHintForSelf, excluding WhatsAround atoms)",
-                                events.getHintEvents().size(), atomEvent);
-                // publish hints to current atom
-                if (events.getHintEvents().size() != 0) {
-                    getSender().tell(events, getSelf());
-                }
-            } else {
-                log.warning("No results found for atom list 2 (without NoHintForSelf, excluding WhatsAround atoms) query of atom ",
-                                atomEvent);
+
+        /**
+         * Starts executing the queries concurrently.
+         */
+        void execute() {
+            SolrMatcherQueryExecutor queryExecutor = (usedForTesting ? testQueryExecuter : defaultQueryExecuter);
+            for (HintQuery query : queries) {
+                log.info("query Solr endpoint {} for atom {} and {}", config.getSolrEndpointUri(usedForTesting),
+                                atomEvent.getUri(), query.getDescription());
             }
+            results = concurrentQueryExecutor.execute(queryExecutor, queries);
         }
-        // case 3) atoms without NoHintForSelf that are only WhatsAround atoms => hints
-        // for atoms in index that are WhatsAround
-        filterQueries = new LinkedList<>();
-        filterQueries.add(new AtomStateQueryFactory(dataset).createQuery());
-        filterQueries.add(new CreationDateQueryFactory(dataset, 1, ChronoUnit.MONTHS).createQuery());
-        filterQueries.add(new BooleanQueryFactory(BooleanQueryFactory.BooleanOperator.NOT,
-                        new HasFlagQueryFactory(HasFlagQueryFactory.FLAGS.NO_HINT_FOR_ME)).createQuery());
-        filterQueries.add(new BooleanQueryFactory(BooleanQueryFactory.BooleanOperator.OR,
-                        new HasFlagQueryFactory(HasFlagQueryFactory.FLAGS.WHATS_AROUND),
-                        new HasFlagQueryFactory(HasFlagQueryFactory.FLAGS.WHATS_NEW)).createQuery());
-        if (atomModelWrapper.getMatchingContexts() != null && atomModelWrapper.getMatchingContexts().size() > 0) {
-            filterQueries.add(new MatchingContextQueryFactory(atomModelWrapper.getMatchingContexts()).createQuery());
-        }
-        if (!atomModelWrapper.flag(WONMATCH.NoHintForCounterpart)) {
-            // hints for WhatsAround Atoms should not have the keywords from title,
-            // description, tags etc.
-            // this can prevent to actually find WhatsAround atoms.
-            // Instead create a WhatsAround query (query without keywords, just location) to
-            // find other WhatsAround atoms
-            queryString = (new WhatsAroundQueryFactory(dataset)).createQuery();
-            // execute the query
-            log.info("query Solr endpoint {} for atom {} and atom list 3 (without NoHintForSelf that are only WhatsAround atoms)",
-                            config.getSolrEndpointUri(usedForTesting), atomEvent.getUri());
-            SolrDocumentList docs = queryExecutor.executeAtomQuery(queryString, config.getMaxHintsForCounterparts(),
-                            null, filterQueries.toArray(new String[filterQueries.size()]));
-            if (docs != null) {
-                // generate hints for matched atoms (suppress hints for current atom, only
-                // generate hints for matched atoms, do not perform knee detection)
-                BulkHintEvent events = hintBuilder.generateHintsFromSearchResult(docs, atomEvent, atomModelWrapper,
-                                true, false, false);
-                log.info("Create {} hints for atom {} and atom list 3 (without NoHintForSelf that are only WhatsAround atoms)",
-                                events.getHintEvents().size(), atomEvent);
-                // publish hints to current atom
-                if (events.getHintEvents().size() != 0) {
-                    getSender().tell(events, getSelf());
+
+        /**
+         * Waits for the query results, publishes the hints generated from them and
+         * indexes the atom. Must be called from the actor's thread.
+         */
+        void publishHintsAndIndex() throws IOException, SolrServerException, JsonLdError {
+            for (HintQueryResult result : results.join()) {
+                HintQuery query = result.getQuery();
+                SolrDocumentList docs = result.getDocs();
+                if (docs != null) {
+                    BulkHintEvent events = hintBuilder.generateHintsFromSearchResult(docs, atomEvent, atomModelWrapper,
+                                    query.isSuppressHintForAtom(), query.isSuppressHintForMatchedAtoms(),
+                                    query.isKneeDetection());
+                    log.info("Create {} hints for atom {} and {}", events.getHintEvents().size(), atomEvent,
+                                    query.getDescription());
+                    // publish hints to current atom
+                    if (events.getHintEvents().size() != 0) {
+                        getSender().tell(events, getSelf());
+                    }
+                } else {
+                    log.warning("No results found for {} query of atom {}", query.getDescription(), atomEvent);
                 }
-            } else {
-                log.warning("No results found for atom list 3 (without NoHintForSelf that are only WhatsAround atoms) query of atom ",
-                                atomEvent);
             }
+            // index atom
+            log.info("Add atom event content {} to solr index", atomEvent);
+            atomIndexer.index(dataset);
         }
-        // index atom
-        log.info("Add atom event content {} to solr index", atomEvent);
-        atomIndexer.index(dataset);
     }
 
     @Override
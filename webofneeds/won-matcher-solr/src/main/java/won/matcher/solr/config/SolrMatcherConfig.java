@@ -32,6 +32,10 @@ public class SolrMatcherConfig {
     private int cutAfterIthElbowInScore;
     @Value("${matcher.solr.query.score.normalizationFactor}")
     private float scoreNormalizationFactor;
+    @Value("${matcher.solr.query.threads:8}")
+    private int queryThreads;
+    @Value("${matcher.solr.query.bulkPipelineDepth:1}")
+    private int bulkPipelineDepth;
 
     public float getScoreThreshold() {
         return scoreThreshold;
@@ -65,6 +69,14 @@ public class SolrMatcherConfig {
         return scoreNormalizationFactor;
     }
 
+    public int getQueryThreads() {
+        return queryThreads;
+    }
+
+    public int getBulkPipelineDepth() {
+        return bulkPipelineDepth;
+    }
+
     public String getSolrCore() {
         return solrCore;
     }
@@ -1,6 +1,5 @@
 package won.matcher.solr.hints;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.slf4j.Logger;
@@ -18,7 +17,6 @@ import won.protocol.vocabulary.WONMATCH;
 
 import java.lang.invoke.MethodHandles;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Created by hfriedrich on 02.08.2016.
@@ -31,129 +29,182 @@ public class HintBuilder {
     @Autowired
     private SolrMatcherConfig config;
 
+    public HintBuilder() {
+    }
+
+    public HintBuilder(SolrMatcherConfig config) {
+        this.config = config;
+    }
+
     public SolrDocumentList calculateMatchingResults(final SolrDocumentList docs) {
         SolrDocumentList matches = new SolrDocumentList();
         if (docs == null || docs.size() == 0) {
             return matches;
         }
+        for (int index : rankMatchingResults(docs, extractScores(docs))) {
+            matches.add(docs.get(index));
+        }
+        return matches;
+    }
+
+    /**
+     * Ranks the documents by score and cuts the ranking at the score threshold and
+     * at the elbow points in the scores (see {@link Katomle}).
+     *
+     * @param docs the documents found by Solr
+     * @param scores the scores of the documents (see
+     * {@link #extractScores(SolrDocumentList)})
+     * @return the indices of the documents to keep, ordered by score descending
+     */
+    private int[] rankMatchingResults(final SolrDocumentList docs, final double[] scores) {
         if (logger.isDebugEnabled()) {
-            for (SolrDocument doc : docs) {
-                String atomUri = doc.getFieldValue("id").toString();
-                double score = Double.valueOf(doc.getFieldValue("score").toString());
-                logger.debug("retrieved match {} from Solr score {}: ", atomUri, score);
+            for (int i = 0; i < scores.length; i++) {
+                logger.debug("retrieved match {} from Solr score {}: ", docs.get(i).getFieldValue("id"), scores[i]);
             }
         }
-        // sort the documents according to their score value descending
-        SolrDocumentList sortedDocs = (SolrDocumentList) docs.clone();
-        sortedDocs.sort(new Comparator<SolrDocument>() {
-            @Override
-            public int compare(final SolrDocument o1, final SolrDocument o2) {
-                if ((float) o1.getFieldValue("score") < (float) o2.getFieldValue("score"))
-                    return -1;
-                else if ((float) o1.getFieldValue("score") > (float) o2.getFieldValue("score"))
-                    return 1;
-                else
-                    return 0;
-            }
-        });
-        // apply the Katomle algorithm to find knee/elbow points in the score values of
-        // the returned docs to cut there
+        // apply the Katomle algorithm to find knee/elbow points in the ascending score
+        // values of the returned docs to cut there
         double cutScoreLowerThan = 0.0;
-        if (sortedDocs.size() > 1) {
-            Katomle katomle = new Katomle();
-            double[] x = new double[sortedDocs.size()];
-            double[] y = new double[sortedDocs.size()];
-            for (int i = 0; i < sortedDocs.size(); i++) {
-                x[i] = i;
-                y[i] = Double.valueOf(sortedDocs.get(i).getFieldValue("score").toString());
-            }
-            int[] elbows = katomle.detectElbowPoints(x, y);
+        if (scores.length > 1) {
+            double[] sortedScores = scores.clone();
+            Arrays.sort(sortedScores);
+            int[] elbows = new Katomle().detectElbowPoints(sortedScores);
             if (elbows.length >= config.getCutAfterIthElbowInScore()) {
-                cutScoreLowerThan = y[elbows[elbows.length - config.getCutAfterIthElbowInScore()]];
+                cutScoreLowerThan = sortedScores[elbows[elbows.length - config.getCutAfterIthElbowInScore()]];
                 logger.debug("Calculated elbow score point after {} elbows for document scores: {}",
                                 config.getCutAfterIthElbowInScore(), cutScoreLowerThan);
             }
         }
-        for (int i = sortedDocs.size() - 1; i >= 0; i--) {
-            // if score is lower threshold or we arrived at the elbow point to cut after
-            double score = Double.valueOf(sortedDocs.get(i).getFieldValue("score").toString());
-            if (score < config.getScoreThreshold() || score <= cutScoreLowerThan) {
-                logger.debug("cut result documents, current score is {}, score threshold is {}", score,
-                                config.getScoreThreshold());
-                break;
+        // select the documents with a score higher than the threshold and the elbow
+        // point to cut after
+        int[] selected = new int[scores.length];
+        int selectedCount = 0;
+        boolean descending = true;
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] >= config.getScoreThreshold() && scores[i] > cutScoreLowerThan) {
+                if (selectedCount > 0 && scores[selected[selectedCount - 1]] < scores[i]) {
+                    descending = false;
+                }
+                selected[selectedCount++] = i;
             }
-            SolrDocument newDoc = sortedDocs.get(i);
-            matches.add(newDoc);
         }
-        return matches;
+        logger.debug("keeping {} of {} result documents, score threshold is {}, cut score is {}", selectedCount,
+                        scores.length, config.getScoreThreshold(), cutScoreLowerThan);
+        int[] ranking = Arrays.copyOf(selected, selectedCount);
+        if (!descending) {
+            // Solr returns the documents ordered by score, so this is rarely necessary
+            sortByScoreDescending(ranking, scores);
+        }
+        return ranking;
+    }
+
+    /**
+     * Sorts the document indices by score descending, documents with the same
+     * score keep their order (insertion sort for short rankings, merge sort
+     * otherwise).
+     */
+    private static void sortByScoreDescending(int[] ranking, double[] scores) {
+        if (ranking.length <= 32) {
+            for (int i = 1; i < ranking.length; i++) {
+                int index = ranking[i];
+                int j = i - 1;
+                while (j >= 0 && scores[ranking[j]] < scores[index]) {
+                    ranking[j + 1] = ranking[j];
+                    j--;
+                }
+                ranking[j + 1] = index;
+            }
+            return;
+        }
+        int[] sorted = Arrays.stream(ranking).boxed().sorted((a, b) -> Double.compare(scores[b], scores[a]))
+                        .mapToInt(Integer::intValue).toArray();
+        System.arraycopy(sorted, 0, ranking, 0, ranking.length);
+    }
+
+    /**
+     * Extracts the score of every document, so it is parsed only once.
+     */
+    private static double[] extractScores(final SolrDocumentList docs) {
+        double[] scores = new double[docs.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = Double.parseDouble(docs.get(i).getFieldValue("score").toString());
+        }
+        return scores;
     }
 
     public BulkHintEvent generateHintsFromSearchResult(final SolrDocumentList docs, final AtomEvent atom,
                     AtomModelWrapper atomModelWrapper, boolean doSuppressHintForAtom,
                     boolean doSuppressHintForMatchedAtoms, boolean kneeDetection) {
-        // check if knee detection should be performed
-        SolrDocumentList newDocs = docs;
-        if (kneeDetection) {
-            newDocs = calculateMatchingResults(docs);
-        }
         BulkHintEvent bulkHintEvent = new BulkHintEvent();
+        if (docs == null) {
+            return bulkHintEvent;
+        }
+        double[] scores = extractScores(docs);
+        // check if knee detection should be performed
+        int[] ranking = kneeDetection ? rankMatchingResults(docs, scores) : null;
+        int hintCount = ranking != null ? ranking.length : docs.size();
         logger.info("Received {} matches as query result for atom {}, keeping the top {} ",
-                        new Object[] { (docs != null) ? docs.size() : 0, atom, newDocs.size() });
+                        new Object[] { docs.size(), atom, hintCount });
         boolean noHintForMe = atomModelWrapper.flag(WONMATCH.NoHintForMe);
         boolean noHintForCounterpart = atomModelWrapper.flag(WONMATCH.NoHintForCounterpart);
         logger.debug("atom to be matched has NoHintForMe: {}, NoHintForCounterpart: {} ", noHintForMe,
                         noHintForCounterpart);
-        for (SolrDocument doc : newDocs) {
+        Collection<String> matchingContexts = atomModelWrapper.getMatchingContexts();
+        Set<String> matchingContextSet = matchingContexts == null ? Collections.<String> emptySet()
+                        : new HashSet<>(matchingContexts);
+        for (int i = 0; i < hintCount; i++) {
+            int index = ranking != null ? ranking[i] : i;
+            SolrDocument doc = docs.get(index);
             // NOTE: not the whole document is loaded here. The fields that are selected are
             // defined
             // in won.matcher.solr.query.DefaultMatcherQueryExecuter - if additional fields
             // are required, the field list
             // has to be extended in that class.
-            String matchedAtomUri = doc.getFieldValue("id").toString();
-            if (matchedAtomUri == null) {
+            Object id = doc.getFieldValue("id");
+            if (id == null) {
                 logger.debug("omitting matched atom: could not extract atom URI");
                 continue;
             }
-            List<String> flags = getValueList(doc, HAS_FLAG_SOLR_FIELD);
-            boolean matchedAtomNoHintForMe = flags.contains(WONMATCH.NoHintForMe.toString());
-            boolean matchedAtomNoHintForCounterpart = flags.contains(WONMATCH.NoHintForCounterpart.toString());
+            String matchedAtomUri = id.toString();
+            boolean matchedAtomNoHintForMe = hasValue(doc, HAS_FLAG_SOLR_FIELD, WONMATCH.NoHintForMe.toString());
+            boolean matchedAtomNoHintForCounterpart = hasValue(doc, HAS_FLAG_SOLR_FIELD,
+                            WONMATCH.NoHintForCounterpart.toString());
             // check the matching contexts of the two atoms that are supposed to be matched
             // send only hints to atoms if their matching contexts overlap (if one atom has
             // empty matching context it always receives hints)
-            Collection<Object> contextSolrFieldValues = doc
+            Collection<Object> matchedAtomMatchingContexts = doc
                             .getFieldValues(MatchingContextQueryFactory.MATCHING_CONTEXT_SOLR_FIELD);
-            Collection<String> matchedAtomMatchingContexts = new LinkedList<>();
-            if (contextSolrFieldValues != null) {
-                matchedAtomMatchingContexts = contextSolrFieldValues.stream().map(a -> (String) a)
-                                .collect(Collectors.toList());
+            boolean matchedAtomHasMatchingContexts = matchedAtomMatchingContexts != null
+                            && !matchedAtomMatchingContexts.isEmpty();
+            boolean contextOverlap = false;
+            if (matchedAtomHasMatchingContexts && !matchingContextSet.isEmpty()) {
+                for (Object context : matchedAtomMatchingContexts) {
+                    if (matchingContextSet.contains(context)) {
+                        contextOverlap = true;
+                        break;
+                    }
+                }
             }
-            Collection<String> matchingContexts = atomModelWrapper.getMatchingContexts();
-            if (matchingContexts == null) {
-                matchingContexts = new LinkedList<>();
-            }
-            boolean contextOverlap = CollectionUtils.intersection(matchedAtomMatchingContexts, matchingContexts)
-                            .size() > 0;
-            boolean suppressHintsForMyContexts = !contextOverlap && !(CollectionUtils.isEmpty(matchingContexts));
-            boolean suppressHintsForCounterpartContexts = !contextOverlap
-                            && !(CollectionUtils.isEmpty(matchedAtomMatchingContexts));
+            boolean suppressHintsForMyContexts = !contextOverlap && !matchingContextSet.isEmpty();
+            boolean suppressHintsForCounterpartContexts = !contextOverlap && matchedAtomHasMatchingContexts;
             // suppress hints for current if its flags or its counterparts flags say so or
             // if it was specified in the calling parameters or matching contexts
-            doSuppressHintForAtom = noHintForMe || matchedAtomNoHintForCounterpart || doSuppressHintForAtom
+            boolean suppressHintForAtom = noHintForMe || matchedAtomNoHintForCounterpart || doSuppressHintForAtom
                             || suppressHintsForMyContexts;
             // suppress hints for matched atom if its flags or its counterparts flags say so
             // or if it was specified in the calling parameters or matching contexts
-            doSuppressHintForMatchedAtoms = noHintForCounterpart || matchedAtomNoHintForMe
+            boolean suppressHintForMatchedAtom = noHintForCounterpart || matchedAtomNoHintForMe
                             || doSuppressHintForMatchedAtoms || suppressHintsForCounterpartContexts;
             if (logger.isDebugEnabled()) {
                 logger.debug("matched atom has NoHintForMe: {}, NoHintForCounterpart: {}", matchedAtomNoHintForMe,
                                 matchedAtomNoHintForCounterpart);
-                logger.debug("atom will receive a hint: {} (uri: {})", !doSuppressHintForAtom, atom.getUri());
-                logger.debug("matched atom atom will receive a hint: {} (uri: {})", !doSuppressHintForMatchedAtoms,
+                logger.debug("atom will receive a hint: {} (uri: {})", !suppressHintForAtom, atom.getUri());
+                logger.debug("matched atom atom will receive a hint: {} (uri: {})", !suppressHintForMatchedAtom,
                                 matchedAtomUri);
-                logger.debug("atom matching contexts: {}", matchingContexts);
+                logger.debug("atom matching contexts: {}", matchingContextSet);
                 logger.debug("matched atom matching contexts: {}", matchedAtomMatchingContexts);
             }
-            if (doSuppressHintForAtom && doSuppressHintForMatchedAtoms) {
+            if (suppressHintForAtom && suppressHintForMatchedAtom) {
                 logger.debug("no hints to be sent because of Suppress settings");
                 continue;
             }
@@ -165,16 +216,16 @@ public class HintBuilder {
                 continue;
             }
             // normalize the final score
-            double score = Double.valueOf(doc.getFieldValue("score").toString()) * config.getScoreNormalizationFactor();
+            double score = scores[index] * config.getScoreNormalizationFactor();
             score = Math.max(0, Math.min(1, score));
             logger.debug("generate hint for match {} with normalized score {}", matchedAtomUri, score);
-            if (!doSuppressHintForAtom) {
+            if (!suppressHintForAtom) {
                 bulkHintEvent.addHintEvent(
                                 new AtomHintEvent(atom.getUri(), atom.getWonNodeUri(), matchedAtomUri, wonNodeUri,
                                                 config.getSolrServerPublicUri(), score, atom.getCause()));
             }
             // also send the same hints to the other side (remote atom and wonnode)?
-            if (!doSuppressHintForMatchedAtoms) {
+            if (!suppressHintForMatchedAtom) {
                 bulkHintEvent.addHintEvent(
                                 new AtomHintEvent(matchedAtomUri, wonNodeUri, atom.getUri(), atom.getWonNodeUri(),
                                                 config.getSolrServerPublicUri(), score, atom.getCause()));
@@ -183,17 +234,23 @@ public class HintBuilder {
         return bulkHintEvent;
     }
 
-    private List<String> getValueList(SolrDocument document, String fieldName) {
-        Object value = document.getFieldValue(fieldName);
-        if (value == null)
-            return Collections.emptyList();
-        if (value instanceof String) {
-            return Arrays.asList(new String[] { (String) value });
+    /**
+     * Checks if the field (with a single value or a list of values) contains the
+     * value.
+     */
+    private boolean hasValue(SolrDocument document, String fieldName, String value) {
+        Object fieldValue = document.getFieldValue(fieldName);
+        if (fieldValue instanceof String) {
+            return value.equals(fieldValue);
         }
-        if (value instanceof List) {
-            return ((List<String>) ((List) value).stream().map(x -> x.toString()).collect(Collectors.toList()));
+        if (fieldValue instanceof List) {
+            for (Object listValue : (List<?>) fieldValue) {
+                if (value.equals(listValue.toString())) {
+                    return true;
+                }
+            }
         }
-        return Collections.emptyList();
+        return false;
     }
 
     private String getFieldValueFirstOfListIfNecessary(SolrDocument doc, String field) {
@@ -0,0 +1,138 @@
+package won.matcher.solr.query;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrDocumentList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import won.matcher.solr.config.SolrMatcherConfig;
+
+/**
+ * Executes the hint queries of atoms concurrently on a bounded thread pool.
+ * The pool is shared by all matcher actors; if its queue is full (or the pool
+ * is shut down), the query is executed by the calling thread, which slows down
+ * the submitting actor.
+ */
+@Component
+public class ConcurrentHintQueryExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final int QUEUE_CAPACITY_PER_THREAD = 16;
+    @Autowired
+    private SolrMatcherConfig config;
+    private ExecutorService executorService;
+
+    public ConcurrentHintQueryExecutor() {
+    }
+
+    public ConcurrentHintQueryExecutor(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    @PostConstruct
+    private void init() {
+        int threads = Math.max(1, config.getQueryThreads());
+        logger.info("executing solr hint queries with {} threads", threads);
+        AtomicInteger threadCount = new AtomicInteger(0);
+        executorService = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(threads * QUEUE_CAPACITY_PER_THREAD), r -> {
+                            Thread thread = new Thread(r, "solr-hint-query-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }, (r, executor) -> r.run());
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executorService.shutdown();
+    }
+
+    /**
+     * Starts executing the queries. The returned future completes when all
+     * queries are done; a failed query does not fail the future, its exception is
+     * thrown by {@link HintQueryResult#getDocs()}.
+     */
+    public CompletableFuture<List<HintQueryResult>> execute(SolrMatcherQueryExecutor queryExecutor,
+                    List<HintQuery> queries) {
+        List<CompletableFuture<HintQueryResult>> futures = new ArrayList<>(queries.size());
+        for (HintQuery query : queries) {
+            futures.add(CompletableFuture.supplyAsync(() -> executeQuery(queryExecutor, query), executorService));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).thenApply(v -> {
+            List<HintQueryResult> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<HintQueryResult> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        });
+    }
+
+    private HintQueryResult executeQuery(SolrMatcherQueryExecutor queryExecutor, HintQuery query) {
+        try {
+            return new HintQueryResult(query,
+                            queryExecutor.executeAtomQuery(query.getQueryString(), query.getMaxHints(), null,
+                                            query.getFilterQueries()),
+                            null);
+        } catch (Exception e) {
+            return new HintQueryResult(query, null, e);
+        }
+    }
+
+    /**
+     * The outcome of a hint query: the documents found or the exception thrown
+     * when executing the query.
+     */
+    public static class HintQueryResult {
+        private final HintQuery query;
+        private final SolrDocumentList docs;
+        private final Exception exception;
+
+        private HintQueryResult(HintQuery query, SolrDocumentList docs, Exception exception) {
+            this.query = query;
+            this.docs = docs;
+            this.exception = exception;
+        }
+
+        public HintQuery getQuery() {
+            return query;
+        }
+
+        /**
+         * Returns the documents found, null if there are none.
+         *
+         * @throws IOException if executing the query failed with an IOException
+         * @throws SolrServerException if executing the query failed with a
+         * SolrServerException
+         */
+        public SolrDocumentList getDocs() throws IOException, SolrServerException {
+            if (exception instanceof IOException) {
+                throw (IOException) exception;
+            }
+            if (exception instanceof SolrServerException) {
+                throw (SolrServerException) exception;
+            }
+            if (exception instanceof RuntimeException) {
+                throw (RuntimeException) exception;
+            }
+            if (exception != null) {
+                throw new IllegalStateException("could not execute " + query, exception);
+            }
+            return docs;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package won.matcher.solr.query;
+
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.jena.query.Dataset;
+
+import won.matcher.solr.query.factory.AtomStateQueryFactory;
+import won.matcher.solr.query.factory.BooleanQueryFactory;
+import won.matcher.solr.query.factory.CreationDateQueryFactory;
+import won.matcher.solr.query.factory.DefaultAtomQueryFactory;
+import won.matcher.solr.query.factory.HasFlagQueryFactory;
+import won.matcher.solr.query.factory.MatchingContextQueryFactory;
+import won.matcher.solr.query.factory.WhatsAroundQueryFactory;
+import won.matcher.solr.query.factory.WhatsNewQueryFactory;
+import won.protocol.util.AtomModelWrapper;
+import won.protocol.vocabulary.WONMATCH;
+
+/**
+ * Creates the (up to) three queries executed for an atom:
+ * <ol>
+ * <li>atoms without NoHintForCounterpart =&gt; hints for current atom</li>
+ * <li>atoms without NoHintForSelf, excluding WhatsAround atoms =&gt; hints for
+ * atoms in index that are not WhatsAround</li>
+ * <li>atoms without NoHintForSelf that are only WhatsAround atoms =&gt; hints
+ * for atoms in index that are WhatsAround</li>
+ * </ol>
+ * Every filter is passed to Solr as a separate filter query, so that Solr can
+ * cache it in its filterCache. The filters that do not depend on the atom are
+ * created only once and the filters that do are created once per atom and
+ * shared by its queries.
+ */
+public class HintQueries {
+    private static final String ATOM_STATE_FILTER = new AtomStateQueryFactory(null).createQuery();
+    private static final String NOT_NO_HINT_FOR_COUNTERPART_FILTER = not(
+                    HasFlagQueryFactory.FLAGS.NO_HINT_FOR_COUNTERPART);
+    private static final String NOT_NO_HINT_FOR_ME_FILTER = not(HasFlagQueryFactory.FLAGS.NO_HINT_FOR_ME);
+    private static final String NOT_WHATS_AROUND_FILTER = not(HasFlagQueryFactory.FLAGS.WHATS_AROUND);
+    private static final String NOT_WHATS_NEW_FILTER = not(HasFlagQueryFactory.FLAGS.WHATS_NEW);
+    private static final String WHATS_AROUND_OR_WHATS_NEW_FILTER = new BooleanQueryFactory(
+                    BooleanQueryFactory.BooleanOperator.OR,
+                    new HasFlagQueryFactory(HasFlagQueryFactory.FLAGS.WHATS_AROUND),
+                    new HasFlagQueryFactory(HasFlagQueryFactory.FLAGS.WHATS_NEW)).createQuery();
+
+    private static String not(HasFlagQueryFactory.FLAGS flag) {
+        return new BooleanQueryFactory(BooleanQueryFactory.BooleanOperator.NOT, new HasFlagQueryFactory(flag))
+                        .createQuery();
+    }
+
+    /**
+     * Creates the queries to execute for the atom. Queries that are not needed
+     * because of the atom's flags are omitted.
+     */
+    public static List<HintQuery> create(Dataset dataset, AtomModelWrapper atomModelWrapper, int maxHints,
+                    int maxHintsForCounterparts) {
+        boolean whatsAround = atomModelWrapper.flag(WONMATCH.WhatsAround);
+        boolean whatsNew = atomModelWrapper.flag(WONMATCH.WhatsNew);
+        // create another query depending if the current atom is "WhatsAround" or a
+        // default atom
+        String queryString;
+        if (whatsAround) {
+            // WhatsAround doesnt match on terms only other atoms in close location are
+            // boosted
+            queryString = new WhatsAroundQueryFactory(dataset).createQuery();
+        } else if (whatsNew) {
+            queryString = new WhatsNewQueryFactory(dataset).createQuery();
+        } else {
+            // default query matches content terms (of fields title, description and tags)
+            // with different weights
+            // and gives an additional multiplicative boost for geographically closer atoms
+            queryString = new DefaultAtomQueryFactory(dataset).createQuery();
+        }
+        // add filters to the query: default filters are
+        // - atom status active
+        // - creation date overlap 1 month
+        // - OR-filtering for matching contexts if any were specified
+        String creationDateFilter = new CreationDateQueryFactory(dataset, 1, ChronoUnit.MONTHS).createQuery();
+        String matchingContextFilter = null;
+        Collection<String> matchingContexts = atomModelWrapper.getMatchingContexts();
+        if (matchingContexts != null && matchingContexts.size() > 0) {
+            // sort the contexts so that atoms with the same contexts share the filter
+            matchingContextFilter = new MatchingContextQueryFactory(new TreeSet<>(matchingContexts)).createQuery();
+        }
+        List<HintQuery> queries = new ArrayList<>(3);
+        if (!atomModelWrapper.flag(WONMATCH.NoHintForMe)) {
+            // perform knee detection depending on current atom is WhatsAround/WhatsNew or
+            // not), only generate hints for current atom
+            queries.add(new HintQuery("atom list 1 (without NoHintForCounterpart)", queryString, maxHints,
+                            filters(creationDateFilter, matchingContextFilter, NOT_NO_HINT_FOR_COUNTERPART_FILTER),
+                            false, true, !(whatsNew || whatsAround)));
+        }
+        if (!atomModelWrapper.flag(WONMATCH.NoHintForCounterpart)) {
+            // only generate hints for matched atoms, perform knee detection
+            queries.add(new HintQuery("atom list 2 (without NoHintForSelf, excluding WhatsAround atoms)",
+                            queryString, maxHintsForCounterparts,
+                            filters(creationDateFilter, matchingContextFilter, NOT_NO_HINT_FOR_ME_FILTER,
+                                            NOT_WHATS_AROUND_FILTER, NOT_WHATS_NEW_FILTER),
+                            true, false, true));
+            // hints for WhatsAround Atoms should not have the keywords from title,
+            // description, tags etc.
+            // this can prevent to actually find WhatsAround atoms.
+            // Instead create a WhatsAround query (query without keywords, just location) to
+            // find other WhatsAround atoms. Only generate hints for matched atoms, do not
+            // perform knee detection
+            String whatsAroundQueryString = whatsAround ? queryString
+                            : new WhatsAroundQueryFactory(dataset).createQuery();
+            queries.add(new HintQuery("atom list 3 (without NoHintForSelf that are only WhatsAround atoms)",
+                            whatsAroundQueryString, maxHintsForCounterparts,
+                            filters(creationDateFilter, matchingContextFilter, NOT_NO_HINT_FOR_ME_FILTER,
+                                            WHATS_AROUND_OR_WHATS_NEW_FILTER),
+                            true, false, false));
+        }
+        return queries;
+    }
+
+    private static String[] filters(String creationDateFilter, String matchingContextFilter, String... flagFilters) {
+        List<String> filters = new ArrayList<>(flagFilters.length + 3);
+        filters.add(ATOM_STATE_FILTER);
+        filters.add(creationDateFilter);
+        for (String flagFilter : flagFilters) {
+            filters.add(flagFilter);
+        }
+        if (matchingContextFilter != null) {
+            filters.add(matchingContextFilter);
+        }
+        return filters.toArray(new String[filters.size()]);
+    }
+}
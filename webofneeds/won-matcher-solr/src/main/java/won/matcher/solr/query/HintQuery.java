@@ -0,0 +1,65 @@
+package won.matcher.solr.query;
+
+import java.util.Arrays;
+
+/**
+ * One of the Solr queries executed for an atom to find hints, together with
+ * the options for generating hints from its results.
+ */
+public class HintQuery {
+    private final String description;
+    private final String queryString;
+    private final int maxHints;
+    private final String[] filterQueries;
+    private final boolean suppressHintForAtom;
+    private final boolean suppressHintForMatchedAtoms;
+    private final boolean kneeDetection;
+
+    public HintQuery(String description, String queryString, int maxHints, String[] filterQueries,
+                    boolean suppressHintForAtom, boolean suppressHintForMatchedAtoms, boolean kneeDetection) {
+        this.description = description;
+        this.queryString = queryString;
+        this.maxHints = maxHints;
+        this.filterQueries = filterQueries;
+        this.suppressHintForAtom = suppressHintForAtom;
+        this.suppressHintForMatchedAtoms = suppressHintForMatchedAtoms;
+        this.kneeDetection = kneeDetection;
+    }
+
+    /**
+     * Describes which atoms the query looks for, used for logging.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    public String getQueryString() {
+        return queryString;
+    }
+
+    public int getMaxHints() {
+        return maxHints;
+    }
+
+    public String[] getFilterQueries() {
+        return filterQueries;
+    }
+
+    public boolean isSuppressHintForAtom() {
+        return suppressHintForAtom;
+    }
+
+    public boolean isSuppressHintForMatchedAtoms() {
+        return suppressHintForMatchedAtoms;
+    }
+
+    public boolean isKneeDetection() {
+        return kneeDetection;
+    }
+
+    @Override
+    public String toString() {
+        return "HintQuery{" + description + ", query=" + queryString + ", filters=" + Arrays.toString(filterQueries)
+                        + "}";
+    }
+}
@@ -20,9 +20,10 @@ public class CreationDateQueryFactory extends AtomDatasetQueryFactory {
         super(atomDataset);
         AtomModelWrapper atomModelWrapper = new AtomModelWrapper(atomDataset);
         ZonedDateTime creationDate = atomModelWrapper.getCreationDate();
-        startDate = creationDate.plus(timeWindow, ChronoUnit.MINUTES);
-        startDate = creationDate.minus(timeWindow, unit);
-        endDate = creationDate.plus(timeWindow, unit);
+        // round the interval to whole days, so that atoms created on the same day use
+        // the same filter query and Solr can answer it from its filterCache
+        startDate = creationDate.minus(timeWindow, unit).truncatedTo(ChronoUnit.DAYS);
+        endDate = creationDate.plus(timeWindow, unit).truncatedTo(ChronoUnit.DAYS).plus(1, ChronoUnit.DAYS);
     }
 
     @Override
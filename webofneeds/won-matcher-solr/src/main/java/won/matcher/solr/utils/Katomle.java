@@ -3,8 +3,6 @@ package won.matcher.solr.utils;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
-
 /**
  * Created by hfriedrich on 19.07.2016. Detect knee points in a curve using the
  * "Katomle" algorithm as described in the paper "Finding a" Katomle" in a
@@ -35,6 +33,24 @@ public class Katomle {
         return detectKneeOrElbowPoints(x, y, true);
     }
 
+    /**
+     * Detects elbow points in a curve whose x-coordinates are the indices of the
+     * y-coordinates (0, 1, 2, ...), without allocating the x-coordinates.
+     *
+     * @param y y-coordinates of curve
+     * @return array of indices of elbow points in the curve
+     */
+    public int[] detectElbowPoints(final double[] y) {
+        if (y.length < 2) {
+            throw new IllegalArgumentException("y array must have size > 1");
+        }
+        double[] xn = new double[y.length];
+        for (int i = 0; i < y.length; i++) {
+            xn[i] = (double) i / (y.length - 1);
+        }
+        return detectKneeOrElbowPointsNormalizedX(xn, y, true);
+    }
+
     /**
      * Detect all knee points in a curve according to "Katomle" algorithm.
      * Alternatively this method can detect elbow points instead of knee points.
@@ -47,10 +63,13 @@ public class Katomle {
      */
     private int[] detectKneeOrElbowPoints(final double[] x, final double[] y, boolean detectElbows) {
         checkConstraints(x, y);
+        return detectKneeOrElbowPointsNormalizedX(normalize(x), y, detectElbows);
+    }
+
+    private int[] detectKneeOrElbowPointsNormalizedX(final double[] xn, final double[] y, boolean detectElbows) {
         List<Integer> kneeIndices = new LinkedList<Integer>();
         List<Integer> lmxIndices = new LinkedList<Integer>();
         List<Double> lmxThresholds = new LinkedList<Double>();
-        double[] xn = normalize(x);
         double[] yn = normalize(y);
         // compute the y difference values
         double[] yDiff = new double[y.length];
@@ -63,9 +82,9 @@ public class Katomle {
         // minima instead of maxima in the
         // original yDiff curve
         if (detectElbows) {
-            DescriptiveStatistics stats = new DescriptiveStatistics(yDiff);
+            double max = max(yDiff);
             for (int i = 0; i < yDiff.length; i++) {
-                yDiff[i] = stats.getMax() - yDiff[i];
+                yDiff[i] = max - yDiff[i];
             }
         }
         // find local maxima, compute threshold values and detect knee points
@@ -105,13 +124,35 @@ public class Katomle {
 
     private double[] normalize(final double[] values) {
         double normalized[] = new double[values.length];
-        DescriptiveStatistics stats = new DescriptiveStatistics(values);
+        // compute minimum and maximum only once, not for every value
+        double min = min(values);
+        double max = max(values);
         for (int i = 0; i < values.length; i++) {
-            normalized[i] = (values[i] - stats.getMin()) / (stats.getMax() - stats.getMin());
+            normalized[i] = (values[i] - min) / (max - min);
         }
         return normalized;
     }
 
+    private static double min(final double[] values) {
+        double min = Double.NaN;
+        for (double value : values) {
+            if (Double.isNaN(min) || value < min) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    private static double max(final double[] values) {
+        double max = Double.NaN;
+        for (double value : values) {
+            if (Double.isNaN(max) || value > max) {
+                max = value;
+            }
+        }
+        return max;
+    }
+
     private void checkConstraints(final double[] x, final double[] y) {
         if (x.length != y.length || x.length < 2) {
             throw new IllegalArgumentException("x and y arrays must have size > 1 and the same number of elements");
@@ -0,0 +1,57 @@
+package won.matcher.solr.hints;
+
+import java.util.Random;
+
+import org.apache.solr.common.SolrDocumentList;
+
+/**
+ * Utility app to compare the time needed for ranking search results by the
+ * original implementation (sorting a copy of the document list) and by the
+ * hint builder. Run with increasing result list sizes, e.g. for maxHints = 100
+ * and 10000.
+ */
+public class HintBuilderBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+
+    public static void main(String[] args) {
+        HintBuilder hintBuilder = new HintBuilder(new HintBuilderTest.TestConfig());
+        for (int maxHints : new int[] { 100, 10000 }) {
+            SolrDocumentList sortedDocs = HintBuilderTest.createDocs(maxHints, new Random(42), true);
+            int rounds = Math.max(10, 1000000 / maxHints);
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                runReference(sortedDocs, rounds);
+                runHintBuilder(hintBuilder, sortedDocs, rounds);
+            }
+            long referenceNanos = runReference(sortedDocs, rounds);
+            long hintBuilderNanos = runHintBuilder(hintBuilder, sortedDocs, rounds);
+            System.out.println(String.format("maxHints = %d: reference %.1f µs, hint builder %.1f µs per ranking",
+                            maxHints, referenceNanos / 1000.0 / rounds, hintBuilderNanos / 1000.0 / rounds));
+        }
+    }
+
+    private static long runReference(SolrDocumentList docs, int rounds) {
+        long start = System.nanoTime();
+        int kept = 0;
+        for (int i = 0; i < rounds; i++) {
+            kept += HintBuilderTest.referenceMatchingResults(docs).size();
+        }
+        consume(kept);
+        return System.nanoTime() - start;
+    }
+
+    private static long runHintBuilder(HintBuilder hintBuilder, SolrDocumentList docs, int rounds) {
+        long start = System.nanoTime();
+        int kept = 0;
+        for (int i = 0; i < rounds; i++) {
+            kept += hintBuilder.calculateMatchingResults(docs).size();
+        }
+        consume(kept);
+        return System.nanoTime() - start;
+    }
+
+    private static void consume(int kept) {
+        if (kept < 0) {
+            System.out.println(kept);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package won.matcher.solr.hints;
+
+import java.util.Comparator;
+import java.util.Random;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import won.matcher.solr.config.SolrMatcherConfig;
+import won.matcher.solr.utils.Katomle;
+
+/**
+ * Checks that the ranking of the hint builder keeps the same documents as the
+ * original implementation (which sorted a copy of the document list).
+ */
+public class HintBuilderTest {
+    private static final SolrMatcherConfig CONFIG = new TestConfig();
+
+    @Test
+    public void testRankingKeepsSameDocumentsAsReference() {
+        Random random = new Random(42);
+        for (int size : new int[] { 0, 1, 2, 5, 20, 100, 1000 }) {
+            for (boolean sorted : new boolean[] { true, false }) {
+                SolrDocumentList docs = createDocs(size, random, sorted);
+                assertSameScores(referenceMatchingResults(docs), new HintBuilder(CONFIG).calculateMatchingResults(docs));
+            }
+        }
+    }
+
+    @Test
+    public void testRankingIsOrderedByScoreDescending() {
+        SolrDocumentList docs = createDocs(50, new Random(7), false);
+        SolrDocumentList matches = new HintBuilder(CONFIG).calculateMatchingResults(docs);
+        for (int i = 1; i < matches.size(); i++) {
+            Assert.assertTrue(score(matches.get(i - 1)) >= score(matches.get(i)));
+        }
+    }
+
+    @Test
+    public void testKatomleElbowsWithoutXCoordinates() {
+        double[] x = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+        double[] y = { 0.1, 0.1, 0.3, 0.3, 0.3, 0.6, 0.6, 0.6, 0.9, 0.9 };
+        Katomle katomle = new Katomle();
+        Assert.assertArrayEquals(katomle.detectElbowPoints(x, y), katomle.detectElbowPoints(y));
+    }
+
+    private static void assertSameScores(SolrDocumentList expected, SolrDocumentList actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            // documents with the same score may be ordered differently
+            Assert.assertEquals(score(expected.get(i)), score(actual.get(i)), 0.0);
+        }
+    }
+
+    static SolrDocumentList createDocs(int size, Random random, boolean sortedByScore) {
+        SolrDocumentList docs = new SolrDocumentList();
+        for (int i = 0; i < size; i++) {
+            SolrDocument doc = new SolrDocument();
+            doc.setField("id", "https://node.example.org/won/resource/atom/" + i);
+            // scores in clusters, similar to what Solr returns for a query
+            doc.setField("score", (float) (random.nextInt(5) * 50 + random.nextDouble() * 10));
+            docs.add(doc);
+        }
+        if (sortedByScore) {
+            docs.sort(Comparator.comparingDouble(HintBuilderTest::score).reversed());
+        }
+        return docs;
+    }
+
+    private static double score(SolrDocument doc) {
+        return Double.valueOf(doc.getFieldValue("score").toString());
+    }
+
+    /**
+     * The ranking as originally implemented in
+     * {@link HintBuilder#calculateMatchingResults(SolrDocumentList)}.
+     */
+    static SolrDocumentList referenceMatchingResults(final SolrDocumentList docs) {
+        SolrDocumentList matches = new SolrDocumentList();
+        if (docs == null || docs.size() == 0) {
+            return matches;
+        }
+        SolrDocumentList sortedDocs = (SolrDocumentList) docs.clone();
+        sortedDocs.sort(new Comparator<SolrDocument>() {
+            @Override
+            public int compare(final SolrDocument o1, final SolrDocument o2) {
+                if ((float) o1.getFieldValue("score") < (float) o2.getFieldValue("score"))
+                    return -1;
+                else if ((float) o1.getFieldValue("score") > (float) o2.getFieldValue("score"))
+                    return 1;
+                else
+                    return 0;
+            }
+        });
+        double cutScoreLowerThan = 0.0;
+        if (sortedDocs.size() > 1) {
+            Katomle katomle = new Katomle();
+            double[] x = new double[sortedDocs.size()];
+            double[] y = new double[sortedDocs.size()];
+            for (int i = 0; i < sortedDocs.size(); i++) {
+                x[i] = i;
+                y[i] = Double.valueOf(sortedDocs.get(i).getFieldValue("score").toString());
+            }
+            int[] elbows = katomle.detectElbowPoints(x, y);
+            if (elbows.length >= CONFIG.getCutAfterIthElbowInScore()) {
+                cutScoreLowerThan = y[elbows[elbows.length - CONFIG.getCutAfterIthElbowInScore()]];
+            }
+        }
+        for (int i = sortedDocs.size() - 1; i >= 0; i--) {
+            double score = Double.valueOf(sortedDocs.get(i).getFieldValue("score").toString());
+            if (score < CONFIG.getScoreThreshold() || score <= cutScoreLowerThan) {
+                break;
+            }
+            matches.add(sortedDocs.get(i));
+        }
+        return matches;
+    }
+
+    static class TestConfig extends SolrMatcherConfig {
+        @Override
+        public float getScoreThreshold() {
+            return 1.0f;
+        }
+
+        @Override
+        public int getCutAfterIthElbowInScore() {
+            return 1;
+        }
+
+        @Override
+        public float getScoreNormalizationFactor() {
+            return 0.001f;
+        }
+
+        @Override
+        public String getSolrServerPublicUri() {
+            return "http://localhost:8983/solr/";
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package won.matcher.solr.query;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.SolrParams;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import won.matcher.solr.query.ConcurrentHintQueryExecutor.HintQueryResult;
+
+/**
+ * Executes hint queries against stub query executors, so no Solr server is
+ * needed.
+ */
+public class ConcurrentHintQueryExecutorTest {
+    private static final long QUERY_LATENCY_MILLIS = 200;
+    private static final int THREADS = 6;
+    private ExecutorService executorService;
+    private ConcurrentHintQueryExecutor concurrentExecutor;
+
+    @Before
+    public void setup() {
+        executorService = Executors.newFixedThreadPool(THREADS);
+        concurrentExecutor = new ConcurrentHintQueryExecutor(executorService);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testQueriesOfAtomAreExecutedConcurrently() throws Exception {
+        List<HintQuery> queries = createQueries();
+        // each query only returns when all queries of the atom are in progress
+        BarrierQueryExecutor queryExecutor = new BarrierQueryExecutor(queries.size());
+        List<HintQueryResult> results = concurrentExecutor.execute(queryExecutor, queries).join();
+        Assert.assertEquals(3, results.size());
+        for (int i = 0; i < queries.size(); i++) {
+            Assert.assertSame(queries.get(i), results.get(i).getQuery());
+            Assert.assertEquals(queries.get(i).getQueryString(), results.get(i).getDocs().get(0).getFieldValue("id"));
+        }
+        Assert.assertEquals(queries.size(), queryExecutor.getPeakInFlight());
+    }
+
+    @Test
+    public void testQueriesOfSeveralAtomsArePipelined() throws Exception {
+        // the queries of the second atom are started before the first atom is done
+        BarrierQueryExecutor queryExecutor = new BarrierQueryExecutor(THREADS);
+        List<CompletableFuture<List<HintQueryResult>>> pipeline = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            pipeline.add(concurrentExecutor.execute(queryExecutor, createQueries()));
+        }
+        for (CompletableFuture<List<HintQueryResult>> results : pipeline) {
+            Assert.assertEquals(3, results.join().size());
+            for (HintQueryResult result : results.join()) {
+                Assert.assertEquals(1, result.getDocs().size());
+            }
+        }
+        Assert.assertEquals(THREADS, queryExecutor.getPeakInFlight());
+    }
+
+    /**
+     * Compares the per-atom latency of executing the queries one after another and
+     * concurrently, with a simulated query latency.
+     */
+    @Ignore
+    @Test
+    public void benchmarkLatency() throws Exception {
+        List<HintQuery> queries = createQueries();
+        SolrMatcherQueryExecutor queryExecutor = new SlowQueryExecutor();
+        long start = System.currentTimeMillis();
+        for (HintQuery query : queries) {
+            queryExecutor.executeAtomQuery(query.getQueryString(), query.getMaxHints(), null);
+        }
+        long sequentialLatency = System.currentTimeMillis() - start;
+        start = System.currentTimeMillis();
+        concurrentExecutor.execute(queryExecutor, queries).join();
+        long concurrentLatency = System.currentTimeMillis() - start;
+        start = System.currentTimeMillis();
+        List<CompletableFuture<List<HintQueryResult>>> pipeline = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            pipeline.add(concurrentExecutor.execute(queryExecutor, createQueries()));
+        }
+        pipeline.forEach(CompletableFuture::join);
+        long pipelinedLatency = (System.currentTimeMillis() - start) / pipeline.size();
+        System.out.println(String.format("per-atom latency: sequential %d ms, concurrent %d ms, pipelined %d ms",
+                        sequentialLatency, concurrentLatency, pipelinedLatency));
+    }
+
+    @Test(expected = IOException.class)
+    public void testQueryExceptionIsThrownByResult() throws Exception {
+        SolrMatcherQueryExecutor failingExecutor = (queryString, maxHints, params, filterQueries) -> {
+            throw new IOException("solr is not available");
+        };
+        List<HintQueryResult> results = concurrentExecutor.execute(failingExecutor, createQueries()).join();
+        Assert.assertEquals(3, results.size());
+        results.get(0).getDocs();
+    }
+
+    private List<HintQuery> createQueries() {
+        String[] filters = new String[] { "filter1", "filter2" };
+        return Arrays.asList(new HintQuery("list 1", "query1", 10, filters, false, true, true),
+                        new HintQuery("list 2", "query2", 10, filters, true, false, true),
+                        new HintQuery("list 3", "query3", 10, filters, true, false, false));
+    }
+
+    private static SolrDocumentList createDocs(String queryString) {
+        SolrDocumentList docs = new SolrDocumentList();
+        SolrDocument doc = new SolrDocument();
+        doc.setField("id", queryString);
+        docs.add(doc);
+        return docs;
+    }
+
+    /**
+     * Returns one document with the query string as id once the given number of
+     * queries are in progress at the same time, and fails if they are not within a
+     * few seconds. Records the maximum number of queries in progress.
+     */
+    private static class BarrierQueryExecutor implements SolrMatcherQueryExecutor {
+        private final CountDownLatch allInFlight;
+        private final AtomicInteger inFlight = new AtomicInteger(0);
+        private final AtomicInteger peakInFlight = new AtomicInteger(0);
+
+        BarrierQueryExecutor(int parties) {
+            this.allInFlight = new CountDownLatch(parties);
+        }
+
+        @Override
+        public SolrDocumentList executeAtomQuery(String queryString, int maxHints, SolrParams params,
+                        String... filterQueries) throws IOException {
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                allInFlight.countDown();
+                if (!allInFlight.await(10, TimeUnit.SECONDS)) {
+                    throw new IOException("queries were not executed concurrently");
+                }
+                return createDocs(queryString);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        int getPeakInFlight() {
+            return peakInFlight.get();
+        }
+    }
+
+    /**
+     * Returns one document with the query string as id after waiting for the
+     * query latency.
+     */
+    private static class SlowQueryExecutor implements SolrMatcherQueryExecutor {
+        @Override
+        public SolrDocumentList executeAtomQuery(String queryString, int maxHints, SolrParams params,
+                        String... filterQueries) throws IOException {
+            try {
+                Thread.sleep(QUERY_LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            return createDocs(queryString);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -28,7 +29,6 @@ import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.ResultSet;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelExtract;
-import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.Statement;
@@ -388,10 +388,14 @@ public class SparqlMatcherActor extends UntypedActor {
                 // download the linked data and return a new AtomModelWrapper
                 Dataset ds = linkedDataSource.getDataForResource(URI.create(foundAtomUri.uri));
                 // make sure we don't accidentally use empty or faulty results
-                if (!AtomModelWrapper.isAAtom(ds)) {
+                if (ds == null || ds.isEmpty()) {
                     return null;
                 }
-                return new ScoredAtom(new AtomModelWrapper(ds), foundAtomUri.score);
+                AtomModelWrapper foundAtom = new AtomModelWrapper(ds);
+                if (!foundAtom.getView().isAtom()) {
+                    return null;
+                }
+                return new ScoredAtom(foundAtom, foundAtomUri.score);
             } catch (Exception e) {
                 log.info("caught exception trying to load atom URI {} : {} (more on loglevel 'debug')", foundAtomUri,
                                 e.getMessage());
@@ -404,12 +408,7 @@ public class SparqlMatcherActor extends UntypedActor {
     }
 
     private static Set<String> getMatchingContexts(AtomModelWrapper atom) {
-        Model model = atom.getAtomModel();
-        Resource atomURI = model.createResource(atom.getAtomUri());
-        Property matchingContextProperty = model.createProperty("https://w3id.org/won/matching#matchingContext");
-        Stream<RDFNode> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(
-                        model.listObjectsOfProperty(atomURI, matchingContextProperty), Spliterator.CONCURRENT), false);
-        return stream.map(node -> node.asLiteral().getString()).collect(Collectors.toSet());
+        return new HashSet<>(atom.getView().getMatchingContexts());
     }
 
     private boolean postFilter(AtomModelWrapper atom, AtomModelWrapper foundAtom) {
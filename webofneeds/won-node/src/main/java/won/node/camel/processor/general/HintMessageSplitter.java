@@ -0,0 +1,41 @@
+package won.node.camel.processor.general;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import won.protocol.exception.WonMessageProcessingException;
+import won.protocol.message.WonMessage;
+import won.protocol.message.WonMessageDecoder;
+import won.protocol.message.processor.camel.WonCamelConstants;
+
+/**
+ * Splits the body of a message coming in from a matcher into the hint messages
+ * it contains. The matcher may send a single hint message or a batch of hint
+ * messages for the same won node in one serialized dataset. Each hint message
+ * found is returned as a separate element so it can be processed in its own
+ * exchange.
+ */
+public class HintMessageSplitter {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public List<WonMessage> split(final Exchange exchange) {
+        Object body = exchange.getIn().getBody();
+        if (body == null) {
+            throw new WonMessageProcessingException("No hint messages found in the body");
+        }
+        if (body instanceof WonMessage) {
+            return Collections.singletonList((WonMessage) body);
+        }
+        List<WonMessage> hintMessages = WonMessageDecoder.decodeEach(WonCamelConstants.RDF_LANGUAGE_FOR_MESSAGE,
+                        body.toString());
+        if (logger.isDebugEnabled()) {
+            logger.debug("received {} hint message(s) from matcher", hintMessages.size());
+        }
+        return hintMessages;
+    }
+}
@@ -20,6 +20,8 @@ import javax.persistence.EntityManager;
 
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
+import org.javasimon.SimonManager;
+import org.javasimon.Split;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,10 +38,14 @@ import won.protocol.repository.ConnectionMessageContainerRepository;
 import won.protocol.repository.ConnectionRepository;
 
 /**
- * Acquires a pessimistic read lock on the message's parent.
+ * Acquires a pessimistic read lock on the message's parent. The time spent
+ * waiting for the locks is recorded in the Simon stopwatches
+ * <code>parentLock.connection.wait</code> and <code>parentLock.atom.wait</code>.
  */
 public class LockMessageParentWonMessageProcessor implements Processor {
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final String CONNECTION_LOCK_WAIT_STOPWATCH = "parentLock.connection.wait";
+    private static final String ATOM_LOCK_WAIT_STOPWATCH = "parentLock.atom.wait";
     @Autowired
     ConnectionRepository connectionRepository;
     @Autowired
@@ -88,7 +94,9 @@ public class LockMessageParentWonMessageProcessor implements Processor {
                 logger.debug("Locking connection {} for message {} {}",
                                 new Object[] { conURI.get(), message.getMessageURI(),
                                                 direction });
+                Split split = SimonManager.getStopwatch(CONNECTION_LOCK_WAIT_STOPWATCH).start();
                 Optional<Connection> con = connectionRepository.findOneByConnectionURIForUpdate(conURI.get());
+                split.stop();
                 if (con.isPresent()) {
                     entityManager.refresh(con.get());
                     logger.debug("Locked connection {} for message {} {}",
@@ -111,7 +119,9 @@ public class LockMessageParentWonMessageProcessor implements Processor {
         // no connection found to lock or wanting to lock the atom too
         Optional<URI> atomURI = messageService.getAtomOfMessage(message, direction);
         if (atomURI.isPresent()) {
+            Split split = SimonManager.getStopwatch(ATOM_LOCK_WAIT_STOPWATCH).start();
             Optional<Atom> atom = atomRepository.findOneByAtomURIForUpdate(atomURI.get());
+            split.stop();
             if (atom.isPresent()) {
                 entityManager.refresh(atom.get());
                 logger.debug("Locked atom {} for message {} {}",
@@ -0,0 +1,77 @@
+package won.node.camel.processor.general;
+
+import java.lang.invoke.MethodHandles;
+import java.net.URI;
+import java.util.Optional;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Expression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import won.node.camel.service.WonCamelHelper;
+import won.protocol.message.WonMessage;
+import won.protocol.message.WonMessageDirection;
+import won.protocol.message.WonMessageType;
+import won.protocol.message.WonMessageUtils;
+
+/**
+ * Computes the key used for distributing a message over the processing lanes
+ * of the node, without looking into the database. Messages that concern a
+ * connection are keyed by the pair of local and remote socket (which identifies
+ * the connection), all other messages by their local atom. Messages with the
+ * same key are processed one after the other, so they do not contend for the
+ * lock on their parent in the database.
+ * <p>
+ * If no key can be determined, <code>null</code> is returned.
+ */
+public class MessageParentPartitionKey implements Expression {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private final WonMessageDirection direction;
+
+    /**
+     * @param direction the direction of the messages to compute keys for (the
+     * direction header is not necessarily set yet when the key is computed)
+     */
+    public MessageParentPartitionKey(WonMessageDirection direction) {
+        this.direction = direction;
+    }
+
+    @Override
+    public <T> T evaluate(Exchange exchange, Class<T> type) {
+        WonMessage message = WonCamelHelper.getMessageRequired(exchange);
+        try {
+            return type.cast(computeKey(message));
+        } catch (Exception e) {
+            logger.debug("could not compute partition key for message {}, using default lane",
+                            message.getMessageURI(), e);
+            return null;
+        }
+    }
+
+    private String computeKey(WonMessage message) {
+        WonMessageType messageType = message.getMessageTypeRequired();
+        if (messageType.isResponseMessage()) {
+            messageType = message.getRespondingToMessageTypeRequired();
+        }
+        if (messageType.isConnectionSpecificMessage()) {
+            URI ourSocket;
+            URI theirSocket;
+            if (messageType.isSocketHintMessage()) {
+                ourSocket = message.getRecipientSocketURI();
+                theirSocket = message.getHintTargetSocketURI();
+            } else if (direction.isFromExternal()) {
+                ourSocket = message.getRecipientSocketURI();
+                theirSocket = message.getSenderSocketURI();
+            } else {
+                ourSocket = message.getSenderSocketURI();
+                theirSocket = message.getRecipientSocketURI();
+            }
+            if (ourSocket != null && theirSocket != null) {
+                return ourSocket + " " + theirSocket;
+            }
+        }
+        Optional<URI> atomURI = WonMessageUtils.getParentAtomUri(message, direction);
+        return atomURI.map(URI::toString).orElse(null);
+    }
+}
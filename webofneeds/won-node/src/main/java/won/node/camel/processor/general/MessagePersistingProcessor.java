@@ -22,6 +22,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import won.node.camel.service.WonCamelHelper;
 import won.node.service.persistence.MessageService;
 import won.protocol.message.WonMessage;
+import won.protocol.model.MessageContainer;
 
 /**
  * Persists the message and if present, also the response.
@@ -38,6 +39,9 @@ public class MessagePersistingProcessor implements Processor {
         if (logger.isDebugEnabled()) {
             logger.debug("storing message {}", message.toStringForDebug(false));
         }
-        messageService.saveMessage(message, parentURI);
+        MessageContainer container = messageService.saveMessage(message, parentURI);
+        // remember the container so storing the response does not have to look it up
+        // again
+        WonCamelHelper.putMessageContainer(exchange, container);
     }
 }
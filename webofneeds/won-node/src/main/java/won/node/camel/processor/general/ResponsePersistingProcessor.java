@@ -38,6 +38,7 @@ public class ResponsePersistingProcessor implements Processor {
         if (logger.isDebugEnabled()) {
             logger.debug("storing response message {}", message.toStringForDebug(false));
         }
-        messageService.saveMessage(message, parentURI);
+        messageService.saveMessage(message, parentURI,
+                        WonCamelHelper.getMessageContainer(exchange).orElse(null));
     }
 }
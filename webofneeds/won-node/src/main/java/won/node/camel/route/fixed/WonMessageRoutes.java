@@ -22,8 +22,11 @@ import org.slf4j.LoggerFactory;
 
 import won.node.camel.predicate.IsReactionAllowedPredicate;
 import won.node.camel.predicate.ShouldCallSocketImplForMessagePredicate;
+import won.node.camel.processor.general.MessageParentPartitionKey;
 import won.protocol.message.WonMessage;
+import won.protocol.message.WonMessageDirection;
 import won.protocol.message.WonMessageType;
+import won.protocol.message.processor.camel.PartitionedLaneDispatcher;
 import won.protocol.message.processor.camel.WonCamelConstants;
 import won.protocol.util.RdfUtils;
 import won.protocol.vocabulary.WONMSG;
@@ -33,10 +36,14 @@ import won.protocol.vocabulary.WONMSG;
  */
 public class WonMessageRoutes extends RouteBuilder {
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final String MSG_FROM_OWNER_LANES_BEAN = "msgFromOwnerLanes";
+    private static final String MSG_FROM_EXTERNAL_LANES_BEAN = "msgFromExternalLanes";
 
     @Override
     public void configure() throws Exception {
         ExecutorService executorSvc = Executors.newCachedThreadPool();
+        PartitionedLaneDispatcher fromOwnerLanes = lookupLanes(MSG_FROM_OWNER_LANES_BEAN);
+        PartitionedLaneDispatcher fromExternalLanes = lookupLanes(MSG_FROM_EXTERNAL_LANES_BEAN);
         from("direct:onExceptionFailResponder")
                         .routeId("direct:onExceptionFailResponder")
                         .onException(Exception.class)
@@ -79,10 +86,27 @@ public class WonMessageRoutes extends RouteBuilder {
          */
         from("seda:msgFromOwner?concurrentConsumers=10")
                         .routeId("seda:msgFromOwner")
-                        .to("direct:msgFromOwner_process")
-                        .to("direct:msgFromOwner_react")
-                        .to("direct:msgFromOwner_forwardToNode")
-                        .to("direct:msgFromOwner_respondToOwner");
+                        .onException(Exception.class)
+                        /**/.handled(true)
+                        // the message did not get into its lane
+                        /**/.process(fromOwnerLanes.dispatchFailedProcessor())
+                        /**/.to("direct:onExceptionFailResponder")
+                        .end()
+                        .to("bean:wonMessageIntoCamelProcessor")
+                        .process(fromOwnerLanes.dispatchingProcessor(
+                                        new MessageParentPartitionKey(WonMessageDirection.FROM_OWNER)))
+                        .recipientList(header(WonCamelConstants.LANE_ENDPOINT_HEADER));
+        // messages with the same parent are processed in the same lane, one after the
+        // other
+        for (int lane = 0; lane < fromOwnerLanes.getLaneCount(); lane++) {
+            from(fromOwnerLanes.getLaneEndpointUri(lane))
+                            .routeId("seda:msgFromOwner-lane" + lane)
+                            .process(fromOwnerLanes.laneEntryProcessor())
+                            .to("direct:msgFromOwner_process")
+                            .to("direct:msgFromOwner_react")
+                            .to("direct:msgFromOwner_forwardToNode")
+                            .to("direct:msgFromOwner_respondToOwner");
+        }
         from("direct:msgFromOwner_process")
                         .routeId("direct:msgFromOwner_process")
                         .onException(Exception.class)
@@ -182,11 +206,28 @@ public class WonMessageRoutes extends RouteBuilder {
          */
         from("seda:msgFromExternal?concurrentConsumers=10")
                         .routeId("seda:msgFromExternal")
-                        .to("direct:msgFromExternal_process")
-                        .to("direct:msgFromExternal_react")
-                        .to("direct:msgFromExternal_respondToNode")
-                        .to("direct:msgFromExternal_forwardToOwner")
-                        .end();
+                        .onException(Exception.class)
+                        /**/.handled(true)
+                        // the message did not get into its lane
+                        /**/.process(fromExternalLanes.dispatchFailedProcessor())
+                        /**/.to("direct:onExceptionFailResponder")
+                        .end()
+                        .to("bean:wonMessageIntoCamelProcessor")
+                        .process(fromExternalLanes.dispatchingProcessor(
+                                        new MessageParentPartitionKey(WonMessageDirection.FROM_EXTERNAL)))
+                        .recipientList(header(WonCamelConstants.LANE_ENDPOINT_HEADER));
+        // messages with the same parent are processed in the same lane, one after the
+        // other
+        for (int lane = 0; lane < fromExternalLanes.getLaneCount(); lane++) {
+            from(fromExternalLanes.getLaneEndpointUri(lane))
+                            .routeId("seda:msgFromExternal-lane" + lane)
+                            .process(fromExternalLanes.laneEntryProcessor())
+                            .to("direct:msgFromExternal_process")
+                            .to("direct:msgFromExternal_react")
+                            .to("direct:msgFromExternal_respondToNode")
+                            .to("direct:msgFromExternal_forwardToOwner")
+                            .end();
+        }
         from("direct:msgFromExternal_process")
                         .routeId("direct:msgFromExternal_process")
                         .onException(Exception.class)
@@ -249,18 +290,34 @@ public class WonMessageRoutes extends RouteBuilder {
                         /**/.endChoice() // choice
                         .end(); // choice
         /**
-         * Matcher protocol, incoming
+         * Matcher protocol, incoming. The matcher may send a batch of hints in one
+         * message, which is split up into one exchange per hint. The checks are done
+         * per hint, as they concern the URI, content and parent of each hint; hints
+         * are not signed, so there is no signature to verify for the whole batch.
          */
         from("activemq:queue:" + FROM_MATCHER_QUEUENAME + "?concurrentConsumers=5")
                         .onException(Exception.class) // we swallow exceptions caused by incoming hints
                         /**/.log(LoggingLevel.WARN,
-                                        simple("failure during direct:onExceptionFailResponder, ignoring. "
+                                        simple("failure during activemq:queue:" + FROM_MATCHER_QUEUENAME
+                                                        + ", ignoring. "
                                                         + "Exception message: ${exception.message}, "
                                                         + "Stacktrace: ${exception.stacktrace}").getText())
                         /**/.handled(true)
                         .end()
-                        .transacted("PROPAGATION_REQUIRES_NEW")
                         .routeId("activemq:queue:" + FROM_MATCHER_QUEUENAME)
+                        .split(method("hintMessageSplitter", "split"))
+                        /**/.to("direct:hintMessage")
+                        .end();
+        from("direct:hintMessage")
+                        .onException(Exception.class) // we swallow exceptions caused by incoming hints
+                        /**/.log(LoggingLevel.WARN,
+                                        simple("failure during direct:hintMessage, ignoring. "
+                                                        + "Exception message: ${exception.message}, "
+                                                        + "Stacktrace: ${exception.stacktrace}").getText())
+                        /**/.handled(true)
+                        .end()
+                        .transacted("PROPAGATION_REQUIRES_NEW")
+                        .routeId("direct:hintMessage")
                         .to("bean:wonMessageIntoCamelProcessor")
                         .setHeader(WonCamelConstants.DIRECTION_HEADER,
                                         constant(URI.create(WONMSG.FromExternalString)))
@@ -322,6 +379,15 @@ public class WonMessageRoutes extends RouteBuilder {
                         .to("activemq:topic:" + TO_MATCHER_TOPIC);
     }
 
+    private PartitionedLaneDispatcher lookupLanes(String beanName) {
+        PartitionedLaneDispatcher lanes = getContext().getRegistry().lookupByNameAndType(beanName,
+                        PartitionedLaneDispatcher.class);
+        if (lanes == null) {
+            throw new IllegalStateException("no bean '" + beanName + "' found, cannot configure message routes");
+        }
+        return lanes;
+    }
+
     private class URIConstant implements Expression {
         private URI uri;
 
@@ -14,6 +14,7 @@ import won.protocol.message.WonMessageEncoder;
 import won.protocol.message.WonMessageType;
 import won.protocol.message.processor.camel.WonCamelConstants;
 import won.protocol.model.Connection;
+import won.protocol.model.MessageContainer;
 import won.protocol.util.RdfUtils;
 
 public class WonCamelHelper {
@@ -239,6 +240,19 @@ public class WonCamelHelper {
         exchange.getIn().removeHeader(WonCamelConstants.PARENT_URI_HEADER);
     }
 
+    //// message container
+    public static void putMessageContainer(Exchange exchange, MessageContainer container) {
+        Objects.requireNonNull(container);
+        Objects.requireNonNull(exchange);
+        exchange.getIn().setHeader(WonCamelConstants.MESSAGE_CONTAINER_HEADER, container);
+    }
+
+    public static Optional<MessageContainer> getMessageContainer(Exchange exchange) {
+        Objects.requireNonNull(exchange);
+        return Optional.ofNullable(
+                        (MessageContainer) exchange.getIn().getHeader(WonCamelConstants.MESSAGE_CONTAINER_HEADER));
+    }
+
     //// owner app id
     public static Optional<String> getOwnerApplicationId(Exchange exchange) {
         Objects.requireNonNull(exchange);
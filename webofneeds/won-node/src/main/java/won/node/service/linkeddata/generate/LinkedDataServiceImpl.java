@@ -674,10 +674,16 @@ public class LinkedDataServiceImpl implements LinkedDataService, InitializingBea
     public AtomInformationService.PagedResource<Dataset, URI> listConnectionEventURIs(final URI connectionUri,
                     final int pageNum, Integer preferedSize, WonMessageType msgType, boolean deep)
                     throws NoSuchConnectionException {
+        String containerUri = this.uriService.createEventsURIForConnection(connectionUri).toString();
+        if (!deep) {
+            // only the URIs are needed, don't load the messages
+            Slice<URI> slice = atomInformationService.listConnectionEventURIs(connectionUri, pageNum,
+                            preferedSize, msgType);
+            return eventURIsToContainerPage(containerUri, slice);
+        }
         Slice<MessageEvent> slice = atomInformationService.listConnectionEvents(connectionUri, pageNum,
                         preferedSize, msgType);
-        return eventsToContainerPage(this.uriService.createEventsURIForConnection(connectionUri).toString(), slice,
-                        deep);
+        return eventsToContainerPage(containerUri, slice, deep);
     }
 
     @Override
@@ -685,10 +691,16 @@ public class LinkedDataServiceImpl implements LinkedDataService, InitializingBea
     public AtomInformationService.PagedResource<Dataset, URI> listConnectionEventURIsAfter(final URI connectionUri,
                     final URI msgURI, Integer preferedSize, WonMessageType msgType, boolean deep)
                     throws NoSuchConnectionException {
+        String containerUri = this.uriService.createEventsURIForConnection(connectionUri).toString();
+        if (!deep) {
+            // only the URIs are needed, don't load the messages
+            Slice<URI> slice = atomInformationService.listConnectionEventURIsAfter(connectionUri, msgURI,
+                            preferedSize, msgType);
+            return eventURIsToContainerPage(containerUri, slice);
+        }
         Slice<MessageEvent> slice = atomInformationService.listConnectionEventsAfter(connectionUri, msgURI,
                         preferedSize, msgType);
-        return eventsToContainerPage(this.uriService.createEventsURIForConnection(connectionUri).toString(), slice,
-                        deep);
+        return eventsToContainerPage(containerUri, slice, deep);
     }
 
     @Override
@@ -696,10 +708,16 @@ public class LinkedDataServiceImpl implements LinkedDataService, InitializingBea
     public AtomInformationService.PagedResource<Dataset, URI> listConnectionEventURIsBefore(final URI connectionUri,
                     final URI msgURI, Integer preferedSize, WonMessageType msgType, boolean deep)
                     throws NoSuchConnectionException {
+        String containerUri = this.uriService.createEventsURIForConnection(connectionUri).toString();
+        if (!deep) {
+            // only the URIs are needed, don't load the messages
+            Slice<URI> slice = atomInformationService.listConnectionEventURIsBefore(connectionUri, msgURI,
+                            preferedSize, msgType);
+            return eventURIsToContainerPage(containerUri, slice);
+        }
         Slice<MessageEvent> slice = atomInformationService.listConnectionEventsBefore(connectionUri, msgURI,
                         preferedSize, msgType);
-        return eventsToContainerPage(this.uriService.createEventsURIForConnection(connectionUri).toString(), slice,
-                        deep);
+        return eventsToContainerPage(containerUri, slice, deep);
     }
 
     @Override
@@ -865,34 +883,46 @@ public class LinkedDataServiceImpl implements LinkedDataService, InitializingBea
      */
     private AtomInformationService.PagedResource<Dataset, URI> eventsToContainerPage(String containerUri,
                     Slice<MessageEvent> slice, boolean deep) {
-        List<MessageEvent> events = slice.getContent();
+        List<URI> messageURIs = new ArrayList<>(slice.getNumberOfElements());
+        DatasetHolderAggregator aggregator = new DatasetHolderAggregator();
+        for (MessageEvent event : slice.getContent()) {
+            messageURIs.add(event.getMessageURI());
+            if (deep) {
+                aggregator.appendDataset(event.getDatasetHolder());
+            }
+        }
+        return toContainerPage(containerUri, messageURIs, slice.getSort(), aggregator.aggregate());
+    }
+
+    private AtomInformationService.PagedResource<Dataset, URI> eventURIsToContainerPage(String containerUri,
+                    Slice<URI> slice) {
+        return toContainerPage(containerUri, slice.getContent(), slice.getSort(), DatasetFactory.createGeneral());
+    }
+
+    private AtomInformationService.PagedResource<Dataset, URI> toContainerPage(String containerUri,
+                    List<URI> messageURIs, Sort sort, Dataset dataset) {
         URI resumeBefore = null;
         URI resumeAfter = null;
-        if (slice.getSort() != null && !events.isEmpty()) {
-            Iterator<Sort.Order> sortOrders = slice.getSort().iterator();
+        if (sort != null && !messageURIs.isEmpty()) {
+            Iterator<Sort.Order> sortOrders = sort.iterator();
             if (sortOrders.hasNext()) {
                 Sort.Order sortOrder = sortOrders.next();
                 if (sortOrder.getDirection() == Sort.Direction.ASC) {
-                    resumeBefore = events.get(0).getMessageURI();
-                    resumeAfter = events.get(events.size() - 1).getMessageURI();
+                    resumeBefore = messageURIs.get(0);
+                    resumeAfter = messageURIs.get(messageURIs.size() - 1);
                 } else {
-                    resumeBefore = events.get(events.size() - 1).getMessageURI();
-                    resumeAfter = events.get(0).getMessageURI();
+                    resumeBefore = messageURIs.get(messageURIs.size() - 1);
+                    resumeAfter = messageURIs.get(0);
                 }
             }
         }
         Model model = ModelFactory.createDefaultModel();
         setNsPrefixes(model);
         Resource atomListPageResource = model.createResource(containerUri);
-        DatasetHolderAggregator aggregator = new DatasetHolderAggregator();
-        for (MessageEvent event : events) {
+        for (URI messageURI : messageURIs) {
             model.add(model.createStatement(atomListPageResource, RDFS.member,
-                            model.createResource(event.getMessageURI().toString())));
-            if (deep) {
-                aggregator.appendDataset(event.getDatasetHolder());
-            }
+                            model.createResource(messageURI.toString())));
         }
-        Dataset dataset = aggregator.aggregate();
         dataset.addNamedModel(createDataGraphUriFromResource(atomListPageResource), model);
         addBaseUriAndDefaultPrefixes(dataset);
         return new AtomInformationService.PagedResource(dataset, resumeBefore, resumeAfter);
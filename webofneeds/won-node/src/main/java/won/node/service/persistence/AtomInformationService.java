@@ -26,6 +26,7 @@ import won.protocol.model.AtomState;
 import won.protocol.model.Connection;
 import won.protocol.model.DataWithEtag;
 import won.protocol.model.MessageEvent;
+import won.protocol.model.MessageEventCursor;
 
 /**
  * Service for obtaining information about atoms and connections in the system
@@ -338,12 +339,48 @@ public interface AtomInformationService {
     Slice<MessageEvent> listConnectionEvents(URI connectionUri, int page, Integer preferredPageSize,
                     WonMessageType messageType);
 
+    /**
+     * Like {@link #listConnectionEvents(URI, int, Integer, WonMessageType)}, but
+     * only loads the message URIs.
+     */
+    Slice<URI> listConnectionEventURIs(URI connectionUri, int page, Integer preferredPageSize,
+                    WonMessageType messageType);
+
+    /**
+     * Returns the position of the message in the connection's messages, for keyset
+     * paging.
+     *
+     * @throws won.protocol.exception.NoSuchMessageException if the message is not
+     * in the connection
+     */
+    MessageEventCursor getConnectionEventCursor(URI connectionUri, URI msgURI);
+
     Slice<MessageEvent> listConnectionEventsBefore(URI connectionUri, URI msgURI,
                     Integer preferredPageSize, WonMessageType msgType);
 
+    Slice<MessageEvent> listConnectionEventsBefore(URI connectionUri, MessageEventCursor cursor,
+                    Integer preferredPageSize, WonMessageType msgType);
+
+    /**
+     * Like {@link #listConnectionEventsBefore(URI, URI, Integer, WonMessageType)},
+     * but only loads the message URIs.
+     */
+    Slice<URI> listConnectionEventURIsBefore(URI connectionUri, URI msgURI,
+                    Integer preferredPageSize, WonMessageType msgType);
+
     Slice<MessageEvent> listConnectionEventsAfter(URI connectionUri, URI msgURI,
                     Integer preferredPageSize, WonMessageType msgType);
 
+    Slice<MessageEvent> listConnectionEventsAfter(URI connectionUri, MessageEventCursor cursor,
+                    Integer preferredPageSize, WonMessageType msgType);
+
+    /**
+     * Like {@link #listConnectionEventsAfter(URI, URI, Integer, WonMessageType)},
+     * but only loads the message URIs.
+     */
+    Slice<URI> listConnectionEventURIsAfter(URI connectionUri, URI msgURI,
+                    Integer preferredPageSize, WonMessageType msgType);
+
     class PagedResource<T, E> {
         private T content;
         private E resumeBefore = null;
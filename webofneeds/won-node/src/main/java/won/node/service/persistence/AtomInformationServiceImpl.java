@@ -19,6 +19,7 @@ import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
@@ -33,6 +34,7 @@ import won.protocol.model.AtomState;
 import won.protocol.model.Connection;
 import won.protocol.model.DataWithEtag;
 import won.protocol.model.MessageEvent;
+import won.protocol.model.MessageEventCursor;
 import won.protocol.repository.AtomRepository;
 import won.protocol.repository.ConnectionRepository;
 import won.protocol.repository.MessageEventRepository;
@@ -377,45 +379,103 @@ public class AtomInformationServiceImpl implements AtomInformationService {
         Slice<MessageEvent> slice = null;
         if (messageType == null) {
             slice = messageEventRepository.findByParentURI(connectionUri,
-                            new PageRequest(pageNum, pageSize, Sort.Direction.DESC, "creationDate"));
+                            new PageRequest(pageNum, pageSize, Sort.Direction.DESC, "creationDate", "id"));
         } else {
             slice = messageEventRepository.findByParentURIAndType(connectionUri, messageType,
-                            new PageRequest(pageNum, pageSize, Sort.Direction.DESC, "creationDate"));
+                            new PageRequest(pageNum, pageSize, Sort.Direction.DESC, "creationDate", "id"));
         }
         return slice;
     }
 
+    @Override
+    public Slice<URI> listConnectionEventURIs(URI connectionUri, int page, Integer preferedPageSize,
+                    WonMessageType messageType) {
+        int pageSize = getPageSize(preferedPageSize);
+        int pageNum = page - 1;
+        if (messageType == null) {
+            return messageEventRepository.getMessageURIsByParentURI(connectionUri,
+                            new PageRequest(pageNum, pageSize, Sort.Direction.DESC, "creationDate", "id"));
+        }
+        return messageEventRepository.getMessageURIsByParentURI(connectionUri, messageType,
+                        new PageRequest(pageNum, pageSize, Sort.Direction.DESC, "creationDate", "id"));
+    }
+
+    @Override
+    public MessageEventCursor getConnectionEventCursor(URI connectionUri, URI msgURI) {
+        return messageEventRepository.findCursorByMessageURIAndParentURI(msgURI, connectionUri)
+                        .orElseThrow(() -> new NoSuchMessageException(msgURI));
+    }
+
     @Override
     public Slice<MessageEvent> listConnectionEventsAfter(URI connectionUri, URI msgURI,
                     Integer preferredPageSize, WonMessageType msgType) {
-        MessageEvent referenceMsg = messageEventRepository.findFirstByMessageURIAndParentURI(msgURI, connectionUri)
-                        .orElseThrow(() -> new NoSuchMessageException(msgURI));
-        Date referenceDate = referenceMsg.getCreationDate();
-        int pageSize = getPageSize(preferredPageSize);
-        Slice<MessageEvent> slice = null;
+        return listConnectionEventsAfter(connectionUri, getConnectionEventCursor(connectionUri, msgURI),
+                        preferredPageSize, msgType);
+    }
+
+    @Override
+    public Slice<MessageEvent> listConnectionEventsAfter(URI connectionUri, MessageEventCursor cursor,
+                    Integer preferredPageSize, WonMessageType msgType) {
+        Pageable pageable = firstKeysetPage(preferredPageSize, Sort.Direction.ASC);
         if (msgType == null) {
-            slice = messageEventRepository.findByParentURIAfter(connectionUri, referenceDate,
-                            new PageRequest(0, pageSize, Sort.Direction.ASC, "creationDate"));
-        } else {
-            slice = messageEventRepository.findByParentURIAndTypeAfter(connectionUri, referenceDate, msgType,
-                            new PageRequest(0, pageSize, Sort.Direction.ASC, "creationDate"));
+            return messageEventRepository.findByParentURIAfterCursor(connectionUri, cursor.getCreationDate(),
+                            cursor.getId(), pageable);
         }
-        return slice;
+        return messageEventRepository.findByParentURIAndTypeAfterCursor(connectionUri, cursor.getCreationDate(),
+                        cursor.getId(), msgType, pageable);
+    }
+
+    @Override
+    public Slice<URI> listConnectionEventURIsAfter(URI connectionUri, URI msgURI, Integer preferredPageSize,
+                    WonMessageType msgType) {
+        MessageEventCursor cursor = getConnectionEventCursor(connectionUri, msgURI);
+        Pageable pageable = firstKeysetPage(preferredPageSize, Sort.Direction.ASC);
+        if (msgType == null) {
+            return messageEventRepository.getMessageURIsByParentURIAfterCursor(connectionUri,
+                            cursor.getCreationDate(), cursor.getId(), pageable);
+        }
+        return messageEventRepository.getMessageURIsByParentURIAndTypeAfterCursor(connectionUri,
+                        cursor.getCreationDate(), cursor.getId(), msgType, pageable);
     }
 
     @Override
     public Slice<MessageEvent> listConnectionEventsBefore(final URI connectionUri, final URI msgURI,
                     final Integer preferredPageSize, final WonMessageType msgType) {
-        int pageSize = getPageSize(preferredPageSize);
-        Slice<MessageEvent> slice = null;
+        return listConnectionEventsBefore(connectionUri, getConnectionEventCursor(connectionUri, msgURI),
+                        preferredPageSize, msgType);
+    }
+
+    @Override
+    public Slice<MessageEvent> listConnectionEventsBefore(final URI connectionUri, final MessageEventCursor cursor,
+                    final Integer preferredPageSize, final WonMessageType msgType) {
+        Pageable pageable = firstKeysetPage(preferredPageSize, Sort.Direction.DESC);
         if (msgType == null) {
-            slice = messageEventRepository.findByParentURIBeforeFetchDatasetEagerly(connectionUri, msgURI,
-                            new PageRequest(0, pageSize, Sort.Direction.DESC, "creationDate"));
-        } else {
-            slice = messageEventRepository.findByParentURIAndTypeBeforeFetchDatasetEagerly(connectionUri, msgURI,
-                            msgType, new PageRequest(0, pageSize, Sort.Direction.DESC, "creationDate"));
+            return messageEventRepository.findByParentURIBeforeCursorFetchDatasetEagerly(connectionUri,
+                            cursor.getCreationDate(), cursor.getId(), pageable);
         }
-        return slice;
+        return messageEventRepository.findByParentURIAndTypeBeforeCursorFetchDatasetEagerly(connectionUri,
+                        cursor.getCreationDate(), cursor.getId(), msgType, pageable);
+    }
+
+    @Override
+    public Slice<URI> listConnectionEventURIsBefore(URI connectionUri, URI msgURI, Integer preferredPageSize,
+                    WonMessageType msgType) {
+        MessageEventCursor cursor = getConnectionEventCursor(connectionUri, msgURI);
+        Pageable pageable = firstKeysetPage(preferredPageSize, Sort.Direction.DESC);
+        if (msgType == null) {
+            return messageEventRepository.getMessageURIsByParentURIBeforeCursor(connectionUri,
+                            cursor.getCreationDate(), cursor.getId(), pageable);
+        }
+        return messageEventRepository.getMessageURIsByParentURIAndTypeBeforeCursor(connectionUri,
+                        cursor.getCreationDate(), cursor.getId(), msgType, pageable);
+    }
+
+    /**
+     * Keyset queries always fetch the first page of the messages before/after the
+     * cursor, ordered by (creationDate, id).
+     */
+    private Pageable firstKeysetPage(Integer preferredPageSize, Sort.Direction direction) {
+        return new PageRequest(0, getPageSize(preferredPageSize), direction, "creationDate", "id");
     }
 
     private int getPageSize(final Integer preferredPageSize) {
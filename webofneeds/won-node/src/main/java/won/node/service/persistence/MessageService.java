@@ -3,6 +3,8 @@ package won.node.service.persistence;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -200,39 +202,48 @@ public class MessageService {
         }
     }
 
-    public void saveMessage(final WonMessage messageOrDeliveryChain, URI parent) {
+    public MessageContainer saveMessage(final WonMessage messageOrDeliveryChain, URI parent) {
+        return saveMessage(messageOrDeliveryChain, parent, null);
+    }
+
+    /**
+     * Stores all messages of the delivery chain under the specified parent. The
+     * message container and the existing datasets of the whole chain are resolved
+     * with one query each, all rows are inserted together and the persistence
+     * context is flushed once, so the inserts can be batched.
+     * 
+     * @param messageOrDeliveryChain
+     * @param parent
+     * @param knownContainer the parent's message container if it has already been
+     * loaded in the current transaction (e.g. when storing the response to a
+     * message that was just stored), or <code>null</code>
+     * @return the message container of the parent
+     */
+    public MessageContainer saveMessage(final WonMessage messageOrDeliveryChain, URI parent,
+                    MessageContainer knownContainer) {
         StopWatch sw = new StopWatch();
-        for (WonMessage wonMessage : messageOrDeliveryChain.getAllMessages()) {
+        Set<WonMessage> messages = messageOrDeliveryChain.getAllMessages();
+        sw.start("get message container");
+        MessageContainer container = knownContainer;
+        if (container == null || !Objects.equals(parent, container.getParentUri())
+                        || !entityManager.contains(container)) {
+            container = loadOrCreateMessageContainer(parent, getContainerMessageType(messages));
+        }
+        sw.stop();
+        sw.start("check for duplicate responses");
+        checkForDuplicateResponses(messages, parent);
+        sw.stop();
+        sw.start("get event dataset ids (if any)");
+        Map<URI, Long> datasetHolderIds = findDatasetHolderIds(messages);
+        sw.stop();
+        List<MessageEvent> events = new ArrayList<>(messages.size());
+        for (WonMessage wonMessage : messages) {
             logger.debug("STORING {} message {} under parent {}", new Object[] { wonMessage.getMessageType(),
                             wonMessage.getMessageURI(), parent });
-            sw.start("get message container");
-            MessageContainer container = loadOrCreateMessageContainer(parent, wonMessage.getMessageType());
-            sw.stop();
             // unconfirmed list:
             // - add any success response message from partner in a connection
             // - add any of our system responses messages if we 're in an atom's message
             // container.
-            if (wonMessage.getMessageTypeRequired().isSuccessResponse()) {
-                sw.start("check for duplicate response");
-                // make sure it's not a duplicate response
-                URI respondingTo = wonMessage.getRespondingToMessageURIRequired();
-                URI responseContainer = wonMessage.getAtomURI();
-                if (responseContainer == null) {
-                    responseContainer = wonMessage.getConnectionURIRequired();
-                }
-                Optional<MessageEvent> duplicate = messageEventRepository
-                                .findOneByParentURIAndRespondingToURIAndResponseContainerURI(parent, respondingTo,
-                                                responseContainer);
-                if (duplicate.isPresent()) {
-                    logger.debug("Detected duplicate response to {} from container {} in container {}: {}",
-                                    new Object[] { respondingTo, responseContainer, parent,
-                                                    wonMessage.toShortStringForDebug() });
-                    throw new DuplicateResponseException(MessageFormat.format(
-                                    "Detected duplicate response to {0} from container {1} in container {2}: {3}",
-                                    respondingTo, responseContainer, parent, wonMessage.toShortStringForDebug()));
-                }
-                sw.stop();
-            }
             if (isExternalSuccessResponseInConnection(parent, wonMessage)) {
                 sw.start("process external response in connection");
                 if (logger.isDebugEnabled()) {
@@ -278,26 +289,114 @@ public class MessageService {
             MessageEvent event = new MessageEvent(parent, wonMessage, container);
             // a message can be in multiple containers (=parents), such messages share a
             // datasetholder
-            sw.stop();
-            sw.start("get event dataset id (if any)");
-            Optional<Long> datasetHolderId = datasetHolderRepository.findIdByUri(wonMessage.getMessageURIRequired());
-            sw.stop();
-            sw.start("Add dataset to message");
-            if (datasetHolderId.isPresent()) {
-                DatasetHolder datasetHolder = entityManager.getReference(DatasetHolder.class, datasetHolderId.get());
+            Long datasetHolderId = datasetHolderIds.get(wonMessage.getMessageURIRequired());
+            if (datasetHolderId != null) {
+                DatasetHolder datasetHolder = entityManager.getReference(DatasetHolder.class, datasetHolderId);
                 event.setDatasetHolder(datasetHolder);
             } else {
                 event.setDatasetHolder(new DatasetHolder(wonMessage.getMessageURI(),
                                 WonMessageEncoder.encodeAsDataset(wonMessage)));
             }
-            sw.stop();
-            sw.start("store message");
-            event = messageEventRepository.save(event);
+            events.add(event);
             sw.stop();
         }
+        sw.start("store messages");
+        messageEventRepository.save(events);
+        entityManager.flush();
+        sw.stop();
         if (logger.isDebugEnabled()) {
             logger.debug("Timing info:\n{}", sw.prettyPrint());
         }
+        return container;
+    }
+
+    /**
+     * Determines the message type used for loading or creating the message
+     * container. If any message of the chain causes the container to be created,
+     * its type is used, so that the result does not depend on the order of the
+     * messages.
+     */
+    private WonMessageType getContainerMessageType(Set<WonMessage> messages) {
+        WonMessageType type = null;
+        for (WonMessage message : messages) {
+            WonMessageType candidate = message.getMessageTypeRequired();
+            if (WonMessageType.CREATE_ATOM.equals(candidate)) {
+                return candidate;
+            }
+            if (type == null || WonMessageType.CONNECT.equals(candidate)
+                            || WonMessageType.SOCKET_HINT_MESSAGE.equals(candidate)) {
+                type = candidate;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Makes sure that none of the success responses in the chain is a duplicate of
+     * a response already stored under the parent, using one query for the whole
+     * chain, or of another response in the chain. Responses are duplicates if they
+     * respond to the same message and come from the same container (a message and
+     * its remote response both respond to the same message, but come from
+     * different containers).
+     */
+    private void checkForDuplicateResponses(Set<WonMessage> messages, URI parent) {
+        // responding-to URI -> response container URI -> response
+        Map<URI, Map<URI, WonMessage>> responses = new HashMap<>();
+        for (WonMessage wonMessage : messages) {
+            if (wonMessage.getMessageTypeRequired().isSuccessResponse()) {
+                WonMessage other = responses
+                                .computeIfAbsent(wonMessage.getRespondingToMessageURIRequired(),
+                                                uri -> new HashMap<>())
+                                .put(getResponseContainerURI(wonMessage), wonMessage);
+                if (other != null) {
+                    throw duplicateResponse(wonMessage, parent);
+                }
+            }
+        }
+        if (responses.isEmpty()) {
+            return;
+        }
+        List<MessageEvent> candidates = messageEventRepository.findByParentURIAndRespondingToURIIn(parent,
+                        responses.keySet());
+        for (MessageEvent candidate : candidates) {
+            Map<URI, WonMessage> responsesByContainer = responses.get(candidate.getRespondingToURI());
+            WonMessage wonMessage = responsesByContainer == null ? null
+                            : responsesByContainer.get(candidate.getResponseContainerURI());
+            if (wonMessage != null) {
+                throw duplicateResponse(wonMessage, parent);
+            }
+        }
+    }
+
+    private URI getResponseContainerURI(WonMessage response) {
+        URI responseContainer = response.getAtomURI();
+        if (responseContainer == null) {
+            responseContainer = response.getConnectionURIRequired();
+        }
+        return responseContainer;
+    }
+
+    private DuplicateResponseException duplicateResponse(WonMessage response, URI parent) {
+        URI respondingTo = response.getRespondingToMessageURIRequired();
+        URI responseContainer = getResponseContainerURI(response);
+        logger.debug("Detected duplicate response to {} from container {} in container {}: {}",
+                        new Object[] { respondingTo, responseContainer, parent, response.toShortStringForDebug() });
+        return new DuplicateResponseException(MessageFormat.format(
+                        "Detected duplicate response to {0} from container {1} in container {2}: {3}",
+                        respondingTo, responseContainer, parent, response.toShortStringForDebug()));
+    }
+
+    /**
+     * Returns the ids of the dataset holders that already exist for messages of
+     * the chain (which happens if a message is stored in multiple containers).
+     */
+    private Map<URI, Long> findDatasetHolderIds(Set<WonMessage> messages) {
+        Set<URI> messageURIs = messages.stream().map(WonMessage::getMessageURIRequired).collect(Collectors.toSet());
+        Map<URI, Long> ids = new HashMap<>();
+        for (Object[] uriAndId : datasetHolderRepository.findUrisAndIdsByUriIn(messageURIs)) {
+            ids.put((URI) uriAndId[0], (Long) uriAndId[1]);
+        }
+        return ids;
     }
 
     private void addUnconfirmed(MessageContainer container, WonMessage toAdd) {
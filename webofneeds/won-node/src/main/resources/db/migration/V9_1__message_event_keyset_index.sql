@@ -0,0 +1,4 @@
+BEGIN;
+-- supports keyset paging through the messages of a container, ordered by (creationDate, id)
+CREATE INDEX IDX_ME_PARENT_URI_CREATION_DATE_ID on message_event (parenturi, creationdate, id);
+COMMIT;
@@ -12,11 +12,15 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import javax.persistence.EntityManager;
+
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.query.ReadWrite;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFFormat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -34,6 +38,7 @@ import won.node.service.nodeconfig.URIService;
 import won.node.service.persistence.AtomService;
 import won.node.service.persistence.ConnectionService;
 import won.node.service.persistence.MessageService;
+import won.protocol.exception.DuplicateResponseException;
 import won.protocol.message.WonMessage;
 import won.protocol.message.builder.WonMessageBuilder;
 import won.protocol.message.processor.impl.KeyForNewAtomAddingProcessor;
@@ -73,6 +78,8 @@ public class PersistenceTest {
     MessageService messageService;
     @Autowired
     ConnectionService connectionService;
+    @Autowired
+    EntityManager entityManager;
     @MockBean
     URIService uriService;
     @Autowired
@@ -301,6 +308,109 @@ public class PersistenceTest {
                         .map(mic -> mic.getMessageURI()).collect(Collectors.toSet());
     }
 
+    /**
+     * Compares the queries and inserts needed to store a message and its response
+     * one by one, each looking up the message container, existing datasets and
+     * duplicate responses (as before batching), and together as one delivery
+     * chain, where each lookup is done once for the chain. Either way, one row is
+     * inserted per stored entity. Exact numbers are not checked, they depend on
+     * the mappings and on how the database generates ids.
+     */
+    @Test
+    public void test_save_message_and_response_statement_count() throws Exception {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                        .getStatistics();
+        boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        try {
+            // store the messages of the first atom one by one
+            Dataset ds = createTestDataset("/won/node/test-messages/create-atom.trig");
+            WonMessage createMsg = prepareFromOwner(WonMessage.of(ds));
+            Atom atom = atomService.createAtom(createMsg);
+            WonMessage response = prepareFromSystem(WonMessageBuilder
+                            .response()
+                            .respondingToMessageFromOwner(createMsg)
+                            .success()
+                            .build());
+            entityManager.flush();
+            long entitiesBefore = countMessageEntities();
+            statistics.clear();
+            messageService.saveMessage(createMsg, atom.getAtomURI());
+            messageService.saveMessage(response, atom.getAtomURI());
+            entityManager.flush();
+            long unbatchedQueries = statistics.getQueryExecutionCount();
+            long unbatchedInserts = statistics.getEntityInsertCount();
+            long unbatchedEntities = countMessageEntities() - entitiesBefore;
+            // store the messages of the second atom as one delivery chain
+            ds = createTestDataset("/won/node/test-messages/create-atom2.trig");
+            WonMessage createMsg2 = prepareFromOwner(WonMessage.of(ds));
+            Atom atom2 = atomService.createAtom(createMsg2);
+            WonMessage response2 = prepareFromSystem(WonMessageBuilder
+                            .response()
+                            .respondingToMessageFromOwner(createMsg2)
+                            .success()
+                            .build());
+            entityManager.flush();
+            entitiesBefore = countMessageEntities();
+            statistics.clear();
+            messageService.saveMessage(WonMessage.of(createMsg2, response2), atom2.getAtomURI());
+            entityManager.flush();
+            long batchedQueries = statistics.getQueryExecutionCount();
+            long batchedInserts = statistics.getEntityInsertCount();
+            long batchedEntities = countMessageEntities() - entitiesBefore;
+            assertTrue("batched: " + batchedQueries + " queries, unbatched: " + unbatchedQueries,
+                            batchedQueries < unbatchedQueries);
+            assertEquals(unbatchedEntities, unbatchedInserts);
+            assertEquals(batchedEntities, batchedInserts);
+            assertEquals(unbatchedEntities, batchedEntities);
+            assertEquals(2, messageEventRepository.findByParentURI(atom.getAtomURI()).size());
+            assertEquals(2, messageEventRepository.findByParentURI(atom2.getAtomURI()).size());
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+
+    /**
+     * A delivery chain must not contain two responses to the same message from
+     * the same container. They are detected before anything is stored, although
+     * the database does not contain either of them yet.
+     */
+    @Test
+    public void test_duplicate_responses_in_one_delivery_chain() throws Exception {
+        Dataset ds = createTestDataset("/won/node/test-messages/create-atom.trig");
+        WonMessage createMsg = prepareFromOwner(WonMessage.of(ds));
+        Atom atom = atomService.createAtom(createMsg);
+        WonMessage response = prepareFromSystem(WonMessageBuilder
+                        .response()
+                        .respondingToMessageFromOwner(createMsg)
+                        .success()
+                        .build());
+        WonMessage duplicate = prepareFromSystem(WonMessageBuilder
+                        .response()
+                        .respondingToMessageFromOwner(createMsg)
+                        .success()
+                        .content().text("duplicate")
+                        .build());
+        assertNotEquals(response.getMessageURI(), duplicate.getMessageURI());
+        try {
+            messageService.saveMessage(WonMessage.of(createMsg, response, duplicate), atom.getAtomURI());
+            fail("expected a DuplicateResponseException");
+        } catch (DuplicateResponseException e) {
+            // expected
+        }
+        assertEquals(0, messageEventRepository.findByParentURI(atom.getAtomURI()).size());
+    }
+
+    /**
+     * Counts the stored message events and datasets, i.e. the entities created by
+     * storing messages.
+     */
+    private long countMessageEntities() {
+        return entityManager.createQuery("select count(e) from MessageEvent e", Long.class).getSingleResult()
+                        + entityManager.createQuery("select count(d) from DatasetHolder d", Long.class)
+                                        .getSingleResult();
+    }
+
     private Dataset createTestDataset(String resourceName) throws IOException {
         InputStream is = this.getClass().getResourceAsStream(resourceName);
         Dataset dataset = DatasetFactory.createGeneral();
@@ -860,6 +860,53 @@ public class WonMessageRoutesExternalInterceptedTest extends WonMessageRoutesTes
         toMatcherMockEndpoint.assertIsSatisfied();
     }
 
+    @Test
+    @Commit // @Rollback would't work as camel still commits
+    public void test_socketHint__bulk_success() throws Exception {
+        URI atomURI = newAtomURI();
+        WonMessage createAtom1Msg = prepareFromOwner(makeCreateAtomMessage(atomURI,
+                        "/won/node/WonMessageRoutesTest/data/test-atom1.ttl"));
+        // set expectations
+        toOwnerMockEndpoint.expectedMessageCount(1);
+        toOwnerMockEndpoint.expectedMessagesMatches(isMessageAndResponse(createAtom1Msg));
+        toMatcherMockEndpoint.expectedMessageCount(1);
+        // send message
+        sendFromOwner(createAtom1Msg, OWNERAPPLICATION_ID_OWNER1);
+        toOwnerMockEndpoint.assertIsSatisfied();
+        toMatcherMockEndpoint.assertIsSatisfied();
+        List<Socket> sockets = socketRepository.findByAtomURI(atomURI);
+        Assert.assertTrue("At least one socket should have been stored", sockets.size() > 0);
+        URI socketURI = sockets.get(0).getSocketURI();
+        URI targetSocketURI1 = URI.create("uri:some-other-atom#socket");
+        URI targetSocketURI2 = URI.create("uri:yet-another-atom#socket");
+        // set new expectations for hints
+        Mockito.when(socketLookup.isCompatible(any(URI.class), any(URI.class))).then(x -> true);
+        Mockito.when(socketLookup.isCompatibleSocketTypes(any(URI.class), any(URI.class))).then(x -> true);
+        Mockito.when(socketLookup.getSocketType(any(URI.class)))
+                        .thenReturn(Optional.of(URI.create("just:some-uri")));
+        toOwnerMockEndpoint.reset();
+        toMatcherMockEndpoint.reset();
+        toMatcherMockEndpoint.expectedMessageCount(0);
+        toOwnerMockEndpoint.expectedMessageCount(2);
+        toOwnerMockEndpoint.expectedMessagesMatches(isSocketHintFor(socketURI), isSocketHintFor(socketURI));
+        WonMessage socketHintMessage1 = prepareFromMatcher(WonMessageBuilder
+                        .socketHint()
+                        .recipientSocket(socketURI)
+                        .hintTargetSocket(targetSocketURI1)
+                        .hintScore(0.5)
+                        .build());
+        WonMessage socketHintMessage2 = prepareFromMatcher(WonMessageBuilder
+                        .socketHint()
+                        .recipientSocket(socketURI)
+                        .hintTargetSocket(targetSocketURI2)
+                        .hintScore(0.7)
+                        .build());
+        // both hints travel in one message
+        sendBulkFromMatcher(socketHintMessage1, socketHintMessage2);
+        toOwnerMockEndpoint.assertIsSatisfied();
+        toMatcherMockEndpoint.assertIsSatisfied();
+    }
+
     /*******************************************
      * Deactivate tests
      *******************************************/
@@ -9,6 +9,7 @@ import java.io.InputStream;
 import java.io.StringWriter;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -872,6 +873,20 @@ public abstract class WonMessageRoutesTest {
                         WonCamelConstants.RDF_LANGUAGE_FOR_MESSAGE), "direct:fromMatcherMock");
     }
 
+    protected void sendBulkFromMatcher(WonMessage... msgs) {
+        for (WonMessage msg : msgs) {
+            if (Objects.equals(WonMessageUriHelper.getSelfUri(), msg.getMessageURIRequired())) {
+                throw new IllegalArgumentException(
+                                "message is not prepared, cannot send : " + msg.toShortStringForDebug());
+            }
+            logMessageRdf(makeMessageBox("message MATCHER => NODE (bulk)"), msg);
+        }
+        Map<String, String> headers = new HashMap<>();
+        headers.put("methodName", "hints");
+        send(null, headers, WonMessageEncoder.encodeEach(Arrays.asList(msgs),
+                        WonCamelConstants.RDF_LANGUAGE_FOR_MESSAGE), "direct:fromMatcherMock");
+    }
+
     protected void sendFromExternalOwner(WonMessage msg) {
         if (Objects.equals(WonMessageUriHelper.getSelfUri(), msg.getMessageURIRequired())) {
             throw new IllegalArgumentException("message is not prepared, cannot send : " + msg.toShortStringForDebug());
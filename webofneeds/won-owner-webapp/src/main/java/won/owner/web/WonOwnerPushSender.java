@@ -5,10 +5,12 @@ import nl.martijndwars.webpush.PushService;
 import org.bouncycastle.jce.ECNamedCurveTable;
 import org.bouncycastle.jce.spec.ECNamedCurveParameterSpec;
 import org.jose4j.lang.JoseException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Component;
 import won.owner.model.User;
+import won.owner.service.impl.UserService;
 
 import javax.annotation.PostConstruct;
 import java.io.*;
@@ -27,6 +29,8 @@ public class WonOwnerPushSender {
     @Value("${vapid.publicKeyLocation}")
     private String publicKeyLocation;
     private PushService pushService;
+    @Autowired
+    private UserService userService;
 
     @PostConstruct
     public void init() {
@@ -48,7 +52,8 @@ public class WonOwnerPushSender {
     }
 
     public void sendNotification(User user, String payload) {
-        user.getPushSubscriptions().forEach(subscription -> {
+        // subscriptions are loaded on demand, the user does not hold them
+        userService.getPushSubscriptions(user.getId()).forEach(subscription -> {
             try {
                 sendNotification(new Notification(subscription.toSubscription(), payload));
             } catch (InvalidKeySpecException | NoSuchProviderException | NoSuchAlgorithmException e) {
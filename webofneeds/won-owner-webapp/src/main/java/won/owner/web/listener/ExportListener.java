@@ -12,6 +12,7 @@ import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -26,9 +27,8 @@ import org.springframework.context.ApplicationListener;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
-import won.owner.model.User;
+import won.owner.repository.UserAtomRepository;
 import won.owner.service.impl.KeystoreEnabledUserDetails;
-import won.owner.service.impl.UserService;
 import won.owner.web.WonOwnerMailSender;
 import won.owner.web.events.OnExportUserEvent;
 import won.protocol.rest.LinkedDataFetchingException;
@@ -45,14 +45,14 @@ public class ExportListener implements ApplicationListener<OnExportUserEvent> {
     @Autowired
     private WonOwnerMailSender emailSender;
     @Autowired
-    private UserService userService;
+    private UserAtomRepository userAtomRepository;
 
     @Override
     public void onApplicationEvent(OnExportUserEvent onExportUserEvent) {
         Authentication authentication = onExportUserEvent.getAuthentication();
         KeystoreEnabledUserDetails userDetails = ((KeystoreEnabledUserDetails) authentication.getPrincipal());
         String password = onExportUserEvent.getKeyStorePassword();
-        User user = userService.getByUsername(userDetails.getUsername());
+        List<URI> atomUris = userAtomRepository.findAtomUrisByUserId(userDetails.getUserId());
         String responseMail = onExportUserEvent.getResponseEmail();
         File tmpFile = null;
         try {
@@ -61,7 +61,7 @@ public class ExportListener implements ApplicationListener<OnExportUserEvent> {
             ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(tmpFile), Charset.forName("UTF-8"));
             ZipEntry atomsEntry = new ZipEntry("export.nq");
             zip.putNextEntry(atomsEntry);
-            user.getUserAtoms().stream().parallel().map(userAtom -> fetchAtomData(authentication, userAtom.getUri()))
+            atomUris.stream().parallel().map(atomUri -> fetchAtomData(authentication, atomUri))
                             .forEach(dataset -> {
                                 RDFDataMgr.write(zip, dataset, RDFFormat.NQUADS_UTF8);
                             });
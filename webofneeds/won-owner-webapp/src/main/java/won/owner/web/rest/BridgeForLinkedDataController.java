@@ -6,10 +6,8 @@ import java.io.StringWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Enumeration;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Optional;
-import java.util.Set;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -46,7 +44,7 @@ import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
 import won.owner.model.User;
-import won.owner.model.UserAtom;
+import won.owner.repository.UserAtomRepository;
 import won.owner.service.impl.WONUserDetailService;
 import won.protocol.rest.LinkedDataRestBridge;
 import won.protocol.rest.RDFMediaType;
@@ -69,6 +67,8 @@ public class BridgeForLinkedDataController implements InitializingBean {
     @Autowired
     private WONUserDetailService wonUserDetailService;
     @Autowired
+    private UserAtomRepository userAtomRepository;
+    @Autowired
     private LinkedDataRestBridge linkedDataRestBridgeOnBehalfOfAtom;
     @Autowired
     private LinkedDataRestBridge linkedDataRestBridge;
@@ -289,18 +289,6 @@ public class BridgeForLinkedDataController implements InitializingBean {
     private boolean currentUserHasIdentity(final String requesterWebId) {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = (User) wonUserDetailService.loadUserByUsername(username);
-        Set<URI> atomUris = getUserAtomUris(user);
-        if (atomUris.contains(URI.create(requesterWebId))) {
-            return true;
-        }
-        return false;
-    }
-
-    private Set<URI> getUserAtomUris(final User user) {
-        Set<URI> atomUris = new HashSet<>();
-        for (UserAtom userAtom : user.getUserAtoms()) {
-            atomUris.add(userAtom.getUri());
-        }
-        return atomUris;
+        return userAtomRepository.countByUserIdAndAtomUri(user.getId(), URI.create(requesterWebId)) > 0;
     }
 }
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import won.protocol.agreement.AgreementProtocolState;
-import won.protocol.agreement.petrinet.PetriNetStates;
+import won.protocol.agreement.petrinet.PetriNetStateStore;
 import won.protocol.agreement.petrinet.PetriNetUris;
 import won.protocol.util.AuthenticationThreadLocal;
 import won.protocol.util.WonConversationUtils;
@@ -22,6 +22,7 @@ import java.util.Set;
 public class PetriNetController {
     @Autowired
     private LinkedDataSource linkedDataSourceOnBehalfOfAtom;
+    private PetriNetStateStore petriNetStateStore = new PetriNetStateStore(1000);
 
     public void setLinkedDataSource(LinkedDataSource linkedDataSource) {
         this.linkedDataSourceOnBehalfOfAtom = linkedDataSource;
@@ -30,7 +31,8 @@ public class PetriNetController {
     @RequestMapping(value = "/getPetriNetUris", method = RequestMethod.GET)
     public ResponseEntity<Set<PetriNetUris>> getPetriNetUris(URI connectionUri) {
         return new ResponseEntity<Set<PetriNetUris>>(
-                        PetriNetStates.of(getAgreementProtocolState(connectionUri)).getPetriNetUris(), HttpStatus.OK);
+                        petriNetStateStore.getPetriNetUris(connectionUri, getAgreementProtocolState(connectionUri)),
+                        HttpStatus.OK);
     }
 
     private AgreementProtocolState getAgreementProtocolState(URI connectionUri) {
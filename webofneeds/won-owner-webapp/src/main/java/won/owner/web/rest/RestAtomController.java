@@ -20,7 +20,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.jena.query.Dataset;
@@ -31,6 +30,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Propagation;
@@ -42,13 +42,14 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import won.owner.model.Draft;
-import won.owner.model.User;
 import won.owner.model.UserAtom;
 import won.owner.pojo.AtomPojo;
 import won.owner.pojo.CreateDraftPojo;
 import won.owner.repository.DraftRepository;
+import won.owner.repository.UserAtomRepository;
 import won.owner.repository.UserRepository;
-import won.owner.service.impl.WONUserDetailService;
+import won.owner.service.impl.KeystoreEnabledUserDetails;
+import won.owner.service.impl.UserService;
 import won.protocol.model.AtomState;
 import won.protocol.model.Coordinate;
 import won.protocol.rest.LinkedDataFetchingException;
@@ -68,10 +69,12 @@ public class RestAtomController {
     @Autowired
     private DraftRepository draftRepository;
     @Autowired
-    private WONUserDetailService wonUserDetailService;
+    private UserService userService;
     @Autowired
     UserRepository userRepository;
     @Autowired
+    private UserAtomRepository userAtomRepository;
+    @Autowired
     private LinkedDataSource linkedDataSource;
     @Autowired
     private WonNodeInformationService wonNodeInformationService;
@@ -84,8 +87,7 @@ public class RestAtomController {
     @ResponseBody
     @RequestMapping(value = { "/", "" }, produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.GET)
     public Map<URI, AtomPojo> getAllAtomsOfUser(@RequestParam(value = "state", required = false) AtomState state) {
-        User user = getCurrentUser();
-        Set<UserAtom> userAtoms = user.getUserAtoms();
+        List<UserAtom> userAtoms = userAtomRepository.findByUserId(getCurrentUserId());
         Map<URI, AtomPojo> atomMap = new HashMap<>();
         for (UserAtom userAtom : userAtoms) {
             if (state == null || state.equals(userAtom.getState())) {
@@ -109,30 +111,48 @@ public class RestAtomController {
     }
 
     /**
-     * Gets the current user. If no user is authenticated, an Exception is thrown
+     * Gets the id of the current user. If no user is authenticated, an Exception
+     * is thrown
      * 
-     * @return the current user
+     * @return the id of the current user
      */
-    private User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+    private Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof KeystoreEnabledUserDetails) {
+            return ((KeystoreEnabledUserDetails) authentication.getPrincipal()).getUserId();
+        }
+        String username = authentication == null ? null : authentication.getName();
         if (username == null)
             throw new AccessDeniedException("client is not authenticated");
-        return userRepository.findByUsername(username);
+        return userRepository.findIdByUsername(username);
     }
 
+    /**
+     * returns the drafts of the user, all of them or one page at a time
+     * 
+     * @param page the page to return, starting at 0, if size is set
+     * @param size the number of drafts per page, all drafts are returned if not
+     * set
+     * @return JSON List of drafts, or bad request if page or size are out of range
+     */
     @ResponseBody
     @RequestMapping(value = "/drafts", produces = MediaType.APPLICATION_JSON_VALUE, method = RequestMethod.GET)
     // TODO: move transactionality annotation into the service layer
-    public List<CreateDraftPojo> getAllDrafts() {
-        User user = getCurrentUser();
+    public ResponseEntity<List<CreateDraftPojo>> getAllDrafts(
+                    @RequestParam(value = "page", defaultValue = "0") int page,
+                    @RequestParam(value = "size", required = false) Integer size) {
+        if (page < 0 || (size != null && size < 1)) {
+            return ResponseEntity.badRequest().build();
+        }
         List<CreateDraftPojo> createDraftPojos = new ArrayList<>();
-        Set<URI> draftURIs = user.getDraftURIs();
+        List<URI> draftURIs = size == null ? userService.getDraftURIs(getCurrentUserId())
+                        : userService.getDraftURIs(getCurrentUserId(), page, size);
         for (URI draftURI : draftURIs) {
             Draft draft = draftRepository.findByDraftURI(draftURI).get(0);
             CreateDraftPojo createDraftPojo = new CreateDraftPojo(draftURI.toString(), draft.getContent());
             createDraftPojos.add(createDraftPojo);
         }
-        return createDraftPojos;
+        return ResponseEntity.ok(createDraftPojos);
     }
 
     /**
@@ -322,10 +342,8 @@ public class RestAtomController {
     // TODO: move transactionality annotation into the service layer
     @Transactional(propagation = Propagation.SUPPORTS)
     public CreateDraftPojo createDraft(@RequestBody CreateDraftPojo createDraftObject) {
-        User user = getCurrentUser();
         URI draftURI = URI.create(createDraftObject.getDraftURI());
-        user.getDraftURIs().add(draftURI);
-        wonUserDetailService.save(user);
+        userService.addDraftURI(getCurrentUserId(), draftURI);
         Draft draft = draftRepository.findOneByDraftURI(draftURI);
         if (draft == null) {
             draft = new Draft(draftURI, createDraftObject.getDraft());
@@ -378,11 +396,10 @@ public class RestAtomController {
     public ResponseEntity<String> deleteDraft(@RequestParam("uri") String uri) {
         logger.debug("deleting draft: " + uri);
         // CreateDraftPojo draftPojo = null;
-        User user = getCurrentUser();
+        Long userId = getCurrentUserId();
         try {
             URI draftURI = new URI(uri);
-            user.getDraftURIs().remove(draftURI);
-            wonUserDetailService.save(user);
+            userService.removeDraftURI(userId, draftURI);
             Draft draft = draftRepository.findOneByDraftURI(draftURI);
             if (draft == null) {
                 logger.warn("draft requested for delete was not found: " + uri);
@@ -23,7 +23,6 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 
-import won.owner.model.User;
 import won.owner.pojo.MessageUriPojo;
 import won.owner.pojo.RestStatusResponse;
 import won.owner.repository.UserRepository;
@@ -94,10 +93,10 @@ public class RestMessageController {
         }
         // associate all the user's websocket sessions with
         // the sender atom so that we can route the response properly
-        User user = getUser(authentication, msg);
+        Long userId = getUserId(authentication, msg);
         URI atomURI = msg.getSenderAtomURI();
-        if (user != null && atomURI != null) {
-            webSocketSessionService.getWebSocketSessions(user).forEach(
+        if (userId != null && atomURI != null) {
+            webSocketSessionService.getWebSocketSessions(userId).forEach(
                             session -> webSocketSessionService.addMapping(atomURI, session));
         }
         // send it in a separate thread (so we can return our result immediately)
@@ -121,17 +120,17 @@ public class RestMessageController {
         return new ResponseEntity(new MessageUriPojo(msg.getMessageURIRequired().toString()), HttpStatus.OK);
     }
 
-    private User getUser(Authentication auth, WonMessage message) {
-        User user = ((KeystoreEnabledUserDetails) auth.getPrincipal()).getUser();
-        if (user != null) {
-            return user;
+    private Long getUserId(Authentication auth, WonMessage message) {
+        Long userId = ((KeystoreEnabledUserDetails) auth.getPrincipal()).getUserId();
+        if (userId != null) {
+            return userId;
         }
-        return getUserForWonMessage(message);
+        return getUserIdForWonMessage(message);
     }
 
-    private User getUserForWonMessage(final WonMessage wonMessage) {
+    private Long getUserIdForWonMessage(final WonMessage wonMessage) {
         URI atomUri = getOwnedAtomURI(wonMessage);
-        return userRepository.findByAtomUri(atomUri);
+        return userRepository.findIdByAtomUri(atomUri);
     }
 
     private URI getOwnedAtomURI(WonMessage message) {
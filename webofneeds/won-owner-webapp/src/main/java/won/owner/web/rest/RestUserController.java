@@ -297,12 +297,10 @@ public class RestUserController {
         try {
             atomUri = new URI(uri);
             userSettingsPojo.setAtomUri(uri);
-            for (UserAtom userAtom : user.getUserAtoms()) {
-                if (userAtom.getUri().equals(atomUri)) {
-                    userSettingsPojo.setNotify(userAtom.isMatches(), userAtom.isRequests(), userAtom.isConversations());
-                    // userSettingsPojo.setEmail(user.getEmail());
-                    break;
-                }
+            UserAtom userAtom = userAtomRepository.findByUserIdAndAtomUri(user.getId(), atomUri);
+            if (userAtom != null) {
+                userSettingsPojo.setNotify(userAtom.isMatches(), userAtom.isRequests(), userAtom.isConversations());
+                // userSettingsPojo.setEmail(user.getEmail());
             }
         } catch (URISyntaxException e) {
             // TODO error response
@@ -340,14 +338,12 @@ public class RestUserController {
         URI atomUri = null;
         try {
             atomUri = new URI(userSettingsPojo.getAtomUri());
-            for (UserAtom userAtom : user.getUserAtoms()) {
-                if (userAtom.getUri().equals(atomUri)) {
-                    userAtom.setMatches(userSettingsPojo.isNotifyMatches());
-                    userAtom.setRequests(userSettingsPojo.isNotifyRequests());
-                    userAtom.setConversations(userSettingsPojo.isNotifyConversations());
-                    userAtomRepository.save(userAtom);
-                    break;
-                }
+            UserAtom userAtom = userAtomRepository.findByUserIdAndAtomUri(user.getId(), atomUri);
+            if (userAtom != null) {
+                userAtom.setMatches(userSettingsPojo.isNotifyMatches());
+                userAtom.setRequests(userSettingsPojo.isNotifyRequests());
+                userAtom.setConversations(userSettingsPojo.isNotifyConversations());
+                userAtomRepository.save(userAtom);
             }
         } catch (URISyntaxException e) {
             logger.warn(userSettingsPojo.getAtomUri() + " atom uri problem.", e);
@@ -434,7 +430,7 @@ public class RestUserController {
             return generateStatusResponse(RestStatusResponse.USER_NOT_SIGNED_IN);
         } else {
             SecurityContextHolder.getContext().setAuthentication(authentication);
-            User authUser = ((KeystoreEnabledUserDetails) authentication.getPrincipal()).getUser();
+            KeystoreEnabledUserDetails authUser = (KeystoreEnabledUserDetails) authentication.getPrincipal();
             return generateUserResponse(userService.getByUsername(authUser.getUsername()));
         }
     }
@@ -496,7 +492,8 @@ public class RestUserController {
     public ResponseEntity exportAccount(
                     @RequestParam(name = "keyStorePassword", required = false) String keyStorePassword) {
         SecurityContext securityContext = SecurityContextHolder.getContext();
-        User authUser = ((KeystoreEnabledUserDetails) securityContext.getAuthentication().getPrincipal()).getUser();
+        KeystoreEnabledUserDetails authUser = (KeystoreEnabledUserDetails) securityContext.getAuthentication()
+                        .getPrincipal();
         User user = userService.getByUsername(authUser.getUsername());
         String responseEmail = null;
         if (user.isEmailVerified()) {
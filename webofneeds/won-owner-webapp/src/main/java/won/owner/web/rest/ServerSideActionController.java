@@ -9,16 +9,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import won.owner.model.User;
-import won.owner.model.UserAtom;
 import won.owner.pojo.SocketToConnect;
 import won.owner.repository.UserAtomRepository;
 import won.owner.service.impl.UserService;
 import won.owner.web.service.ServerSideActionService;
 
+import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 @Controller
 @RequestMapping("/rest/action")
@@ -50,7 +49,7 @@ public class ServerSideActionController {
             return new ResponseEntity("Cannot process connect action: too many sockets specified to be connected.",
                             HttpStatus.CONFLICT);
         }
-        Set<UserAtom> atoms = user.getUserAtoms();
+        List<URI> atomUris = userAtomRepository.findAtomUrisByUserId(user.getId());
         // keep sockets we can't process:
         Optional<SocketToConnect> problematicSocket = sockets.stream().filter(socket -> {
             // return false (not problematic) if the socket is pending (i.e., the atom it
@@ -59,7 +58,7 @@ public class ServerSideActionController {
                 return false;
             }
             // return true (=problematic) if we don't find an atom the socket belongs to
-            return !atoms.stream().anyMatch(atom -> socket.getSocket().startsWith(atom.getUri().toString()));
+            return !atomUris.stream().anyMatch(atomUri -> socket.getSocket().startsWith(atomUri.toString()));
         }).findFirst();
         if (problematicSocket.isPresent()) {
             return new ResponseEntity("Cannot process connect action: socket " + problematicSocket.get().getSocket()
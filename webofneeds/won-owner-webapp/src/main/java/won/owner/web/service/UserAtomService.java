@@ -10,7 +10,7 @@ import org.springframework.stereotype.Component;
 import won.owner.model.User;
 import won.owner.model.UserAtom;
 import won.owner.repository.UserAtomRepository;
-import won.owner.repository.UserRepository;
+import won.owner.service.impl.UserService;
 import won.protocol.message.WonMessage;
 import won.protocol.message.WonMessageDirection;
 import won.protocol.message.WonMessageType;
@@ -20,7 +20,7 @@ import won.protocol.model.AtomState;
 public class UserAtomService {
     private final Logger logger = LoggerFactory.getLogger(getClass());
     @Autowired
-    private UserRepository userRepository;
+    private UserService userService;
     @Autowired
     private UserAtomRepository userAtomRepository;
 
@@ -75,13 +75,10 @@ public class UserAtomService {
         URI atomUri = getOwnedAtomURI(wonMessage);
         logger.debug("adding atom {} to atoms of user {}", atomUri, user.getId());
         UserAtom userAtom = new UserAtom(atomUri);
-        // reload the user so we can save it
-        // (the user object we get from getUserForSession is detached)
-        user = userRepository.findOne(user.getId());
         userAtom = userAtomRepository.save(userAtom);
         logger.debug("saved user atom {}", userAtom.getId());
-        user.addUserAtom(userAtom);
-        userRepository.save(user);
+        // the atoms of the user are not loaded outside of a transaction
+        userService.addUserAtom(user.getId(), userAtom);
         logger.debug("atom {} added to atoms of user {}", userAtom.getId(), user.getId());
     }
 
@@ -115,12 +112,8 @@ public class UserAtomService {
         UserAtom userAtom = userAtomRepository.findByAtomUri(atomUri);
         if (userAtom != null) {
             if (userAtom.getState() == AtomState.DELETED) {
-                // reload the user so we can save it
-                // (the user object we get from getUserForSession is detached)
-                user = userRepository.findOne(user.getId());
                 // Delete atom in users atom list and save changes
-                user.getUserAtoms().remove(userAtom);
-                user = userRepository.save(user);
+                userService.removeUserAtom(user.getId(), userAtom);
                 // Delete atom in atom repository
                 userAtomRepository.delete(userAtom);
             } else {
@@ -5,63 +5,110 @@ import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.lang.invoke.MethodHandles;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * This service stores the connection between the WebSocket sessions and a given
- * key
+ * key.
+ * <p>
+ * Adding and removing mappings is atomic per key (the maps are concurrent hash
+ * maps, which lock per bin, so threads working on different keys do not block
+ * each other). Keys without sessions are removed. For each session, the keys it
+ * is mapped to are kept as well, so all mappings of a closed session can be
+ * removed with {@link #removeSession(WebSocketSession)} without knowing the
+ * keys.
  *
  * @author Fabian Salcher
  */
 public class WebSocketSessionMapping<T> {
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
     // ToDo (FS): make this persistent
-    private Map<T, Set<WebSocketSession>> mapping = new HashMap<T, Set<WebSocketSession>>();
-    private Object lock;
-
-    public WebSocketSessionMapping() {
-        this.lock = new Object();
-    }
+    // we use CopyOnWriteArraySets so the sessions of a key can be iterated without
+    // copying them. We assume that reads outnumber writes by far.
+    private final ConcurrentMap<T, Set<WebSocketSession>> mapping = new ConcurrentHashMap<>();
+    // reverse index: session id -> keys of the session
+    private final ConcurrentMap<String, Set<T>> keysOfSession = new ConcurrentHashMap<>();
 
     public void addMapping(T key, WebSocketSession session) {
         logger.debug("adding mapping for key {} to websocket session {}", key, session.getId());
-        synchronized (lock) {
-            // we want to avoid losing one of two concurrent sessions added
-            // for the same key, so we synchronize here
-            if (!mapping.containsKey(key)) {
-                // we use the CopyOnWriteArraySet so we are safe across threads. We
-                // assume that reads outnumber writes by far.
-                mapping.put(key, new CopyOnWriteArraySet<WebSocketSession>());
+        keysOfSession.compute(session.getId(), (id, keys) -> {
+            if (keys == null) {
+                keys = ConcurrentHashMap.newKeySet();
             }
+            keys.add(key);
+            return keys;
+        });
+        mapping.compute(key, (k, sessions) -> {
+            if (sessions == null) {
+                sessions = new CopyOnWriteArraySet<>();
+            }
+            sessions.add(session);
+            return sessions;
+        });
+        if (!session.isOpen()) {
+            // the session may have been closed (and its mappings removed) while we were
+            // adding this one
+            removeMapping(key, session);
         }
-        mapping.get(key).add(session);
     }
 
     public void removeMapping(T key, WebSocketSession session) {
         logger.debug("removing mapping from key {} to websocket session {}", key, session.getId());
-        synchronized (this) {
-            // we don't want add and remove to interfere
-            Set<WebSocketSession> sessions = mapping.get(key);
-            if (sessions != null) {
-                sessions.remove(session);
-                if (sessions.isEmpty())
-                    mapping.remove(sessions);
-            }
+        removeSessionFromKey(key, session);
+        keysOfSession.computeIfPresent(session.getId(), (id, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Removes all mappings of the session.
+     *
+     * @param session the session
+     */
+    public void removeSession(WebSocketSession session) {
+        Set<T> keys = keysOfSession.remove(session.getId());
+        if (keys == null) {
+            return;
+        }
+        logger.debug("removing mappings from {} keys to websocket session {}", keys.size(), session.getId());
+        for (T key : keys) {
+            removeSessionFromKey(key, session);
         }
     }
 
+    private void removeSessionFromKey(T key, WebSocketSession session) {
+        mapping.computeIfPresent(key, (k, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    /**
+     * Returns the sessions of the key. The returned set is a read-only view that
+     * reflects later changes; iterating over it does not copy the sessions and
+     * never throws a <code>ConcurrentModificationException</code>.
+     *
+     * @param key the key
+     * @return the sessions, never null
+     */
     public Set<WebSocketSession> getWebSocketSessions(T key) {
-        Set<WebSocketSession> sessions = mapping.get(key);
-        if (sessions != null) {
-            Set<WebSocketSession> ret = new HashSet(sessions.size());
-            ret.addAll(sessions);
-            return ret;
-        } else {
-            return new HashSet();
+        Set<WebSocketSession> sessions = key == null ? null : mapping.get(key);
+        if (sessions == null) {
+            return Collections.emptySet();
         }
+        return Collections.unmodifiableSet(sessions);
+    }
+
+    public int getKeyCount() {
+        return mapping.size();
+    }
+
+    public int getSessionCount() {
+        return keysOfSession.size();
     }
 }
@@ -12,81 +12,86 @@ package won.owner.web.websocket;
 
 import java.net.URI;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.socket.WebSocketSession;
 
-import won.owner.model.User;
-
 public class WebSocketSessionService {
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private WebSocketSessionMapping<Long> userIdToSession = new WebSocketSessionMapping<Long>();
     private WebSocketSessionMapping<URI> atomUriToSession = new WebSocketSessionMapping<URI>();
 
-    public void addMapping(User user, WebSocketSession session) {
-        this.userIdToSession.addMapping(user.getId(), session);
+    public void addMapping(Long userId, WebSocketSession session) {
+        this.userIdToSession.addMapping(userId, session);
     }
 
     public void addMapping(URI atomUri, WebSocketSession session) {
         this.atomUriToSession.addMapping(atomUri, session);
     }
 
-    public void removeMapping(User user, WebSocketSession session) {
-        this.userIdToSession.removeMapping(user.getId(), session);
+    public void removeMapping(Long userId, WebSocketSession session) {
+        this.userIdToSession.removeMapping(userId, session);
     }
 
     public void removeMapping(URI atomUri, WebSocketSession session) {
         this.atomUriToSession.removeMapping(atomUri, session);
     }
 
-    public Set<WebSocketSession> getWebSocketSessions(User user) {
-        return this.userIdToSession.getWebSocketSessions(user.getId());
+    /**
+     * Removes all mappings of the session, to atoms as well as to users.
+     */
+    public void removeSession(WebSocketSession session) {
+        this.userIdToSession.removeSession(session);
+        this.atomUriToSession.removeSession(session);
+    }
+
+    /**
+     * Returns a read-only view of the sessions of the user.
+     */
+    public Set<WebSocketSession> getWebSocketSessions(Long userId) {
+        return this.userIdToSession.getWebSocketSessions(userId);
     }
 
+    /**
+     * Returns a read-only view of the sessions of the atom.
+     */
     public Set<WebSocketSession> getWebSocketSessions(URI atomUri) {
         return this.atomUriToSession.getWebSocketSessions(atomUri);
     }
 
-    public Set<WebSocketSession> findWebSocketSessionsForAtomAndUser(URI atomUri, User user) {
-        Set<WebSocketSession> webSocketSessions = getWebSocketSessions(atomUri);
-        if (webSocketSessions == null)
-            webSocketSessions = new HashSet();
-        logger.debug("found {} sessions for atom uri {}, now removing closed sessions", webSocketSessions.size(),
-                        atomUri);
-        removeClosedSessions(webSocketSessions, atomUri);
-        if (user != null) {
-            Set<WebSocketSession> userSessions = getWebSocketSessions(user);
-            if (userSessions == null)
-                userSessions = new HashSet();
-            logger.debug("found {} sessions for user {}, now removing closed sessions", userSessions.size(),
-                            user.getId());
-            removeClosedSessions(userSessions, user);
-            webSocketSessions.addAll(userSessions);
+    /**
+     * Returns the open sessions of the atom and of the user (if specified),
+     * removing all mappings of closed sessions found on the way. If only one of
+     * them has sessions, a read-only view of these sessions is returned.
+     */
+    public Set<WebSocketSession> findWebSocketSessionsForAtomAndUser(URI atomUri, Long userId) {
+        Set<WebSocketSession> atomSessions = getWebSocketSessions(atomUri);
+        logger.debug("found {} sessions for atom uri {}, now removing closed sessions", atomSessions.size(), atomUri);
+        removeClosedSessions(atomSessions);
+        if (userId == null) {
+            return atomSessions;
         }
-        return webSocketSessions;
-    }
-
-    public void removeClosedSessions(final Set<WebSocketSession> webSocketSessions, final URI atomUri) {
-        for (Iterator<WebSocketSession> it = webSocketSessions.iterator(); it.hasNext();) {
-            WebSocketSession session = it.next();
-            if (!session.isOpen()) {
-                logger.debug("removing closed websocket session {} of atom {}", session.getId(), atomUri);
-                removeMapping(atomUri, session);
-                it.remove();
-            }
+        Set<WebSocketSession> userSessions = getWebSocketSessions(userId);
+        logger.debug("found {} sessions for user {}, now removing closed sessions", userSessions.size(), userId);
+        removeClosedSessions(userSessions);
+        if (atomSessions.isEmpty()) {
+            return userSessions;
         }
+        if (atomSessions.containsAll(userSessions)) {
+            return atomSessions;
+        }
+        Set<WebSocketSession> webSocketSessions = new HashSet<>(atomSessions);
+        webSocketSessions.addAll(userSessions);
+        return webSocketSessions;
     }
 
-    public void removeClosedSessions(final Set<WebSocketSession> webSocketSessions, final User user) {
-        for (Iterator<WebSocketSession> it = webSocketSessions.iterator(); it.hasNext();) {
-            WebSocketSession session = it.next();
+    private void removeClosedSessions(final Set<WebSocketSession> webSocketSessions) {
+        for (WebSocketSession session : webSocketSessions) {
             if (!session.isOpen()) {
-                logger.debug("removing closed websocket session {} of user {}", session.getId(), user.getId());
-                removeMapping(user, session);
-                it.remove();
+                logger.debug("removing closed websocket session {}", session.getId());
+                removeSession(session);
             }
         }
     }
@@ -49,6 +49,7 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import won.owner.model.User;
 import won.owner.model.UserAtom;
+import won.owner.repository.UserAtomRepository;
 import won.owner.repository.UserRepository;
 import won.owner.service.impl.KeystoreEnabledUserDetails;
 import won.owner.service.impl.OwnerApplicationService;
@@ -70,6 +71,7 @@ import won.protocol.util.WonRdfUtils;
 import won.protocol.util.linkeddata.LinkedDataSource;
 import won.protocol.util.linkeddata.WonLinkedDataUtils;
 import won.utils.batch.BatchingConsumer;
+import won.utils.batch.ShardedBatchingConsumer;
 
 /**
  * User: syim Date: 06.08.14
@@ -86,6 +88,8 @@ public class WonWebSocketHandler extends TextWebSocketHandler
     @Autowired
     private UserRepository userRepository;
     @Autowired
+    private UserAtomRepository userAtomRepository;
+    @Autowired
     private UserAtomService userAtomService;
     @Autowired
     SessionRepository sessionRepository;
@@ -101,7 +105,7 @@ public class WonWebSocketHandler extends TextWebSocketHandler
     private LinkedDataSource linkedDataSource;
     @Autowired
     private URIService uriService;
-    private BatchingConsumer<String, String[]> batchingConsumer = new BatchingConsumer<>();
+    private ShardedBatchingConsumer<String, String[]> batchingConsumer = new ShardedBatchingConsumer<>();
 
     @Override
     public void afterPropertiesSet() throws Exception {
@@ -113,6 +117,7 @@ public class WonWebSocketHandler extends TextWebSocketHandler
     public void destroy() throws Exception {
         // send all mails that are being held back for batching
         this.batchingConsumer.consumeAllBatches();
+        this.batchingConsumer.shutdown();
     }
 
     @Override
@@ -120,10 +125,10 @@ public class WonWebSocketHandler extends TextWebSocketHandler
         super.afterConnectionEstablished(session);
         // remember which user or (if not logged in) which atomUri the session is bound
         // to
-        User user = getUserForSession(session);
-        if (user != null) {
-            logger.debug("connection established, binding session to user {}", user.getId());
-            this.webSocketSessionService.addMapping(user, session);
+        Long userId = getUserIdForSession(session);
+        if (userId != null) {
+            logger.debug("connection established, binding session to user {}", userId);
+            this.webSocketSessionService.addMapping(userId, session);
         } else {
             logger.debug("connection established, but no user found in session to bind to");
         }
@@ -132,17 +137,8 @@ public class WonWebSocketHandler extends TextWebSocketHandler
     @Override
     public void afterConnectionClosed(final WebSocketSession session, final CloseStatus status) throws Exception {
         super.afterConnectionClosed(session, status);
-        User user = getUserForSession(session);
-        if (user != null) {
-            logger.debug("session closed, removing session bindings to user {}", user.getId());
-            this.webSocketSessionService.removeMapping(user, session);
-            for (UserAtom userAtom : user.getUserAtoms()) {
-                logger.debug("removing session bindings to atom {}", userAtom.getUri());
-                this.webSocketSessionService.removeMapping(userAtom.getUri(), session);
-            }
-        } else {
-            logger.debug("connection closed, but no user found in session, no bindings removed");
-        }
+        logger.debug("session {} closed, removing its bindings to users and atoms", session.getId());
+        this.webSocketSessionService.removeSession(session);
     }
 
     /**
@@ -194,10 +190,10 @@ public class WonWebSocketHandler extends TextWebSocketHandler
             wonMessage = WonMessageDecoder.decodeFromJsonLd(completePayload);
             // remember which user or (if not logged in) which atomUri the session is bound
             // to
-            User user = getUserForSession(session);
-            if (user != null) {
-                logger.debug("binding session to user {}", user.getId());
-                this.webSocketSessionService.addMapping(user, session);
+            Long userId = getUserIdForSession(session);
+            if (userId != null) {
+                logger.debug("binding session to user {}", userId);
+                this.webSocketSessionService.addMapping(userId, session);
             }
             // anyway, we have to bind the URI to the session, otherwise we can't handle
             // incoming server->client messages
@@ -271,23 +267,19 @@ public class WonWebSocketHandler extends TextWebSocketHandler
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.READ_COMMITTED)
     public WonMessage process(final WonMessage wonMessage) {
         try {
-            String wonMessageJsonLdString = WonMessageEncoder.encodeAsJsonLd(wonMessage);
-            Optional<URI> connectionURI = WonLinkedDataUtils.getConnectionURIForIncomingMessage(wonMessage,
-                            linkedDataSource);
-            WebSocketMessage<String> webSocketMessage = new TextMessage(wonMessageJsonLdString);
             URI atomUri = getOwnedAtomURIForMessageFromNode(wonMessage);
             Set<WebSocketSession> webSocketSessions = webSocketSessionService.getWebSocketSessions(atomUri);
-            Optional<User> userOpt = webSocketSessions == null ? Optional.empty()
-                            : webSocketSessions.stream().filter(s -> s.isOpen()).findFirst()
-                                            .map(s -> getUserForSession(s));
-            if (!userOpt.isPresent()) {
-                userOpt = Optional.ofNullable(userRepository.findByAtomUri(atomUri));
-            }
-            User user = userOpt.orElse(null); // it's quite possible that we don't find the user object this way.
-                                              // Methods below can handle that.
+            Optional<Long> userIdOpt = webSocketSessions.stream().filter(s -> s.isOpen()).findFirst()
+                            .map(s -> getUserIdForSession(s));
+            // only the user is loaded, not its atoms
+            User user = userIdOpt.isPresent() ? userRepository.findOne(userIdOpt.get())
+                            : userRepository.findByAtomUri(atomUri); // it's quite possible that we don't find the
+                                                                     // user object this way. Methods below can
+                                                                     // handle that.
             userAtomService.updateUserAtomAssociation(wonMessage, user);
             notifyPerPush(user, atomUri, wonMessage);
-            webSocketSessions = webSocketSessionService.findWebSocketSessionsForAtomAndUser(atomUri, user);
+            webSocketSessions = webSocketSessionService.findWebSocketSessionsForAtomAndUser(atomUri,
+                            user == null ? null : user.getId());
             // check if we can deliver the message. If not, send email.
             if (webSocketSessions.size() == 0) {
                 if (logger.isDebugEnabled()) {
@@ -295,11 +287,15 @@ public class WonWebSocketHandler extends TextWebSocketHandler
                                     wonMessage.toShortStringForDebug());
                 }
                 // send per email notifications if it applies:
-                notifyPerEmail(user, atomUri, connectionURI, wonMessage);
+                notifyPerEmail(user, atomUri, wonMessage);
                 return wonMessage;
             }
             // we can send it - pre-cache the delivery chain:
             eagerlyCachePopulatingProcessor.process(wonMessage);
+            // serialize the message only now that we know there is a session to send it
+            // to, and only once for all sessions
+            WebSocketMessage<String> webSocketMessage = new TextMessage(
+                            WonMessageEncoder.encodeAsJsonLdBytes(wonMessage));
             // send to owner webapp
             int successfullySent = 0;
             for (WebSocketSession session : webSocketSessions) {
@@ -315,7 +311,7 @@ public class WonWebSocketHandler extends TextWebSocketHandler
                 // 1. collect multiple events occurring in close succession
                 // 2. try to push
                 // 3. email only if push was not successful
-                notifyPerEmail(user, atomUri, connectionURI, wonMessage);
+                notifyPerEmail(user, atomUri, wonMessage);
             }
             return wonMessage;
         } finally {
@@ -406,8 +402,7 @@ public class WonWebSocketHandler extends TextWebSocketHandler
         }
     }
 
-    private void notifyPerEmail(final User user, final URI atomUri, final Optional<URI> connectionURI,
-                    final WonMessage wonMessage) {
+    private void notifyPerEmail(final User user, final URI atomUri, final WonMessage wonMessage) {
         if (wonMessage.getEnvelopeType() == WonMessageDirection.FROM_OWNER) {
             // we assume that this message, coming from the server here, can only be an
             // echoed message. don't send by email.
@@ -438,6 +433,8 @@ public class WonWebSocketHandler extends TextWebSocketHandler
             return;
         }
         String textMsg = WonRdfUtils.MessageUtils.getTextMessage(wonMessage);
+        Optional<URI> connectionURI = WonLinkedDataUtils.getConnectionURIForIncomingMessage(wonMessage,
+                        linkedDataSource);
         try {
             switch (wonMessage.getMessageType()) {
                 case CONNECTION_MESSAGE:
@@ -556,12 +553,10 @@ public class WonWebSocketHandler extends TextWebSocketHandler
     }
 
     private UserAtom getAtomOfUser(final User user, final URI atomUri) {
-        for (UserAtom userAtom : user.getUserAtoms()) {
-            if (userAtom.getUri().equals(atomUri)) {
-                return userAtom;
-            }
+        if (atomUri == null) {
+            return null;
         }
-        return null;
+        return userAtomRepository.findByUserIdAndAtomUri(user.getId(), atomUri);
     }
 
     /**
@@ -591,7 +586,7 @@ public class WonWebSocketHandler extends TextWebSocketHandler
                             "caught exception while trying to send on session {1} for atomUri {2}, " + "user {3}",
                             session.getId(), atomUri, user == null ? "(null)" : user.getId()), e);
             if (user != null) {
-                webSocketSessionService.removeMapping(user, session);
+                webSocketSessionService.removeMapping(user.getId(), session);
             }
             if (atomUri != null) {
                 webSocketSessionService.removeMapping(atomUri, session);
@@ -601,7 +596,7 @@ public class WonWebSocketHandler extends TextWebSocketHandler
         return true;
     }
 
-    private User getUserForSession(final WebSocketSession session) {
+    private Long getUserIdForSession(final WebSocketSession session) {
         if (session == null) {
             return null;
         }
@@ -610,7 +605,7 @@ public class WonWebSocketHandler extends TextWebSocketHandler
         }
         Principal principal = session.getPrincipal();
         if (principal instanceof Authentication) {
-            return ((KeystoreEnabledUserDetails) ((Authentication) principal).getPrincipal()).getUser();
+            return ((KeystoreEnabledUserDetails) ((Authentication) principal).getPrincipal()).getUserId();
         }
         throw new IllegalStateException("no user found in session");
     }
@@ -0,0 +1,129 @@
+package won.owner.web.websocket;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+public class WebSocketSessionMappingTest {
+    @Test
+    public void testEmptyKeysAreRemoved() {
+        WebSocketSessionMapping<String> mapping = new WebSocketSessionMapping<>();
+        WebSocketSession session = createSession("s1", new AtomicBoolean(true));
+        mapping.addMapping("a", session);
+        mapping.addMapping("b", session);
+        Assert.assertEquals(2, mapping.getKeyCount());
+        mapping.removeMapping("a", session);
+        Assert.assertEquals(1, mapping.getKeyCount());
+        Assert.assertTrue(mapping.getWebSocketSessions("a").isEmpty());
+        mapping.removeMapping("b", session);
+        Assert.assertEquals(0, mapping.getKeyCount());
+        Assert.assertEquals(0, mapping.getSessionCount());
+    }
+
+    @Test
+    public void testRemoveSessionRemovesAllItsMappings() {
+        WebSocketSessionMapping<String> mapping = new WebSocketSessionMapping<>();
+        WebSocketSession session1 = createSession("s1", new AtomicBoolean(true));
+        WebSocketSession session2 = createSession("s2", new AtomicBoolean(true));
+        mapping.addMapping("a", session1);
+        mapping.addMapping("b", session1);
+        mapping.addMapping("b", session2);
+        mapping.removeSession(session1);
+        Assert.assertTrue(mapping.getWebSocketSessions("a").isEmpty());
+        Assert.assertEquals(1, mapping.getWebSocketSessions("b").size());
+        Assert.assertTrue(mapping.getWebSocketSessions("b").contains(session2));
+        Assert.assertEquals(1, mapping.getKeyCount());
+        Assert.assertEquals(1, mapping.getSessionCount());
+    }
+
+    @Test
+    public void testFindSessionsForAtomAndUserSkipsClosedSessions() {
+        WebSocketSessionService service = new WebSocketSessionService();
+        URI atomUri = URI.create("https://example.com/atom/1");
+        AtomicBoolean open = new AtomicBoolean(true);
+        WebSocketSession session1 = createSession("s1", open);
+        WebSocketSession session2 = createSession("s2", new AtomicBoolean(true));
+        service.addMapping(atomUri, session1);
+        service.addMapping(1L, session1);
+        service.addMapping(1L, session2);
+        Assert.assertEquals(2, service.findWebSocketSessionsForAtomAndUser(atomUri, 1L).size());
+        open.set(false);
+        Assert.assertEquals(1, service.findWebSocketSessionsForAtomAndUser(atomUri, 1L).size());
+        Assert.assertTrue(service.getWebSocketSessions(atomUri).isEmpty());
+    }
+
+    @Test
+    public void testConcurrentAddAndRemove() throws Exception {
+        WebSocketSessionMapping<Integer> mapping = new WebSocketSessionMapping<>();
+        int threads = 8;
+        int sessionsPerThread = 5000;
+        int keys = 1000;
+        int keysPerSession = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < sessionsPerThread; i++) {
+                    AtomicBoolean open = new AtomicBoolean(true);
+                    WebSocketSession session = createSession(thread + "-" + i, open);
+                    for (int k = 0; k < keysPerSession; k++) {
+                        mapping.addMapping(random.nextInt(keys), session);
+                    }
+                    // fan-out while others add and remove
+                    for (WebSocketSession other : mapping.getWebSocketSessions(random.nextInt(keys))) {
+                        other.getId();
+                    }
+                    if (random.nextBoolean()) {
+                        mapping.removeMapping(random.nextInt(keys), session);
+                    }
+                    open.set(false);
+                    mapping.removeSession(session);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        Assert.assertEquals(0, mapping.getKeyCount());
+        Assert.assertEquals(0, mapping.getSessionCount());
+    }
+
+    private static WebSocketSession createSession(String id, AtomicBoolean open) {
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                        new Class<?>[] { WebSocketSession.class }, (proxy, method, args) -> {
+                            switch (method.getName()) {
+                                case "getId":
+                                    return id;
+                                case "isOpen":
+                                    return open.get();
+                                case "hashCode":
+                                    return System.identityHashCode(proxy);
+                                case "equals":
+                                    return proxy == args[0];
+                                case "toString":
+                                    return "session " + id;
+                                default:
+                                    throw new UnsupportedOperationException(method.getName());
+                            }
+                        });
+    }
+}
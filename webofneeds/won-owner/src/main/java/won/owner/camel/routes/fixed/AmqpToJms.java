@@ -13,23 +13,40 @@ package won.owner.camel.routes.fixed;
 import org.apache.camel.LoggingLevel;
 import org.apache.camel.builder.RouteBuilder;
 
+import won.protocol.message.processor.camel.PartitionedLaneDispatcher;
 import won.protocol.message.processor.camel.WonCamelConstants;
 
 /**
- * User: LEIH-NB Date: 10.10.13
+ * Sends outgoing messages to the won node. Messages arrive in one of the lanes
+ * of the 'outgoingMessageLanes' dispatcher, each lane being processed by its
+ * own thread, so a slow node or a large message only holds up the messages in
+ * the same lane. User: LEIH-NB Date: 10.10.13
  */
-// TODO: change to asyncronous processing maybe
 public class AmqpToJms extends RouteBuilder {
+    private static final String OUTGOING_MESSAGE_LANES_BEAN = "outgoingMessageLanes";
+
     @Override
     public void configure() {
-        from("seda:outgoingMessages?concurrentConsumers=1").routeId("Owner2NodeRoute").choice()
-                        .when(header(WonCamelConstants.REMOTE_BROKER_ENDPOINT_HEADER).isNull())
-                        .log(LoggingLevel.ERROR,
-                                        "could not route message: " + WonCamelConstants.REMOTE_BROKER_ENDPOINT_HEADER
-                                                        + "  is null")
-                        .throwException(new IllegalArgumentException(
-                                        "could not route message: " + WonCamelConstants.REMOTE_BROKER_ENDPOINT_HEADER
-                                                        + " is null"))
-                        .otherwise().recipientList(header(WonCamelConstants.REMOTE_BROKER_ENDPOINT_HEADER));
+        PartitionedLaneDispatcher lanes = getContext().getRegistry().lookupByNameAndType(
+                        OUTGOING_MESSAGE_LANES_BEAN, PartitionedLaneDispatcher.class);
+        if (lanes == null) {
+            throw new IllegalStateException("no bean '" + OUTGOING_MESSAGE_LANES_BEAN
+                            + "' found, cannot configure routes for outgoing messages");
+        }
+        for (int lane = 0; lane < lanes.getLaneCount(); lane++) {
+            from(lanes.getLaneEndpointUri(lane)).routeId("Owner2NodeRoute-lane" + lane)
+                            .process(lanes.laneEntryProcessor())
+                            .choice()
+                            .when(header(WonCamelConstants.REMOTE_BROKER_ENDPOINT_HEADER).isNull())
+                            .log(LoggingLevel.ERROR,
+                                            "could not route message: "
+                                                            + WonCamelConstants.REMOTE_BROKER_ENDPOINT_HEADER
+                                                            + "  is null")
+                            .throwException(new IllegalArgumentException(
+                                            "could not route message: "
+                                                            + WonCamelConstants.REMOTE_BROKER_ENDPOINT_HEADER
+                                                            + " is null"))
+                            .otherwise().recipientList(header(WonCamelConstants.REMOTE_BROKER_ENDPOINT_HEADER));
+        }
     }
 }
@@ -16,6 +16,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultExchange;
 import org.apache.jena.riot.Lang;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +28,7 @@ import won.protocol.jms.MessagingService;
 import won.protocol.message.WonMessage;
 import won.protocol.message.WonMessageEncoder;
 import won.protocol.message.WonMessageUtils;
+import won.protocol.message.processor.camel.PartitionedLaneDispatcher;
 import won.protocol.message.processor.camel.WonCamelConstants;
 import won.protocol.message.processor.impl.KeyForNewAtomAddingProcessor;
 import won.protocol.message.processor.impl.SignatureAddingWonMessageProcessor;
@@ -45,8 +48,7 @@ public class OwnerWonMessageSenderJMSBased implements ApplicationListener<WonNod
     private boolean isDefaultWonNodeRegistered = false;
     private MessagingService messagingService;
     private URI defaultNodeURI;
-    // todo: make this configurable
-    private String startingEndpoint;
+    private PartitionedLaneDispatcher outgoingMessageLanes;
     @Autowired
     private OwnerProtocolCommunicationServiceImpl ownerProtocolCommunicationServiceImpl;
     @Autowired
@@ -117,8 +119,23 @@ public class OwnerWonMessageSenderJMSBased implements ApplicationListener<WonNod
             Map<String, Object> headerMap = new HashMap<>();
             headerMap.put(WonCamelConstants.OWNER_APPLICATION_ID_HEADER, ownerApplicationId);
             headerMap.put(WonCamelConstants.REMOTE_BROKER_ENDPOINT_HEADER, ep);
-            messagingService.sendInOnlyMessage(null, headerMap, WonMessageEncoder.encode(wonMessage, Lang.TRIG),
-                            startingEndpoint);
+            Exchange exchange = new DefaultExchange(
+                            ownerProtocolCommunicationServiceImpl.getProtocolCamelConfigurator().getCamelContext());
+            exchange.getIn().setBody(WonMessageEncoder.encode(wonMessage, Lang.TRIG));
+            // messages of the same atom always use the same lane, so they reach the node in
+            // order
+            String laneEndpoint = outgoingMessageLanes.beforeDispatch(wonMessage.getSenderAtomURI(), headerMap);
+            exchange.getIn().setHeaders(headerMap);
+            try {
+                messagingService.send(exchange, laneEndpoint);
+                if (exchange.getException() != null) {
+                    throw exchange.getException();
+                }
+            } catch (Exception e) {
+                // the message did not get into the lane
+                outgoingMessageLanes.dispatchFailed(headerMap);
+                throw e;
+            }
             // camelContext.getShutdownStrategy().setSuppressLoggingOnTimeout(true);
         } catch (Exception e) {
             throw new RuntimeException("could not send message", e);
@@ -178,7 +195,7 @@ public class OwnerWonMessageSenderJMSBased implements ApplicationListener<WonNod
         this.defaultNodeURI = defaultNodeURI;
     }
 
-    public void setStartingEndpoint(String startingEndpoint) {
-        this.startingEndpoint = startingEndpoint;
+    public void setOutgoingMessageLanes(PartitionedLaneDispatcher outgoingMessageLanes) {
+        this.outgoingMessageLanes = outgoingMessageLanes;
     }
 }
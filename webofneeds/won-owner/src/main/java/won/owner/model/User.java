@@ -72,7 +72,10 @@ public class User implements UserDetails, Persistable<Long> {
         registrationDate = new Date();
     }
 
-    @OneToMany(fetch = FetchType.EAGER)
+    // collections are loaded lazily: the user is not kept in the http session (see
+    // KeystoreEnabledUserDetails), use the projection queries of the repositories
+    // to read them outside of a transaction
+    @OneToMany(fetch = FetchType.LAZY)
     @OrderBy("creationDate desc")
     @JoinTable(name = "wonuser_useratom", joinColumns = { @JoinColumn(name = "wonuser_id") })
     private Set<UserAtom> userAtoms = new HashSet<UserAtom>();
@@ -91,13 +94,9 @@ public class User implements UserDetails, Persistable<Long> {
     @JoinColumn(name = "recoverable_keystore_password_id")
     @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY, optional = true)
     private KeystorePasswordHolder recoverableKeystorePasswordHolder;
-    // TODO: eager is dangerous here, but we need it as the User object is kept in
-    // the http session which outlives the
-    // hibernate session. However, this wastes space and may lead to memory issues
-    // during high usage. Fix it.
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     private Set<URI> draftURIs;
-    @OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "user_id")
     private Set<PushSubscription> pushSubscriptions = new HashSet<>();
     @Transient
@@ -325,8 +324,6 @@ public class User implements UserDetails, Persistable<Long> {
         final User user = (User) o;
         if (id != null ? !id.equals(user.id) : user.id != null)
             return false;
-        if (userAtoms != null ? !userAtoms.equals(user.userAtoms) : user.userAtoms != null)
-            return false;
         if (password != null ? !password.equals(user.password) : user.password != null)
             return false;
         if (username != null ? !username.equals(user.username) : user.username != null)
@@ -343,7 +340,6 @@ public class User implements UserDetails, Persistable<Long> {
         int result = id != null ? id.hashCode() : 0;
         result = 31 * result + (username != null ? username.hashCode() : 0);
         result = 31 * result + (password != null ? password.hashCode() : 0);
-        result = 31 * result + (userAtoms != null ? userAtoms.hashCode() : 0);
         result = 31 * result + (role != null ? role.hashCode() : 0);
         result = 31 * result + (email != null ? email.hashCode() : 0);
         return result;
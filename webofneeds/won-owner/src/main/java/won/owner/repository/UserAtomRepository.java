@@ -24,4 +24,16 @@ import won.protocol.repository.WonRepository;
 public interface UserAtomRepository extends WonRepository<UserAtom> {
     @Query(value = "SELECT n from UserAtom n where n.uri = ?1")
     public UserAtom findByAtomUri(URI atomUri);
+
+    @Query(value = "SELECT n from User u JOIN u.userAtoms n where u.id = ?1 order by n.creationDate desc")
+    public List<UserAtom> findByUserId(Long userId);
+
+    @Query(value = "SELECT n.uri from User u JOIN u.userAtoms n where u.id = ?1")
+    public List<URI> findAtomUrisByUserId(Long userId);
+
+    @Query(value = "SELECT n from User u JOIN u.userAtoms n where u.id = ?1 and n.uri = ?2")
+    public UserAtom findByUserIdAndAtomUri(Long userId, URI atomUri);
+
+    @Query(value = "SELECT count(n) from User u JOIN u.userAtoms n where u.id = ?1 and n.uri = ?2")
+    public long countByUserIdAndAtomUri(Long userId, URI atomUri);
 }
@@ -5,9 +5,12 @@
 package won.owner.repository;
 
 import java.net.URI;
+import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 
+import won.owner.model.PushSubscription;
 import won.owner.model.User;
 import won.protocol.repository.WonRepository;
 
@@ -22,6 +25,21 @@ public interface UserRepository extends WonRepository<User> {
     @Query(value = "SELECT u from User u JOIN u.userAtoms n where n.uri = ?1")
     public User findByAtomUri(URI atomUri);
 
+    @Query(value = "SELECT u.id from User u JOIN u.userAtoms n where n.uri = ?1")
+    public Long findIdByAtomUri(URI atomUri);
+
     @Query(value = "SELECT u from User u JOIN FETCH u.keystorePasswordHolder LEFT JOIN FETCH u.recoverableKeystorePasswordHolder where u.username = ?1 ")
     public User findByUsernameWithKeystorePassword(String username);
+
+    @Query(value = "SELECT u.id from User u where u.username = ?1")
+    public Long findIdByUsername(String username);
+
+    @Query(value = "SELECT d from User u JOIN u.draftURIs d where u.id = ?1 order by d")
+    public List<URI> findDraftURIsByUserId(Long userId);
+
+    @Query(value = "SELECT d from User u JOIN u.draftURIs d where u.id = ?1 order by d")
+    public List<URI> findDraftURIsByUserId(Long userId, Pageable pageable);
+
+    @Query(value = "SELECT s from User u JOIN u.pushSubscriptions s where u.id = ?1")
+    public List<PushSubscription> findPushSubscriptionsByUserId(Long userId);
 }
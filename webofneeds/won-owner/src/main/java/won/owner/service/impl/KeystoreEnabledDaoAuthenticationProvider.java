@@ -10,9 +10,11 @@ import won.owner.model.User;
 import won.owner.repository.KeystoreHolderRepository;
 import won.owner.repository.KeystorePasswordRepository;
 import won.owner.repository.UserRepository;
+import won.owner.service.impl.UnlockedKeystoreCache.UnlockedKeystore;
 
 import javax.transaction.Transactional;
 import java.security.KeyStore;
+import java.util.Optional;
 
 public class KeystoreEnabledDaoAuthenticationProvider extends DaoAuthenticationProvider {
     @Autowired
@@ -21,6 +23,7 @@ public class KeystoreEnabledDaoAuthenticationProvider extends DaoAuthenticationP
     KeystoreHolderRepository keystoreHolderRepository;
     @Autowired
     KeystorePasswordRepository keystorePasswordRepository;
+    private UnlockedKeystoreCache unlockedKeystoreCache = new UnlockedKeystoreCache(1000, 600);
 
     @Override
     @Transactional
@@ -47,24 +50,40 @@ public class KeystoreEnabledDaoAuthenticationProvider extends DaoAuthenticationP
             // generate the keystore for the user
             user.setKeystorePasswordHolder(keystorePasswordHolder);
         }
-        String keystorePassword = keystorePasswordHolder.getPassword(password);
+        String encryptedPassword = keystorePasswordHolder.getEncryptedPassword();
         KeystoreHolder keystoreHolder = user.getKeystoreHolder();
+        // the password has been checked above, so the keystore unlocked at an earlier
+        // login can be used if neither keystore nor keystore password have changed
+        Optional<UnlockedKeystore> unlocked = keystoreHolder == null ? Optional.empty()
+                        : unlockedKeystoreCache.get(user.getId(), keystoreHolder.getKeystoreBytes())
+                                        .filter(u -> u.isUnlockedFrom(encryptedPassword));
+        String keystorePassword;
         KeyStore keystore = null;
-        if (keystoreHolder == null || keystoreHolder.getKeystoreBytes() == null
-                        || keystoreHolder.getKeystoreBytes().length == 0) {
-            // new user or legacy user that has no keystore yet: create keystoreHolder
-            keystoreHolder = new KeystoreHolder();
-            keystore = openOrCreateKeyStore(keystorePassword, auth.getName(), keystoreHolder);
-            // keystoreHolder = keystoreHolderRepository.save(keystoreHolder);
-            user.setKeystoreHolder(keystoreHolder);
+        if (unlocked.isPresent()) {
+            keystorePassword = unlocked.get().getKeystorePassword();
+            keystore = unlocked.get().getKeystore();
         } else {
-            try {
-                keystore = keystoreHolder.getKeystore(keystorePassword);
-            } catch (Exception e) {
-                throw new IllegalStateException("could not open keystore for user " + username);
+            keystorePassword = keystorePasswordHolder.getPassword(password);
+            if (keystoreHolder == null || keystoreHolder.getKeystoreBytes() == null
+                            || keystoreHolder.getKeystoreBytes().length == 0) {
+                // new user or legacy user that has no keystore yet: create keystoreHolder
+                keystoreHolder = new KeystoreHolder();
+                keystore = openOrCreateKeyStore(keystorePassword, auth.getName(), keystoreHolder);
+                // keystoreHolder = keystoreHolderRepository.save(keystoreHolder);
+                user.setKeystoreHolder(keystoreHolder);
+            } else {
+                try {
+                    keystore = keystoreHolder.getKeystore(keystorePassword);
+                } catch (Exception e) {
+                    throw new IllegalStateException("could not open keystore for user " + username);
+                }
             }
         }
-        userRepository.save(user);
+        user = userRepository.save(user);
+        if (!unlocked.isPresent()) {
+            unlockedKeystoreCache.put(user.getId(), encryptedPassword, user.getKeystoreHolder().getKeystoreBytes(),
+                            keystore, keystorePassword);
+        }
         KeystoreEnabledUserDetails ud = new KeystoreEnabledUserDetails(user, keystore, keystorePassword);
         return new UsernamePasswordAuthenticationToken(ud, null, auth.getAuthorities());
     }
@@ -86,4 +105,8 @@ public class KeystoreEnabledDaoAuthenticationProvider extends DaoAuthenticationP
     public void setKeystoreHolderRepository(KeystoreHolderRepository keystoreHolderRepository) {
         this.keystoreHolderRepository = keystoreHolderRepository;
     }
+
+    public void setUnlockedKeystoreCache(UnlockedKeystoreCache unlockedKeystoreCache) {
+        this.unlockedKeystoreCache = unlockedKeystoreCache;
+    }
 }
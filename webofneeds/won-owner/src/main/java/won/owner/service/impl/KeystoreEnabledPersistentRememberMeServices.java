@@ -3,6 +3,7 @@ package won.owner.service.impl;
 import java.security.KeyStore;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Optional;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
@@ -29,6 +30,7 @@ import won.owner.model.PersistentLogin;
 import won.owner.model.User;
 import won.owner.repository.KeystorePasswordRepository;
 import won.owner.repository.PersistentLoginRepository;
+import won.owner.service.impl.UnlockedKeystoreCache.UnlockedKeystore;
 
 public class KeystoreEnabledPersistentRememberMeServices extends PersistentTokenBasedRememberMeServices {
     public KeystoreEnabledPersistentRememberMeServices(String key, UserDetailsService userDetailsService,
@@ -43,6 +45,7 @@ public class KeystoreEnabledPersistentRememberMeServices extends PersistentToken
     private KeystorePasswordRepository keystorePasswordRepository;
     @Autowired
     private PlatformTransactionManager platformTransactionManager;
+    private UnlockedKeystoreCache unlockedKeystoreCache = new UnlockedKeystoreCache(1000, 600);
 
     @Transactional
     protected UserDetails processAutoLoginCookie(String[] cookieTokens, HttpServletRequest request,
@@ -109,11 +112,19 @@ public class KeystoreEnabledPersistentRememberMeServices extends PersistentToken
                 User userDetails = (User) getUserDetailsService().loadUserByUsername(persistentLogin.getUsername());
                 KeystoreHolder keystoreHolder = userDetails.getKeystoreHolder();
                 KeyStore keystore;
-                try {
-                    keystore = keystoreHolder.getKeystore(keystorePassword);
-                } catch (Exception e) {
-                    logger.error("Failed to load keystore: ", e);
-                    throw new RememberMeAuthenticationException("Autologin failed due to data access problem");
+                Optional<UnlockedKeystore> unlocked = unlockedKeystoreCache.get(userDetails.getId(),
+                                keystoreHolder.getKeystoreBytes());
+                if (unlocked.isPresent() && unlocked.get().hasPassword(keystorePassword)) {
+                    keystore = unlocked.get().getKeystore();
+                } else {
+                    try {
+                        keystore = keystoreHolder.getKeystore(keystorePassword);
+                    } catch (Exception e) {
+                        logger.error("Failed to load keystore: ", e);
+                        throw new RememberMeAuthenticationException("Autologin failed due to data access problem");
+                    }
+                    unlockedKeystoreCache.put(userDetails.getId(), null, keystoreHolder.getKeystoreBytes(), keystore,
+                                    keystorePassword);
                 }
                 KeystoreEnabledUserDetails keystoreEnabledUserDetails = new KeystoreEnabledUserDetails(
                                 (User) userDetails, keystore, keystorePassword);
@@ -192,4 +203,8 @@ public class KeystoreEnabledPersistentRememberMeServices extends PersistentToken
         }
         return null;
     }
+
+    public void setUnlockedKeystoreCache(UnlockedKeystoreCache unlockedKeystoreCache) {
+        this.unlockedKeystoreCache = unlockedKeystoreCache;
+    }
 }
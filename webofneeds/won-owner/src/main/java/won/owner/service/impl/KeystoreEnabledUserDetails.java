@@ -2,20 +2,52 @@ package won.owner.service.impl;
 
 import java.security.KeyStore;
 import java.util.Collection;
+import java.util.Collections;
 
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import won.owner.model.KeystoreHolder;
 import won.owner.model.User;
 
+/**
+ * The principal kept in the http session for an authenticated user. It only
+ * holds what is needed to identify the user and to use the user's keystore, not
+ * the User entity, so that the memory used per session does not depend on the
+ * number of atoms and drafts of the user. Use the user id to load the User or
+ * its atoms when needed.
+ */
 public class KeystoreEnabledUserDetails implements UserDetails {
-    private User delegate;
-    private KeyStore keyStore;
-    private String password;
+    private final Long userId;
+    private final String username;
+    private final String userPassword;
+    private final Collection<? extends GrantedAuthority> authorities;
+    private final boolean accountNonExpired;
+    private final boolean accountNonLocked;
+    private final boolean credentialsNonExpired;
+    private final boolean enabled;
+    private final boolean anonymous;
+    private final Long keystoreHolderId;
+    private final KeyStore keyStore;
+    private final String password;
 
-    public KeystoreEnabledUserDetails(User delegate, KeyStore keyStore, String password) {
+    /**
+     * Copies the data needed for the session from the user, which must be loaded
+     * with its keystore holder.
+     */
+    public KeystoreEnabledUserDetails(User user, KeyStore keyStore, String password) {
         super();
-        this.delegate = delegate;
+        this.userId = user.getId();
+        this.username = user.getUsername();
+        this.userPassword = user.getPassword();
+        this.authorities = Collections.unmodifiableCollection(user.getAuthorities());
+        this.accountNonExpired = user.isAccountNonExpired();
+        this.accountNonLocked = user.isAccountNonLocked();
+        this.credentialsNonExpired = user.isCredentialsNonExpired();
+        this.enabled = user.isEnabled();
+        this.anonymous = user.isAnonymous();
+        KeystoreHolder keystoreHolder = user.getKeystoreHolder();
+        this.keystoreHolderId = keystoreHolder == null ? null : keystoreHolder.getId();
         this.keyStore = keyStore;
         this.password = password;
     }
@@ -28,35 +60,43 @@ public class KeystoreEnabledUserDetails implements UserDetails {
         return password;
     }
 
-    public User getUser() {
-        return delegate;
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getKeystoreHolderId() {
+        return keystoreHolderId;
+    }
+
+    public boolean isAnonymous() {
+        return anonymous;
     }
 
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return delegate.getAuthorities();
+        return authorities;
     }
 
     public String getPassword() {
-        return delegate.getPassword();
+        return userPassword;
     }
 
     public String getUsername() {
-        return delegate.getUsername();
+        return username;
     }
 
     public boolean isAccountNonExpired() {
-        return delegate.isAccountNonExpired();
+        return accountNonExpired;
     }
 
     public boolean isAccountNonLocked() {
-        return delegate.isAccountNonLocked();
+        return accountNonLocked;
     }
 
     public boolean isCredentialsNonExpired() {
-        return delegate.isCredentialsNonExpired();
+        return credentialsNonExpired;
     }
 
     public boolean isEnabled() {
-        return delegate.isEnabled();
+        return enabled;
     }
 }
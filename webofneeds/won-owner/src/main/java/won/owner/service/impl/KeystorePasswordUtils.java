@@ -4,6 +4,14 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
 import java.util.Base64;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKeyFactory;
@@ -15,17 +23,51 @@ import javax.xml.bind.DatatypeConverter;
 public class KeystorePasswordUtils {
     public static final String CURRENT_VERSION = "v1";
     public static final int KEYSTORE_PASSWORD_BYTES = 32;
+    private static final long KEY_DERIVATION_TIMEOUT_SECONDS = 30;
+    // the crypto primitives are expensive to create and not thread safe, so each
+    // thread keeps its own
+    private static final ThreadLocal<SecretKeyFactory> secretKeyFactories = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("PBKDF2WithHmacSHA1 is not available", e);
+        }
+    });
+    private static final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("AES/CFB8/NoPadding");
+        } catch (Exception e) {
+            throw new IllegalStateException("AES/CFB8/NoPadding is not available", e);
+        }
+    });
+    private static final ThreadLocal<SecureRandom> secureRandoms = ThreadLocal.withInitial(() -> {
+        try {
+            return SecureRandom.getInstance("SHA1PRNG");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA1PRNG is not available", e);
+        }
+    });
+    // the key derivations run on their own threads, at most one per core, so a
+    // burst of logins cannot occupy all request threads with PBKDF2
+    private static final ExecutorService keyDerivationExecutor = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "keystore-key-derivation-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
 
     public static String encryptPassword(String password, String key) {
         try {
             int iterations = 1000;
             byte[] salt = getSalt();
             byte[] iv = getSalt();
-            PBEKeySpec spec = new PBEKeySpec(key.toCharArray(), salt, iterations, 256);
-            SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-            byte[] encryptionKey = skf.generateSecret(spec).getEncoded();
-            SecretKeySpec secretKey = new SecretKeySpec(encryptionKey, "AES");
-            Cipher cipher = Cipher.getInstance(secretKey.getAlgorithm() + "/CFB8/NoPadding");
+            SecretKeySpec secretKey = new SecretKeySpec(deriveKey(key.toCharArray(), salt, iterations, 256), "AES");
+            Cipher cipher = ciphers.get();
             cipher.init(Cipher.ENCRYPT_MODE, secretKey, new IvParameterSpec(iv));
             return CURRENT_VERSION + ":" + iterations + ":" + toHex(salt) + ":" + toHex(iv) + ":"
                             + toHex(cipher.doFinal(password.getBytes()));
@@ -46,11 +88,8 @@ public class KeystorePasswordUtils {
             byte[] salt = fromHex(saltStr);
             byte[] iv = fromHex(ivStr);
             byte[] toDecrypt = fromHex(toDecryptStr);
-            PBEKeySpec spec = new PBEKeySpec(key.toCharArray(), salt, iterations, 256);
-            SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-            byte[] encryptionKey = skf.generateSecret(spec).getEncoded();
-            SecretKeySpec secretKey = new SecretKeySpec(encryptionKey, "AES");
-            Cipher cipher = Cipher.getInstance(secretKey.getAlgorithm() + "/CFB8/NoPadding");
+            SecretKeySpec secretKey = new SecretKeySpec(deriveKey(key.toCharArray(), salt, iterations, 256), "AES");
+            Cipher cipher = ciphers.get();
             cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(iv));
             return new String(cipher.doFinal(toDecrypt));
         } catch (Exception e) {
@@ -71,9 +110,7 @@ public class KeystorePasswordUtils {
             int iterations = 1000;
             char[] chars = toHash.toCharArray();
             byte[] salt = getSalt();
-            PBEKeySpec spec = new PBEKeySpec(chars, salt, iterations, hashLength);
-            SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-            byte[] hash = skf.generateSecret(spec).getEncoded();
+            byte[] hash = deriveKey(chars, salt, iterations, hashLength);
             return CURRENT_VERSION + ":" + iterations + ":" + toHex(salt) + ":"
                             + Base64.getEncoder().encodeToString(hash);
         } catch (Exception e) {
@@ -90,19 +127,42 @@ public class KeystorePasswordUtils {
      */
     public static String generatePassword(int passwordBytes) {
         try {
-            SecureRandom sr = SecureRandom.getInstance("SHA1PRNG");
             byte[] password = new byte[passwordBytes];
-            sr.nextBytes(password);
+            secureRandoms.get().nextBytes(password);
             return Base64.getEncoder().encodeToString(password);
         } catch (Exception e) {
             throw new RuntimeException("could not generate key", e);
         }
     }
 
-    private static byte[] getSalt() throws NoSuchAlgorithmException {
-        SecureRandom sr = SecureRandom.getInstance("SHA1PRNG");
+    /**
+     * Derives a key with PBKDF2WithHmacSHA1 on the key derivation executor, waiting
+     * for the result.
+     */
+    private static byte[] deriveKey(char[] password, byte[] salt, int iterations, int keyLength)
+                    throws InvalidKeySpecException {
+        Future<byte[]> key = keyDerivationExecutor.submit(() -> secretKeyFactories.get()
+                        .generateSecret(new PBEKeySpec(password, salt, iterations, keyLength)).getEncoded());
+        try {
+            return key.get(KEY_DERIVATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            key.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while deriving key", e);
+        } catch (TimeoutException e) {
+            key.cancel(true);
+            throw new IllegalStateException("timed out deriving key", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvalidKeySpecException) {
+                throw (InvalidKeySpecException) e.getCause();
+            }
+            throw new IllegalStateException("could not derive key", e.getCause());
+        }
+    }
+
+    private static byte[] getSalt() {
         byte[] salt = new byte[16];
-        sr.nextBytes(salt);
+        secureRandoms.get().nextBytes(salt);
         return salt;
     }
 
@@ -6,8 +6,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import won.cryptography.service.keystore.AbstractKeyStoreService;
-import won.owner.model.User;
+import won.owner.model.KeystoreHolder;
 import won.owner.repository.KeystoreHolderRepository;
+import won.owner.repository.UserRepository;
 import won.protocol.util.AuthenticationThreadLocal;
 
 import java.security.KeyStore;
@@ -18,6 +19,8 @@ public class PerUserKeystoreService extends AbstractKeyStoreService {
     private AuthenticationManager authenticationManager;
     @Autowired
     private KeystoreHolderRepository keystoreHolderRepository;
+    @Autowired
+    private UserRepository userRepository;
 
     private String getUsername() {
         return (String) SecurityContextHolder.getContext().getAuthentication().getName();
@@ -34,10 +37,6 @@ public class PerUserKeystoreService extends AbstractKeyStoreService {
         return (KeystoreEnabledUserDetails) getAuthentication().getPrincipal();
     }
 
-    private User getUser() {
-        return ((KeystoreEnabledUserDetails) getAuthentication().getPrincipal()).getUser();
-    }
-
     @Override
     public String getPassword() {
         return getKeystoreUserDetails().getKeystorePassword();
@@ -53,10 +52,11 @@ public class PerUserKeystoreService extends AbstractKeyStoreService {
         // fetch keystore and password from details in the authentication object
         KeystoreEnabledUserDetails keystoreUserDetails = getKeystoreUserDetails();
         // write it back to the db
-        User user = getUser();
-        user.getKeystoreHolder().setKeystore(keystoreUserDetails.getKeyStore(),
-                        keystoreUserDetails.getKeystorePassword());
-        keystoreHolderRepository.save(user.getKeystoreHolder());
+        KeystoreHolder keystoreHolder = keystoreUserDetails.getKeystoreHolderId() != null
+                        ? keystoreHolderRepository.findOne(keystoreUserDetails.getKeystoreHolderId())
+                        : userRepository.findOne(keystoreUserDetails.getUserId()).getKeystoreHolder();
+        keystoreHolder.setKeystore(keystoreUserDetails.getKeyStore(), keystoreUserDetails.getKeystorePassword());
+        keystoreHolderRepository.save(keystoreHolder);
     }
 
     public void setAuthenticationManager(AuthenticationManager authenticationManager) {
@@ -66,4 +66,8 @@ public class PerUserKeystoreService extends AbstractKeyStoreService {
     public void setKeystoreHolderRepository(KeystoreHolderRepository keystoreHolderRepository) {
         this.keystoreHolderRepository = keystoreHolderRepository;
     }
+
+    public void setUserRepository(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
 }
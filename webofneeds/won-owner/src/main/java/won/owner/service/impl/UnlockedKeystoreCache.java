@@ -0,0 +1,108 @@
+package won.owner.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps the keystores of recently logged in users unlocked, so that logins and
+ * remember-me logins shortly after each other do not have to decrypt the
+ * keystore password and load the keystore again. The number of entries is
+ * bounded and entries expire a fixed time after they were unlocked.
+ * <p>
+ * An entry is only used as long as it matches the data it was unlocked from:
+ * the keystore bytes and, where the caller needs the keystore password, the
+ * encrypted password it was decrypted from. If the keystore has been saved or
+ * the password has been changed since, the entry is ignored and replaced by the
+ * caller.
+ */
+public class UnlockedKeystoreCache {
+    private final Cache<Long, UnlockedKeystore> cache;
+
+    /**
+     * @param maxEntries the maximum number of unlocked keystores
+     * @param timeToLiveSeconds the time after which an unlocked keystore is removed
+     */
+    public UnlockedKeystoreCache(int maxEntries, long timeToLiveSeconds) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maxEntries)
+                        .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS).build();
+    }
+
+    /**
+     * Returns the unlocked keystore of the user if it was unlocked from the
+     * specified keystore bytes.
+     */
+    public Optional<UnlockedKeystore> get(Long userId, byte[] keystoreBytes) {
+        if (userId == null || keystoreBytes == null) {
+            return Optional.empty();
+        }
+        UnlockedKeystore unlocked = cache.getIfPresent(userId);
+        if (unlocked == null || !Arrays.equals(unlocked.keystoreBytes, keystoreBytes)) {
+            return Optional.empty();
+        }
+        return Optional.of(unlocked);
+    }
+
+    /**
+     * Remembers the unlocked keystore of the user.
+     *
+     * @param encryptedPassword the encrypted keystore password of the user the
+     * keystore password was decrypted from, or null if it was decrypted with
+     * another key (e.g. a remember-me unlock key)
+     * @param keystoreBytes the keystore bytes the keystore was loaded from
+     */
+    public void put(Long userId, String encryptedPassword, byte[] keystoreBytes, KeyStore keystore,
+                    String keystorePassword) {
+        if (userId == null || keystoreBytes == null) {
+            return;
+        }
+        cache.put(userId, new UnlockedKeystore(encryptedPassword, keystoreBytes.clone(), keystore,
+                        keystorePassword));
+    }
+
+    public static class UnlockedKeystore {
+        private final String encryptedPassword;
+        private final byte[] keystoreBytes;
+        private final KeyStore keystore;
+        private final String keystorePassword;
+
+        private UnlockedKeystore(String encryptedPassword, byte[] keystoreBytes, KeyStore keystore,
+                        String keystorePassword) {
+            this.encryptedPassword = encryptedPassword;
+            this.keystoreBytes = keystoreBytes;
+            this.keystore = keystore;
+            this.keystorePassword = keystorePassword;
+        }
+
+        /**
+         * Returns true if the keystore password was decrypted from the specified
+         * encrypted password.
+         */
+        public boolean isUnlockedFrom(String encryptedPassword) {
+            return this.encryptedPassword != null && this.encryptedPassword.equals(encryptedPassword);
+        }
+
+        /**
+         * Returns true if the specified password is the keystore password.
+         */
+        public boolean hasPassword(String keystorePassword) {
+            return keystorePassword != null && MessageDigest.isEqual(
+                            this.keystorePassword.getBytes(StandardCharsets.UTF_8),
+                            keystorePassword.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public KeyStore getKeystore() {
+            return keystore;
+        }
+
+        public String getKeystorePassword() {
+            return keystorePassword;
+        }
+    }
+}
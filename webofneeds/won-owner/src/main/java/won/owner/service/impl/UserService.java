@@ -1,6 +1,7 @@
 package won.owner.service.impl;
 
 import java.lang.invoke.MethodHandles;
+import java.net.URI;
 import java.security.Key;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
@@ -15,6 +16,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -27,6 +29,7 @@ import won.owner.model.KeystoreHolder;
 import won.owner.model.KeystorePasswordHolder;
 import won.owner.model.PushSubscription;
 import won.owner.model.User;
+import won.owner.model.UserAtom;
 import won.owner.repository.EmailVerificationRepository;
 import won.owner.repository.KeystorePasswordRepository;
 import won.owner.repository.PersistentLoginRepository;
@@ -376,4 +379,54 @@ public class UserService {
         user.addPushSubscription(subscription);
         return save(user);
     }
+
+    /**
+     * Adds the atom to the atoms of the user. The atoms of the user are loaded
+     * within the transaction only.
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void addUserAtom(Long userId, UserAtom userAtom) {
+        User user = userRepository.findOne(userId);
+        user.addUserAtom(userAtom);
+        userRepository.save(user);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void removeUserAtom(Long userId, UserAtom userAtom) {
+        User user = userRepository.findOne(userId);
+        user.removeUserAtom(userAtom);
+        userRepository.save(user);
+    }
+
+    public List<PushSubscription> getPushSubscriptions(Long userId) {
+        return userRepository.findPushSubscriptionsByUserId(userId);
+    }
+
+    /**
+     * Returns the user's draft URIs, without loading the user.
+     */
+    public List<URI> getDraftURIs(Long userId) {
+        return userRepository.findDraftURIsByUserId(userId);
+    }
+
+    /**
+     * Returns one page of the user's draft URIs, without loading the user.
+     */
+    public List<URI> getDraftURIs(Long userId, int page, int pageSize) {
+        return userRepository.findDraftURIsByUserId(userId, new PageRequest(page, pageSize));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void addDraftURI(Long userId, URI draftURI) {
+        User user = userRepository.findOne(userId);
+        user.getDraftURIs().add(draftURI);
+        userRepository.save(user);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void removeDraftURI(Long userId, URI draftURI) {
+        User user = userRepository.findOne(userId);
+        user.getDraftURIs().remove(draftURI);
+        userRepository.save(user);
+    }
 }
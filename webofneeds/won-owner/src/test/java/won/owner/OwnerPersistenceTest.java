@@ -1,13 +1,20 @@
 package won.owner;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ContextConfiguration;
@@ -94,7 +101,33 @@ public class OwnerPersistenceTest {
         t2.join();
     }
 
-    private void createUserWithAtom(URI atomUri, String email) {
+    @Test
+    public void test_User_projections() throws Exception {
+        URI atomUri = URI.create("some:/atom.uri");
+        User user = createUserWithAtom(atomUri, "user@example.com");
+        Assert.assertEquals(Collections.singletonList(atomUri),
+                        userAtomRepository.findAtomUrisByUserId(user.getId()));
+        Assert.assertEquals(1, userAtomRepository.findByUserId(user.getId()).size());
+        Assert.assertEquals(atomUri, userAtomRepository.findByUserIdAndAtomUri(user.getId(), atomUri).getUri());
+        Assert.assertNull(userAtomRepository.findByUserIdAndAtomUri(user.getId(), URI.create("some:/other.uri")));
+        Assert.assertEquals(1, userAtomRepository.countByUserIdAndAtomUri(user.getId(), atomUri));
+        Assert.assertEquals(user.getId(), userRepository.findIdByAtomUri(atomUri));
+        Assert.assertEquals(user.getId(), userRepository.findIdByUsername("user@example.com"));
+        user.setDrafts(new HashSet<>(Arrays.asList(URI.create("some:/draft1"), URI.create("some:/draft2"),
+                        URI.create("some:/draft3"))));
+        userRepository.save(user);
+        List<URI> drafts = new ArrayList<>(
+                        userRepository.findDraftURIsByUserId(user.getId(), new PageRequest(0, 2)));
+        Assert.assertEquals(2, drafts.size());
+        drafts.addAll(userRepository.findDraftURIsByUserId(user.getId(), new PageRequest(1, 2)));
+        Assert.assertEquals(3, drafts.size());
+        // the pages do not overlap
+        Assert.assertEquals(user.getDraftURIs(), new HashSet<>(drafts));
+        Assert.assertEquals(drafts, userRepository.findDraftURIsByUserId(user.getId()));
+        Assert.assertTrue(userRepository.findPushSubscriptionsByUserId(user.getId()).isEmpty());
+    }
+
+    private User createUserWithAtom(URI atomUri, String email) {
         UserAtom a = new UserAtom();
         a.setUri(atomUri);
         a = userAtomRepository.save(a);
@@ -127,6 +160,6 @@ public class OwnerPersistenceTest {
         user.setKeystoreHolder(keystoreHolder);
         user = userRepository.save(user);
         user.addUserAtom(a);
-        user = userRepository.save(user);
+        return userRepository.save(user);
     }
 }
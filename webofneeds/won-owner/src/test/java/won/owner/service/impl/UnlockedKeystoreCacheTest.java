@@ -0,0 +1,151 @@
+package won.owner.service.impl;
+
+import java.security.KeyStore;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import won.owner.model.KeystoreHolder;
+import won.owner.model.KeystorePasswordHolder;
+
+public class UnlockedKeystoreCacheTest {
+    private static final Long USER_ID = 1L;
+
+    @BeforeClass
+    public static void addProvider() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    public void testEntryIsOnlyUsedForUnchangedData() throws Exception {
+        UnlockedKeystoreCache cache = new UnlockedKeystoreCache(10, 60);
+        String keystorePassword = KeystorePasswordUtils.generatePassword(KeystorePasswordUtils.KEYSTORE_PASSWORD_BYTES);
+        KeystorePasswordHolder passwordHolder = new KeystorePasswordHolder();
+        passwordHolder.setPassword(keystorePassword, "secret");
+        KeystoreHolder keystoreHolder = new KeystoreHolder();
+        KeyStore keystore = keystoreHolder.getKeystore(keystorePassword);
+        byte[] keystoreBytes = keystoreHolder.getKeystoreBytes();
+        cache.put(USER_ID, passwordHolder.getEncryptedPassword(), keystoreBytes, keystore, keystorePassword);
+        UnlockedKeystoreCache.UnlockedKeystore unlocked = cache.get(USER_ID, keystoreBytes.clone()).get();
+        Assert.assertSame(keystore, unlocked.getKeystore());
+        Assert.assertTrue(unlocked.isUnlockedFrom(passwordHolder.getEncryptedPassword()));
+        Assert.assertTrue(unlocked.hasPassword(keystorePassword));
+        Assert.assertFalse(unlocked.hasPassword(keystorePassword + "x"));
+        Assert.assertFalse(cache.get(2L, keystoreBytes).isPresent());
+        // password changed: same keystore password, new encryption
+        passwordHolder.setPassword(keystorePassword, "new secret");
+        Assert.assertFalse(unlocked.isUnlockedFrom(passwordHolder.getEncryptedPassword()));
+        // keystore saved
+        keystoreHolder.setKeystore(keystore, keystorePassword);
+        Assert.assertFalse(cache.get(USER_ID, keystoreHolder.getKeystoreBytes()).isPresent());
+    }
+
+    @Test
+    public void testEntriesExpire() throws Exception {
+        UnlockedKeystoreCache cache = new UnlockedKeystoreCache(10, 1);
+        byte[] keystoreBytes = new byte[] { 1, 2, 3 };
+        cache.put(USER_ID, "encrypted", keystoreBytes, null, "password");
+        Assert.assertTrue(cache.get(USER_ID, keystoreBytes).isPresent());
+        Thread.sleep(1100);
+        Assert.assertFalse(cache.get(USER_ID, keystoreBytes).isPresent());
+    }
+
+    @Test
+    public void testConcurrentEncryption() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String password = "password" + i;
+                String key = "key" + i;
+                results.add(executor.submit(() -> password
+                                .equals(KeystorePasswordUtils.decryptPassword(
+                                                KeystorePasswordUtils.encryptPassword(password, key), key))));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Simulates a burst of logins of the same users: unlocking the keystore each
+     * time vs. using the cache.
+     */
+    @Ignore
+    @Test
+    public void testSpeedOfLoginBurst() throws Exception {
+        int users = 50;
+        int loginsPerUser = 20;
+        int threads = 16;
+        List<KeystorePasswordHolder> passwordHolders = new ArrayList<>();
+        List<KeystoreHolder> keystoreHolders = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            String keystorePassword = KeystorePasswordUtils
+                            .generatePassword(KeystorePasswordUtils.KEYSTORE_PASSWORD_BYTES);
+            KeystorePasswordHolder passwordHolder = new KeystorePasswordHolder();
+            passwordHolder.setPassword(keystorePassword, "password" + i);
+            passwordHolders.add(passwordHolder);
+            KeystoreHolder keystoreHolder = new KeystoreHolder();
+            keystoreHolder.getKeystore(keystorePassword);
+            keystoreHolders.add(keystoreHolder);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (boolean useCache : new boolean[] { false, true }) {
+                UnlockedKeystoreCache cache = new UnlockedKeystoreCache(users, 600);
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                long start = System.nanoTime();
+                for (int login = 0; login < loginsPerUser; login++) {
+                    for (int i = 0; i < users; i++) {
+                        Long userId = (long) i;
+                        KeystorePasswordHolder passwordHolder = passwordHolders.get(i);
+                        KeystoreHolder keystoreHolder = keystoreHolders.get(i);
+                        String password = "password" + i;
+                        executor.execute(() -> unlock(userId, password, passwordHolder, keystoreHolder,
+                                        useCache ? cache : null));
+                    }
+                }
+                executor.shutdown();
+                executor.awaitTermination(10, TimeUnit.MINUTES);
+                System.out.println(String.format("%d logins on %d threads %s cache: %d ms", users * loginsPerUser,
+                                threads, useCache ? "with" : "without", (System.nanoTime() - start) / 1000000));
+            }
+        }
+    }
+
+    private KeyStore unlock(Long userId, String password, KeystorePasswordHolder passwordHolder,
+                    KeystoreHolder keystoreHolder, UnlockedKeystoreCache cache) {
+        if (cache != null) {
+            Optional<UnlockedKeystoreCache.UnlockedKeystore> unlocked = cache
+                            .get(userId, keystoreHolder.getKeystoreBytes())
+                            .filter(u -> u.isUnlockedFrom(passwordHolder.getEncryptedPassword()));
+            if (unlocked.isPresent()) {
+                return unlocked.get().getKeystore();
+            }
+        }
+        try {
+            String keystorePassword = passwordHolder.getPassword(password);
+            KeyStore keystore = keystoreHolder.getKeystore(keystorePassword);
+            if (cache != null) {
+                cache.put(userId, passwordHolder.getEncryptedPassword(), keystoreHolder.getKeystoreBytes(), keystore,
+                                keystorePassword);
+            }
+            return keystore;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package won.utils.batch;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timer for large numbers of timeouts that are mostly cancelled or rescheduled
+ * before they expire. Timeouts are kept in a wheel of buckets, one bucket per
+ * tick; scheduling and cancelling a timeout is O(1) and does not lock, and one
+ * thread advances the wheel tick by tick, expiring the timeouts of the current
+ * bucket. Timeouts expire up to one tick late.
+ * <p>
+ * The tasks are executed on the timer thread, so they must be short (e.g. hand
+ * the actual work over to an executor).
+ */
+public class HashedWheelTimer {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    // max number of new timeouts moved into the wheel per tick, so a burst of
+    // timeouts cannot stall the wheel
+    private static final int MAX_NEW_TIMEOUTS_PER_TICK = 100000;
+    private final long tickNanos;
+    private final List<Timeout>[] wheel;
+    private final int mask;
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final long startTime = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean stopped = false;
+    private long tick = 0;
+
+    public HashedWheelTimer(String threadName) {
+        this(threadName, Duration.ofMillis(10), 512);
+    }
+
+    /**
+     * @param threadName the name of the timer thread
+     * @param tickDuration the duration of a tick, i.e. the precision of the timer
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer(String threadName, Duration tickDuration, int ticksPerWheel) {
+        this.tickNanos = Math.max(1, tickDuration.toNanos());
+        int size = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.mask = size - 1;
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Schedules the task to be executed after the delay.
+     *
+     * @return the timeout, which can be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("timer has been stopped");
+        }
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + unit.toNanos(delay));
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the timer, pending timeouts do not expire.
+     */
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (!stopped) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+            transferNewTimeouts();
+            expireTimeouts(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferNewTimeouts() {
+        for (int i = 0; i < MAX_NEW_TIMEOUTS_PER_TICK; i++) {
+            Timeout timeout = newTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            // never schedule into a bucket we have already passed
+            long expiryTick = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+            wheel[(int) (expiryTick & mask)].add(timeout);
+        }
+    }
+
+    private void expireTimeouts(List<Timeout> bucket) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                bucket.set(kept++, timeout);
+                continue;
+            }
+            timeout.expire();
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+
+    public static class Timeout {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+        // only accessed by the timer thread
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout.
+         *
+         * @return false if the timeout has already expired or been cancelled
+         */
+        public boolean cancel() {
+            return state.compareAndSet(ST_INIT, ST_CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.warn("timer task threw an exception", t);
+            }
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package won.utils.batch;
+
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import won.utils.batch.BatchingConsumer.Config;
+import won.utils.batch.BatchingConsumer.ConfigBuilder;
+
+/**
+ * Variant of the {@link BatchingConsumer} for many keys that are used
+ * concurrently, with the same configuration options and behaviour. The
+ * differences are:
+ * <ul>
+ * <li>The batches are spread over shards, each with its own lock, so threads
+ * accepting items for different keys rarely contend.</li>
+ * <li>The timeouts (<code>maxBatchAge</code>, <code>maxItemInterval</code>,
+ * <code>minChunkInterval</code>) are kept in a {@link HashedWheelTimer}. A
+ * batch has at most one pending item timeout, which is moved to the new
+ * deadline when it expires instead of being cancelled and rescheduled for each
+ * accepted item.</li>
+ * <li>The consumers are invoked on a flush executor, not on the timer thread.
+ * Consumers of different keys run in parallel, the chunks of one key are
+ * consumed one after the other, in order.</li>
+ * <li>Empty chunks are not consumed, and the deduplication filter of a batch is
+ * only created for the first deduplication key.</li>
+ * </ul>
+ */
+public class ShardedBatchingConsumer<K, I> {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private final Shard<K, I>[] shards;
+    private final int shardMask;
+    private final HashedWheelTimer timer;
+    private final Executor flushExecutor;
+    private final Object drainMonitor = new Object();
+    private int activeDrains = 0; // number of batches being drained, guarded by drainMonitor
+    private Config defaultConfig = new ConfigBuilder()
+                    .maxBatchAge(Duration.ofHours(1))
+                    .maxItemInterval(Duration.ofMinutes(5))
+                    .consumeFirst(false)
+                    .maxBatchSize(200)
+                    .minChunkInterval(Duration.ofMinutes(15))
+                    .build();
+
+    public ShardedBatchingConsumer() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public ShardedBatchingConsumer(Config config) {
+        this();
+        this.defaultConfig = config;
+    }
+
+    public ShardedBatchingConsumer(int shardCount) {
+        this(shardCount, new HashedWheelTimer("batching-consumer-timer"),
+                        Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                                        new DaemonThreadFactory("batching-consumer-flush-")));
+    }
+
+    /**
+     * @param shardCount the number of shards, rounded up to a power of two
+     * @param timer the timer for the batch timeouts
+     * @param flushExecutor the executor invoking the consumers
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedBatchingConsumer(int shardCount, HashedWheelTimer timer, Executor flushExecutor) {
+        int size = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard<>();
+        }
+        this.shardMask = size - 1;
+        this.timer = timer;
+        this.flushExecutor = flushExecutor;
+    }
+
+    public void accept(K key, I item, Consumer<Collection<I>> consumer) {
+        accept(key, item, Optional.empty(), consumer, Optional.empty());
+    }
+
+    public void accept(K key, I item, Consumer<Collection<I>> consumer, Config config) {
+        accept(key, item, Optional.empty(), consumer, Optional.ofNullable(config));
+    }
+
+    public void accept(K key, I item, String deduplicationKey, Consumer<Collection<I>> consumer) {
+        accept(key, item, Optional.ofNullable(deduplicationKey), consumer, Optional.empty());
+    }
+
+    public void accept(K key, I item, String deduplicationKey, Consumer<Collection<I>> consumer, Config config) {
+        accept(key, item, Optional.ofNullable(deduplicationKey), consumer, Optional.ofNullable(config));
+    }
+
+    /**
+     * Offer an item, see
+     * {@link BatchingConsumer#accept(Object, Object, Optional, Consumer, Optional)}.
+     */
+    public void accept(K key, I item, Optional<String> deduplicationKey, Consumer<Collection<I>> consumer,
+                    Optional<Config> config) {
+        Shard<K, I> shard = shardFor(key);
+        synchronized (shard) {
+            Batch<K, I> batch = shard.batches.get(key);
+            if (batch == null) {
+                batch = new Batch<>(key, shard, consumer, config.orElse(defaultConfig));
+                shard.batches.put(key, batch);
+                scheduleMaxAge(batch);
+            }
+            add(batch, item, deduplicationKey);
+        }
+    }
+
+    /**
+     * Invokes the consumers for all batches immediately and removes all batches.
+     * The consumers are invoked on the calling thread, unless chunks of the batch
+     * are being consumed on the flush executor at the same time; the remaining
+     * items are then consumed there, after those chunks. Returns when all chunks
+     * have been consumed, including the chunks consumed on the flush executor.
+     */
+    public void consumeAllBatches() {
+        for (Shard<K, I> shard : shards) {
+            List<Batch<K, I>> toDrain = new ArrayList<>();
+            synchronized (shard) {
+                for (Batch<K, I> batch : shard.batches.values()) {
+                    close(batch);
+                    if (!batch.items.isEmpty() && queueChunk(batch, takeItems(batch))) {
+                        toDrain.add(batch);
+                    }
+                }
+                shard.batches.clear();
+            }
+            for (Batch<K, I> batch : toDrain) {
+                drain(batch);
+            }
+        }
+        awaitDrains();
+    }
+
+    /**
+     * Waits until no batch is being drained.
+     */
+    private void awaitDrains() {
+        synchronized (drainMonitor) {
+            while (activeDrains > 0) {
+                try {
+                    drainMonitor.wait();
+                } catch (InterruptedException e) {
+                    logger.warn("interrupted while waiting for {} batches to be consumed", activeDrains);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the batch, the consumer is not invoked.
+     */
+    public void cancelBatch(K key) {
+        Shard<K, I> shard = shardFor(key);
+        synchronized (shard) {
+            Batch<K, I> batch = shard.batches.remove(key);
+            if (batch != null) {
+                close(batch);
+                batch.items.clear();
+            }
+        }
+    }
+
+    /**
+     * Stops the timer and the flush executor; pending timeouts do not fire any
+     * more. Call {@link #consumeAllBatches()} first to consume the remaining
+     * items.
+     */
+    public void shutdown() {
+        timer.stop();
+        if (flushExecutor instanceof ExecutorService) {
+            ((ExecutorService) flushExecutor).shutdown();
+        }
+    }
+
+    public int getBatchCount() {
+        int count = 0;
+        for (Shard<K, I> shard : shards) {
+            synchronized (shard) {
+                count += shard.batches.size();
+            }
+        }
+        return count;
+    }
+
+    private Shard<K, I> shardFor(K key) {
+        int h = key.hashCode();
+        // spread the high bits, as HashMap does
+        return shards[(h ^ (h >>> 16)) & shardMask];
+    }
+
+    // the following methods are called with the lock of the batch's shard held
+
+    private void add(Batch<K, I> batch, I item, Optional<String> deduplicationKey) {
+        if (deduplicationKey.isPresent()) {
+            if (batch.duplicateFilter == null) {
+                batch.duplicateFilter = BloomFilter.create(Funnels.stringFunnel(Charsets.UTF_8), 100, 0.01);
+            } else if (batch.duplicateFilter.mightContain(deduplicationKey.get())) {
+                return;
+            }
+            batch.duplicateFilter.put(deduplicationKey.get());
+        }
+        long now = System.nanoTime();
+        batch.lastItemNanos = now;
+        batch.lastChunkNanos = now;
+        if (batch.config.consumeFirst.orElse(false) && !batch.firstAdded) {
+            batch.firstAdded = true;
+            enqueueChunk(batch, Collections.singletonList(item));
+            return;
+        }
+        batch.firstAdded = true;
+        batch.items.add(item);
+        if (batch.config.maxBatchSize.isPresent() && batch.items.size() >= batch.config.maxBatchSize.get()) {
+            enqueueChunk(batch);
+        } else if (batch.itemTimeout == null && batch.config.maxItemInterval.isPresent()) {
+            scheduleItemTimeout(batch, batch.config.maxItemInterval.get().toNanos());
+        }
+    }
+
+    private void scheduleMaxAge(Batch<K, I> batch) {
+        if (!batch.config.maxBatchAge.isPresent()) {
+            return;
+        }
+        batch.ageTimeout = timer.schedule(() -> {
+            synchronized (batch.shard) {
+                if (batch.closed) {
+                    return;
+                }
+                batch.shard.batches.remove(batch.key, batch);
+                close(batch);
+                enqueueChunk(batch);
+            }
+        }, batch.config.maxBatchAge.get().toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void scheduleItemTimeout(Batch<K, I> batch, long delayNanos) {
+        batch.itemTimeout = timer.schedule(() -> onItemTimeout(batch), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void onItemTimeout(Batch<K, I> batch) {
+        synchronized (batch.shard) {
+            batch.itemTimeout = null;
+            if (batch.closed || batch.items.isEmpty()) {
+                return;
+            }
+            // consume when maxItemInterval has passed since the last item and
+            // minChunkInterval since the last chunk, else move the timeout
+            long deadline = batch.lastItemNanos + batch.config.maxItemInterval.get().toNanos();
+            if (batch.config.minChunkInterval.isPresent()) {
+                deadline = Math.max(deadline, batch.lastChunkNanos + batch.config.minChunkInterval.get().toNanos());
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                scheduleItemTimeout(batch, remaining);
+            } else {
+                enqueueChunk(batch);
+            }
+        }
+    }
+
+    private void close(Batch<K, I> batch) {
+        batch.closed = true;
+        if (batch.ageTimeout != null) {
+            batch.ageTimeout.cancel();
+        }
+        if (batch.itemTimeout != null) {
+            batch.itemTimeout.cancel();
+            batch.itemTimeout = null;
+        }
+    }
+
+    private void enqueueChunk(Batch<K, I> batch) {
+        if (!batch.items.isEmpty()) {
+            enqueueChunk(batch, takeItems(batch));
+        }
+    }
+
+    private void enqueueChunk(Batch<K, I> batch, List<I> chunk) {
+        if (queueChunk(batch, chunk)) {
+            try {
+                flushExecutor.execute(() -> drain(batch));
+            } catch (RejectedExecutionException e) {
+                // shut down, consume on the calling thread so no items are lost
+                logger.debug("flush executor rejected batch {}, consuming it on the calling thread", batch.key);
+                drain(batch);
+            }
+        }
+    }
+
+    private List<I> takeItems(Batch<K, I> batch) {
+        List<I> chunk = new ArrayList<>(batch.items);
+        batch.items.clear();
+        return chunk;
+    }
+
+    /**
+     * Queues the chunk for consumption.
+     *
+     * @return true if the caller has to drain the batch, false if the batch is
+     * already being drained
+     */
+    private boolean queueChunk(Batch<K, I> batch, List<I> chunk) {
+        batch.lastChunkNanos = System.nanoTime();
+        batch.chunks.add(chunk);
+        if (batch.draining) {
+            return false;
+        }
+        batch.draining = true;
+        synchronized (drainMonitor) {
+            activeDrains++;
+        }
+        return true;
+    }
+
+    /**
+     * Consumes the queued chunks of the batch, one after the other.
+     */
+    private void drain(Batch<K, I> batch) {
+        while (true) {
+            Collection<I> chunk;
+            synchronized (batch.shard) {
+                chunk = batch.chunks.poll();
+                if (chunk == null) {
+                    batch.draining = false;
+                    drainFinished();
+                    return;
+                }
+            }
+            try {
+                batch.consumer.accept(chunk);
+            } catch (RuntimeException e) {
+                logger.warn("consumer of batch {} threw an exception", batch.key, e);
+            }
+        }
+    }
+
+    private void drainFinished() {
+        synchronized (drainMonitor) {
+            if (--activeDrains == 0) {
+                drainMonitor.notifyAll();
+            }
+        }
+    }
+
+    private static class Shard<K, I> {
+        private final Map<K, Batch<K, I>> batches = new HashMap<>();
+    }
+
+    /**
+     * State of a batch, guarded by the lock of its shard.
+     */
+    private static class Batch<K, I> {
+        private final K key;
+        private final Shard<K, I> shard;
+        private final Consumer<Collection<I>> consumer;
+        private final Config config;
+        private final List<I> items = new ArrayList<>();
+        private final Deque<Collection<I>> chunks = new ArrayDeque<>(1);
+        private boolean draining = false;
+        private boolean firstAdded = false;
+        private boolean closed = false;
+        private long lastItemNanos;
+        private long lastChunkNanos;
+        private HashedWheelTimer.Timeout ageTimeout;
+        private HashedWheelTimer.Timeout itemTimeout;
+        private BloomFilter<CharSequence> duplicateFilter;
+
+        Batch(K key, Shard<K, I> shard, Consumer<Collection<I>> consumer, Config config) {
+            this.key = key;
+            this.shard = shard;
+            this.consumer = consumer;
+            this.config = config;
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package won.utils.batch;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import won.utils.batch.BatchingConsumer.Config;
+import won.utils.batch.BatchingConsumer.ConfigBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class ShardedBatchingConsumerTest {
+    @Test
+    public void testConsumeAllOneKey() {
+        ShardedBatchingConsumer<String, String> c = new ShardedBatchingConsumer<>();
+        AtomicInteger counter = new AtomicInteger(0);
+        c.accept("key1", "first item", items -> counter.addAndGet(items.size()));
+        c.accept("key1", "second item", items -> counter.set(-1));
+        c.accept("key1", "third item", items -> counter.set(-2));
+        Assert.assertEquals(0, counter.get());
+        c.consumeAllBatches();
+        Assert.assertEquals(3, counter.get());
+        Assert.assertEquals(0, c.getBatchCount());
+    }
+
+    @Test
+    public void testConsumeAllTwoKeysTwoDuplicates() {
+        ShardedBatchingConsumer<String, String> c = new ShardedBatchingConsumer<>();
+        AtomicInteger counter1 = new AtomicInteger(0);
+        AtomicInteger counter2 = new AtomicInteger(0);
+        c.accept("key1", "first item", "a", items -> counter1.addAndGet(items.size()));
+        c.accept("key2", "second item", "a", items -> counter2.addAndGet(items.size()));
+        c.accept("key1", "third item", "a", items -> counter1.addAndGet(items.size()));
+        c.accept("key2", "fourth item", "b", items -> counter2.addAndGet(items.size()));
+        c.accept("key2", "fifth item", null, items -> counter2.addAndGet(items.size()));
+        Assert.assertEquals(2, c.getBatchCount());
+        c.consumeAllBatches();
+        Assert.assertEquals(1, counter1.get());
+        Assert.assertEquals(3, counter2.get());
+    }
+
+    @Test
+    public void testCancelOneConsumeAllTwoKeys() {
+        ShardedBatchingConsumer<String, String> c = new ShardedBatchingConsumer<>();
+        AtomicInteger counter1 = new AtomicInteger(0);
+        AtomicInteger counter2 = new AtomicInteger(0);
+        c.accept("key1", "first item", items -> counter1.addAndGet(items.size()));
+        c.accept("key2", "second item", items -> counter2.addAndGet(items.size()));
+        c.cancelBatch("key2");
+        c.accept("key1", "third item", items -> counter1.addAndGet(items.size()));
+        c.accept("key2", "fourth item", items -> counter2.addAndGet(items.size()));
+        c.consumeAllBatches();
+        Assert.assertEquals(2, counter1.get());
+        Assert.assertEquals(1, counter2.get());
+    }
+
+    @Test
+    public void testConsumeFirst() throws Exception {
+        ShardedBatchingConsumer<String, String> c = new ShardedBatchingConsumer<>();
+        AtomicInteger counter = new AtomicInteger(0);
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch all = new CountDownLatch(2);
+        Config conf = new ConfigBuilder().consumeFirst(true).build();
+        Consumer<Collection<String>> consumer = items -> {
+            counter.addAndGet(items.size());
+            first.countDown();
+            all.countDown();
+        };
+        c.accept("key1", "first item", consumer, conf);
+        Assert.assertTrue(first.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, counter.get());
+        c.accept("key1", "second item", consumer, conf);
+        c.accept("key1", "third item", consumer, conf);
+        Assert.assertEquals(1, counter.get());
+        c.consumeAllBatches();
+        Assert.assertTrue(all.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(3, counter.get());
+    }
+
+    @Test
+    public void testMaxBatchSize() throws Exception {
+        ShardedBatchingConsumer<String, String> c = new ShardedBatchingConsumer<>();
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(2);
+        Config conf = new ConfigBuilder().maxBatchSize(2).build();
+        Consumer<Collection<String>> consumer = items -> {
+            sizes.add(items.size());
+            latch.countDown();
+        };
+        for (int i = 0; i < 5; i++) {
+            c.accept("key1", "item " + i, consumer, conf);
+        }
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, c.getBatchCount());
+        c.consumeAllBatches();
+        Thread.sleep(50);
+        Assert.assertEquals(5, sizes.stream().mapToInt(Integer::intValue).sum());
+        Assert.assertEquals(3, sizes.size());
+    }
+
+    @Test
+    public void testMaxBatchAge() throws Exception {
+        ShardedBatchingConsumer<String, String> c = new ShardedBatchingConsumer<>();
+        AtomicInteger counter1 = new AtomicInteger(0);
+        AtomicInteger counter2 = new AtomicInteger(0);
+        CountDownLatch latch = new CountDownLatch(2);
+        Config conf = new ConfigBuilder().maxBatchAge(Duration.ofMillis(100)).build();
+        c.accept("key1", "first item", items -> countItems(counter1, latch, items), conf);
+        c.accept("key2", "second item", items -> countItems(counter2, latch, items), conf);
+        c.accept("key2", "third item", items -> countItems(counter2, latch, items), conf);
+        Assert.assertEquals(0, counter1.get());
+        Assert.assertEquals(0, counter2.get());
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, counter1.get());
+        Assert.assertEquals(2, counter2.get());
+        Assert.assertEquals(0, c.getBatchCount());
+    }
+
+    @Test
+    public void testMaxItemInterval() throws Exception {
+        ShardedBatchingConsumer<String, String> c = new ShardedBatchingConsumer<>();
+        AtomicInteger counter = new AtomicInteger(0);
+        CountDownLatch latch = new CountDownLatch(1);
+        Config conf = new ConfigBuilder().maxItemInterval(Duration.ofMillis(100)).build();
+        c.accept("key1", "first item", items -> countItems(counter, latch, items), conf);
+        Thread.sleep(60);
+        // moves the deadline
+        c.accept("key1", "second item", items -> countItems(counter, latch, items), conf);
+        Thread.sleep(60);
+        Assert.assertEquals(0, counter.get());
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(2, counter.get());
+    }
+
+    @Test
+    public void testMaxItemIntervalMinChunkInterval() throws Exception {
+        ShardedBatchingConsumer<String, String> c = new ShardedBatchingConsumer<>();
+        AtomicInteger counter = new AtomicInteger(0);
+        CountDownLatch latch = new CountDownLatch(1);
+        Config conf = new ConfigBuilder()
+                        .maxItemInterval(Duration.ofMillis(50))
+                        .minChunkInterval(Duration.ofMillis(200))
+                        .build();
+        c.accept("key1", "first item", items -> countItems(counter, latch, items), conf);
+        Thread.sleep(100);
+        Assert.assertEquals(0, counter.get());
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void testChunksOfOneKeyAreConsumedInOrder() throws Exception {
+        ShardedBatchingConsumer<String, Integer> c = new ShardedBatchingConsumer<>();
+        List<Integer> consumed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(1000);
+        Config conf = new ConfigBuilder().maxBatchSize(1).build();
+        for (int i = 0; i < 1000; i++) {
+            c.accept("key1", i, items -> {
+                consumed.addAll(items);
+                items.forEach(item -> latch.countDown());
+            }, conf);
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(Integer.valueOf(i), consumed.get(i));
+        }
+    }
+
+    @Test
+    public void testConsumeAllWaitsForChunksConsumedOnFlushExecutor() throws Exception {
+        ShardedBatchingConsumer<String, String> c = new ShardedBatchingConsumer<>();
+        List<String> consumed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch consuming = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        Config conf = new ConfigBuilder().maxBatchSize(1).build();
+        Consumer<Collection<String>> consumer = items -> {
+            consuming.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumed.addAll(items);
+        };
+        // the first chunk blocks the flush executor, the second is queued behind it
+        c.accept("key1", "first item", consumer, conf);
+        Assert.assertTrue(consuming.await(1, TimeUnit.SECONDS));
+        c.accept("key1", "second item", consumer, conf);
+        Thread consumeAll = new Thread(c::consumeAllBatches);
+        consumeAll.start();
+        consumeAll.join(100);
+        Assert.assertTrue(consumeAll.isAlive());
+        proceed.countDown();
+        consumeAll.join(1000);
+        Assert.assertFalse(consumeAll.isAlive());
+        Assert.assertEquals(2, consumed.size());
+        c.shutdown();
+    }
+
+    @Test
+    public void testTimer() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", Duration.ofMillis(1), 8);
+        try {
+            CountDownLatch latch = new CountDownLatch(1);
+            AtomicInteger cancelledRuns = new AtomicInteger(0);
+            HashedWheelTimer.Timeout cancelled = timer.schedule(cancelledRuns::incrementAndGet, 20,
+                            TimeUnit.MILLISECONDS);
+            // more than one round of the wheel
+            HashedWheelTimer.Timeout timeout = timer.schedule(latch::countDown, 30, TimeUnit.MILLISECONDS);
+            Assert.assertTrue(cancelled.cancel());
+            Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+            Assert.assertTrue(timeout.isExpired());
+            Assert.assertFalse(timeout.cancel());
+            Assert.assertTrue(cancelled.isCancelled());
+            Assert.assertEquals(0, cancelledRuns.get());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Compares the throughput of the {@link BatchingConsumer} and the
+     * {@link ShardedBatchingConsumer} for 100k keys, accepted by several threads.
+     */
+    @Ignore
+    @Test
+    public void testSpeed() throws Exception {
+        int keys = 100000;
+        int itemsPerKey = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Config conf = new ConfigBuilder()
+                        .maxBatchAge(Duration.ofSeconds(10))
+                        .maxItemInterval(Duration.ofSeconds(5))
+                        .maxBatchSize(itemsPerKey / 2)
+                        .build();
+        for (int round = 0; round < 3; round++) {
+            BatchingConsumer<Integer, Integer> batchingConsumer = new BatchingConsumer<>();
+            AtomicLong consumed = new AtomicLong();
+            long millis = runConcurrently(threads, keys, itemsPerKey,
+                            (key, item) -> batchingConsumer.accept(key, item,
+                                            items -> consumed.addAndGet(items.size()), conf));
+            batchingConsumer.consumeAllBatches();
+            System.out.println(String.format("BatchingConsumer: %d items for %d keys in %d ms", keys * itemsPerKey,
+                            keys, millis));
+            ShardedBatchingConsumer<Integer, Integer> sharded = new ShardedBatchingConsumer<>();
+            AtomicLong shardedConsumed = new AtomicLong();
+            millis = runConcurrently(threads, keys, itemsPerKey, (key, item) -> sharded.accept(key, item,
+                            items -> shardedConsumed.addAndGet(items.size()), conf));
+            sharded.consumeAllBatches();
+            sharded.shutdown();
+            System.out.println(String.format("ShardedBatchingConsumer: %d items for %d keys in %d ms",
+                            keys * itemsPerKey, keys, millis));
+        }
+    }
+
+    private long runConcurrently(int threads, int keys, int itemsPerKey, ItemSink sink) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.currentTimeMillis();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            new Thread(() -> {
+                for (int item = 0; item < itemsPerKey; item++) {
+                    for (int key = offset; key < keys; key += threads) {
+                        sink.accept(key, item);
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        return System.currentTimeMillis() - start;
+    }
+
+    private interface ItemSink {
+        void accept(int key, int item);
+    }
+
+    private void countItems(AtomicInteger counter, CountDownLatch latch, Collection<String> items) {
+        counter.addAndGet(items.size());
+        latch.countDown();
+    }
+}
@@ -686,6 +686,8 @@ public class AgreementProtocolState {
         if (logger.isDebugEnabled()) {
             messages.stream().forEach(m -> logger.debug(m.toString()));
         }
+        // index the paths between the messages for isAfter()
+        ConversationReachabilityIndex.build(messages);
         // link messages to deliveryChains
         deliveryChains = messages.stream().map(m -> {
             if (logger.isDebugEnabled()) {
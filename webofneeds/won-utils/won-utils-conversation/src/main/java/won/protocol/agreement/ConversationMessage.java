@@ -61,6 +61,8 @@ public class ConversationMessage implements Comparable<ConversationMessage> {
     private OptionalInt maxDistanceToOwnRoot = OptionalInt.empty();
     private OptionalInt order = OptionalInt.empty();
     private Set<ConversationMessage> knownMessagesOnPathToRoot = new HashSet<ConversationMessage>();
+    private ConversationReachabilityIndex reachabilityIndex;
+    private int reachabilityId;
     private Set<MessageEffect> effects = Collections.EMPTY_SET;
 
     public ConversationMessage(URI messageURI) {
@@ -286,6 +288,19 @@ public class ConversationMessage implements Comparable<ConversationMessage> {
         return this.getMessageURI().compareTo(other.getMessageURI());
     }
 
+    void setOrder(int order) {
+        this.order = OptionalInt.of(order);
+    }
+
+    void setReachabilityIndex(ConversationReachabilityIndex reachabilityIndex, int reachabilityId) {
+        this.reachabilityIndex = reachabilityIndex;
+        this.reachabilityId = reachabilityId;
+    }
+
+    int getReachabilityId() {
+        return reachabilityId;
+    }
+
     public int getOrder() {
         if (this.order.isPresent()) {
             return this.order.getAsInt();
@@ -340,10 +355,46 @@ public class ConversationMessage implements Comparable<ConversationMessage> {
     public boolean isAfter(ConversationMessage other) {
         if (this == other)
             return false;
+        if (this.reachabilityIndex != null && this.reachabilityIndex == other.reachabilityIndex) {
+            return isAfterIndexed(other);
+        }
         boolean foundIt = isAfter(other, new HashSet<>());
         return foundIt;
     }
 
+    /**
+     * Same as {@link #isAfter(ConversationMessage, Set)}, but looks up the paths
+     * between messages in the reachability index instead of searching them.
+     */
+    private boolean isAfterIndexed(ConversationMessage other) {
+        if (this == other) {
+            return true;
+        }
+        if (this.getOrder() < other.getOrder()) {
+            // as in the search: the other message can't be on the path to root
+            return false;
+        }
+        if (isHeadOfDeliveryChain()) {
+            ConversationMessage resp = getRespondingToInverseRef();
+            ConversationMessage remoteResp = getRemotelyRespondingToInverseRef();
+            if (resp == null && remoteResp == null) {
+                return false;
+            }
+            return (resp == null || resp.isAfterIndexed(other))
+                            || (remoteResp == null || remoteResp.isAfterIndexed(other));
+        }
+        if (other.isHeadOfDeliveryChain()) {
+            ConversationMessage otherResp = other.getRespondingToInverseRef();
+            ConversationMessage otherRemoteResp = other.getRemotelyRespondingToInverseRef();
+            if (otherResp == null && otherRemoteResp == null) {
+                return false;
+            }
+            return (otherResp == null || isAfterIndexed(otherResp))
+                            && (otherRemoteResp == null || isAfterIndexed(otherRemoteResp));
+        }
+        return reachabilityIndex.reaches(this, other);
+    }
+
     private boolean isAfter(ConversationMessage other, Set<ConversationMessage> visited) {
         boolean result = false;
         if (this == other) {
@@ -4,13 +4,19 @@ import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.function.BiConsumer;
 
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.util.iterator.ExtendedIterator;
 import org.apache.jena.vocabulary.RDF;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,7 +24,6 @@ import org.slf4j.LoggerFactory;
 import won.protocol.message.WonMessageDirection;
 import won.protocol.message.WonMessageType;
 import won.protocol.message.WonMessageUtils;
-import won.protocol.util.RdfUtils;
 import won.protocol.vocabulary.WONAGR;
 import won.protocol.vocabulary.WONMOD;
 import won.protocol.vocabulary.WONMSG;
@@ -29,16 +34,50 @@ public class ConversationMessagesReader {
 
     public static Map<URI, ConversationMessage> readConversationMessages(Dataset dataset) {
         Map<URI, ConversationMessage> messages = new HashMap<>();
-        RdfUtils.toStatementStream(dataset).forEach(stmt -> {
-            BiConsumer<Map<URI, ConversationMessage>, Statement> handler = handlers.get(stmt.getPredicate());
-            if (logger.isDebugEnabled()) {
-                logger.debug("handling {} with handler {}", stmt, handler);
-            }
-            if (handler != null) {
-                handler.accept(messages, stmt);
+        addConversationMessages(dataset, messages);
+        return messages;
+    }
+
+    /**
+     * Reads the messages in the dataset into an existing map of messages, e.g. to
+     * add a new message (<code>wonMessage.getCompleteDataset()</code>) to the
+     * messages read earlier. Messages already in the map are updated. References
+     * between the messages are not resolved.
+     * <p>
+     * Only the statements with one of the handled predicates are read, using the
+     * predicate index of each graph, so message content and signatures are not
+     * iterated. Content graphs are not skipped as a whole as they may contain
+     * agreement protocol statements (e.g. <code>agr:proposes</code>).
+     *
+     * @param dataset the dataset containing the messages
+     * @param messages the map to add the messages to
+     */
+    public static void addConversationMessages(Dataset dataset, Map<URI, ConversationMessage> messages) {
+        addConversationMessages(dataset.getDefaultModel(), messages);
+        for (Iterator<String> names = dataset.listNames(); names.hasNext();) {
+            addConversationMessages(dataset.getNamedModel(names.next()), messages);
+        }
+    }
+
+    private static void addConversationMessages(Model model, Map<URI, ConversationMessage> messages) {
+        if (model == null || model.isEmpty()) {
+            return;
+        }
+        Graph graph = model.getGraph();
+        handlers.forEach((property, handler) -> {
+            ExtendedIterator<Triple> it = graph.find(Node.ANY, property.asNode(), Node.ANY);
+            try {
+                while (it.hasNext()) {
+                    Statement stmt = model.asStatement(it.next());
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("handling {} with handler {}", stmt, handler);
+                    }
+                    handler.accept(messages, stmt);
+                }
+            } finally {
+                it.close();
             }
         });
-        return messages;
     }
 
     private static URI getUri(RDFNode node) {
@@ -0,0 +1,218 @@
+package won.protocol.agreement;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers if a message of a conversation can be reached from another one in
+ * constant time, without searching the conversation. Built once per
+ * conversation, after all references between the messages have been set.
+ * <p>
+ * The messages form a graph in which a delivery chain head points to its
+ * responses and every other message points to its previous messages (see
+ * {@link ConversationMessage#isAfter(ConversationMessage)}). The messages are
+ * numbered in topological order (oldest first) and the graph is split into
+ * chains of messages that each point to the one before them in the chain. For
+ * each message, the index stores the latest position reachable in each chain.
+ * As all earlier messages of a chain are reachable from a later one, a message
+ * <code>b</code> is reachable from <code>a</code> iff the latest position
+ * reachable from <code>a</code> in the chain of <code>b</code> is not before
+ * <code>b</code>. The index needs one int per message and chain; conversations
+ * with cycles or too many concurrent messages are not indexed.
+ */
+public class ConversationReachabilityIndex {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    // limit for messages * chains, i.e. 64 MB of labels
+    static final long MAX_LABEL_ENTRIES = 16 * 1024 * 1024;
+    private final int chainCount;
+    private final int[] chainOfMessage;
+    private final int[] positionInChain;
+    // labels[id * chainCount + chain]: latest position reachable in the chain, -1
+    // if none
+    private final int[] labels;
+    private final boolean[] reachesAll;
+
+    private ConversationReachabilityIndex(int chainCount, int[] chainOfMessage, int[] positionInChain, int[] labels,
+                    boolean[] reachesAll) {
+        this.chainCount = chainCount;
+        this.chainOfMessage = chainOfMessage;
+        this.positionInChain = positionInChain;
+        this.labels = labels;
+        this.reachesAll = reachesAll;
+    }
+
+    /**
+     * Builds the index for the messages of a conversation and attaches it to the
+     * messages. Also sets the order of the messages (see
+     * {@link ConversationMessage#getOrder()}), computed without recursion.
+     *
+     * @param messages all messages of the conversation
+     * @return the index, or empty if the conversation cannot be indexed (the
+     * messages then keep searching the conversation)
+     */
+    public static Optional<ConversationReachabilityIndex> build(Collection<ConversationMessage> messages) {
+        ConversationMessage[] msgs = messages.toArray(new ConversationMessage[messages.size()]);
+        int n = msgs.length;
+        Map<ConversationMessage, Integer> ids = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            ids.put(msgs[i], i);
+        }
+        int[][] successors = new int[n][];
+        // heads with only one response are after all other messages of order 0
+        boolean[] reachesAll = new boolean[n];
+        int[] predecessorCount = new int[n];
+        for (int i = 0; i < n; i++) {
+            ConversationMessage msg = msgs[i];
+            Collection<ConversationMessage> targets;
+            if (msg.isHeadOfDeliveryChain()) {
+                targets = new ArrayList<>(2);
+                if (msg.getRespondingToInverseRef() != null) {
+                    targets.add(msg.getRespondingToInverseRef());
+                }
+                if (msg.getRemotelyRespondingToInverseRef() != null) {
+                    targets.add(msg.getRemotelyRespondingToInverseRef());
+                }
+                reachesAll[i] = targets.size() == 1;
+            } else {
+                targets = msg.getPreviousRefs();
+            }
+            successors[i] = new int[targets.size()];
+            int j = 0;
+            for (ConversationMessage target : targets) {
+                Integer id = ids.get(target);
+                if (id == null) {
+                    logger.debug("not indexing conversation: message {} refers to unknown message {}",
+                                    msg.getMessageURI(), target.getMessageURI());
+                    return Optional.empty();
+                }
+                successors[i][j++] = id;
+                predecessorCount[id]++;
+            }
+        }
+        int[][] predecessors = new int[n][];
+        for (int i = 0; i < n; i++) {
+            predecessors[i] = new int[predecessorCount[i]];
+        }
+        int[] filled = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int s : successors[i]) {
+                predecessors[s][filled[s]++] = i;
+            }
+        }
+        // topological order, oldest first: a message follows all its successors
+        int[] topological = new int[n];
+        int[] unprocessedSuccessors = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            unprocessedSuccessors[i] = successors[i].length;
+            if (unprocessedSuccessors[i] == 0) {
+                topological[count++] = i;
+            }
+        }
+        for (int next = 0; next < count; next++) {
+            for (int p : predecessors[topological[next]]) {
+                if (--unprocessedSuccessors[p] == 0) {
+                    topological[count++] = p;
+                }
+            }
+        }
+        if (count < n) {
+            logger.debug("not indexing conversation: message references contain a cycle");
+            return Optional.empty();
+        }
+        // orders as in ConversationMessage.getOrder(), and chains
+        int[] order = new int[n];
+        int[] chainOfMessage = new int[n];
+        int[] positionInChain = new int[n];
+        int[] chainEnds = new int[n];
+        int chainCount = 0;
+        for (int t = 0; t < n; t++) {
+            int i = topological[t];
+            ConversationMessage msg = msgs[i];
+            if (msg.isHeadOfDeliveryChain()) {
+                ConversationMessage resp = msg.getRespondingToInverseRef();
+                ConversationMessage remoteResp = msg.getRemotelyRespondingToInverseRef();
+                order[i] = Math.min(resp == null ? 0 : order[ids.get(resp)],
+                                remoteResp == null ? 0 : order[ids.get(remoteResp)]);
+            } else {
+                int min = Integer.MAX_VALUE;
+                for (int s : successors[i]) {
+                    min = Math.min(min, order[s] + 1);
+                }
+                order[i] = successors[i].length == 0 ? 0 : min;
+            }
+            chainOfMessage[i] = -1;
+            for (int s : successors[i]) {
+                if (chainEnds[chainOfMessage[s]] == s) {
+                    chainOfMessage[i] = chainOfMessage[s];
+                    positionInChain[i] = positionInChain[s] + 1;
+                    break;
+                }
+            }
+            if (chainOfMessage[i] == -1) {
+                chainOfMessage[i] = chainCount++;
+                positionInChain[i] = 0;
+            }
+            chainEnds[chainOfMessage[i]] = i;
+        }
+        for (int i = 0; i < n; i++) {
+            msgs[i].setOrder(order[i]);
+        }
+        if ((long) n * chainCount > MAX_LABEL_ENTRIES) {
+            logger.debug("not indexing conversation: {} messages in {} chains", n, chainCount);
+            return Optional.empty();
+        }
+        int[] labels = new int[n * chainCount];
+        for (int t = 0; t < n; t++) {
+            int i = topological[t];
+            int offset = i * chainCount;
+            Arrays.fill(labels, offset, offset + chainCount, -1);
+            for (int s : successors[i]) {
+                reachesAll[i] |= reachesAll[s];
+                int successorOffset = s * chainCount;
+                for (int c = 0; c < chainCount; c++) {
+                    if (labels[successorOffset + c] > labels[offset + c]) {
+                        labels[offset + c] = labels[successorOffset + c];
+                    }
+                }
+            }
+            labels[offset + chainOfMessage[i]] = positionInChain[i];
+        }
+        ConversationReachabilityIndex index = new ConversationReachabilityIndex(chainCount, chainOfMessage,
+                        positionInChain, labels, reachesAll);
+        for (int i = 0; i < n; i++) {
+            msgs[i].setReachabilityIndex(index, i);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("indexed conversation of {} messages in {} chains", n, chainCount);
+        }
+        return Optional.of(index);
+    }
+
+    /**
+     * Indicates if the message <code>to</code> is reachable from the message
+     * <code>from</code>. Reaching a delivery chain head with only one response
+     * counts as reaching all messages of order 0, like in
+     * {@link ConversationMessage#isAfter(ConversationMessage)}, where such a head
+     * has order 0 and so is not after messages of a higher order. Both messages
+     * must have been indexed by this index.
+     */
+    boolean reaches(ConversationMessage from, ConversationMessage to) {
+        int f = from.getReachabilityId();
+        int t = to.getReachabilityId();
+        return (reachesAll[f] && to.getOrder() == 0)
+                        || labels[f * chainCount + chainOfMessage[t]] >= positionInChain[t];
+    }
+
+    public int getChainCount() {
+        return chainCount;
+    }
+}
@@ -0,0 +1,181 @@
+package won.protocol.agreement.petrinet;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, index-based form of a petri net, for evaluating it without
+ * building the PIPE object model. Places, transitions and token types are
+ * identified by their index; a marking is an <code>int[]</code> holding the
+ * number of tokens of each token type in each place, at
+ * <code>place * tokenTypeCount + tokenType</code>. The semantics follow PIPE's
+ * animator: a transition is enabled if its input places hold enough tokens, its
+ * inhibitor places are empty and its output places have enough capacity left;
+ * of the enabled transitions, only the immediate ones with the highest priority
+ * are reported if there are any.
+ * <p>
+ * Instances are shared between threads (see {@link PetriNetLoader}), the state
+ * of a net is kept in the marking.
+ */
+public class CompiledPetriNet {
+    private final String[] placeIds;
+    private final String[] transitionIds;
+    private final Map<String, Integer> transitionIndex;
+    private final int tokenTypeCount;
+    private final int[] initialMarking;
+    // 0 means unbounded
+    private final int[] capacities;
+    // per transition: the arcs' places and their weights, at arc * tokenTypeCount +
+    // tokenType
+    private final int[][] inputPlaces;
+    private final int[][] inputWeights;
+    private final int[][] inhibitorPlaces;
+    private final int[][] outputPlaces;
+    private final int[][] outputWeights;
+    private final boolean[] timed;
+    private final int[] priorities;
+
+    CompiledPetriNet(String[] placeIds, String[] transitionIds, int tokenTypeCount, int[] initialMarking,
+                    int[] capacities, int[][] inputPlaces, int[][] inputWeights, int[][] inhibitorPlaces,
+                    int[][] outputPlaces, int[][] outputWeights, boolean[] timed, int[] priorities) {
+        this.placeIds = placeIds;
+        this.transitionIds = transitionIds;
+        this.tokenTypeCount = tokenTypeCount;
+        this.initialMarking = initialMarking;
+        this.capacities = capacities;
+        this.inputPlaces = inputPlaces;
+        this.inputWeights = inputWeights;
+        this.inhibitorPlaces = inhibitorPlaces;
+        this.outputPlaces = outputPlaces;
+        this.outputWeights = outputWeights;
+        this.timed = timed;
+        this.priorities = priorities;
+        this.transitionIndex = new HashMap<>();
+        for (int i = 0; i < transitionIds.length; i++) {
+            transitionIndex.put(transitionIds[i], i);
+        }
+    }
+
+    public int getPlaceCount() {
+        return placeIds.length;
+    }
+
+    public int getTransitionCount() {
+        return transitionIds.length;
+    }
+
+    public String getPlaceId(int place) {
+        return placeIds[place];
+    }
+
+    public String getTransitionId(int transition) {
+        return transitionIds[transition];
+    }
+
+    /**
+     * Returns the index of the transition with the specified id, or -1 if there is
+     * no such transition.
+     */
+    public int getTransitionIndex(String transitionId) {
+        Integer index = transitionIndex.get(transitionId);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns a new copy of the initial marking.
+     */
+    public int[] getInitialMarking() {
+        return initialMarking.clone();
+    }
+
+    /**
+     * Returns the number of tokens of all types in the place.
+     */
+    public int getTokens(int place, int[] marking) {
+        int tokens = 0;
+        for (int i = place * tokenTypeCount; i < (place + 1) * tokenTypeCount; i++) {
+            tokens += marking[i];
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the enabled transitions in the marking.
+     */
+    public BitSet getEnabledTransitions(int[] marking) {
+        BitSet enabled = new BitSet(transitionIds.length);
+        boolean anyImmediate = false;
+        int maxPriority = Integer.MIN_VALUE;
+        for (int t = 0; t < transitionIds.length; t++) {
+            if (isEnabled(t, marking)) {
+                enabled.set(t);
+                if (!timed[t]) {
+                    anyImmediate = true;
+                    maxPriority = Math.max(maxPriority, priorities[t]);
+                }
+            }
+        }
+        if (anyImmediate) {
+            for (int t = enabled.nextSetBit(0); t >= 0; t = enabled.nextSetBit(t + 1)) {
+                if (timed[t] || priorities[t] < maxPriority) {
+                    enabled.clear(t);
+                }
+            }
+        }
+        return enabled;
+    }
+
+    /**
+     * Fires the transition, changing the marking. The caller has to make sure the
+     * transition is enabled.
+     */
+    public void fire(int transition, int[] marking) {
+        int[] places = inputPlaces[transition];
+        int[] weights = inputWeights[transition];
+        for (int arc = 0; arc < places.length; arc++) {
+            for (int token = 0; token < tokenTypeCount; token++) {
+                marking[places[arc] * tokenTypeCount + token] -= weights[arc * tokenTypeCount + token];
+            }
+        }
+        places = outputPlaces[transition];
+        weights = outputWeights[transition];
+        for (int arc = 0; arc < places.length; arc++) {
+            for (int token = 0; token < tokenTypeCount; token++) {
+                marking[places[arc] * tokenTypeCount + token] += weights[arc * tokenTypeCount + token];
+            }
+        }
+    }
+
+    private boolean isEnabled(int transition, int[] marking) {
+        int[] places = inputPlaces[transition];
+        int[] weights = inputWeights[transition];
+        for (int arc = 0; arc < places.length; arc++) {
+            for (int token = 0; token < tokenTypeCount; token++) {
+                if (marking[places[arc] * tokenTypeCount + token] < weights[arc * tokenTypeCount + token]) {
+                    return false;
+                }
+            }
+        }
+        for (int place : inhibitorPlaces[transition]) {
+            if (getTokens(place, marking) > 0) {
+                return false;
+            }
+        }
+        places = outputPlaces[transition];
+        weights = outputWeights[transition];
+        for (int arc = 0; arc < places.length; arc++) {
+            int capacity = capacities[places[arc]];
+            if (capacity > 0) {
+                int produced = 0;
+                for (int token = 0; token < tokenTypeCount; token++) {
+                    produced += weights[arc * tokenTypeCount + token];
+                }
+                if (getTokens(places[arc], marking) + produced > capacity) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
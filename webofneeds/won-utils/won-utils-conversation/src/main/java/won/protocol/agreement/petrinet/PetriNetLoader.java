@@ -4,12 +4,29 @@ import uk.ac.imperial.pipe.io.PetriNetIO;
 import uk.ac.imperial.pipe.io.PetriNetIOImpl;
 import uk.ac.imperial.pipe.models.petrinet.PetriNet;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 public class PetriNetLoader {
+    private static final int MAX_CACHED_NETS = 256;
+    // compiled nets by the hash of their PNML, shared by all loaders as the same
+    // definitions are loaded for every state request
+    private static final Map<String, CompiledPetriNet> compiledNets = Collections
+                    .synchronizedMap(new LinkedHashMap<String, CompiledPetriNet>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, CompiledPetriNet> eldest) {
+                            return size() > MAX_CACHED_NETS;
+                        }
+                    });
     private Optional<PetriNetIOImpl> petriNetIO = Optional.empty();
 
     private synchronized PetriNetIO getPetriNetIO() {
@@ -47,4 +64,39 @@ public class PetriNetLoader {
             }
         }
     }
+
+    /**
+     * Compiles the base64 encoded PNML, returning the cached net if the same PNML
+     * has been compiled before.
+     */
+    public CompiledPetriNet compileBase64EncodedPNML(String base64EncodedPNML) {
+        return compile(Base64.getDecoder().decode(base64EncodedPNML));
+    }
+
+    /**
+     * Compiles the PNML, returning the cached net if the same PNML has been
+     * compiled before.
+     */
+    public CompiledPetriNet compilePNML(String pnml) {
+        return compile(pnml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CompiledPetriNet compile(byte[] pnmlBytes) {
+        String hash = hash(pnmlBytes);
+        CompiledPetriNet net = compiledNets.get(hash);
+        if (net == null) {
+            // may be compiled twice by concurrent requests, which does no harm
+            net = PnmlParser.parse(new ByteArrayInputStream(pnmlBytes));
+            compiledNets.put(hash, net);
+        }
+        return net;
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
@@ -1,25 +1,23 @@
 package won.protocol.agreement.petrinet;
 
 import java.net.URI;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
-
-import uk.ac.imperial.pipe.animation.PetriNetAnimator;
-import uk.ac.imperial.pipe.models.petrinet.PetriNet;
 
 public class PetriNetState {
-    // the petri net
-    private PetriNet petriNet;
-    // the animator (allowing us to change the pn's state)
-    private PetriNetAnimator petriNetAnimator;
+    // the petri net, shared with other states of the same net
+    private CompiledPetriNet petriNet;
+    // the state of the petri net
+    private int[] marking;
     // The URI chosen by one of the participants for this petri net
     private URI petriNetURI;
 
-    public PetriNetState(URI petrinetURI, PetriNet petriNet) {
+    public PetriNetState(URI petrinetURI, CompiledPetriNet petriNet) {
         super();
         this.petriNetURI = petrinetURI;
         this.petriNet = petriNet;
-        this.petriNetAnimator = new PetriNetAnimator(petriNet);
+        this.marking = petriNet.getInitialMarking();
     }
 
     /**
@@ -27,8 +25,13 @@ public class PetriNetState {
      * reported for places that are not associatied with a URI.
      */
     public Set<URI> getMarkedPlaces() {
-        return petriNet.getPlaces().stream().filter(place -> place.getNumberOfTokensStored() > 0)
-                        .map(place -> URI.create(place.getId())).collect(Collectors.toSet());
+        Set<URI> markedPlaces = new HashSet<>();
+        for (int place = 0; place < petriNet.getPlaceCount(); place++) {
+            if (petriNet.getTokens(place, marking) > 0) {
+                markedPlaces.add(URI.create(petriNet.getPlaceId(place)));
+            }
+        }
+        return markedPlaces;
     }
 
     /**
@@ -36,21 +39,35 @@ public class PetriNetState {
      * reported for transitions that are not associatied with a URI.
      */
     public Set<URI> getEnabledTransitions() {
-        return petriNetAnimator.getEnabledTransitions().stream().map(t -> URI.create(t.getId()))
-                        .collect(Collectors.toSet());
+        Set<URI> enabledTransitions = new HashSet<>();
+        BitSet enabled = petriNet.getEnabledTransitions(marking);
+        for (int t = enabled.nextSetBit(0); t >= 0; t = enabled.nextSetBit(t + 1)) {
+            enabledTransitions.add(URI.create(petriNet.getTransitionId(t)));
+        }
+        return enabledTransitions;
     }
 
     public void fireTransition(URI transitionURI) {
-        petriNetAnimator.getEnabledTransitions().stream().filter(t -> transitionURI.toString().equals(t.getId()))
-                        .forEach(petriNetAnimator::fireTransition);
+        int transition = petriNet.getTransitionIndex(transitionURI.toString());
+        if (transition >= 0 && petriNet.getEnabledTransitions(marking).get(transition)) {
+            petriNet.fire(transition, marking);
+        }
     }
 
     public Set<URI> getPlaces() {
-        return petriNet.getPlaces().stream().map(p -> URI.create(p.getId())).collect(Collectors.toSet());
+        Set<URI> places = new HashSet<>();
+        for (int place = 0; place < petriNet.getPlaceCount(); place++) {
+            places.add(URI.create(petriNet.getPlaceId(place)));
+        }
+        return places;
     }
 
     public Set<URI> getTransitions() {
-        return petriNet.getTransitions().stream().map(p -> URI.create(p.getId())).collect(Collectors.toSet());
+        Set<URI> transitions = new HashSet<>();
+        for (int t = 0; t < petriNet.getTransitionCount(); t++) {
+            transitions.add(URI.create(petriNet.getTransitionId(t)));
+        }
+        return transitions;
     }
 
     public URI getPetriNetURI() {
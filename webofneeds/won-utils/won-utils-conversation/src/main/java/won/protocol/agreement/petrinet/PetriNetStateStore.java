@@ -0,0 +1,56 @@
+package won.protocol.agreement.petrinet;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import won.protocol.agreement.AgreementProtocolState;
+
+/**
+ * Keeps the petri net states of the most recently requested conversations, so
+ * that a state request only has to process the agreements and claims made since
+ * the previous request for the same conversation. If an agreement or claim
+ * processed earlier has been cancelled or rejected since, the states are
+ * recalculated.
+ */
+public class PetriNetStateStore {
+    private final Map<URI, PetriNetStates> states;
+
+    public PetriNetStateStore(int maxConversations) {
+        this.states = new LinkedHashMap<URI, PetriNetStates>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<URI, PetriNetStates> eldest) {
+                return size() > maxConversations;
+            }
+        };
+    }
+
+    /**
+     * Returns the petri net states of the conversation.
+     *
+     * @param conversationURI the URI identifying the conversation, e.g. the
+     * connection URI
+     * @param agreementProtocolState the current agreement protocol state of the
+     * conversation
+     */
+    public Set<PetriNetUris> getPetriNetUris(URI conversationURI, AgreementProtocolState agreementProtocolState) {
+        PetriNetStates current;
+        synchronized (states) {
+            current = states.get(conversationURI);
+        }
+        if (current != null) {
+            synchronized (current) {
+                if (current.update(agreementProtocolState)) {
+                    return current.getPetriNetUris();
+                }
+            }
+        }
+        PetriNetStates recalculated = PetriNetStates.of(agreementProtocolState);
+        Set<PetriNetUris> petriNetUris = recalculated.getPetriNetUris();
+        synchronized (states) {
+            states.put(conversationURI, recalculated);
+        }
+        return petriNetUris;
+    }
+}
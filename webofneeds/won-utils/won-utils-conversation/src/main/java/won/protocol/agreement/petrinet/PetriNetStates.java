@@ -7,7 +7,6 @@ import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import uk.ac.imperial.pipe.models.petrinet.PetriNet;
 import won.protocol.agreement.AgreementProtocolState;
 import won.protocol.vocabulary.WONWF;
 
@@ -20,6 +19,8 @@ public class PetriNetStates {
     private AgreementProtocolState agreementProtocolState;
     private Dataset conversation;
     private Map<URI, PetriNetState> petrinetStates = new HashMap<>();
+    // the agreements and claims processed so far, in chronological order
+    private List<URI> processedAgreementsAndClaims = new ArrayList<>();
     private PetriNetLoader petriNetLoader = new PetriNetLoader();
 
     public static PetriNetStates of(Dataset conversation) {
@@ -55,7 +56,32 @@ public class PetriNetStates {
         // 1. find the transition annotated with the event URI and fire it
         // 2. update the petrinet state
         // get agreement uris in chronological order
+        process(agreementProtocolState.getAgreementsAndClaimsInChronologicalOrder(true));
+    }
+
+    /**
+     * Updates the states to a more recent agreement protocol state of the same
+     * conversation. Only the agreements and claims made since the last update are
+     * processed.
+     *
+     * @return false if agreements or claims processed earlier are not valid any
+     * more (e.g. because they were cancelled); nothing is changed in that case,
+     * and the states have to be recalculated using
+     * {@link #of(AgreementProtocolState)}.
+     */
+    public boolean update(AgreementProtocolState agreementProtocolState) {
         List<URI> uris = agreementProtocolState.getAgreementsAndClaimsInChronologicalOrder(true);
+        int processed = processedAgreementsAndClaims.size();
+        if (uris.size() < processed || !uris.subList(0, processed).equals(processedAgreementsAndClaims)) {
+            return false;
+        }
+        this.agreementProtocolState = agreementProtocolState;
+        this.conversation = agreementProtocolState.getConversationDataset();
+        process(uris.subList(processed, uris.size()));
+        return true;
+    }
+
+    private void process(List<URI> uris) {
         // walk over agreements
         uris.forEach(uri -> {
             boolean isAgreement = agreementProtocolState.isAgreement(uri);
@@ -69,6 +95,7 @@ public class PetriNetStates {
             loadPetrinetsForAgreement(agreementOrClaim, uri, isAgreement);
             // now see if there are events and execute them as transition firings
             executePetriNetEventsForAgreement(agreementOrClaim, uri, isAgreement);
+            processedAgreementsAndClaims.add(uri);
         });
     }
 
@@ -85,7 +112,7 @@ public class PetriNetStates {
                 } else {
                     logger.info("found petri net definition {} in {} {}",
                                     new Object[] { petriNetUri, isAgreement ? "agreement" : "claim", agreementUri });
-                    PetriNet petriNet = petriNetLoader.readBase64EncodedPNML(base64EncodedPnml);
+                    CompiledPetriNet petriNet = petriNetLoader.compileBase64EncodedPNML(base64EncodedPnml);
                     PetriNetState state = new PetriNetState(petriNetUri, petriNet);
                     petrinetStates.put(petriNetUri, state);
                 }
@@ -0,0 +1,208 @@
+package won.protocol.agreement.petrinet;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Parses the PNML written by PIPE into a {@link CompiledPetriNet}, in memory.
+ * Supported are token types, initial markings, place capacities, normal and
+ * inhibitor arcs with constant weights, and transition priorities; rates and
+ * graphics are ignored. Functional arc weights (e.g. <code>#(P0)</code>) are
+ * not supported.
+ */
+class PnmlParser {
+    private static final String DEFAULT_TOKEN = "Default";
+
+    static CompiledPetriNet parse(InputStream pnml) {
+        Document document;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            // the PNML comes from conversation messages, don't resolve anything
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            document = builder.parse(pnml);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot parse PNML", e);
+        }
+        Element net = getChild(document.getDocumentElement(), "net");
+        if (net == null) {
+            throw new IllegalArgumentException("PNML does not contain a net");
+        }
+        Map<String, Integer> tokenIndex = new HashMap<>();
+        for (Element token : getChildren(net, "token")) {
+            tokenIndex.putIfAbsent(token.getAttribute("id"), tokenIndex.size());
+        }
+        if (tokenIndex.isEmpty()) {
+            tokenIndex.put(DEFAULT_TOKEN, 0);
+        }
+        int tokenTypeCount = tokenIndex.size();
+        List<Element> places = getChildren(net, "place");
+        List<Element> transitions = getChildren(net, "transition");
+        Map<String, Integer> placeIndex = new HashMap<>();
+        Map<String, Integer> transitionIndex = new HashMap<>();
+        String[] placeIds = new String[places.size()];
+        int[] initialMarking = new int[places.size() * tokenTypeCount];
+        int[] capacities = new int[places.size()];
+        for (int p = 0; p < placeIds.length; p++) {
+            Element place = places.get(p);
+            placeIds[p] = place.getAttribute("id");
+            placeIndex.put(placeIds[p], p);
+            int[] tokens = parseTokenCounts(getValue(place, "initialMarking"), tokenIndex, placeIds[p]);
+            System.arraycopy(tokens, 0, initialMarking, p * tokenTypeCount, tokenTypeCount);
+            capacities[p] = parseInt(getValue(place, "capacity"), 0, placeIds[p]);
+        }
+        String[] transitionIds = new String[transitions.size()];
+        boolean[] timed = new boolean[transitionIds.length];
+        int[] priorities = new int[transitionIds.length];
+        for (int t = 0; t < transitionIds.length; t++) {
+            Element transition = transitions.get(t);
+            transitionIds[t] = transition.getAttribute("id");
+            transitionIndex.put(transitionIds[t], t);
+            timed[t] = Boolean.parseBoolean(getValue(transition, "timed"));
+            priorities[t] = parseInt(getValue(transition, "priority"), 1, transitionIds[t]);
+        }
+        // weights of the arcs between each transition and place, summed up if there
+        // are several
+        List<Map<Integer, int[]>> inputs = new ArrayList<>();
+        List<Map<Integer, int[]>> inhibitors = new ArrayList<>();
+        List<Map<Integer, int[]>> outputs = new ArrayList<>();
+        for (int t = 0; t < transitionIds.length; t++) {
+            inputs.add(new LinkedHashMap<>());
+            inhibitors.add(new LinkedHashMap<>());
+            outputs.add(new LinkedHashMap<>());
+        }
+        for (Element arc : getChildren(net, "arc")) {
+            String source = arc.getAttribute("source");
+            String target = arc.getAttribute("target");
+            Element type = getChild(arc, "type");
+            boolean inhibitor = type != null && "inhibitor".equals(type.getAttribute("value"));
+            int[] weights = parseTokenCounts(getValue(arc, "inscription"), tokenIndex, arc.getAttribute("id"));
+            Map<Integer, int[]> arcs;
+            Integer place;
+            if (placeIndex.containsKey(source) && transitionIndex.containsKey(target)) {
+                place = placeIndex.get(source);
+                arcs = (inhibitor ? inhibitors : inputs).get(transitionIndex.get(target));
+            } else if (transitionIndex.containsKey(source) && placeIndex.containsKey(target)) {
+                place = placeIndex.get(target);
+                arcs = outputs.get(transitionIndex.get(source));
+            } else {
+                throw new IllegalArgumentException("Arc " + arc.getAttribute("id")
+                                + " does not connect a place and a transition of the net");
+            }
+            int[] summed = arcs.computeIfAbsent(place, p -> new int[tokenTypeCount]);
+            for (int i = 0; i < tokenTypeCount; i++) {
+                summed[i] += weights[i];
+            }
+        }
+        int[][] inputPlaces = new int[transitionIds.length][];
+        int[][] inputWeights = new int[transitionIds.length][];
+        int[][] inhibitorPlaces = new int[transitionIds.length][];
+        int[][] outputPlaces = new int[transitionIds.length][];
+        int[][] outputWeights = new int[transitionIds.length][];
+        for (int t = 0; t < transitionIds.length; t++) {
+            inputPlaces[t] = toPlaces(inputs.get(t));
+            inputWeights[t] = toWeights(inputs.get(t), tokenTypeCount);
+            inhibitorPlaces[t] = toPlaces(inhibitors.get(t));
+            outputPlaces[t] = toPlaces(outputs.get(t));
+            outputWeights[t] = toWeights(outputs.get(t), tokenTypeCount);
+        }
+        return new CompiledPetriNet(placeIds, transitionIds, tokenTypeCount, initialMarking, capacities, inputPlaces,
+                        inputWeights, inhibitorPlaces, outputPlaces, outputWeights, timed, priorities);
+    }
+
+    private static int[] toPlaces(Map<Integer, int[]> arcs) {
+        return arcs.keySet().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] toWeights(Map<Integer, int[]> arcs, int tokenTypeCount) {
+        int[] weights = new int[arcs.size() * tokenTypeCount];
+        int arc = 0;
+        for (int[] arcWeights : arcs.values()) {
+            System.arraycopy(arcWeights, 0, weights, arc++ * tokenTypeCount, tokenTypeCount);
+        }
+        return weights;
+    }
+
+    /**
+     * Parses PIPE's token count lists, e.g. <code>Default,1,Red,2</code>.
+     */
+    private static int[] parseTokenCounts(String value, Map<String, Integer> tokenIndex, String elementId) {
+        int[] counts = new int[tokenIndex.size()];
+        if (value == null || value.trim().isEmpty()) {
+            return counts;
+        }
+        String[] parts = value.split(",");
+        if (parts.length % 2 != 0) {
+            throw new IllegalArgumentException("Cannot parse token counts '" + value + "' of " + elementId);
+        }
+        for (int i = 0; i < parts.length; i += 2) {
+            Integer token = tokenIndex.get(parts[i].trim());
+            if (token == null) {
+                throw new IllegalArgumentException("Unknown token type " + parts[i] + " in " + elementId);
+            }
+            counts[token] += parseInt(parts[i + 1], 0, elementId);
+        }
+        return counts;
+    }
+
+    private static int parseInt(String value, int defaultValue, String elementId) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Unsupported value '" + value + "' in " + elementId
+                            + ", only constant integers are supported", e);
+        }
+    }
+
+    /**
+     * Returns the text of the <code>value</code> element inside the named child
+     * element, or null.
+     */
+    private static String getValue(Element parent, String childName) {
+        Element child = getChild(parent, childName);
+        if (child == null) {
+            return null;
+        }
+        Element value = getChild(child, "value");
+        return value == null ? null : value.getTextContent();
+    }
+
+    private static Element getChild(Element parent, String name) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() == Node.ELEMENT_NODE && name.equals(node.getNodeName())) {
+                return (Element) node;
+            }
+        }
+        return null;
+    }
+
+    private static List<Element> getChildren(Element parent, String name) {
+        List<Element> children = new ArrayList<>();
+        NodeList nodes = parent.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node node = nodes.item(i);
+            if (node.getNodeType() == Node.ELEMENT_NODE && name.equals(node.getNodeName())) {
+                children.add((Element) node);
+            }
+        }
+        return children;
+    }
+}
@@ -0,0 +1,84 @@
+package won.protocol.agreement;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConversationMessagesReaderTest {
+    private static final String RESOURCE_DIR = "won/protocol/highlevel/agreements/input.messagerefactoring/";
+    private static final String EVENT_PREFIX = "https://localhost:8443/won/resource/event/";
+
+    @Test
+    public void testAgreementStatementsInContentGraphsAreRead() {
+        Map<URI, ConversationMessage> messages = ConversationMessagesReader
+                        .readConversationMessages(loadDataset(RESOURCE_DIR + "one-agreement.trig"));
+        ConversationMessage proposal = messages.get(URI.create(EVENT_PREFIX + "557600936467257340"));
+        Assert.assertNotNull(proposal);
+        Assert.assertTrue(proposal.getProposes().contains(URI.create(EVENT_PREFIX + "5669098069340991000")));
+        Assert.assertTrue(messages.values().stream()
+                        .anyMatch(msg -> msg.getAccepts().contains(proposal.getMessageURI())));
+    }
+
+    @Test
+    public void testIncrementalReadEqualsFullRead() {
+        for (String name : new String[] { "one-agreement.trig", "one-agreement-one-cancellation.trig",
+                        "2proposal-one-agreement.trig" }) {
+            Dataset dataset = loadDataset(RESOURCE_DIR + name);
+            Map<URI, ConversationMessage> full = ConversationMessagesReader.readConversationMessages(dataset);
+            List<String> graphNames = new ArrayList<>();
+            for (Iterator<String> it = dataset.listNames(); it.hasNext();) {
+                graphNames.add(it.next());
+            }
+            Map<URI, ConversationMessage> incremental = new HashMap<>();
+            int half = graphNames.size() / 2;
+            ConversationMessagesReader.addConversationMessages(subset(dataset, graphNames.subList(0, half)),
+                            incremental);
+            ConversationMessagesReader.addConversationMessages(
+                            subset(dataset, graphNames.subList(half, graphNames.size())), incremental);
+            Assert.assertEquals(name, full.keySet(), incremental.keySet());
+            for (ConversationMessage expected : full.values()) {
+                ConversationMessage actual = incremental.get(expected.getMessageURI());
+                String msg = name + ": " + expected.getMessageURI();
+                Assert.assertEquals(msg, expected.getSenderAtomURI(), actual.getSenderAtomURI());
+                Assert.assertEquals(msg, expected.getMessageType(), actual.getMessageType());
+                Assert.assertEquals(msg, expected.getDirection(), actual.getDirection());
+                Assert.assertEquals(msg, expected.getRespondingTo(), actual.getRespondingTo());
+                Assert.assertEquals(msg, expected.getPrevious(), actual.getPrevious());
+                Assert.assertEquals(msg, expected.getContentGraphs(), actual.getContentGraphs());
+                Assert.assertEquals(msg, expected.getProposes(), actual.getProposes());
+                Assert.assertEquals(msg, expected.getAccepts(), actual.getAccepts());
+                Assert.assertEquals(msg, expected.getProposesToCancel(), actual.getProposesToCancel());
+                Assert.assertEquals(msg, expected.getRetracts(), actual.getRetracts());
+            }
+        }
+    }
+
+    private static Dataset subset(Dataset dataset, List<String> graphNames) {
+        Dataset subset = DatasetFactory.createGeneral();
+        for (String graphName : graphNames) {
+            subset.addNamedModel(graphName, dataset.getNamedModel(graphName));
+        }
+        return subset;
+    }
+
+    private Dataset loadDataset(String path) {
+        Dataset dataset = DatasetFactory.createGeneral();
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream(path)) {
+            RDFDataMgr.read(dataset, is, Lang.TRIG);
+        } catch (Exception e) {
+            throw new IllegalStateException("could not load resource " + path, e);
+        }
+        return dataset;
+    }
+}
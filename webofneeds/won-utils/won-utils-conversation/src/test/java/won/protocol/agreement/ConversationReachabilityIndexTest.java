@@ -0,0 +1,183 @@
+package won.protocol.agreement;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import won.protocol.message.WonMessageDirection;
+import won.protocol.message.WonMessageType;
+
+public class ConversationReachabilityIndexTest {
+    private static final URI ATOM_1 = URI.create("https://example.com/atom/1");
+    private static final URI ATOM_2 = URI.create("https://example.com/atom/2");
+
+    @Test
+    public void testIndexAgreesWithSearch() {
+        for (long seed = 0; seed < 5; seed++) {
+            assertIndexAgreesWithSearch(150, 0, seed);
+        }
+    }
+
+    @Test
+    public void testIndexAgreesWithSearchForHeadsWithOneResponse() {
+        for (long seed = 0; seed < 5; seed++) {
+            assertIndexAgreesWithSearch(150, 20, seed);
+        }
+        // every head has only one response
+        assertIndexAgreesWithSearch(50, 100, 0);
+    }
+
+    @Test
+    public void testHeadWithOneResponse() {
+        List<ConversationMessage> searched = createConversation(3, 100, 1);
+        List<ConversationMessage> indexed = createConversation(3, 100, 1);
+        Assert.assertTrue(ConversationReachabilityIndex.build(indexed).isPresent());
+        ConversationMessage lastHead = indexed.get(indexed.size() - 2);
+        Assert.assertTrue(lastHead.isHeadOfDeliveryChain());
+        Assert.assertEquals(0, lastHead.getOrder());
+        for (int i = 0; i < indexed.size(); i++) {
+            ConversationMessage other = indexed.get(i);
+            Assert.assertEquals(other.getMessageURI().toString(), lastHead != other && other.getOrder() == 0,
+                            lastHead.isAfter(other));
+            Assert.assertEquals(searched.get(indexed.size() - 2).isAfter(searched.get(i)), lastHead.isAfter(other));
+        }
+    }
+
+    private void assertIndexAgreesWithSearch(int ownerMessages, int oneResponsePercent, long seed) {
+        List<ConversationMessage> searched = createConversation(ownerMessages, oneResponsePercent, seed);
+        List<ConversationMessage> indexed = createConversation(ownerMessages, oneResponsePercent, seed);
+        Assert.assertTrue(ConversationReachabilityIndex.build(indexed).isPresent());
+        for (int i = 0; i < searched.size(); i++) {
+            Assert.assertEquals(searched.get(i).getOrder(), indexed.get(i).getOrder());
+            for (int j = 0; j < searched.size(); j++) {
+                Assert.assertEquals(indexed.get(i).getMessageURI() + " after " + indexed.get(j).getMessageURI(),
+                                searched.get(i).isAfter(searched.get(j)), indexed.get(i).isAfter(indexed.get(j)));
+            }
+        }
+    }
+
+    @Test
+    public void testCycleIsNotIndexed() {
+        // messages from external are no delivery chain heads, their previous messages
+        // are followed
+        ConversationMessage first = createMessage("first", ATOM_1, WonMessageType.CONNECTION_MESSAGE,
+                        WonMessageDirection.FROM_EXTERNAL);
+        ConversationMessage second = createMessage("second", ATOM_1, WonMessageType.CONNECTION_MESSAGE,
+                        WonMessageDirection.FROM_EXTERNAL);
+        first.addPreviousRef(second);
+        second.addPreviousRef(first);
+        List<ConversationMessage> messages = new ArrayList<>();
+        messages.add(first);
+        messages.add(second);
+        Assert.assertFalse(ConversationReachabilityIndex.build(messages).isPresent());
+    }
+
+    @Test
+    @Ignore
+    public void compareSearchAndIndex() {
+        for (int size : new int[] { 1000, 5000, 10000, 50000 }) {
+            int queries = 100000;
+            Random random = new Random(size);
+            List<ConversationMessage> indexed = createConversation(size / 3, 0, size);
+            long start = System.nanoTime();
+            ConversationReachabilityIndex index = ConversationReachabilityIndex.build(indexed).get();
+            long buildTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                indexed.get(random.nextInt(indexed.size())).isAfter(indexed.get(random.nextInt(indexed.size())));
+            }
+            long indexTime = System.nanoTime() - start;
+            String searchResult;
+            try {
+                List<ConversationMessage> searched = createConversation(size / 3, 0, size);
+                random = new Random(size);
+                start = System.nanoTime();
+                for (int i = 0; i < queries; i++) {
+                    searched.get(random.nextInt(searched.size()))
+                                    .isAfter(searched.get(random.nextInt(searched.size())));
+                }
+                searchResult = ((System.nanoTime() - start) / 1000000) + " ms";
+            } catch (StackOverflowError e) {
+                searchResult = "stack overflow";
+            }
+            System.out.println(String.format(
+                            "%d messages, %d chains: index built in %d ms, %d queries: index %d ms, search %s",
+                            indexed.size(), index.getChainCount(), buildTime / 1000000, queries,
+                            indexTime / 1000000, searchResult));
+        }
+    }
+
+    /**
+     * Creates a conversation between two atoms. Each message sent by an owner is
+     * followed by the success response of its node and the remote response of the
+     * other node, except for the specified percentage of messages, which only get
+     * one of the responses. Now and then, a message is sent concurrently with the
+     * one before it, referring to the same previous messages.
+     */
+    private static List<ConversationMessage> createConversation(int ownerMessages, int oneResponsePercent,
+                    long seed) {
+        Random random = new Random(seed);
+        List<ConversationMessage> messages = new ArrayList<>();
+        Set<ConversationMessage> unreferenced = new HashSet<>();
+        Set<ConversationMessage> previous = new HashSet<>();
+        for (int i = 0; i < ownerMessages; i++) {
+            boolean fromAtom1 = random.nextBoolean();
+            URI sender = fromAtom1 ? ATOM_1 : ATOM_2;
+            URI recipient = fromAtom1 ? ATOM_2 : ATOM_1;
+            boolean oneResponse = random.nextInt(100) < oneResponsePercent;
+            boolean withResponse = !oneResponse || random.nextBoolean();
+            boolean withRemoteResponse = !oneResponse || !withResponse;
+            ConversationMessage msg = createMessage("msg" + i, sender, WonMessageType.CONNECTION_MESSAGE,
+                            WonMessageDirection.FROM_OWNER);
+            messages.add(msg);
+            if (i == 0 || random.nextInt(5) > 0) {
+                // not concurrent: refer to all messages not referenced yet
+                previous = new HashSet<>(unreferenced);
+                unreferenced.clear();
+            }
+            ConversationMessage response = null;
+            if (withResponse) {
+                response = createMessage("resp" + i, sender, WonMessageType.SUCCESS_RESPONSE,
+                                WonMessageDirection.FROM_SYSTEM);
+                response.setRespondingToRef(msg);
+                msg.setRespondingToInverseRef(response);
+                addPreviousRefs(response, previous);
+                messages.add(response);
+            }
+            if (withRemoteResponse) {
+                ConversationMessage remoteResponse = createMessage("remoteResp" + i, recipient,
+                                WonMessageType.SUCCESS_RESPONSE, WonMessageDirection.FROM_SYSTEM);
+                remoteResponse.setRemotelyRespondingToRef(msg);
+                msg.setRemotelyRespondingToInverseRef(remoteResponse);
+                addPreviousRefs(remoteResponse, response == null ? previous : Collections.singleton(response));
+                messages.add(remoteResponse);
+                unreferenced.add(remoteResponse);
+            } else {
+                unreferenced.add(response);
+            }
+        }
+        return messages;
+    }
+
+    private static void addPreviousRefs(ConversationMessage msg, Set<ConversationMessage> previous) {
+        previous.forEach(msg::addPreviousRef);
+        previous.forEach(p -> p.addPreviousInverseRef(msg));
+    }
+
+    private static ConversationMessage createMessage(String name, URI sender, WonMessageType type,
+                    WonMessageDirection direction) {
+        ConversationMessage msg = new ConversationMessage(URI.create("https://example.com/msg/" + name));
+        msg.setSenderAtomURI(sender);
+        msg.setMessageType(type);
+        msg.setDirection(direction);
+        return msg;
+    }
+}
@@ -5,7 +5,16 @@ import java.io.InputStream;
 import java.io.StringWriter;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -21,6 +30,10 @@ import org.slf4j.LoggerFactory;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
+import won.protocol.agreement.AgreementProtocolState;
+import won.protocol.agreement.ConversationMessage;
+import won.protocol.agreement.ConversationMessagesReader;
+import won.protocol.message.WonMessageUtils;
 import uk.ac.imperial.pipe.animation.PetriNetAnimator;
 import uk.ac.imperial.pipe.models.petrinet.PetriNet;
 import uk.ac.imperial.pipe.models.petrinet.Place;
@@ -167,6 +180,173 @@ public class PetriNetTest {
         Assert.assertEquals(2, transitions.size());
     }
 
+    @Test
+    public void testCompiledNetBehavesLikePipe() {
+        String pnml = getResourceAsString("won/protocol/petrinet/petrinet-taxi.xml");
+        CompiledPetriNet compiled = new PetriNetLoader().compilePNML(pnml);
+        Random random = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            PetriNet net = new PetriNetLoader().readPNML(pnml);
+            PetriNetAnimator animator = new PetriNetAnimator(net);
+            int[] marking = compiled.getInitialMarking();
+            for (int step = 0; step < 20; step++) {
+                Set<String> marked = new HashSet<>();
+                for (int place = 0; place < compiled.getPlaceCount(); place++) {
+                    if (compiled.getTokens(place, marking) > 0) {
+                        marked.add(compiled.getPlaceId(place));
+                    }
+                }
+                Assert.assertEquals(getMarkedPlaces(net).stream().map(Place::getId).collect(Collectors.toSet()),
+                                marked);
+                List<Transition> transitions = new ArrayList<>(animator.getEnabledTransitions());
+                BitSet enabled = compiled.getEnabledTransitions(marking);
+                Assert.assertEquals(transitions.stream().map(Transition::getId).collect(Collectors.toSet()),
+                                enabled.stream().mapToObj(compiled::getTransitionId).collect(Collectors.toSet()));
+                if (transitions.isEmpty()) {
+                    break;
+                }
+                Transition transition = transitions.get(random.nextInt(transitions.size()));
+                animator.fireTransition(transition);
+                compiled.fire(compiled.getTransitionIndex(transition.getId()), marking);
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledNetIsCached() {
+        PetriNetLoader loader = new PetriNetLoader();
+        String base64 = getResourceAsString("won/protocol/petrinet/simple-petrinet-base64.txt");
+        CompiledPetriNet net = loader.compileBase64EncodedPNML(base64);
+        Assert.assertSame(net, new PetriNetLoader().compileBase64EncodedPNML(base64));
+        Assert.assertNotSame(net, loader.compilePNML(getResourceAsString("won/protocol/petrinet/petrinet-taxi.xml")));
+        PetriNetState state = new PetriNetState(URI.create("http://example.com/net"), net);
+        Assert.assertEquals(1, state.getEnabledTransitions().size());
+        state.fireTransition(URI.create("http://example.com/transitions/first"));
+        Assert.assertEquals(Collections.singleton(URI.create("http://example.com/state/end")),
+                        state.getMarkedPlaces());
+        Assert.assertTrue(state.getEnabledTransitions().isEmpty());
+    }
+
+    @Test
+    public void testIncrementalUpdateEqualsRecalculation() {
+        Dataset conversation = loadDataset("won/protocol/petrinet.messagerefactoring/conversations/taxi-no-show.trig");
+        URI conversationUri = URI.create("http://example.com/conversation");
+        PetriNetStateStore store = new PetriNetStateStore(10);
+        PetriNetStates states = null;
+        for (AgreementProtocolState step : getConversationSteps(conversation)) {
+            if (states == null) {
+                states = PetriNetStates.of(step);
+            } else {
+                Assert.assertTrue(states.update(step));
+            }
+            Set<List<Object>> expected = toComparable(PetriNetStates.of(step).getPetriNetUris());
+            Assert.assertEquals(expected, toComparable(states.getPetriNetUris()));
+            Assert.assertEquals(expected, toComparable(store.getPetriNetUris(conversationUri, step)));
+        }
+    }
+
+    @Test
+    public void testCancelledAgreementOrRejectedClaimRequiresRecalculation() {
+        for (String name : new String[] { "one-agreement-one-cancellation.trig",
+                        "one-claim-rejected-before-accept.trig" }) {
+            Dataset conversation = loadDataset("won/protocol/highlevel/agreements/input.messagerefactoring/" + name);
+            PetriNetStates states = null;
+            List<URI> processed = Collections.emptyList();
+            boolean recalculated = false;
+            for (AgreementProtocolState step : getConversationSteps(conversation)) {
+                List<URI> current = step.getAgreementsAndClaimsInChronologicalOrder(true);
+                if (states == null) {
+                    states = PetriNetStates.of(step);
+                } else if (current.containsAll(processed)) {
+                    Assert.assertTrue(name, states.update(step));
+                } else {
+                    // an agreement was cancelled or a claim rejected
+                    Assert.assertFalse(name, states.update(step));
+                    states = PetriNetStates.of(step);
+                    recalculated = true;
+                }
+                processed = current;
+            }
+            Assert.assertTrue(name, recalculated);
+        }
+    }
+
+    /**
+     * Returns the agreement protocol states of the conversation after each of its
+     * delivery chains, in chronological order.
+     */
+    private List<AgreementProtocolState> getConversationSteps(Dataset conversation) {
+        Map<URI, ConversationMessage> messages = ConversationMessagesReader.readConversationMessages(conversation);
+        List<URI> heads = new ArrayList<>(
+                        AgreementProtocolState.of(conversation).getNLatestMessageUris(m -> true, Integer.MAX_VALUE));
+        Collections.reverse(heads);
+        List<AgreementProtocolState> steps = new ArrayList<>();
+        for (int i = 1; i <= heads.size(); i++) {
+            Set<URI> included = new HashSet<>(heads.subList(0, i));
+            messages.values().stream().filter(m -> included.contains(m.getRespondingTo()))
+                            .forEach(m -> included.add(m.getMessageURI()));
+            Dataset step = DatasetFactory.createGeneral();
+            step.getDefaultModel().add(conversation.getDefaultModel());
+            for (Iterator<String> names = conversation.listNames(); names.hasNext();) {
+                String name = names.next();
+                URI messageUri = WonMessageUtils.stripFragment(URI.create(name));
+                if (!messages.containsKey(messageUri) || included.contains(messageUri)) {
+                    step.addNamedModel(name, conversation.getNamedModel(name));
+                }
+            }
+            steps.add(AgreementProtocolState.of(step));
+        }
+        return steps;
+    }
+
+    private Set<List<Object>> toComparable(Set<PetriNetUris> petriNetUris) {
+        return petriNetUris.stream().map(uris -> Arrays.<Object>asList(uris.getProcessURI(), uris.getMarkedPlaces(),
+                        uris.getEnabledTransitions())).collect(Collectors.toSet());
+    }
+
+    /**
+     * Compares repeated state requests on a workflow conversation: recalculating
+     * the states each time vs. updating them incrementally with the
+     * {@link PetriNetStateStore}, and parsing the net with PIPE vs. compiling it.
+     */
+    @Test
+    @Ignore
+    public void testSpeedOfRepeatedStateRequests() {
+        Dataset conversation = loadDataset("won/protocol/petrinet.messagerefactoring/conversations/taxi-no-show.trig");
+        AgreementProtocolState agreementProtocolState = AgreementProtocolState.of(conversation);
+        URI conversationUri = URI.create("http://example.com/conversation");
+        PetriNetStateStore store = new PetriNetStateStore(10);
+        Assert.assertEquals(PetriNetStates.of(agreementProtocolState).getPetriNetUris().size(),
+                        store.getPetriNetUris(conversationUri, agreementProtocolState).size());
+        String base64 = getResourceAsString("won/protocol/petrinet/petrinet-taxi-base64.txt");
+        int requests = 1000;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                PetriNetStates.of(agreementProtocolState).getPetriNetUris();
+            }
+            long recalculated = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                store.getPetriNetUris(conversationUri, agreementProtocolState);
+            }
+            long incremental = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                new PetriNetLoader().readBase64EncodedPNML(base64);
+            }
+            long pipe = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                new PetriNetLoader().compileBase64EncodedPNML(base64);
+            }
+            long compiled = System.nanoTime() - start;
+            logger.info("{} state requests: recalculated {} ms, incremental {} ms; {} nets: PIPE {} ms, compiled {} ms",
+                            requests, recalculated / 1000000, incremental / 1000000, requests, pipe / 1000000,
+                            compiled / 1000000);
+        }
+    }
+
     @Test
     @Ignore
     public void testConversationPetriNets() {
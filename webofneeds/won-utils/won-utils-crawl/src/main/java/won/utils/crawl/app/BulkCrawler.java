@@ -0,0 +1,332 @@
+package won.utils.crawl.app;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.NodeIterator;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import won.protocol.util.linkeddata.LinkedDataSource;
+
+/**
+ * Crawls linked data with a bounded pool of workers, following the given
+ * properties from the start URIs up to a maximum depth. Every resource is
+ * fetched once (the visited set is shared by all workers); its data is appended
+ * to the N-Quads file of the worker as soon as it arrives, so the crawled data
+ * is never held in memory as a whole.
+ * <p>
+ * The progress is logged to a checkpoint file in the output directory: a
+ * <code>Q</code> line for each resource added to the frontier, a
+ * <code>D</code> line for each resource whose data has been written and an
+ * <code>F</code> line for each resource that could not be fetched or written.
+ * Running the crawler again on the same output directory resumes the crawl with
+ * the resources that were queued but not done, including the failed ones.
+ * Resources that were being written when the crawl was interrupted are fetched
+ * again, so their quads may appear twice in the output, which does not matter
+ * once they are loaded into a store.
+ */
+public class BulkCrawler {
+    private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    static final String CHECKPOINT_FILE = "crawl.checkpoint";
+    private static final String QUEUED = "Q";
+    private static final String DONE = "D";
+    private static final String FAILED = "F";
+    private final LinkedDataSource linkedDataSource;
+    private final List<Property> properties;
+    private final File outputDir;
+    private final int threads;
+    private final int maxDepth;
+    private final Set<URI> visited = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final AtomicLong resourcesCrawled = new AtomicLong();
+    private final AtomicLong resourcesFailed = new AtomicLong();
+    private final AtomicLong writesFailed = new AtomicLong();
+    private final List<OutputStream> outputs = new ArrayList<>();
+    private final ThreadLocal<OutputStream> output = ThreadLocal.withInitial(this::openOutput);
+    private ExecutorService executor;
+    private PrintWriter checkpoint;
+
+    public BulkCrawler(LinkedDataSource linkedDataSource, List<Property> properties, File outputDir, int threads,
+                    int maxDepth) {
+        this.linkedDataSource = linkedDataSource;
+        this.properties = properties;
+        this.outputDir = outputDir;
+        this.threads = threads;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Crawls from the start URIs and the resources left over from an interrupted
+     * crawl in the output directory, and returns when all reachable resources have
+     * been crawled.
+     *
+     * @param startUris the URIs to start from
+     * @return the statistics of this run
+     */
+    public CrawlStatistics crawl(Collection<URI> startUris) throws IOException, InterruptedException {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Could not create output directory " + outputDir);
+        }
+        File checkpointFile = new File(outputDir, CHECKPOINT_FILE);
+        Map<URI, Integer> frontier = readCheckpoint(checkpointFile);
+        long bytesBefore = getOutputSize();
+        long start = System.nanoTime();
+        executor = Executors.newFixedThreadPool(threads);
+        checkpoint = new PrintWriter(new FileOutputStream(checkpointFile, true));
+        try {
+            if (!frontier.isEmpty()) {
+                logger.info("resuming crawl with {} queued of {} known resources", frontier.size(),
+                                visited.size());
+            }
+            pending.incrementAndGet();
+            frontier.forEach(this::submit);
+            for (URI uri : startUris) {
+                enqueue(uri, 0);
+            }
+            taskDone();
+            finished.await();
+        } finally {
+            executor.shutdownNow();
+            synchronized (outputs) {
+                for (OutputStream out : outputs) {
+                    out.close();
+                }
+            }
+            checkpoint.close();
+        }
+        return new CrawlStatistics(resourcesCrawled.get(), resourcesFailed.get(), writesFailed.get(),
+                        getOutputSize() - bytesBefore, System.nanoTime() - start);
+    }
+
+    private void enqueue(URI uri, int depth) {
+        if (visited.add(uri)) {
+            writeCheckpoint(QUEUED, depth + " " + uri);
+            submit(uri, depth);
+        }
+    }
+
+    private void submit(URI uri, int depth) {
+        pending.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                crawl(uri, depth);
+            } finally {
+                taskDone();
+            }
+        });
+    }
+
+    private void taskDone() {
+        if (pending.decrementAndGet() == 0) {
+            finished.countDown();
+        }
+    }
+
+    private void crawl(URI uri, int depth) {
+        Dataset dataset;
+        try {
+            dataset = linkedDataSource.getDataForResource(uri);
+        } catch (Exception e) {
+            logger.warn("could not crawl {}: {}", uri, e.getMessage());
+            resourcesFailed.incrementAndGet();
+            writeCheckpoint(FAILED, uri.toString());
+            return;
+        }
+        try {
+            OutputStream out = output.get();
+            RDFDataMgr.write(out, dataset, Lang.NQUADS);
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            // jena and the output thread local report io errors as runtime exceptions
+            logger.warn("could not write data of {}: {}", uri, e.getMessage());
+            writesFailed.incrementAndGet();
+            writeCheckpoint(FAILED, uri.toString());
+            return;
+        }
+        if (depth + 1 < maxDepth) {
+            for (URI next : findNextUris(dataset)) {
+                enqueue(next, depth + 1);
+            }
+        }
+        writeCheckpoint(DONE, uri.toString());
+        long crawled = resourcesCrawled.incrementAndGet();
+        if (crawled % 1000 == 0) {
+            logger.info("crawled {} resources, {} queued", crawled, pending.get());
+        }
+    }
+
+    private Set<URI> findNextUris(Dataset dataset) {
+        Set<URI> next = new HashSet<>();
+        addObjectUris(dataset.getDefaultModel(), next);
+        for (Iterator<String> names = dataset.listNames(); names.hasNext();) {
+            addObjectUris(dataset.getNamedModel(names.next()), next);
+        }
+        return next;
+    }
+
+    private void addObjectUris(Model model, Set<URI> uris) {
+        for (Property property : properties) {
+            NodeIterator it = model.listObjectsOfProperty(property);
+            try {
+                while (it.hasNext()) {
+                    RDFNode node = it.next();
+                    if (node.isURIResource()) {
+                        uris.add(URI.create(node.asResource().getURI()));
+                    }
+                }
+            } finally {
+                it.close();
+            }
+        }
+    }
+
+    private void writeCheckpoint(String type, String entry) {
+        synchronized (checkpoint) {
+            checkpoint.println(type + " " + entry);
+            checkpoint.flush();
+        }
+    }
+
+    /**
+     * Reads the checkpoint of an earlier crawl, marks all resources in it as
+     * visited and returns the ones that were queued but not done (including the
+     * failed ones), with their depth.
+     */
+    private Map<URI, Integer> readCheckpoint(File checkpointFile) throws IOException {
+        Map<URI, Integer> frontier = new LinkedHashMap<>();
+        if (!checkpointFile.exists()) {
+            return frontier;
+        }
+        Set<URI> failed = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(checkpointFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(" ");
+                try {
+                    if (QUEUED.equals(parts[0]) && parts.length == 3) {
+                        URI uri = URI.create(parts[2]);
+                        visited.add(uri);
+                        frontier.put(uri, Integer.parseInt(parts[1]));
+                    } else if (DONE.equals(parts[0]) && parts.length == 2) {
+                        frontier.remove(URI.create(parts[1]));
+                    } else if (FAILED.equals(parts[0]) && parts.length == 2) {
+                        // stays in the frontier, so it is crawled again
+                        failed.add(URI.create(parts[1]));
+                    }
+                } catch (IllegalArgumentException e) {
+                    // last line may be incomplete if the crawl was killed
+                    logger.debug("ignoring checkpoint line '{}'", line);
+                }
+            }
+        }
+        failed.retainAll(frontier.keySet());
+        if (!failed.isEmpty()) {
+            logger.info("retrying {} resources that failed in an earlier crawl", failed.size());
+        }
+        return frontier;
+    }
+
+    private OutputStream openOutput() {
+        synchronized (outputs) {
+            File file = new File(outputDir, "crawl-" + Thread.currentThread().getId() + ".nq");
+            try {
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(file, true));
+                outputs.add(out);
+                return out;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open output file " + file, e);
+            }
+        }
+    }
+
+    private long getOutputSize() {
+        long size = 0;
+        File[] files = outputDir.listFiles((dir, name) -> name.endsWith(".nq"));
+        if (files != null) {
+            for (File file : files) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    public static class CrawlStatistics {
+        private final long resources;
+        private final long failedResources;
+        private final long failedWrites;
+        private final long bytes;
+        private final long nanos;
+
+        public CrawlStatistics(long resources, long failedResources, long failedWrites, long bytes, long nanos) {
+            this.resources = resources;
+            this.failedResources = failedResources;
+            this.failedWrites = failedWrites;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        public long getResources() {
+            return resources;
+        }
+
+        public long getFailedResources() {
+            return failedResources;
+        }
+
+        /**
+         * Number of resources that were fetched, but could not be written to the
+         * output.
+         */
+        public long getFailedWrites() {
+            return failedWrites;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(nanos, 1) / 1e9;
+            return String.format("crawled %d resources (%d failed, %d not written), wrote %d bytes in %.1f s: "
+                            + "%.1f resources/s, %.0f bytes/s",
+                            resources, failedResources, failedWrites, bytes, seconds, resources / seconds,
+                            bytes / seconds);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package won.utils.crawl.app;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.InputStreamReader;
 import java.lang.invoke.MethodHandles;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -17,6 +19,7 @@ import org.apache.jena.query.QueryParseException;
 import org.apache.jena.query.QuerySolution;
 import org.apache.jena.query.QuerySolutionMap;
 import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdf.model.Property;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.shared.PrefixMapping;
@@ -26,6 +29,7 @@ import org.apache.jena.tdb.TDB;
 import org.apache.jena.update.GraphStore;
 import org.apache.jena.update.GraphStoreFactory;
 import org.apache.jena.update.UpdateAction;
+import org.apache.jena.vocabulary.RDFS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,12 +48,20 @@ import won.protocol.vocabulary.sparql.WonQueries;
 @Component
 public class CLRunnerBean implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final String BULK_OPTION = "--bulk";
+    private static final int DEFAULT_BULK_THREADS = 8;
+    private static final int DEFAULT_BULK_DEPTH = 5;
     private LinkedDataSource linkedDataSource;
 
     @Override
     public void run(String... args) throws Exception {
-        if (args == null && args.length == 0) {
+        if (args == null || args.length == 0) {
             logger.warn("arguments: [space-separated list of uris to crawl]");
+            logger.warn("bulk mode: --bulk --out=<directory> [--threads=<n>] [--depth=<n>] [space-separated list of uris to crawl]");
+            return;
+        }
+        if (Arrays.asList(args).contains(BULK_OPTION)) {
+            runBulkCrawl(args);
             return;
         }
         Dataset atomDataset = CachingLinkedDataSource.makeDataset();
@@ -138,6 +150,45 @@ public class CLRunnerBean implements CommandLineRunner {
         }
     }
 
+    /**
+     * Crawls with a pool of workers and streams the data to N-Quads files in the
+     * output directory instead of loading it into a dataset. An interrupted crawl
+     * is resumed by running it again with the same output directory.
+     */
+    private void runBulkCrawl(String... args) throws Exception {
+        File outputDir = null;
+        int threads = DEFAULT_BULK_THREADS;
+        int depth = DEFAULT_BULK_DEPTH;
+        List<URI> uris = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals(BULK_OPTION)) {
+                continue;
+            } else if (arg.startsWith("--out=")) {
+                outputDir = new File(arg.substring("--out=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--depth=")) {
+                depth = Integer.parseInt(arg.substring("--depth=".length()));
+            } else if (!arg.startsWith("--")) {
+                uris.add(URI.create(arg));
+            }
+        }
+        if (outputDir == null) {
+            logger.warn("bulk mode requires an output directory: --out=<directory>");
+            return;
+        }
+        logger.info("Bulk crawling {} uris with {} threads up to depth {} into {}", uris.size(), threads, depth,
+                        outputDir);
+        BulkCrawler crawler = new BulkCrawler(linkedDataSource, configureBulkCrawlProperties(), outputDir, threads,
+                        depth);
+        BulkCrawler.CrawlStatistics statistics = crawler.crawl(uris);
+        logger.info("Bulk crawl finished: {}", statistics);
+        if (statistics.getFailedResources() > 0 || statistics.getFailedWrites() > 0) {
+            logger.warn("{} resources could not be crawled, run again with --out={} to retry them",
+                            statistics.getFailedResources() + statistics.getFailedWrites(), outputDir);
+        }
+    }
+
     private void printResults(ResultSet results) {
         System.out.println("---------------------------RESULTS-----------------------------------");
         while (results.hasNext()) {
@@ -178,6 +229,15 @@ public class CLRunnerBean implements CommandLineRunner {
         return propertyPaths;
     }
 
+    /***
+     * The properties followed by the bulk crawl: those used in the property paths
+     * for crawling atom data
+     */
+    private static List<Property> configureBulkCrawlProperties() {
+        return Arrays.asList(WON.connections, RDFS.member, WON.targetConnection, WON.messageContainer,
+                        WON.sourceAtom);
+    }
+
     private static List<Path> configurePropertyPathAll() {
         List<Path> propertyPaths = new ArrayList<>();
         addPropertyPath(propertyPaths, "rdfs:member");
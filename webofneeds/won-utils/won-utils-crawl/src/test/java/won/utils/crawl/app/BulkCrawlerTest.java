@@ -0,0 +1,157 @@
+package won.utils.crawl.app;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import won.protocol.util.linkeddata.LinkedDataSource;
+
+public class BulkCrawlerTest {
+    private static final String BASE = "https://example.com/resource/";
+    private static final List<Property> PROPERTIES = Collections.singletonList(RDFS.member);
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEachResourceIsCrawledOnce() throws Exception {
+        Map<URI, AtomicInteger> fetches = new ConcurrentHashMap<>();
+        File outputDir = folder.newFolder();
+        BulkCrawler.CrawlStatistics statistics = new BulkCrawler(createDataSource(fetches, 100, 3), PROPERTIES,
+                        outputDir, 4, 10).crawl(Arrays.asList(uri(0), uri(1)));
+        Assert.assertEquals(100, statistics.getResources());
+        Assert.assertEquals(0, statistics.getFailedResources());
+        Assert.assertEquals(100, fetches.size());
+        fetches.values().forEach(count -> Assert.assertEquals(1, count.get()));
+        Assert.assertTrue(statistics.getBytes() > 0);
+        Dataset crawled = readOutput(outputDir);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(crawled.containsNamedModel(uri(i) + "#data"));
+        }
+    }
+
+    @Test
+    public void testMaxDepth() throws Exception {
+        Map<URI, AtomicInteger> fetches = new ConcurrentHashMap<>();
+        BulkCrawler.CrawlStatistics statistics = new BulkCrawler(createDataSource(fetches, 100, 1), PROPERTIES,
+                        folder.newFolder(), 2, 3).crawl(Collections.singletonList(uri(0)));
+        Assert.assertEquals(3, statistics.getResources());
+    }
+
+    @Test
+    public void testResumeCrawlsOnlyResourcesNotDone() throws Exception {
+        File outputDir = folder.newFolder();
+        try (FileWriter checkpoint = new FileWriter(new File(outputDir, BulkCrawler.CHECKPOINT_FILE))) {
+            checkpoint.write("Q 0 " + uri(0) + "\n");
+            checkpoint.write("Q 1 " + uri(1) + "\n");
+            checkpoint.write("Q 1 " + uri(2) + "\n");
+            checkpoint.write("D " + uri(0) + "\n");
+            checkpoint.write("D " + uri(1) + "\n");
+            // incomplete last line
+            checkpoint.write("Q 2");
+        }
+        Map<URI, AtomicInteger> fetches = new ConcurrentHashMap<>();
+        BulkCrawler.CrawlStatistics statistics = new BulkCrawler(createDataSource(fetches, 10, 2), PROPERTIES,
+                        outputDir, 2, 10).crawl(Collections.singletonList(uri(0)));
+        Assert.assertFalse(fetches.containsKey(uri(0)));
+        Assert.assertFalse(fetches.containsKey(uri(1)));
+        Assert.assertTrue(fetches.containsKey(uri(2)));
+        // 2 links to 5 and 6; 3 and 4 are only linked from 1, which is done
+        Assert.assertEquals(3, statistics.getResources());
+    }
+
+    @Test
+    public void testResumeRetriesFailedResources() throws Exception {
+        File outputDir = folder.newFolder();
+        Map<URI, AtomicInteger> fetches = new ConcurrentHashMap<>();
+        BulkCrawler.CrawlStatistics statistics = new BulkCrawler(
+                        createDataSource(fetches, 10, 2, Collections.singleton(uri(1))), PROPERTIES, outputDir, 2,
+                        10).crawl(Collections.singletonList(uri(0)));
+        Assert.assertEquals(1, statistics.getFailedResources());
+        // 0, 2, 5 and 6; the resources below 1 are not found
+        Assert.assertEquals(4, statistics.getResources());
+        fetches.clear();
+        statistics = new BulkCrawler(createDataSource(fetches, 10, 2), PROPERTIES, outputDir, 2, 10)
+                        .crawl(Collections.singletonList(uri(0)));
+        Assert.assertEquals(0, statistics.getFailedResources());
+        // 1, 3, 4, 7, 8 and 9
+        Assert.assertEquals(6, statistics.getResources());
+        Assert.assertEquals(6, fetches.size());
+        Assert.assertTrue(fetches.containsKey(uri(1)));
+        Dataset crawled = readOutput(outputDir);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(crawled.containsNamedModel(uri(i) + "#data"));
+        }
+    }
+
+    private static URI uri(int i) {
+        return URI.create(BASE + i);
+    }
+
+    /**
+     * Creates a data source serving the resources 0 to size - 1, where resource i
+     * links to the resources i * fanOut + 1 to i * fanOut + fanOut.
+     */
+    private static LinkedDataSource createDataSource(Map<URI, AtomicInteger> fetches, int size, int fanOut) {
+        return createDataSource(fetches, size, fanOut, Collections.emptySet());
+    }
+
+    /**
+     * Creates a data source as above, which fails to fetch the given resources.
+     */
+    private static LinkedDataSource createDataSource(Map<URI, AtomicInteger> fetches, int size, int fanOut,
+                    Set<URI> failing) {
+        return (LinkedDataSource) Proxy.newProxyInstance(LinkedDataSource.class.getClassLoader(),
+                        new Class<?>[] { LinkedDataSource.class }, (proxy, method, args) -> {
+                            if (!method.getName().equals("getDataForResource") || args.length != 1) {
+                                throw new UnsupportedOperationException(method.getName());
+                            }
+                            URI uri = (URI) args[0];
+                            fetches.computeIfAbsent(uri, u -> new AtomicInteger()).incrementAndGet();
+                            if (failing.contains(uri)) {
+                                throw new IllegalStateException("could not fetch " + uri);
+                            }
+                            int i = Integer.parseInt(uri.toString().substring(BASE.length()));
+                            Dataset dataset = DatasetFactory.createGeneral();
+                            Model model = dataset.getNamedModel(uri + "#data");
+                            for (int j = i * fanOut + 1; j <= i * fanOut + fanOut && j < size; j++) {
+                                model.add(model.createResource(uri.toString()), RDFS.member,
+                                                model.createResource(uri(j).toString()));
+                            }
+                            model.add(model.createResource(uri.toString()), RDFS.label, "resource " + i);
+                            return dataset;
+                        });
+    }
+
+    private static Dataset readOutput(File outputDir) throws IOException {
+        Dataset dataset = DatasetFactory.createGeneral();
+        for (File file : outputDir.listFiles((dir, name) -> name.endsWith(".nq"))) {
+            try (InputStream in = new FileInputStream(file)) {
+                RDFDataMgr.read(dataset, in, Lang.NQUADS);
+            }
+        }
+        return dataset;
+    }
+}
@@ -2,7 +2,6 @@ package won.utils.goals;
 
 import java.util.Collection;
 import java.util.LinkedList;
-import java.util.function.Function;
 
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.DatasetFactory;
@@ -137,9 +136,7 @@ public class GoalInstantiationProducer {
                 // condense it
                 // as far as possible to get the minimum model that is still conform to the
                 // shapes
-                Function<Model, Boolean> modelTestingFunction = param -> GoalUtils.validateModelShaclConformity(param,
-                                combinedShapesModel);
-                Model condensedModel = RdfUtils.condenseModelByIterativeTesting(blendedModel, modelTestingFunction);
+                Model condensedModel = GoalUtils.condenseModelByShaclConformity(blendedModel, combinedShapesModel);
                 bestGoalInstantiationResult = new GoalInstantiationResult(condensedModel, combinedShapesModel);
             } else {
                 // if the model is not conform save it if it has the least validation results
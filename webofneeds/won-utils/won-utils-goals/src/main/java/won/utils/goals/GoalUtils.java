@@ -3,19 +3,30 @@ package won.utils.goals;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.apache.commons.io.Charsets;
 import org.apache.commons.io.IOUtils;
+import org.apache.jena.graph.Node;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.QueryExecutionFactory;
 import org.apache.jena.query.QueryFactory;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.RDFNode;
 import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.rdf.model.Statement;
+import org.apache.jena.rdf.model.StmtIterator;
 import org.apache.jena.shared.NotFoundException;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
 import org.topbraid.shacl.validation.ValidationUtil;
 
+import won.protocol.util.RdfUtils;
 import won.utils.shacl.ShaclReportWrapper;
 
 /**
@@ -23,6 +34,10 @@ import won.utils.shacl.ShaclReportWrapper;
  * extraction of goals instantiation.
  */
 public class GoalUtils {
+    private static final String SHACL_NAMESPACE = "http://www.w3.org/ns/shacl#";
+    private static final Property SH_SPARQL = ResourceFactory.createProperty(SHACL_NAMESPACE, "sparql");
+    private static final Property SH_SELECT = ResourceFactory.createProperty(SHACL_NAMESPACE, "select");
+    private static final Property SH_ASK = ResourceFactory.createProperty(SHACL_NAMESPACE, "ask");
     private static final String goalExtractionQuery;
     static {
         goalExtractionQuery = loadSparqlQuery(
@@ -81,4 +96,60 @@ public class GoalUtils {
         ShaclReportWrapper shaclReportWrapper = new ShaclReportWrapper(report);
         return shaclReportWrapper.isConform();
     }
+
+    /**
+     * Condenses a data model that conforms to the shacl shapes to a minimal model
+     * that still conforms to them. Statements whose predicates are not referenced
+     * by the shapes cannot influence the validation and are removed without
+     * testing, the rest is condensed by
+     * {@link RdfUtils#condenseModelByDeltaDebugging(Model, java.util.function.Function)}.
+     *
+     * @param dataModel data model that conforms to the shapes
+     * @param shaclShapesModel the shapes model
+     * @return the condensed model
+     */
+    public static Model condenseModelByShaclConformity(Model dataModel, Model shaclShapesModel) {
+        Model referencedModel = removeStatementsNotReferencedByShapes(dataModel, shaclShapesModel);
+        if (referencedModel.size() < dataModel.size()
+                        && !validateModelShaclConformity(referencedModel, shaclShapesModel)) {
+            // should not happen, but if it does, condense all statements by testing
+            referencedModel = dataModel;
+        }
+        return RdfUtils.condenseModelByDeltaDebugging(referencedModel,
+                        model -> validateModelShaclConformity(model, shaclShapesModel));
+    }
+
+    /**
+     * Returns a copy of the data model without the statements that shacl shapes
+     * can never reference: statements whose predicate does not occur in the shapes
+     * model. Type statements are kept since they select shape targets. If the
+     * shapes use sparql based constraints, which can reference any predicate, all
+     * statements are kept.
+     */
+    public static Model removeStatementsNotReferencedByShapes(Model dataModel, Model shaclShapesModel) {
+        Model result = ModelFactory.createDefaultModel();
+        result.setNsPrefixes(dataModel.getNsPrefixMap());
+        if (shaclShapesModel.contains(null, SH_SPARQL, (RDFNode) null)
+                        || shaclShapesModel.contains(null, SH_SELECT, (RDFNode) null)
+                        || shaclShapesModel.contains(null, SH_ASK, (RDFNode) null)) {
+            result.add(dataModel);
+            return result;
+        }
+        Set<Node> referencedNodes = new HashSet<>();
+        shaclShapesModel.getGraph().find(Node.ANY, Node.ANY, Node.ANY).forEachRemaining(t -> {
+            referencedNodes.add(t.getSubject());
+            referencedNodes.add(t.getPredicate());
+            referencedNodes.add(t.getObject());
+        });
+        StmtIterator it = dataModel.listStatements();
+        while (it.hasNext()) {
+            Statement stmt = it.next();
+            Property predicate = stmt.getPredicate();
+            if (predicate.equals(RDF.type) || predicate.equals(RDFS.subClassOf)
+                            || referencedNodes.contains(predicate.asNode())) {
+                result.add(stmt);
+            }
+        }
+        return result;
+    }
 }
@@ -1,17 +1,25 @@
 package won.utils.goals;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.compose.Delta;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.impl.ResourceImpl;
-import org.apache.jena.util.ResourceUtils;
 
 /**
  * Iterator class that iterates over all possible models that could be a valid
@@ -21,15 +29,29 @@ import org.apache.jena.util.ResourceUtils;
  * of the input models are only considered for blending if they are part of a
  * "variable uri name space" which is passed in the constructor of this class
  * together with the two input models for blending.
+ * <p>
+ * The candidate pairs are found by looking up the statements of the second
+ * model by (predicate, object). The sets of pairs that can be blended together
+ * (no resource URI may occur in more than one pair) are enumerated by
+ * backtracking, so invalid combinations are never generated. The blended models
+ * are returned in the same order as before: ordered by the bit set of the pairs
+ * they blend. Each blended model is a view on the union of the input models
+ * that only stores the statements changed by the blending, so the input models
+ * are not copied for every result.
  */
 public class GraphBlendingIterator implements Iterator<Model> {
-    private static int MAX_RESOURCE_PAIR_SIZE = 10;
-    private Model dataGraph1;
-    private Model dataGraph2;
-    private String variableUriPrefix;
+    private static final int DEFAULT_MAX_RESOURCE_PAIR_SIZE = 16;
+    private Model unionModel;
     private String blendingUriPrefix;
-    private ArrayList<Pair<String, String>> blendingResourceUriPairs;
-    private int powerSetIndex = 0;
+    private List<Pair<String, String>> blendingResourceUriPairs;
+    // statements of the union model per resource URI they have as subject or
+    // object
+    private Map<String, List<Triple>> triplesByResourceUri = new HashMap<>();
+    // state of the backtracking: which pairs are blended in the next model and
+    // which resource URIs they use
+    private boolean[] blendedPairs;
+    private Set<String> blendedResourceUris = new HashSet<>();
+    private boolean hasNext = true;
 
     /**
      * Initialize the blending iterator
@@ -43,96 +65,122 @@ public class GraphBlendingIterator implements Iterator<Model> {
      */
     public GraphBlendingIterator(Model dataModel1, Model dataModel2, String variableUriPrefix,
                     String blendingUriPrefix) {
-        this.dataGraph1 = ModelFactory.createDefaultModel();
-        this.dataGraph1.add(dataModel1);
-        this.dataGraph2 = ModelFactory.createDefaultModel();
-        this.dataGraph2.add(dataModel2);
-        this.variableUriPrefix = variableUriPrefix;
+        this(dataModel1, dataModel2, variableUriPrefix, blendingUriPrefix, DEFAULT_MAX_RESOURCE_PAIR_SIZE);
+    }
+
+    /**
+     * Initialize the blending iterator
+     *
+     * @param dataModel1 first input model for blending
+     * @param dataModel2 second input model for blending
+     * @param variableUriPrefix uri prefix defines which resource URIs are
+     * considered for blending
+     * @param blendingUriPrefix uri prefix that is used to generate the result URIs
+     * of blended resources
+     * @param maxResourcePairSize maximum number of resource pairs that can be
+     * blended, the number of results can grow exponentially with it
+     */
+    public GraphBlendingIterator(Model dataModel1, Model dataModel2, String variableUriPrefix,
+                    String blendingUriPrefix, int maxResourcePairSize) {
         this.blendingUriPrefix = blendingUriPrefix;
-        // find all combinations of unique pairs of variable resources between the two
-        // models
-        // for whose statements blending is valid
-        blendingResourceUriPairs = new ArrayList<>();
+        this.unionModel = ModelFactory.createDefaultModel();
+        this.unionModel.setNsPrefixes(dataModel1.getNsPrefixMap());
+        this.unionModel.setNsPrefixes(dataModel2.getNsPrefixMap());
+        this.unionModel.add(dataModel1);
+        this.unionModel.add(dataModel2);
+        // index the statements of the second model with variable subjects by
+        // (predicate, object)
+        Map<Pair<Node, Node>, Set<String>> subjectsByPredicateAndObject = new HashMap<>();
+        for (Statement stmt2 : dataModel2.listStatements().toList()) {
+            String subjectUri = stmt2.getSubject().getURI();
+            if (isVariableResource(subjectUri, variableUriPrefix)) {
+                subjectsByPredicateAndObject.computeIfAbsent(
+                                Pair.of(stmt2.getPredicate().asNode(), stmt2.getObject().asNode()),
+                                k -> new LinkedHashSet<>()).add(subjectUri);
+            }
+        }
+        // find all unique pairs of variable resources between the two models for whose
+        // statements blending is valid. A resource cannot be blended with itself
+        Set<Pair<String, String>> pairs = new LinkedHashSet<>();
         for (Statement stmt1 : dataModel1.listStatements().toList()) {
-            if (isVariableResource(stmt1.getSubject().getURI())) {
-                for (Statement stmt2 : dataModel2.listStatements().toList()) {
-                    if (isVariableResource(stmt2.getSubject().getURI()) && isValidBlending(stmt1, stmt2)) {
-                        Pair blendingPair = Pair.of(stmt1.getSubject().getURI(), stmt2.getSubject().getURI());
-                        if (!blendingResourceUriPairs.contains(blendingPair)) {
-                            blendingResourceUriPairs.add(blendingPair);
+            String subjectUri = stmt1.getSubject().getURI();
+            if (isVariableResource(subjectUri, variableUriPrefix)) {
+                Set<String> subjectUris2 = subjectsByPredicateAndObject
+                                .get(Pair.of(stmt1.getPredicate().asNode(), stmt1.getObject().asNode()));
+                if (subjectUris2 != null) {
+                    for (String subjectUri2 : subjectUris2) {
+                        if (!subjectUri.equals(subjectUri2)) {
+                            pairs.add(Pair.of(subjectUri, subjectUri2));
                         }
                     }
                 }
             }
         }
-        if (blendingResourceUriPairs.size() > MAX_RESOURCE_PAIR_SIZE) {
+        blendingResourceUriPairs = new ArrayList<>(pairs);
+        if (blendingResourceUriPairs.size() > maxResourcePairSize) {
             throw new IllegalArgumentException("too many blending possibilities for these input models");
         }
+        blendedPairs = new boolean[blendingResourceUriPairs.size()];
+        // index the statements that change if a resource is blended
+        for (Pair<String, String> pair : blendingResourceUriPairs) {
+            indexTriples(pair.getLeft());
+            indexTriples(pair.getRight());
+        }
     }
 
-    private boolean isVariableResource(String uri) {
+    private static boolean isVariableResource(String uri, String variableUriPrefix) {
         return (uri != null && uri.startsWith(variableUriPrefix));
     }
 
-    private boolean isValidBlending(Statement stmt1, Statement stmt2) {
-        return (stmt1.getObject().equals(stmt2.getObject()) && stmt1.getPredicate().equals(stmt2.getPredicate()));
-    }
-
-    protected int getPowerSetSize() {
-        return (1 << blendingResourceUriPairs.size());
+    private void indexTriples(String resourceUri) {
+        if (triplesByResourceUri.containsKey(resourceUri)) {
+            return;
+        }
+        Node node = NodeFactory.createURI(resourceUri);
+        Graph graph = unionModel.getGraph();
+        List<Triple> triples = new ArrayList<>();
+        graph.find(node, Node.ANY, Node.ANY).forEachRemaining(triples::add);
+        graph.find(Node.ANY, Node.ANY, node).forEachRemaining(t -> {
+            if (!t.getSubject().equals(node)) {
+                triples.add(t);
+            }
+        });
+        triplesByResourceUri.put(resourceUri, triples);
     }
 
     /**
-     * Return the next valid power set index of a set of resource URI pairs. Not all
-     * power set indices are valid since resource URIs may only occur at most once
-     * in pair sets.
+     * Advances the backtracking to the next set of pairs that can be blended
+     * together. The pairs are decided from the last to the first one, not blending
+     * a pair is tried before blending it, which results in the order of the bit
+     * sets of the pairs.
      *
-     * @return next valid power set index or an index >= power set size if no next
-     * valid index exists anymore
+     * @return false if there is no next set of pairs
      */
-    private int getNextValidPowerSetIndex() {
-        // check if the combination of pairs is allowed
-        int validPowerSetIndex = powerSetIndex - 1;
-        boolean isValidPowerSet;
-        do {
-            validPowerSetIndex++;
-            // resource URI may only occur at most once in pair sets
-            // e.g. {(A,X),(B,X)} is not allowed since X occurs twice, so a lot of
-            // combinations are filtered out here
-            // if the same resource URI occurs in both graphs it should also only occur once
-            // in a valid set, either
-            // as left or right side of a pair. Therefore we can test for valid combinations
-            // using a set or list structure
-            // by inserting both left and right side pair entries and check for duplicate
-            // keys
-            isValidPowerSet = true;
-            Set<String> resourceSet = new HashSet<>();
-            for (int i = 0; i < blendingResourceUriPairs.size(); i++) {
-                // check which bits are set in the current setIndex
-                if ((validPowerSetIndex & (1 << i)) > 0) {
-                    Pair<String, String> currentPair = blendingResourceUriPairs.get(i);
-                    if (resourceSet.contains(currentPair.getLeft()) || resourceSet.contains(currentPair.getRight())
-                                    || currentPair.getLeft().equals(currentPair.getRight())) {
-                        isValidPowerSet = false;
-                        break;
-                    } else {
-                        resourceSet.add(currentPair.getLeft());
-                        resourceSet.add(currentPair.getRight());
-                    }
-                }
+    private boolean advance() {
+        for (int i = 0; i < blendedPairs.length; i++) {
+            Pair<String, String> pair = blendingResourceUriPairs.get(i);
+            if (blendedPairs[i]) {
+                // both alternatives for this pair have been used, go back to the previous
+                // decision
+                blendedPairs[i] = false;
+                blendedResourceUris.remove(pair.getLeft());
+                blendedResourceUris.remove(pair.getRight());
+            } else if (!blendedResourceUris.contains(pair.getLeft())
+                            && !blendedResourceUris.contains(pair.getRight())) {
+                // resource URI may only occur at most once in pair sets
+                // e.g. {(A,X),(B,X)} is not allowed since X occurs twice
+                blendedPairs[i] = true;
+                blendedResourceUris.add(pair.getLeft());
+                blendedResourceUris.add(pair.getRight());
+                return true;
             }
-        } while (validPowerSetIndex < getPowerSetSize() && !isValidPowerSet);
-        // if we found the next valid power set index return it
-        if (isValidPowerSet) {
-            return validPowerSetIndex;
         }
-        // this shows that no next valid power set index exists anymore
-        return getPowerSetSize();
+        return false;
     }
 
     @Override
     public boolean hasNext() {
-        return (powerSetIndex < getPowerSetSize());
+        return hasNext;
     }
 
     @Override
@@ -140,33 +188,53 @@ public class GraphBlendingIterator implements Iterator<Model> {
         if (!hasNext()) {
             throw new NoSuchElementException("No more elements available");
         }
-        // add all triples together in one graph
-        Model blendedModel = ModelFactory.createDefaultModel();
-        blendedModel.setNsPrefixes(dataGraph1.getNsPrefixMap());
-        blendedModel.setNsPrefixes(dataGraph2.getNsPrefixMap());
-        blendedModel.add(dataGraph1.listStatements());
-        blendedModel.add(dataGraph2.listStatements());
+        // find the new names of the blended resources
+        Map<Node, Node> renamedNodes = new HashMap<>();
         int blendingIndex = 0;
-        for (int i = 0; i < blendingResourceUriPairs.size(); i++) {
-            // check which bits are set in the current powerSetIndex and blend the
-            // corresponding Resource pairs
-            if ((powerSetIndex & (1 << i)) > 0) {
+        for (int i = 0; i < blendedPairs.length; i++) {
+            if (blendedPairs[i]) {
                 // find a name that is not used in the blended model yet
                 String blendedResourceUri;
                 do {
                     blendingIndex++;
                     blendedResourceUri = blendingUriPrefix + blendingIndex;
-                } while (blendedModel.containsResource(new ResourceImpl(blendedResourceUri)));
-                // blend the resources by renaming them
+                } while (isUsed(blendedResourceUri, renamedNodes));
                 Pair<String, String> blendingPair = blendingResourceUriPairs.get(i);
-                ResourceUtils.renameResource(blendedModel.getResource(blendingPair.getLeft()), blendedResourceUri);
-                ResourceUtils.renameResource(blendedModel.getResource(blendingPair.getRight()), blendedResourceUri);
+                Node blendedNode = NodeFactory.createURI(blendedResourceUri);
+                renamedNodes.put(NodeFactory.createURI(blendingPair.getLeft()), blendedNode);
+                renamedNodes.put(NodeFactory.createURI(blendingPair.getRight()), blendedNode);
             }
         }
-        // increase the power set index to the next valid index and return the blended
-        // model
-        powerSetIndex++;
-        powerSetIndex = getNextValidPowerSetIndex();
+        // blend the resources by renaming them in a view of the union of both graphs
+        Delta blendedGraph = new Delta(unionModel.getGraph());
+        Set<Triple> changedTriples = new LinkedHashSet<>();
+        for (Node renamedNode : renamedNodes.keySet()) {
+            changedTriples.addAll(triplesByResourceUri.get(renamedNode.getURI()));
+        }
+        for (Triple triple : changedTriples) {
+            blendedGraph.delete(triple);
+        }
+        for (Triple triple : changedTriples) {
+            blendedGraph.add(Triple.create(renamedNodes.getOrDefault(triple.getSubject(), triple.getSubject()),
+                            triple.getPredicate(),
+                            renamedNodes.getOrDefault(triple.getObject(), triple.getObject())));
+        }
+        Model blendedModel = ModelFactory.createModelForGraph(blendedGraph);
+        blendedModel.setNsPrefixes(unionModel.getNsPrefixMap());
+        // go to the next valid set of pairs
+        hasNext = advance();
         return blendedModel;
     }
+
+    /**
+     * Checks if a resource URI is used in the blended model, renamed resources are
+     * not used anymore.
+     */
+    private boolean isUsed(String resourceUri, Map<Node, Node> renamedNodes) {
+        Node node = NodeFactory.createURI(resourceUri);
+        if (renamedNodes.containsKey(node)) {
+            return false;
+        }
+        return renamedNodes.containsValue(node) || unionModel.containsResource(new ResourceImpl(resourceUri));
+    }
 }
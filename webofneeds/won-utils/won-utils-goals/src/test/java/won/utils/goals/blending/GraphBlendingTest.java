@@ -2,14 +2,17 @@ package won.utils.goals.blending;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
 import org.apache.jena.riot.RDFDataMgr;
 import org.apache.jena.riot.RDFFormat;
 import org.junit.Assert;
@@ -112,6 +115,56 @@ public class GraphBlendingTest {
         test(ds);
     }
 
+    @Test
+    public void blendManyPairs() {
+        // four resources in each model that can all be blended with each other (16
+        // pairs), only the matchings where every resource occurs at most once are
+        // valid
+        Model m1 = ModelFactory.createDefaultModel();
+        Model m2 = ModelFactory.createDefaultModel();
+        Property property = m1.createProperty("http://example.org/myvocabulary/testProperty");
+        for (int i = 1; i <= 4; i++) {
+            m1.add(m1.createResource("http://example.org/test/a" + i), property, "test");
+            m2.add(m2.createResource("http://example.org/test/b" + i), property, "test");
+        }
+        // statements that cannot be blended should not add blending possibilities
+        for (int i = 0; i < 100; i++) {
+            m1.add(m1.createResource("http://example.org/test/a1"), property, "a" + i);
+            m2.add(m2.createResource("http://example.org/test/b1"), property, "b" + i);
+        }
+        GraphBlendingIterator blendingIterator = new GraphBlendingIterator(m1, m2, "http://example.org/test",
+                        "http://example.org/test/blended");
+        Set<Integer> blendedCounts = new HashSet<>();
+        int actualSize = 0;
+        while (blendingIterator.hasNext()) {
+            Model blended = blendingIterator.next();
+            int subjects = blended.listSubjects().toSet().size();
+            Assert.assertTrue(subjects >= 4 && subjects <= 8);
+            blendedCounts.add(8 - subjects);
+            actualSize++;
+        }
+        // number of matchings in a complete bipartite graph with 4 + 4 nodes
+        Assert.assertEquals(1 + 16 + 72 + 96 + 24, actualSize);
+        Assert.assertEquals(5, blendedCounts.size());
+    }
+
+    @Test
+    public void blendedModelDoesNotChangeInputModels() throws IOException {
+        Dataset ds = loadDataset(baseFolder + "multiple2.trig");
+        Model m1 = ds.getNamedModel("http://example.org/test/data1");
+        Model m2 = ds.getNamedModel("http://example.org/test/data2");
+        long size1 = m1.size();
+        long size2 = m2.size();
+        GraphBlendingIterator blendingIterator = new GraphBlendingIterator(m1, m2, "http://example.org/test",
+                        "http://example.org/test/blended");
+        while (blendingIterator.hasNext()) {
+            Model blended = blendingIterator.next();
+            blended.removeAll();
+        }
+        Assert.assertEquals(size1, m1.size());
+        Assert.assertEquals(size2, m2.size());
+    }
+
     public void test(Dataset ds) {
         // extract the two input models
         BlendingTestModelWrapper m1 = new BlendingTestModelWrapper(ds.getNamedModel("http://example.org/test/data1"));
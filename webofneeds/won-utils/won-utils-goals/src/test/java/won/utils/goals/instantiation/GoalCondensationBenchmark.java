@@ -0,0 +1,84 @@
+package won.utils.goals.instantiation;
+
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Property;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.RDF;
+
+import won.protocol.util.RdfUtils;
+import won.utils.goals.GoalUtils;
+
+/**
+ * Utility app to compare the condensation of generated goal models by
+ * iterative testing and by delta debugging with shape based filtering. The
+ * generated models contain one taxi ride that the shapes require and
+ * additional rides and statements that are not needed.
+ */
+public class GoalCondensationBenchmark {
+    private static final String NS = "http://example.org/test/";
+    private static final String SH = "http://www.w3.org/ns/shacl#";
+    // iterative testing is quadratic, do not wait for it on large models
+    private static final int MAX_SIZE_FOR_ITERATIVE_TESTING = 500;
+
+    public static void main(String[] args) {
+        Model shapes = createShapes();
+        for (int size : new int[] { 50, 100, 250, 500, 1000, 2000 }) {
+            Model data = createData(size);
+            if (!GoalUtils.validateModelShaclConformity(data, shapes)) {
+                throw new IllegalStateException("generated data does not conform to the shapes");
+            }
+            long start = System.currentTimeMillis();
+            Model condensed = GoalUtils.condenseModelByShaclConformity(data, shapes);
+            long deltaDebuggingMillis = System.currentTimeMillis() - start;
+            String iterativeResult = "skipped";
+            if (size <= MAX_SIZE_FOR_ITERATIVE_TESTING) {
+                start = System.currentTimeMillis();
+                Model iterativelyCondensed = RdfUtils.condenseModelByIterativeTesting(data,
+                                m -> GoalUtils.validateModelShaclConformity(m, shapes));
+                iterativeResult = (System.currentTimeMillis() - start) + " ms (" + iterativelyCondensed.size()
+                                + " triples)";
+            }
+            System.out.println(String.format("%d triples: delta debugging %d ms (%d triples), iterative testing %s",
+                            data.size(), deltaDebuggingMillis, condensed.size(), iterativeResult));
+        }
+    }
+
+    /**
+     * A taxi ride needs a driver and a departure.
+     */
+    private static Model createShapes() {
+        Model shapes = ModelFactory.createDefaultModel();
+        Resource shape = shapes.createResource(NS + "RideShape");
+        shape.addProperty(RDF.type, shapes.createResource(SH + "NodeShape"));
+        shape.addProperty(shapes.createProperty(SH, "targetClass"), shapes.createResource(NS + "TaxiRide"));
+        for (String property : new String[] { "hasDriver", "hasDeparture" }) {
+            Resource propertyShape = shapes.createResource();
+            propertyShape.addProperty(shapes.createProperty(SH, "path"), shapes.createResource(NS + property));
+            propertyShape.addLiteral(shapes.createProperty(SH, "minCount"), 1);
+            shape.addProperty(shapes.createProperty(SH, "property"), propertyShape);
+        }
+        return shapes;
+    }
+
+    private static Model createData(int size) {
+        Model data = ModelFactory.createDefaultModel();
+        Resource taxiRide = data.createResource(NS + "TaxiRide");
+        Property hasDriver = data.createProperty(NS, "hasDriver");
+        Property hasDeparture = data.createProperty(NS, "hasDeparture");
+        Property comment = data.createProperty(NS, "comment");
+        Resource ride = data.createResource(NS + "ride");
+        ride.addProperty(RDF.type, taxiRide);
+        ride.addProperty(hasDriver, data.createResource(NS + "driver"));
+        ride.addProperty(hasDeparture, "Vienna");
+        int i = 0;
+        while (data.size() < size) {
+            // statements the shapes reference, but that are not needed
+            ride.addProperty(hasDeparture, "Departure " + i);
+            // statements the shapes do not reference
+            ride.addProperty(comment, "Comment " + i);
+            i++;
+        }
+        return data;
+    }
+}
@@ -0,0 +1,15 @@
+package won.utils.im.port;
+
+import java.util.Random;
+
+import org.apache.jena.rdf.model.Model;
+
+/**
+ * Generates sample atoms. Implementations must only use the given random
+ * generator, so that an atom depends on its seed only and atoms can be
+ * generated on several threads.
+ */
+@FunctionalInterface
+public interface AtomGenerator {
+    public Model generateAtom(int counter, Random random);
+}
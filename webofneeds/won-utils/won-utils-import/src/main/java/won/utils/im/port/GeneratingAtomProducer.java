@@ -0,0 +1,72 @@
+package won.utils.im.port;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.jena.query.Dataset;
+
+import won.bot.framework.component.atomproducer.AtomProducer;
+import won.protocol.util.AtomModelWrapper;
+
+/**
+ * AtomProducer that generates sample atoms instead of reading them, e.g. to let
+ * a bot create a large number of atoms on a running node (and thereby feed the
+ * matchers connected to it). Atoms are generated in batches, in parallel, with
+ * the same seeds as the {@link ParallelAtomGenerator}, so a node can be fed the
+ * same atoms as written to files with the same seed.
+ */
+public class GeneratingAtomProducer implements AtomProducer {
+    private AtomGenerator generator;
+    private int count = 1000;
+    private long seed = 0;
+    private int batchSize = 100;
+    private final Deque<Dataset> batch = new ArrayDeque<>();
+    private int next = 0;
+
+    @Override
+    public synchronized Dataset create() {
+        if (batch.isEmpty()) {
+            if (next >= count) {
+                return null;
+            }
+            int from = next;
+            int to = Math.min(count, from + batchSize);
+            List<Dataset> generated = IntStream.range(from, to).parallel()
+                            .mapToObj(i -> new AtomModelWrapper(
+                                            generator.generateAtom(i, ParallelAtomGenerator.getRandom(seed, i)), null)
+                                                            .copyDatasetWithoutSysinfo())
+                            .collect(Collectors.toList());
+            batch.addAll(generated);
+            next = to;
+        }
+        return batch.poll();
+    }
+
+    @Override
+    public synchronized boolean isExhausted() {
+        return batch.isEmpty() && next >= count;
+    }
+
+    public void setAtomType(final String atomType) {
+        this.generator = ParallelAtomGenerator.getGenerator(atomType);
+    }
+
+    public void setGenerator(final AtomGenerator generator) {
+        this.generator = generator;
+    }
+
+    public void setCount(final int count) {
+        this.count = count;
+    }
+
+    public void setSeed(final long seed) {
+        this.seed = seed;
+    }
+
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
@@ -0,0 +1,63 @@
+package won.utils.im.port;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ResIterator;
+import org.apache.jena.riot.RDFFormat;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.riot.system.StreamRDFWriter;
+import org.apache.jena.sparql.core.Quad;
+import org.apache.jena.vocabulary.RDF;
+
+import won.protocol.vocabulary.WON;
+
+/**
+ * Streams atom models into one N-Quads file, each atom in the graph
+ * <code>[atom uri]#atom</code>. Nothing but the output buffer is kept in
+ * memory, so any number of atoms can be written.
+ */
+public class NQuadsAtomWriter implements AtomDataWriter<Model> {
+    private OutputStream out;
+    private StreamRDF stream;
+    private int counter;
+
+    public NQuadsAtomWriter(final File outputFile) throws IOException {
+        out = new BufferedOutputStream(new FileOutputStream(outputFile), 1 << 16);
+        stream = StreamRDFWriter.getWriterStream(out, RDFFormat.NQUADS);
+        stream.start();
+        counter = 0;
+    }
+
+    @Override
+    public void write(final Model model) {
+        ResIterator atoms = model.listSubjectsWithProperty(RDF.type, WON.Atom);
+        if (!atoms.hasNext()) {
+            throw new IllegalArgumentException("model does not contain a resource of type won:Atom");
+        }
+        Node graph = NodeFactory.createURI(atoms.next().getURI() + "#atom");
+        atoms.close();
+        for (Iterator<Triple> it = model.getGraph().find(Node.ANY, Node.ANY, Node.ANY); it.hasNext();) {
+            stream.quad(new Quad(graph, it.next()));
+        }
+        counter++;
+    }
+
+    public int getCounter() {
+        return counter;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.finish();
+        out.close();
+    }
+}
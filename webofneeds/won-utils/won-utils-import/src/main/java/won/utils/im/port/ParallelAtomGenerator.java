@@ -0,0 +1,108 @@
+package won.utils.im.port;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates sample atoms on several threads and writes them into sharded
+ * N-Quads files (see {@link NQuadsAtomWriter}). Each atom gets its own random
+ * generator, seeded from the seed of the run and the number of the atom, so
+ * the generated atoms only depend on the seed, not on the number of threads or
+ * shards.
+ */
+public class ParallelAtomGenerator {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("arguments: [realestate|taxi|transport] [number of atoms] [output directory] "
+                            + "([seed] [number of shards] [number of threads])");
+            return;
+        }
+        AtomGenerator generator = getGenerator(args[0]);
+        int count = Integer.parseInt(args[1]);
+        File outputDir = new File(args[2]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        int shards = args.length > 4 ? Integer.parseInt(args[4]) : threads;
+        long start = System.nanoTime();
+        generate(generator, count, seed, shards, threads, outputDir);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("generated %d sample atoms in %d shards in %.1f s (%.0f atoms/s)", count,
+                        shards, seconds, count / seconds));
+    }
+
+    /**
+     * Returns the generator for the given type of atoms.
+     *
+     * @param type one of <code>realestate</code>, <code>taxi</code> and
+     * <code>transport</code>
+     */
+    public static AtomGenerator getGenerator(String type) {
+        switch (type) {
+            case "realestate":
+                return RealEstateAtomGenerator::generateAtom;
+            case "taxi":
+                return TaxiDemandAtomGenerator::generateAtom;
+            case "transport":
+                return TransportOfferAtomGenerator::generateAtom;
+            default:
+                throw new IllegalArgumentException("unknown type of atoms: " + type);
+        }
+    }
+
+    /**
+     * Generates the atoms <code>0</code> to <code>count - 1</code> into the files
+     * <code>atoms-00000.nq</code>, <code>atoms-00001.nq</code>, ... in the output
+     * directory. Each shard holds a contiguous range of atoms and is written by
+     * one thread.
+     */
+    public static void generate(AtomGenerator generator, int count, long seed, int shards, int threads,
+                    File outputDir) throws IOException, InterruptedException {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("could not create output directory " + outputDir);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>(shards);
+            for (int shard = 0; shard < shards; shard++) {
+                int from = (int) ((long) count * shard / shards);
+                int to = (int) ((long) count * (shard + 1) / shards);
+                File shardFile = new File(outputDir, String.format("atoms-%05d.nq", shard));
+                futures.add(executor.submit(() -> {
+                    try (NQuadsAtomWriter writer = new NQuadsAtomWriter(shardFile)) {
+                        for (int i = from; i < to; i++) {
+                            writer.write(generator.generateAtom(i, getRandom(seed, i)));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("could not generate atoms", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the random generator for the atom with the given number. The seeds
+     * of consecutive atoms are scrambled (SplitMix64 finalizer), as
+     * <code>java.util.Random</code> yields correlated first values for
+     * consecutive seeds.
+     */
+    public static Random getRandom(long seed, int counter) {
+        long z = seed + (counter + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new Random(z ^ (z >>> 31));
+    }
+}
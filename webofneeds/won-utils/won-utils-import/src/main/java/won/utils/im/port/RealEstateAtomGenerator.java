@@ -9,9 +9,11 @@ import java.math.RoundingMode;
 import java.nio.charset.Charset;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Random;
 
@@ -30,15 +32,24 @@ import won.protocol.vocabulary.WONCON;
 import won.protocol.vocabulary.WONMATCH;
 
 public class RealEstateAtomGenerator {
-    static Model model = ModelFactory.createDefaultModel();
     static RDFDatatype bigdata_geoSpatialDatatype = new BaseDatatype(
                     "http://www.bigdata.com/rdf/geospatial/literals/v1#lat-lon");
     static HashMap<String, String>[] locations = new HashMap[10];
     static String[] amenities = { "Balcony", "Parkingspace", "Garden", "Bathtub", "furnished", "Parquetflooring",
                     "Elevator", "Cellar", "Pool", "Sauna", "accessible" };
+    static final String ATOM_URI_PREFIX = "https://localhost:8443/won/resource/event/" + "real_estate_sample_";
+    // loaded once, the query of each atom is derived from it
+    static final String queryTemplate;
+    static {
+        initializeLocations();
+        try {
+            queryTemplate = getResourceAsString("realestate-offer-query-template.rq");
+        } catch (Exception e) {
+            throw new IllegalStateException("could not load resource realestate-offer-query-template.rq", e);
+        }
+    }
 
     public static void main(String[] args) throws Exception {
-        initializeLocations();
         generateAtoms();
     }
 
@@ -50,37 +61,9 @@ public class RealEstateAtomGenerator {
         int outputSteps = N / 10 / 10 * 10;
         Random random = new Random();
         for (int i = 0; i < N; i++) {
-            String rnd = Long.toHexString(random.nextLong());
-            String atomURI = "https://localhost:8443/won/resource/event/" + "real_estate_sample_" + rnd;
-            model = ModelFactory.createDefaultModel();
-            setPrefixes();
-            Resource atom = model.createResource(atomURI);
-            Resource seeksPart = model.createResource();
-            // method signatures: branch, probability that detail is added, min, max
-            atom = addTitle(atom, 1.0, i);
-            atom = addDescription(atom, 1.0);
-            atom = addQuery(atom);
-            atom = addLocation(atom, 1.0, atom);
-            atom = addAmenities(atom, 0.8, 1, 4);
-            atom = addFloorSize(atom, 0.8, 28, 250, atom);
-            atom = addNumberOfRooms(atom, 0.8, 1, 9, atom);
-            atom = addPriceSpecification(atom, 1.0, 250, 2200, atom);
-            atom.addProperty(WONCON.tag, "RentOutRealEstate");
-            seeksPart.addProperty(WONCON.tag, "SearchRealEstateToRent");
-            atom.addProperty(RDF.type, WON.Atom);
-            /*
-             * no sockets - they are added by the bot Resource won_ChatSocket =
-             * model.createResource("https://w3id.org/won/core#ChatSocket"); Resource
-             * holdableSocket = atom.getModel().getResource(atomURI + "#holdableSocket");
-             * holdableSocket.addProperty(RDF.type,
-             * holdableSocket.getModel().getResource(SocketType.HoldableSocket.getURI().
-             * toString())); atom.addProperty(won_socket, holdableSocket); Resource
-             * chatSocket = atom.getModel().getResource(atomURI + "#chatSocket");
-             * chatSocket.addProperty(RDF.type,
-             * chatSocket.getModel().getResource(SocketType.ChatSocket.getURI().toString()))
-             * ; atom.addProperty(won_socket, chatSocket);
-             */
-            atom.addProperty(WONMATCH.seeks, seeksPart);
+            Model model = generateAtom(i, random);
+            String rnd = model.listSubjectsWithProperty(RDF.type, WON.Atom).next().getURI()
+                            .substring(ATOM_URI_PREFIX.length());
             try {
                 FileOutputStream out = new FileOutputStream(
                                 new File(parentFolder, "real_estate_atom_" + rnd + ".trig"));
@@ -96,36 +79,81 @@ public class RealEstateAtomGenerator {
         System.out.println("generated " + N + " sample atoms");
     }
 
-    private static Resource addQuery(Resource resource) throws Exception {
-        String query = RealEstateAtomGenerator.getResourceAsString("realestate-offer-query-template.rq");
-        return resource.addLiteral(WONMATCH.sparqlQuery, query);
+    /**
+     * Generates a sample atom. All random choices are made with the given random
+     * generator, so the same seed yields the same atom, and atoms can be
+     * generated on several threads.
+     *
+     * @param counter the number of the atom, used in its title
+     * @param random the random generator to use
+     * @return the model of the atom
+     */
+    public static Model generateAtom(int counter, Random random) {
+        String rnd = Long.toHexString(random.nextLong());
+        String atomURI = ATOM_URI_PREFIX + rnd;
+        Model model = ModelFactory.createDefaultModel();
+        setPrefixes(model);
+        Resource atom = model.createResource(atomURI);
+        Resource seeksPart = model.createResource();
+        // method signatures: branch, probability that detail is added, min, max
+        atom = addTitle(atom, 1.0, counter, random);
+        atom = addDescription(atom, 1.0, random);
+        atom = addQuery(atom);
+        atom = addLocation(atom, 1.0, atom, random);
+        atom = addAmenities(atom, 0.8, 1, 4, random);
+        atom = addFloorSize(atom, 0.8, 28, 250, atom, random);
+        atom = addNumberOfRooms(atom, 0.8, 1, 9, atom, random);
+        atom = addPriceSpecification(atom, 1.0, 250, 2200, atom, random);
+        atom.addProperty(WONCON.tag, "RentOutRealEstate");
+        seeksPart.addProperty(WONCON.tag, "SearchRealEstateToRent");
+        atom.addProperty(RDF.type, WON.Atom);
+        /*
+         * no sockets - they are added by the bot Resource won_ChatSocket =
+         * model.createResource("https://w3id.org/won/core#ChatSocket"); Resource
+         * holdableSocket = atom.getModel().getResource(atomURI + "#holdableSocket");
+         * holdableSocket.addProperty(RDF.type,
+         * holdableSocket.getModel().getResource(SocketType.HoldableSocket.getURI().
+         * toString())); atom.addProperty(won_socket, holdableSocket); Resource
+         * chatSocket = atom.getModel().getResource(atomURI + "#chatSocket");
+         * chatSocket.addProperty(RDF.type,
+         * chatSocket.getModel().getResource(SocketType.ChatSocket.getURI().toString()))
+         * ; atom.addProperty(won_socket, chatSocket);
+         */
+        atom.addProperty(WONMATCH.seeks, seeksPart);
+        return model;
+    }
+
+    private static Resource addQuery(Resource resource) {
+        return resource.addLiteral(WONMATCH.sparqlQuery, queryTemplate);
     }
 
-    private static Resource addTitle(Resource resource, double probability, int counter) {
-        if (Math.random() < (1.0 - probability)) {
+    private static Resource addTitle(Resource resource, double probability, int counter, Random random) {
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
         resource.addProperty(DC.title, "Sample Real Estate Atom " + counter);
         return resource;
     }
 
-    private static Resource addDescription(Resource resource, double probability) {
-        if (Math.random() < (1.0 - probability)) {
+    private static Resource addDescription(Resource resource, double probability, Random random) {
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
         resource.addProperty(DC.description, "This is a sample offer that was automatically generated.");
         return resource;
     }
 
-    private static Resource addLocation(Resource resource, double probability, Resource resourceForQuery) {
-        if (Math.random() < (1.0 - probability)) {
+    private static Resource addLocation(Resource resource, double probability, Resource resourceForQuery,
+                    Random random) {
+        Model model = resource.getModel();
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
         // pick a location and change it by a random amount so that the locations are
         // scattered around a point
-        int locNr = (int) (Math.random() * 10);
-        double rndlat = 0.05 * Math.random();
-        double rndlng = 0.05 * Math.random();
+        int locNr = (int) (random.nextDouble() * 10);
+        double rndlat = 0.05 * random.nextDouble();
+        double rndlng = 0.05 * random.nextDouble();
         DecimalFormat df = new DecimalFormat("##.######");
         df.setRoundingMode(RoundingMode.HALF_UP);
         df.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
@@ -174,29 +202,32 @@ public class RealEstateAtomGenerator {
         return resource.addProperty(WONMATCH.sparqlQuery, query.replaceAll(toReplace, replacement));
     }
 
-    private static Resource addAmenities(Resource resource, double probability, int min, int max) {
-        if (Math.random() < (1.0 - probability)) {
+    private static Resource addAmenities(Resource resource, double probability, int min, int max, Random random) {
+        Model model = resource.getModel();
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
-        int numberOfAmenities = (int) (Math.random() * Math.abs(max - min + 1) + min);
-        Collections.shuffle(Arrays.asList(amenities));
+        int numberOfAmenities = (int) (random.nextDouble() * Math.abs(max - min + 1) + min);
+        List<String> shuffledAmenities = new ArrayList<>(Arrays.asList(amenities));
+        Collections.shuffle(shuffledAmenities, random);
         Resource schema_LocationFeatureSpecification = model
                         .createResource("http://schema.org/LocationFeatureSpecification");
         for (int j = 0; j < numberOfAmenities; j++) {
             Resource amenityResource = model.createResource();
             resource.addProperty(SCHEMA.AMENITYFEATURE, amenityResource);
             amenityResource.addProperty(RDF.type, schema_LocationFeatureSpecification);
-            amenityResource.addProperty(SCHEMA.VALUE, amenities[j], SCHEMA.TEXT);
+            amenityResource.addProperty(SCHEMA.VALUE, shuffledAmenities.get(j), SCHEMA.TEXT);
         }
         return resource;
     }
 
     private static Resource addFloorSize(Resource resource, double probability, int min, int max,
-                    Resource resourceForQuery) {
-        if (Math.random() < (1.0 - probability)) {
+                    Resource resourceForQuery, Random random) {
+        Model model = resource.getModel();
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
-        int floorSize = (int) (Math.random() * Math.abs(max - min + 1)) + min;
+        int floorSize = (int) (random.nextDouble() * Math.abs(max - min + 1)) + min;
         Resource floorSizeResource = model.createResource();
         Resource schema_QuantitativeValue = model.createResource("http://schema.org/QuantitativeValue");
         resource.addProperty(SCHEMA.FLOORSIZE, floorSizeResource);
@@ -208,22 +239,23 @@ public class RealEstateAtomGenerator {
     }
 
     private static Resource addNumberOfRooms(Resource resource, double probability, int min, int max,
-                    Resource resourceForQuery) {
-        if (Math.random() < (1.0 - probability)) {
+                    Resource resourceForQuery, Random random) {
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
-        int numberOfRooms = (int) (Math.random() * Math.abs(max - min + 1)) + min;
+        int numberOfRooms = (int) (random.nextDouble() * Math.abs(max - min + 1)) + min;
         resource.addProperty(SCHEMA.NUMBEROFROOMS, Integer.toString(numberOfRooms), XSDDatatype.XSDfloat);
         replaceInQuery(resourceForQuery, "\\?varNumberOfRooms", "\"" + numberOfRooms + "\"");
         return resource;
     }
 
     private static Resource addPriceSpecification(Resource resource, double probability, double min, double max,
-                    Resource resourceForQuery) {
-        if (Math.random() < (1.0 - probability)) {
+                    Resource resourceForQuery, Random random) {
+        Model model = resource.getModel();
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
-        int price = (int) (Math.random() * Math.abs(max - min + 1) + min);
+        int price = (int) (random.nextDouble() * Math.abs(max - min + 1) + min);
         Resource schema_CompoundPriceSpecification = model
                         .createResource("http://schema.org/CompoundPriceSpecification");
         Resource priceSpecificationResource = model.createResource();
@@ -330,7 +362,7 @@ public class RealEstateAtomGenerator {
         locations[9] = loc9;
     }
 
-    private static void setPrefixes() {
+    private static void setPrefixes(Model model) {
         model.setNsPrefix("conn", "https://localhost:8443/won/resource/connection/");
         model.setNsPrefix("atom", "https://localhost:8443/won/resource/atom/");
         model.setNsPrefix("local", "https://localhost:8443/won/resource/");
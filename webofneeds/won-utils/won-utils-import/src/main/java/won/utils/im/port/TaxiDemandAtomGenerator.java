@@ -1,9 +1,11 @@
 package won.utils.im.port;
 
 import java.io.FileOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Random;
 
 import org.apache.jena.rdf.model.Model;
@@ -13,15 +15,19 @@ import org.apache.jena.vocabulary.DC;
 import org.apache.jena.vocabulary.RDF;
 
 import won.protocol.vocabulary.SCHEMA;
+import won.protocol.vocabulary.WON;
 import won.protocol.vocabulary.WONCON;
 import won.protocol.vocabulary.WONMATCH;
 
 public class TaxiDemandAtomGenerator {
-    static Model model = ModelFactory.createDefaultModel();
     static HashMap<String, String>[] locations = new HashMap[10];
+    static final String ATOM_URI_PREFIX = "https://localhost:8443/won/resource/event/" + "taxi_demand_atom_";
 
-    public static void main(String[] args) {
+    static {
         initializeLocations();
+    }
+
+    public static void main(String[] args) {
         generateAtoms();
     }
 
@@ -29,23 +35,9 @@ public class TaxiDemandAtomGenerator {
         final int N = 100;
         Random random = new Random();
         for (int i = 0; i < N; i++) {
-            String rnd = Long.toHexString(random.nextLong());
-            String atomURI = "https://localhost:8443/won/resource/event/" + "taxi_demand_atom_" + rnd;
-            model = ModelFactory.createDefaultModel();
-            setPrefixes();
-            Resource atom = model.createResource(atomURI);
-            // Resource isPart = model.createResource();
-            Resource seeksPart = model.createResource();
-            Resource won_Atom = model.createResource("https://w3id.org/won/core#Atom");
-            // method signatures: branch, probability that detail is added, min, max
-            atom = addTitle(atom, 1.0, i);
-            atom = addDescription(atom, 1.0);
-            atom.addProperty(WONCON.tag, "search-lift");
-            seeksPart = addDate(seeksPart, 0.9);
-            // seeksPart = addTime(seeksPart, 0.9);
-            seeksPart = addTravelAction(seeksPart, 0.9);
-            atom.addProperty(RDF.type, won_Atom);
-            atom.addProperty(WONMATCH.seeks, seeksPart);
+            Model model = generateAtom(i, random);
+            String rnd = model.listSubjectsWithProperty(RDF.type, WON.Atom).next().getURI()
+                            .substring(ATOM_URI_PREFIX.length());
             try {
                 FileOutputStream out = new FileOutputStream("sample_atoms/taxi_demand_atom_" + rnd + ".trig");
                 model.write(out, "TURTLE");
@@ -57,16 +49,41 @@ public class TaxiDemandAtomGenerator {
         System.out.println("generated " + N + " sample atoms");
     }
 
-    private static Resource addTitle(Resource resource, double probability, int counter) {
-        if (Math.random() < (1.0 - probability)) {
+    /**
+     * Generates a sample atom, see
+     * {@link RealEstateAtomGenerator#generateAtom(int, Random)}.
+     */
+    public static Model generateAtom(int counter, Random random) {
+        String rnd = Long.toHexString(random.nextLong());
+        String atomURI = ATOM_URI_PREFIX + rnd;
+        Model model = ModelFactory.createDefaultModel();
+        setPrefixes(model);
+        Resource atom = model.createResource(atomURI);
+        // Resource isPart = model.createResource();
+        Resource seeksPart = model.createResource();
+        Resource won_Atom = model.createResource("https://w3id.org/won/core#Atom");
+        // method signatures: branch, probability that detail is added, min, max
+        atom = addTitle(atom, 1.0, counter, random);
+        atom = addDescription(atom, 1.0, random);
+        atom.addProperty(WONCON.tag, "search-lift");
+        seeksPart = addDate(seeksPart, 0.9, random);
+        // seeksPart = addTime(seeksPart, 0.9);
+        seeksPart = addTravelAction(seeksPart, 0.9, random);
+        atom.addProperty(RDF.type, won_Atom);
+        atom.addProperty(WONMATCH.seeks, seeksPart);
+        return model;
+    }
+
+    private static Resource addTitle(Resource resource, double probability, int counter, Random random) {
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
         resource.addProperty(DC.title, "Sample Taxi Demand Atom " + counter);
         return resource;
     }
 
-    private static Resource addDescription(Resource resource, double probability) {
-        if (Math.random() < (1.0 - probability)) {
+    private static Resource addDescription(Resource resource, double probability, Random random) {
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
         resource.addProperty(DC.description, "This is a sample offer that was automatically generated.");
@@ -74,13 +91,13 @@ public class TaxiDemandAtomGenerator {
     }
 
     // dc:date "2015-12-01" ;
-    private static Resource addDate(Resource resource, double probability) {
-        if (Math.random() < (1.0 - probability)) {
+    private static Resource addDate(Resource resource, double probability, Random random) {
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
-        int year = (int) (Math.random() * 2100 - 1989 + 1990);
-        int month = (int) (Math.random() * 13);
-        int day = (int) (Math.random() * 29);
+        int year = (int) (random.nextDouble() * 2100 - 1989 + 1990);
+        int month = (int) (random.nextDouble() * 13);
+        int day = (int) (random.nextDouble() * 29);
         resource.addProperty(DC.date, year + "-" + month + "-" + day);
         return resource;
     }
@@ -94,23 +111,25 @@ public class TaxiDemandAtomGenerator {
 
     // return resource;
     // }
-    private static Resource addTravelAction(Resource resource, double probability) {
-        if (Math.random() < (1.0 - probability)) {
+    private static Resource addTravelAction(Resource resource, double probability, Random random) {
+        Model model = resource.getModel();
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
-        Collections.shuffle(Arrays.asList(locations));
+        List<HashMap<String, String>> shuffledLocations = new ArrayList<>(Arrays.asList(locations));
+        Collections.shuffle(shuffledLocations, random);
         Resource fromLocationResource = model.createResource();
         Resource fromGeoResource = model.createResource();
         Resource fromSchema_Place = model.createResource("http://schema.org/Place");
         Resource fromSchema_GeoCoordinates = model.createResource("http://schema.org/GeoCoordinates");
         resource.addProperty(WONCON.travelAction, fromLocationResource);
         fromLocationResource.addProperty(RDF.type, fromSchema_Place);
-        fromLocationResource.addProperty(SCHEMA.NAME, locations[0].get("name"));
+        fromLocationResource.addProperty(SCHEMA.NAME, shuffledLocations.get(0).get("name"));
         fromLocationResource.addProperty(SCHEMA.GEO, fromGeoResource);
         fromGeoResource.addProperty(RDF.type, fromSchema_GeoCoordinates);
-        fromGeoResource.addProperty(SCHEMA.LATITUDE, locations[0].get("lat"));
-        fromGeoResource.addProperty(SCHEMA.LONGITUDE, locations[0].get("lng"));
-        if (Math.random() < (1.0 - probability)) {
+        fromGeoResource.addProperty(SCHEMA.LATITUDE, shuffledLocations.get(0).get("lat"));
+        fromGeoResource.addProperty(SCHEMA.LONGITUDE, shuffledLocations.get(0).get("lng"));
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
         Resource toLocationResource = model.createResource();
@@ -119,11 +138,11 @@ public class TaxiDemandAtomGenerator {
         Resource toSchema_GeoCoordinates = model.createResource("http://schema.org/GeoCoordinates");
         resource.addProperty(WONCON.travelAction, toLocationResource);
         toLocationResource.addProperty(RDF.type, toSchema_Place);
-        toLocationResource.addProperty(SCHEMA.NAME, locations[1].get("name"));
+        toLocationResource.addProperty(SCHEMA.NAME, shuffledLocations.get(1).get("name"));
         toLocationResource.addProperty(SCHEMA.GEO, toGeoResource);
         toGeoResource.addProperty(RDF.type, toSchema_GeoCoordinates);
-        toGeoResource.addProperty(SCHEMA.LATITUDE, locations[1].get("lat"));
-        toGeoResource.addProperty(SCHEMA.LONGITUDE, locations[1].get("lng"));
+        toGeoResource.addProperty(SCHEMA.LATITUDE, shuffledLocations.get(1).get("lat"));
+        toGeoResource.addProperty(SCHEMA.LONGITUDE, shuffledLocations.get(1).get("lng"));
         return resource;
     }
 
@@ -220,7 +239,7 @@ public class TaxiDemandAtomGenerator {
         locations[9] = loc9;
     }
 
-    private static void setPrefixes() {
+    private static void setPrefixes(Model model) {
         model.setNsPrefix("conn", "https://localhost:8443/won/resource/connection/");
         model.setNsPrefix("atom", "https://localhost:8443/won/resource/atom/");
         model.setNsPrefix("local", "https://localhost:8443/won/resource/");
@@ -4,9 +4,11 @@ import java.io.FileOutputStream;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Random;
 
@@ -19,19 +21,23 @@ import org.apache.jena.vocabulary.DC;
 import org.apache.jena.vocabulary.RDF;
 
 import won.protocol.vocabulary.SCHEMA;
+import won.protocol.vocabulary.WON;
 import won.protocol.vocabulary.WONCON;
 import won.protocol.vocabulary.WONMATCH;
 
 public class TransportOfferAtomGenerator {
-    static Model model = ModelFactory.createDefaultModel();
     static RDFDatatype bigdata_geoSpatialDatatype = new BaseDatatype(
                     "http://www.bigdata.com/rdf/geospatial/literals/v1#lat-lon");
     static HashMap<String, String>[] locations = new HashMap[10];
     static String[] tags = { "quick", "<10kg", "long-distance", "cooled", "pets", "furniture", "short-distance",
                     "small", "non-living", "produce", "time-sensitive" };
+    static final String ATOM_URI_PREFIX = "https://localhost:8443/won/resource/event/" + "transport_offer_atom_";
 
-    public static void main(String[] args) {
+    static {
         initializeLocations();
+    }
+
+    public static void main(String[] args) {
         generateAtoms();
     }
 
@@ -39,20 +45,9 @@ public class TransportOfferAtomGenerator {
         final int N = 100;
         Random random = new Random();
         for (int i = 0; i < N; i++) {
-            String rnd = Long.toHexString(random.nextLong());
-            String atomURI = "https://localhost:8443/won/resource/event/" + "transport_offer_atom_" + rnd;
-            model = ModelFactory.createDefaultModel();
-            setPrefixes();
-            Resource atom = model.createResource(atomURI);
-            Resource seeksPart = model.createResource();
-            Resource won_Atom = model.createResource("https://w3id.org/won/core#Atom");
-            // method signatures: branch, probability that detail is added, min, max
-            atom = addTitle(atom, 1.0, i);
-            atom = addLocation(atom, 1.0);
-            seeksPart = addDescription(seeksPart, 1.0);
-            seeksPart = addTags(seeksPart, 0.8, 1, 3);
-            atom.addProperty(RDF.type, won_Atom);
-            atom.addProperty(WONMATCH.seeks, seeksPart);
+            Model model = generateAtom(i, random);
+            String rnd = model.listSubjectsWithProperty(RDF.type, WON.Atom).next().getURI()
+                            .substring(ATOM_URI_PREFIX.length());
             try {
                 FileOutputStream out = new FileOutputStream("sample_atoms/transport_offer_atom_" + rnd + ".trig");
                 model.write(out, "TURTLE");
@@ -64,31 +59,54 @@ public class TransportOfferAtomGenerator {
         System.out.println("generated " + N + " sample atoms");
     }
 
-    private static Resource addTitle(Resource resource, double probability, int counter) {
-        if (Math.random() < (1.0 - probability)) {
+    /**
+     * Generates a sample atom, see
+     * {@link RealEstateAtomGenerator#generateAtom(int, Random)}.
+     */
+    public static Model generateAtom(int counter, Random random) {
+        String rnd = Long.toHexString(random.nextLong());
+        String atomURI = ATOM_URI_PREFIX + rnd;
+        Model model = ModelFactory.createDefaultModel();
+        setPrefixes(model);
+        Resource atom = model.createResource(atomURI);
+        Resource seeksPart = model.createResource();
+        Resource won_Atom = model.createResource("https://w3id.org/won/core#Atom");
+        // method signatures: branch, probability that detail is added, min, max
+        atom = addTitle(atom, 1.0, counter, random);
+        atom = addLocation(atom, 1.0, random);
+        seeksPart = addDescription(seeksPart, 1.0, random);
+        seeksPart = addTags(seeksPart, 0.8, 1, 3, random);
+        atom.addProperty(RDF.type, won_Atom);
+        atom.addProperty(WONMATCH.seeks, seeksPart);
+        return model;
+    }
+
+    private static Resource addTitle(Resource resource, double probability, int counter, Random random) {
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
         resource.addProperty(DC.title, "Sample Transport Offer " + counter);
         return resource;
     }
 
-    private static Resource addDescription(Resource resource, double probability) {
-        if (Math.random() < (1.0 - probability)) {
+    private static Resource addDescription(Resource resource, double probability, Random random) {
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
         resource.addProperty(DC.description, "This is a sample offer that was automatically generated.");
         return resource;
     }
 
-    private static Resource addLocation(Resource resource, double probability) {
-        if (Math.random() < (1.0 - probability)) {
+    private static Resource addLocation(Resource resource, double probability, Random random) {
+        Model model = resource.getModel();
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
         // pick a location and change it by a random amount so that the locations are
         // scattered around a point
-        int locNr = (int) (Math.random() * 10);
-        double rndlat = 0.05 * Math.random();
-        double rndlng = 0.05 * Math.random();
+        int locNr = (int) (random.nextDouble() * 10);
+        double rndlat = 0.05 * random.nextDouble();
+        double rndlng = 0.05 * random.nextDouble();
         DecimalFormat df = new DecimalFormat("##.######");
         df.setRoundingMode(RoundingMode.HALF_UP);
         df.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
@@ -128,14 +146,15 @@ public class TransportOfferAtomGenerator {
         return resource;
     }
 
-    private static Resource addTags(Resource resource, double probability, int min, int max) {
-        if (Math.random() < (1.0 - probability)) {
+    private static Resource addTags(Resource resource, double probability, int min, int max, Random random) {
+        if (random.nextDouble() < (1.0 - probability)) {
             return resource;
         }
-        int numberOfTags = (int) (Math.random() * Math.abs(max - min + 1) + min);
-        Collections.shuffle(Arrays.asList(tags));
+        int numberOfTags = (int) (random.nextDouble() * Math.abs(max - min + 1) + min);
+        List<String> shuffledTags = new ArrayList<>(Arrays.asList(tags));
+        Collections.shuffle(shuffledTags, random);
         for (int j = 0; j < numberOfTags; j++) {
-            resource.addProperty(WONCON.tag, tags[j]);
+            resource.addProperty(WONCON.tag, shuffledTags.get(j));
         }
         return resource;
     }
@@ -233,7 +252,7 @@ public class TransportOfferAtomGenerator {
         locations[9] = loc9;
     }
 
-    private static void setPrefixes() {
+    private static void setPrefixes(Model model) {
         model.setNsPrefix("conn", "https://localhost:8443/won/resource/connection/");
         model.setNsPrefix("atom", "https://localhost:8443/won/resource/atom/");
         model.setNsPrefix("local", "https://localhost:8443/won/resource/");
@@ -0,0 +1,80 @@
+package won.utils.im.port;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import won.protocol.util.RdfUtils;
+
+public class ParallelAtomGeneratorTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testOutputDoesNotDependOnThreadsAndShards() throws Exception {
+        for (String type : new String[] { "realestate", "taxi", "transport" }) {
+            File sequential = folder.newFolder();
+            File parallel = folder.newFolder();
+            ParallelAtomGenerator.generate(ParallelAtomGenerator.getGenerator(type), 50, 42, 1, 1, sequential);
+            ParallelAtomGenerator.generate(ParallelAtomGenerator.getGenerator(type), 50, 42, 7, 4, parallel);
+            Assert.assertEquals(7, parallel.listFiles().length);
+            Dataset expected = readShards(sequential);
+            Dataset actual = readShards(parallel);
+            Assert.assertEquals(type, 50, countGraphs(actual));
+            Assert.assertTrue(type, RdfUtils.isIsomorphicWith(expected, actual));
+        }
+    }
+
+    @Test
+    public void testSeedChangesAtoms() throws Exception {
+        File first = folder.newFolder();
+        File second = folder.newFolder();
+        ParallelAtomGenerator.generate(ParallelAtomGenerator.getGenerator("realestate"), 10, 1, 2, 2, first);
+        ParallelAtomGenerator.generate(ParallelAtomGenerator.getGenerator("realestate"), 10, 2, 2, 2, second);
+        Assert.assertFalse(RdfUtils.isIsomorphicWith(readShards(first), readShards(second)));
+    }
+
+    @Test
+    public void testProducerGeneratesCountAtomsInBatches() {
+        GeneratingAtomProducer producer = new GeneratingAtomProducer();
+        producer.setAtomType("transport");
+        producer.setCount(25);
+        producer.setBatchSize(10);
+        int produced = 0;
+        while (!producer.isExhausted()) {
+            Assert.assertNotNull(producer.create());
+            produced++;
+        }
+        Assert.assertEquals(25, produced);
+        Assert.assertNull(producer.create());
+    }
+
+    private static Dataset readShards(File dir) throws IOException {
+        Dataset dataset = DatasetFactory.createGeneral();
+        for (File file : dir.listFiles()) {
+            try (InputStream in = new FileInputStream(file)) {
+                RDFDataMgr.read(dataset, in, Lang.NQUADS);
+            }
+        }
+        return dataset;
+    }
+
+    private static int countGraphs(Dataset dataset) {
+        int count = 0;
+        for (Iterator<String> it = dataset.listNames(); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+}